@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.cpc;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the CpcSketch update, union, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation.
+ * The CPC sketch only exists on the heap, so there is no memory parameter.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CpcSketchBenchmark {
+
+  @Param({"11", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private long[] items;
+  private CpcSketch sketch;
+  private CpcSketch other;
+  private Memory mem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new long[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextLong(); }
+    sketch = update();
+    other = new CpcSketch(lgK);
+    for (int i = 0; i < n; i++) { other.update(rand.nextLong()); }
+    mem = Memory.wrap(sketch.toByteArray());
+  }
+
+  @Benchmark
+  public CpcSketch update() {
+    final CpcSketch sk = new CpcSketch(lgK);
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public CpcSketch updateAll() {
+    final CpcSketch sk = new CpcSketch(lgK);
+    sk.updateAll(items, 0, n);
+    return sk;
+  }
+
+  @Benchmark
+  public CpcSketch union() {
+    final CpcUnion union = new CpcUnion(lgK);
+    union.update(sketch);
+    union.update(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public CpcSketch heapify() {
+    return CpcSketch.heapify(mem);
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+}
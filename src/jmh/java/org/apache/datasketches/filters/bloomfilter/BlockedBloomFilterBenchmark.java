@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the blocked BloomFilter update and query paths, alongside the standard
+ * BloomFilter with the same parameters for comparison.
+ *
+ * <p>Both filters are sized for <i>n</i> distinct items at the target false positive probability
+ * and loaded with <i>n</i> items. Half of the query keys were inserted, half were not.
+ * The large configuration does not fit in cache, which is where blocking pays off.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockedBloomFilterBenchmark {
+  private static final int NUM_KEYS = 1 << 20;
+  private static final long SEED = 12345L;
+
+  @Param({"1000000", "100000000"})
+  long n;
+
+  @Param({"0.01"})
+  double fpp;
+
+  private long[] queryKeys;
+  private BloomFilter blocked;
+  private BloomFilter standard;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    blocked = BloomFilterBuilder.createBlockedByAccuracy(n, fpp, SEED);
+    standard = BloomFilterBuilder.createByAccuracy(n, fpp, SEED);
+    queryKeys = new long[NUM_KEYS];
+    for (long i = 0; i < n; i++) {
+      blocked.update(i);
+      standard.update(i);
+    }
+    for (int i = 0; i < NUM_KEYS; i++) {
+      queryKeys[i] = rand.nextLong(2 * n);
+    }
+  }
+
+  private long nextKey() {
+    final long key = queryKeys[next];
+    next = (next + 1) & (NUM_KEYS - 1);
+    return key;
+  }
+
+  @Benchmark
+  public boolean blockedQuery() {
+    return blocked.query(nextKey());
+  }
+
+  @Benchmark
+  public void blockedUpdate() {
+    blocked.update(nextKey());
+  }
+
+  @Benchmark
+  public boolean standardQuery() {
+    return standard.query(nextKey());
+  }
+
+  @Benchmark
+  public void standardUpdate() {
+    standard.update(nextKey());
+  }
+}
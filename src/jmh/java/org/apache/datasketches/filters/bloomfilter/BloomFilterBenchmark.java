@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the BloomFilter update, query, union and serialization paths.
+ *
+ * <p>The filter is sized for <i>n</i> distinct items at the target false positive probability
+ * and is loaded with <i>n</i> items. Half of the query keys were inserted, half were not.
+ * The per-item benchmarks report the time of a single operation in nanoseconds; the batch
+ * benchmarks process {@value #BATCH} keys per operation.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BloomFilterBenchmark {
+  private static final int NUM_KEYS = 1 << 20;
+  private static final long SEED = 12345L;
+  static final int BATCH = 1024;
+
+  @Param({"1000000", "100000000"})
+  long n;
+
+  @Param({"0.01"})
+  double fpp;
+
+  private long[] queryKeys;
+  private BloomFilter filter;
+  private BloomFilter other;
+  private Memory mem;
+  private int next;
+  private final long[] batchKeys = new long[BATCH];
+  private final boolean[] batchResults = new boolean[BATCH];
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    filter = BloomFilterBuilder.createByAccuracy(n, fpp, SEED);
+    other = BloomFilterBuilder.createByAccuracy(n, fpp, SEED);
+    queryKeys = new long[NUM_KEYS];
+    for (long i = 0; i < n; i++) {
+      filter.update(i);
+      other.update(n + i);
+    }
+    for (int i = 0; i < NUM_KEYS; i++) {
+      queryKeys[i] = rand.nextLong(2 * n);
+    }
+    mem = Memory.wrap(filter.toByteArray());
+  }
+
+  private long nextKey() {
+    final long key = queryKeys[next];
+    next = (next + 1) & (NUM_KEYS - 1);
+    return key;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean query() {
+    return filter.query(nextKey());
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean queryAndUpdate() {
+    return filter.queryAndUpdate(nextKey());
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void update() {
+    filter.update(nextKey());
+  }
+
+  private long[] nextBatch() {
+    System.arraycopy(queryKeys, next, batchKeys, 0, BATCH);
+    next = (next + BATCH) & (NUM_KEYS - 1);
+    return batchKeys;
+  }
+
+  @Benchmark
+  public boolean[] queryBatch() {
+    filter.query(nextBatch(), batchResults);
+    return batchResults;
+  }
+
+  @Benchmark
+  public boolean[] queryLoop() {
+    final long[] keys = nextBatch();
+    for (int i = 0; i < BATCH; i++) {
+      batchResults[i] = filter.query(keys[i]);
+    }
+    return batchResults;
+  }
+
+  @Benchmark
+  public boolean[] queryAndUpdateBatch() {
+    filter.queryAndUpdate(nextBatch(), batchResults);
+    return batchResults;
+  }
+
+  @Benchmark
+  public BloomFilter union() {
+    filter.union(other);
+    return filter;
+  }
+
+  @Benchmark
+  public long[] toLongArray() {
+    return filter.toLongArray();
+  }
+
+  @Benchmark
+  public BloomFilter heapify() {
+    return BloomFilter.heapify(mem);
+  }
+
+  @Benchmark
+  public BloomFilter wrap() {
+    return BloomFilter.wrap(mem);
+  }
+}
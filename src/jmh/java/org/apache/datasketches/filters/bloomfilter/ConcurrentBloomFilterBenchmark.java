@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of multi-writer Bloom filter ingestion, comparing a concurrent BloomFilter
+ * against a single BloomFilter guarded by a lock.
+ *
+ * <p>Scaling with the number of writing threads is measured by running the update benchmarks
+ * with different JMH thread counts, e.g. <code>-t 1</code>, <code>-t 4</code> and
+ * <code>-t 16</code>. The readWrite group runs three writers and one lock-free reader.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentBloomFilterBenchmark {
+  private static final long SEED = 12345L;
+
+  @State(Scope.Benchmark)
+  public static class SharedState {
+    @Param({"1000000", "100000000"})
+    long n;
+
+    @Param({"0.01"})
+    double fpp;
+
+    BloomFilter shared;
+    BloomFilter locked;
+    final AtomicLong nextSeed = new AtomicLong(1);
+
+    @Setup(Level.Trial)
+    public void setup() {
+      shared = BloomFilterBuilder.createConcurrentByAccuracy(n, fpp, SEED);
+      locked = BloomFilterBuilder.createByAccuracy(n, fpp, SEED);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class WriterState {
+    SplittableRandom rand;
+    long range;
+
+    @Setup(Level.Iteration)
+    public void setup(final SharedState state) {
+      rand = new SplittableRandom(state.nextSeed.getAndIncrement());
+      range = 2 * state.n;
+    }
+  }
+
+  @Benchmark
+  public void concurrentUpdate(final SharedState state, final WriterState writer) {
+    state.shared.update(writer.rand.nextLong(writer.range));
+  }
+
+  @Benchmark
+  public void lockedUpdate(final SharedState state, final WriterState writer) {
+    final long datum = writer.rand.nextLong(writer.range);
+    final BloomFilter locked = state.locked;
+    synchronized (locked) {
+      locked.update(datum);
+    }
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(3)
+  public void readWriteUpdate(final SharedState state, final WriterState writer) {
+    state.shared.update(writer.rand.nextLong(writer.range));
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(1)
+  public boolean readWriteQuery(final SharedState state, final WriterState reader) {
+    return state.shared.query(reader.rand.nextLong(reader.range));
+  }
+
+}
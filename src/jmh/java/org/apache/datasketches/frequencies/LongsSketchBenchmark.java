@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.frequencies;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the frequencies LongsSketch update, merge, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation. Items are drawn
+ * from a skewed distribution over <i>n</i>/10 distinct values so that the sketch has heavy hitters.</p>
+ *
+ * <p>The cycle benchmarks apply a batch of 100 updates to a stored sketch, either by heapifying,
+ * updating and serializing it, or by updating a direct sketch in place.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LongsSketchBenchmark {
+
+  @Param({"10", "14"})
+  int lgMaxMapSize;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private long[] items;
+  private LongsSketch sketch;
+  private LongsSketch other;
+  private Memory mem;
+  private WritableMemory directMem;
+  private WritableMemory storedMem;
+  private byte[] storedBytes;
+  private int batchStart;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    final int numDistinct = Math.max(1, n / 10);
+    items = new long[n];
+    for (int i = 0; i < n; i++) {
+      final double u = rand.nextDouble();
+      items[i] = (long) (numDistinct * u * u * u);
+    }
+    sketch = update();
+    other = new LongsSketch(1 << lgMaxMapSize);
+    for (int i = 0; i < n; i++) { other.update(items[rand.nextInt(n)]); }
+    mem = Memory.wrap(sketch.toByteArray());
+    directMem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(1 << lgMaxMapSize));
+    storedMem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(1 << lgMaxMapSize));
+    LongsSketch.newDirectInstance(1 << lgMaxMapSize, storedMem).merge(sketch);
+    storedBytes = sketch.toByteArray();
+  }
+
+  @Benchmark
+  public LongsSketch update() {
+    final LongsSketch sk = new LongsSketch(1 << lgMaxMapSize);
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public LongsSketch updateDirect() {
+    final LongsSketch sk = LongsSketch.newDirectInstance(1 << lgMaxMapSize, directMem);
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public byte[] heapifyUpdateSerializeCycle() {
+    final LongsSketch sk = LongsSketch.getInstance(Memory.wrap(storedBytes));
+    updateBatch(sk);
+    storedBytes = sk.toByteArray();
+    return storedBytes;
+  }
+
+  @Benchmark
+  public LongsSketch writableWrapUpdateCycle() {
+    final LongsSketch sk = LongsSketch.writableWrap(storedMem);
+    updateBatch(sk);
+    return sk;
+  }
+
+  private void updateBatch(final LongsSketch sk) {
+    final int start = batchStart;
+    for (int i = 0; i < 100; i++) { sk.update(items[(start + i) % n]); }
+    batchStart = (start + 100) % n;
+  }
+
+  @Benchmark
+  public LongsSketch merge() {
+    final LongsSketch sk = new LongsSketch(1 << lgMaxMapSize);
+    sk.merge(sketch);
+    sk.merge(other);
+    return sk;
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public LongsSketch heapify() {
+    return LongsSketch.getInstance(mem);
+  }
+
+  @Benchmark
+  public LongsSketch.Row[] getFrequentItems() {
+    return sketch.getFrequentItems(ErrorType.NO_FALSE_POSITIVES);
+  }
+}
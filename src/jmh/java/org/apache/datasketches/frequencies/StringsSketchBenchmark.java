@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.common.ArrayOfStringsSerDe;
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the StringsSketch update, merge and deserialization paths, compared with an
+ * ItemsSketch of Strings given the same stream.
+ *
+ * <p>The update benchmarks feed <i>n</i> items into a sketch that has already reached its maximum
+ * map size, drawn from a skewed distribution over <i>n</i>/10 distinct strings. Run with
+ * <code>-prof gc</code> to compare the allocation rates.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringsSketchBenchmark {
+
+  @Param({"10", "14"})
+  int lgMaxMapSize;
+
+  @Param({"1000000"})
+  int n;
+
+  private String[] items;
+  private StringsSketch strings;
+  private ItemsSketch<String> itemsSketch;
+  private Memory mem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    final int numDistinct = Math.max(1, n / 10);
+    items = new String[n];
+    for (int i = 0; i < n; i++) {
+      final double u = rand.nextDouble();
+      items[i] = "item-" + (long) (numDistinct * u * u * u);
+    }
+    strings = new StringsSketch(1 << lgMaxMapSize);
+    itemsSketch = new ItemsSketch<>(1 << lgMaxMapSize);
+    for (int i = 0; i < n; i++) {
+      strings.update(items[i]);
+      itemsSketch.update(items[i]);
+    }
+    mem = Memory.wrap(strings.toByteArray());
+  }
+
+  @Benchmark
+  public StringsSketch updateStrings() {
+    for (int i = 0; i < n; i++) { strings.update(items[i]); }
+    return strings;
+  }
+
+  @Benchmark
+  public ItemsSketch<String> updateItems() {
+    for (int i = 0; i < n; i++) { itemsSketch.update(items[i]); }
+    return itemsSketch;
+  }
+
+  @Benchmark
+  public StringsSketch mergeStrings() {
+    return new StringsSketch(1 << lgMaxMapSize).merge(strings);
+  }
+
+  @Benchmark
+  public ItemsSketch<String> mergeItems() {
+    return new ItemsSketch<String>(1 << lgMaxMapSize).merge(itemsSketch);
+  }
+
+  @Benchmark
+  public StringsSketch heapifyStrings() {
+    return StringsSketch.getInstance(mem);
+  }
+
+  @Benchmark
+  public ItemsSketch<String> heapifyItems() {
+    return ItemsSketch.getInstance(mem, new ArrayOfStringsSerDe());
+  }
+}
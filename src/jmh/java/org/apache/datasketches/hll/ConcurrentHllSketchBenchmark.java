@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.hll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of multi-writer HLL ingestion, comparing the ConcurrentHllSketch with local
+ * buffers against a single HllSketch guarded by a lock.
+ *
+ * <p>Scaling with the number of writing threads is measured by running the update benchmarks
+ * with different JMH thread counts, e.g. <code>-t 1</code>, <code>-t 4</code>,
+ * <code>-t 16</code> and <code>-t 32</code>. The readWrite group runs three writers and one
+ * reader that polls the estimate.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentHllSketchBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class SharedState {
+    @Param({"12", "16"})
+    int lgK;
+
+    @Param({"1", "16", "64"})
+    int maxBufferedCoupons;
+
+    ConcurrentHllSketch shared;
+    HllSketch locked;
+    final AtomicLong nextSeed = new AtomicLong(1);
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      shared = new ConcurrentHllSketch(lgK);
+      locked = new HllSketch(lgK, TgtHllType.HLL_8);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class WriterState {
+    SplittableRandom rand;
+    ConcurrentHllBuffer local;
+
+    @Setup(Level.Iteration)
+    public void setup(final SharedState state) {
+      rand = new SplittableRandom(state.nextSeed.getAndIncrement());
+      local = state.shared.newLocalBuffer(state.maxBufferedCoupons);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+      local.flush();
+    }
+  }
+
+  @Benchmark
+  public ConcurrentHllBuffer concurrentUpdate(final WriterState writer) {
+    writer.local.update(writer.rand.nextLong());
+    return writer.local;
+  }
+
+  @Benchmark
+  public HllSketch lockedUpdate(final SharedState state, final WriterState writer) {
+    final long datum = writer.rand.nextLong();
+    final HllSketch locked = state.locked;
+    synchronized (locked) {
+      locked.update(datum);
+    }
+    return locked;
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(3)
+  public ConcurrentHllBuffer readWriteUpdate(final WriterState writer) {
+    writer.local.update(writer.rand.nextLong());
+    return writer.local;
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(1)
+  public double readWriteGetEstimate(final SharedState state) {
+    return state.shared.getEstimate();
+  }
+
+}
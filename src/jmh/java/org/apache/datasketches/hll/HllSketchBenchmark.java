@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableHandle;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the HllSketch update, union, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation.
+ * With <i>mem</i> = DIRECT the sketch and the union are backed by off-heap WritableMemory.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HllSketchBenchmark {
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"HLL_4", "HLL_6", "HLL_8"})
+  TgtHllType tgtType;
+
+  @Param({"HEAP", "DIRECT"})
+  String mem;
+
+  private long[] items;
+  private WritableHandle sketchHandle;
+  private WritableHandle unionHandle;
+  private HllSketch sketch;
+  private HllSketch other;
+  private Memory compactMem;
+  private Memory updatableMem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new long[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextLong(); }
+    if (mem.equals("DIRECT")) {
+      sketchHandle = WritableMemory.allocateDirect(HllSketch.getMaxUpdatableSerializationBytes(lgK, tgtType));
+      unionHandle = WritableMemory.allocateDirect(Union.getMaxSerializationBytes(lgK));
+    }
+    sketch = update();
+    other = new HllSketch(lgK, tgtType);
+    for (int i = 0; i < n; i++) { other.update(rand.nextLong()); }
+    compactMem = Memory.wrap(sketch.toCompactByteArray());
+    updatableMem = Memory.wrap(sketch.toUpdatableByteArray());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (sketchHandle != null) { sketchHandle.close(); }
+    if (unionHandle != null) { unionHandle.close(); }
+  }
+
+  @Benchmark
+  public HllSketch update() {
+    final HllSketch sk = (sketchHandle == null)
+        ? new HllSketch(lgK, tgtType)
+        : new HllSketch(lgK, tgtType, sketchHandle.getWritable());
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public HllSketch updateAll() {
+    final HllSketch sk = (sketchHandle == null)
+        ? new HllSketch(lgK, tgtType)
+        : new HllSketch(lgK, tgtType, sketchHandle.getWritable());
+    sk.updateAll(items, 0, n);
+    return sk;
+  }
+
+  @Benchmark
+  public HllSketch union() {
+    final Union union = (unionHandle == null)
+        ? new Union(lgK)
+        : new Union(lgK, unionHandle.getWritable());
+    union.update(sketch);
+    union.update(other);
+    return union.getResult(tgtType);
+  }
+
+  @Benchmark
+  public byte[] toCompactByteArray() {
+    return sketch.toCompactByteArray();
+  }
+
+  @Benchmark
+  public byte[] toUpdatableByteArray() {
+    return sketch.toUpdatableByteArray();
+  }
+
+  @Benchmark
+  public HllSketch heapify() {
+    return HllSketch.heapify(compactMem);
+  }
+
+  @Benchmark
+  public double wrapAndGetEstimate() {
+    return HllSketch.wrap(updatableMem).getEstimate();
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hllmap;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of multi-writer UniqueCountMap ingestion, comparing the sharded
+ * ConcurrentUniqueCountMap against a single UniqueCountMap guarded by a lock.
+ *
+ * <p>Scaling with the number of writing threads is measured by running the update benchmarks
+ * with different JMH thread counts, e.g. <code>-t 1</code>, <code>-t 4</code> and
+ * <code>-t 16</code>. Keys are 4-byte integers drawn from the same skewed distribution as in
+ * {@link UniqueCountMapBenchmark}. The readWrite group runs three writers and one reader.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentUniqueCountMapBenchmark {
+  private static final int KEY_SIZE = 4;
+
+  @State(Scope.Benchmark)
+  public static class SharedState {
+    @Param({"100000"})
+    int numKeys;
+
+    @Param({"0", "64"})
+    int numShards; // zero for the default
+
+    ConcurrentUniqueCountMap concurrent;
+    UniqueCountMap locked;
+    final AtomicLong nextSeed = new AtomicLong(1);
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      concurrent = numShards == 0
+          ? new ConcurrentUniqueCountMap(KEY_SIZE)
+          : new ConcurrentUniqueCountMap(1000003, KEY_SIZE, numShards);
+      locked = new UniqueCountMap(KEY_SIZE);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class WriterState {
+    SplittableRandom rand;
+    int numKeys;
+    final byte[] key = new byte[KEY_SIZE];
+    final byte[] id = new byte[KEY_SIZE];
+
+    @Setup(Level.Iteration)
+    public void setup(final SharedState state) {
+      rand = new SplittableRandom(state.nextSeed.getAndIncrement());
+      numKeys = state.numKeys;
+    }
+
+    void next() {
+      final double u = rand.nextDouble();
+      intToBytes((int) (numKeys * u * u), key);
+      intToBytes(rand.nextInt(), id);
+    }
+  }
+
+  private static void intToBytes(final int v, final byte[] out) {
+    out[0] = (byte) v;
+    out[1] = (byte) (v >>> 8);
+    out[2] = (byte) (v >>> 16);
+    out[3] = (byte) (v >>> 24);
+  }
+
+  @Benchmark
+  public double concurrentUpdate(final SharedState state, final WriterState writer) {
+    writer.next();
+    return state.concurrent.update(writer.key, writer.id);
+  }
+
+  @Benchmark
+  public double lockedUpdate(final SharedState state, final WriterState writer) {
+    writer.next();
+    final UniqueCountMap locked = state.locked;
+    synchronized (locked) {
+      return locked.update(writer.key, writer.id);
+    }
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(3)
+  public double readWriteUpdate(final SharedState state, final WriterState writer) {
+    writer.next();
+    return state.concurrent.update(writer.key, writer.id);
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(1)
+  public double readWriteGetEstimate(final SharedState state, final WriterState reader) {
+    reader.next();
+    return state.concurrent.getEstimate(reader.key);
+  }
+
+}
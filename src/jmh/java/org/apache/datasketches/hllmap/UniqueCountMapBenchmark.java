@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hllmap;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the UniqueCountMap update and query paths.
+ *
+ * <p>The update benchmark loads a new map with <i>n</i> (key, identifier) pairs per invocation.
+ * Keys are 4-byte integers drawn from a skewed distribution over <i>numKeys</i> values, so that
+ * a few keys are promoted through all levels while most remain in the first ones.</p>
+ *
+ * <p>The serialization benchmarks write and read back the map loaded in setup, which compares
+ * the cost of restoring a map from its image with that of rebuilding it by update.
+ * The iterate and topKeys benchmarks scan all keys of the same map.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueCountMapBenchmark {
+  private static final int KEY_SIZE = 4;
+
+  @Param({"1000", "100000"})
+  int numKeys;
+
+  @Param({"1000000"})
+  int n;
+
+  private byte[][] keys;
+  private byte[][] ids;
+  private UniqueCountMap map;
+  private byte[] image;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    keys = new byte[n][];
+    ids = new byte[n][];
+    for (int i = 0; i < n; i++) {
+      final double u = rand.nextDouble();
+      keys[i] = intToBytes((int) (numKeys * u * u));
+      ids[i] = intToBytes(rand.nextInt());
+    }
+    map = update();
+    image = map.toByteArray();
+  }
+
+  private static byte[] intToBytes(final int v) {
+    return new byte[] {(byte) v, (byte) (v >>> 8), (byte) (v >>> 16), (byte) (v >>> 24)};
+  }
+
+  @Benchmark
+  public UniqueCountMap update() {
+    final UniqueCountMap m = new UniqueCountMap(KEY_SIZE);
+    for (int i = 0; i < n; i++) { m.update(keys[i], ids[i]); }
+    return m;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public double getEstimate() {
+    final double est = map.getEstimate(keys[next]);
+    if (++next == n) { next = 0; }
+    return est;
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return map.toByteArray();
+  }
+
+  @Benchmark
+  public UniqueCountMap heapify() {
+    return UniqueCountMap.heapify(Memory.wrap(image));
+  }
+
+  @Benchmark
+  public double iterate() {
+    double sum = 0;
+    final UniqueCountMapIterator it = map.iterator();
+    while (it.next()) { sum += it.getEstimate(); }
+    return sum;
+  }
+
+  @Benchmark
+  public UniqueCountMap.Row[] topKeys() {
+    return map.getTopKeys(100);
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.kll.KllSketch.SketchType.DOUBLES_SKETCH;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.DefaultMemoryRequestServer;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.apache.datasketches.memory.WritableHandle;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantilescommon.DirectDoublesSortedView;
+import org.apache.datasketches.quantilescommon.DoublesSortedView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the KllDoublesSketch update, merge, serialization and sorted view query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation.
+ * With <i>mem</i> = DIRECT the sketch is backed by off-heap WritableMemory sized for <i>n</i> items.
+ * The query benchmarks evaluate 100 evenly spaced ranks or split points.
+ * The snapshot benchmarks compare a query on a wrapped sorted view snapshot with heapifying the sketch
+ * and building its sorted view.
+ * The incremental variant of the interleaved update and query benchmark always uses a heap sketch.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KllDoublesSketchBenchmark {
+  private static final int NUM_QUERIES = 100;
+
+  @Param({"200", "1000"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"HEAP", "DIRECT"})
+  String mem;
+
+  private final MemoryRequestServer memReqSvr = new DefaultMemoryRequestServer();
+  private double[] items;
+  private double[] ranks;
+  private double[] splitPoints;
+  private WritableHandle sketchHandle;
+  private KllDoublesSketch sketch;
+  private KllDoublesSketch other;
+  private KllDoublesSketch incremental;
+  private Memory compactMem;
+  private Memory snapshotMem;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new double[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextDouble(); }
+    if (mem.equals("DIRECT")) {
+      sketchHandle = WritableMemory.allocateDirect(KllSketch.getMaxSerializedSizeBytes(k, 2L * n, DOUBLES_SKETCH, true));
+    }
+    sketch = update();
+    other = KllDoublesSketch.newHeapInstance(k);
+    for (int i = 0; i < n; i++) { other.update(rand.nextDouble()); }
+    compactMem = Memory.wrap(sketch.toByteArray());
+    snapshotMem = Memory.wrap(DirectDoublesSortedView.toByteArray(sketch.getSortedView()));
+    incremental = KllDoublesSketch.heapify(compactMem);
+    incremental.setIncrementalSortedView(true);
+    ranks = new double[NUM_QUERIES];
+    splitPoints = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      ranks[i] = (double) i / NUM_QUERIES;
+      splitPoints[i] = sketch.getQuantile(ranks[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (sketchHandle != null) { sketchHandle.close(); }
+  }
+
+  private KllDoublesSketch newSketch() {
+    return (sketchHandle == null)
+        ? KllDoublesSketch.newHeapInstance(k)
+        : KllDoublesSketch.newDirectInstance(k, sketchHandle.getWritable(), memReqSvr);
+  }
+
+  @Benchmark
+  public KllDoublesSketch update() {
+    final KllDoublesSketch sk = newSketch();
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public KllDoublesSketch merge() {
+    final KllDoublesSketch sk = newSketch();
+    sk.merge(sketch);
+    sk.merge(other);
+    return sk;
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public KllDoublesSketch heapify() {
+    return KllDoublesSketch.heapify(compactMem);
+  }
+
+  @Benchmark
+  public double wrapAndGetQuantile() {
+    return KllDoublesSketch.wrap(compactMem).getQuantile(0.5);
+  }
+
+  @Benchmark
+  public DoublesSortedView heapifyAndGetSortedView() {
+    return KllDoublesSketch.heapify(compactMem).getSortedView();
+  }
+
+  @Benchmark
+  public double wrapSnapshotAndGetQuantile() {
+    return DirectDoublesSortedView.wrap(snapshotMem).getQuantile(0.5, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double heapifyAndGetSortedViewQuantile() {
+    return KllDoublesSketch.heapify(compactMem).getSortedView().getQuantile(0.5, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double getQuantile() {
+    return sketch.getQuantile(0.99);
+  }
+
+  @Benchmark
+  public double[] getQuantiles() {
+    return sketch.getQuantiles(ranks, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double[] getRanks() {
+    return sketch.getRanks(splitPoints, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double[] getCDF() {
+    return sketch.getCDF(splitPoints, INCLUSIVE);
+  }
+
+  /**
+   * Interleaves an update with a percentile query, which invalidates and rebuilds the sorted view.
+   * @return the quantile at rank 0.99
+   */
+  @Benchmark
+  public double updateAndGetQuantile() {
+    sketch.update(items[next]);
+    if (++next == n) { next = 0; }
+    return sketch.getQuantile(0.99);
+  }
+
+  /**
+   * Same as updateAndGetQuantile, on a heap sketch with an incrementally maintained sorted view.
+   * @return the quantile at rank 0.99
+   */
+  @Benchmark
+  public double updateAndGetQuantileIncremental() {
+    incremental.update(items[next]);
+    if (++next == n) { next = 0; }
+    return incremental.getQuantile(0.99);
+  }
+}
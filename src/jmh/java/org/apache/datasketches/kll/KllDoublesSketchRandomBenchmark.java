@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of independent KllDoublesSketch instances updated by many threads, one sketch per thread,
+ * comparing the sources of random bits used by compaction.
+ *
+ * <p>With <i>random</i> = SHARED every sketch draws from one java.util.Random, as all sketches once did
+ * through a static field, so the threads contend on its seed. PER_SKETCH gives each sketch its own seeded
+ * Random and THREAD_LOCAL is the default ThreadLocalRandom. A small <i>k</i> compacts more often and
+ * makes the contention more visible. Scaling is measured with different JMH thread counts,
+ * e.g. <code>-t 1</code>, <code>-t 16</code> and <code>-t 32</code>.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class KllDoublesSketchRandomBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class SharedState {
+    @Param({"8", "200"})
+    int k;
+
+    @Param({"SHARED", "PER_SKETCH", "THREAD_LOCAL"})
+    String random;
+
+    final Random sharedRandom = new Random(1);
+    final AtomicLong nextSeed = new AtomicLong(1);
+  }
+
+  @State(Scope.Thread)
+  public static class WriterState {
+    SplittableRandom rand;
+    KllDoublesSketch sketch;
+
+    @Setup(Level.Iteration)
+    public void setup(final SharedState state) {
+      final long seed = state.nextSeed.getAndIncrement();
+      rand = new SplittableRandom(seed);
+      switch (state.random) {
+        case "SHARED": sketch = KllDoublesSketch.newHeapInstance(state.k, state.sharedRandom); break;
+        case "PER_SKETCH": sketch = KllDoublesSketch.newHeapInstance(state.k, new Random(seed)); break;
+        default: sketch = KllDoublesSketch.newHeapInstance(state.k);
+      }
+    }
+  }
+
+  @Benchmark
+  public KllDoublesSketch update(final WriterState writer) {
+    writer.sketch.update(writer.rand.nextDouble());
+    return writer.sketch;
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of ParallelMerger against a sequential merge of the same serialized sketches.
+ *
+ * <p>Each input is a Memory image of an HLL or a KLL sketch with 1000 items. The parallel benchmarks
+ * run in a pool of <i>threads</i> workers, so running with 1, 2, 4, ... threads shows the scaling.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelMergerBenchmark {
+  private static final int ITEMS_PER_SKETCH = 1000;
+
+  @Param({"100000"})
+  int numSketches;
+
+  @Param({"1", "4", "8"})
+  int threads;
+
+  private List<Memory> hllImages;
+  private List<Memory> kllImages;
+  private ForkJoinPool pool;
+  private ParallelMerger<Memory, Union, HllSketch> hllMerger;
+  private ParallelMerger<Memory, KllDoublesSketch, KllDoublesSketch> kllMerger;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    hllImages = new ArrayList<>(numSketches);
+    kllImages = new ArrayList<>(numSketches);
+    for (int s = 0; s < numSketches; s++) {
+      final HllSketch hll = new HllSketch(12, TgtHllType.HLL_4);
+      final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance();
+      for (int i = 0; i < ITEMS_PER_SKETCH; i++) {
+        hll.update(rand.nextLong());
+        kll.update(rand.nextDouble());
+      }
+      hllImages.add(Memory.wrap(hll.toCompactByteArray()));
+      kllImages.add(Memory.wrap(kll.toByteArray()));
+    }
+    pool = new ForkJoinPool(threads);
+    hllMerger = new ParallelMerger<>(SketchMergers.hll(12, TgtHllType.HLL_4).mapInputs(HllSketch::wrap),
+        pool, ParallelMerger.DEFAULT_MIN_INPUTS_PER_TASK);
+    kllMerger = new ParallelMerger<>(SketchMergers.kllDoubles(200).mapInputs(KllDoublesSketch::wrap),
+        pool, ParallelMerger.DEFAULT_MIN_INPUTS_PER_TASK);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public HllSketch hllSequential() {
+    final Union union = new Union(12);
+    for (final Memory mem: hllImages) { union.update(HllSketch.wrap(mem)); }
+    return union.getResult(TgtHllType.HLL_4);
+  }
+
+  @Benchmark
+  public HllSketch hllParallel() {
+    return hllMerger.merge(hllImages);
+  }
+
+  @Benchmark
+  public KllDoublesSketch kllSequential() {
+    final KllDoublesSketch union = KllDoublesSketch.newHeapInstance();
+    for (final Memory mem: kllImages) { union.merge(KllDoublesSketch.wrap(mem)); }
+    return union;
+  }
+
+  @Benchmark
+  public KllDoublesSketch kllParallel() {
+    return kllMerger.merge(kllImages);
+  }
+}
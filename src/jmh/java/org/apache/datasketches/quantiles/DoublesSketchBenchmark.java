@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantiles;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableHandle;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the classic quantiles DoublesSketch update, union, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation.
+ * With <i>mem</i> = DIRECT the sketch is backed by off-heap WritableMemory sized for <i>n</i> items.
+ * The query benchmarks evaluate 100 evenly spaced ranks or split points.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoublesSketchBenchmark {
+  private static final int NUM_QUERIES = 100;
+
+  @Param({"128", "1024"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"HEAP", "DIRECT"})
+  String mem;
+
+  private double[] items;
+  private double[] ranks;
+  private double[] splitPoints;
+  private WritableHandle sketchHandle;
+  private UpdateDoublesSketch sketch;
+  private UpdateDoublesSketch other;
+  private Memory compactMem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new double[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextDouble(); }
+    if (mem.equals("DIRECT")) {
+      sketchHandle = WritableMemory.allocateDirect(DoublesSketch.getUpdatableStorageBytes(k, 2L * n));
+    }
+    sketch = update();
+    other = DoublesSketch.builder().setK(k).build();
+    for (int i = 0; i < n; i++) { other.update(rand.nextDouble()); }
+    compactMem = Memory.wrap(sketch.toByteArray(true));
+    ranks = new double[NUM_QUERIES];
+    splitPoints = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      ranks[i] = (double) i / NUM_QUERIES;
+      splitPoints[i] = sketch.getQuantile(ranks[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (sketchHandle != null) { sketchHandle.close(); }
+  }
+
+  @Benchmark
+  public UpdateDoublesSketch update() {
+    final DoublesSketchBuilder bldr = DoublesSketch.builder().setK(k);
+    final UpdateDoublesSketch sk = (sketchHandle == null) ? bldr.build() : bldr.build(sketchHandle.getWritable());
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public UpdateDoublesSketch union() {
+    final DoublesUnion union = DoublesUnion.builder().setMaxK(k).build();
+    union.union(sketch);
+    union.union(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray(true);
+  }
+
+  @Benchmark
+  public DoublesSketch heapify() {
+    return DoublesSketch.heapify(compactMem);
+  }
+
+  @Benchmark
+  public double wrapAndGetQuantile() {
+    return DoublesSketch.wrap(compactMem).getQuantile(0.5);
+  }
+
+  @Benchmark
+  public double getQuantile() {
+    return sketch.getQuantile(0.99);
+  }
+
+  @Benchmark
+  public double[] getQuantiles() {
+    return sketch.getQuantiles(ranks, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double[] getRanks() {
+    return sketch.getRanks(splitPoints, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double[] getCDF() {
+    return sketch.getCDF(splitPoints, INCLUSIVE);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.req;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the ReqSketch update, merge, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation.
+ * The REQ sketch only exists on the heap, so there is no memory parameter.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReqSketchBenchmark {
+  private static final int NUM_QUERIES = 100;
+
+  @Param({"12", "48"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"true", "false"})
+  boolean hra;
+
+  private float[] items;
+  private double[] ranks;
+  private float[] splitPoints;
+  private ReqSketch sketch;
+  private ReqSketch other;
+  private Memory mem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new float[n];
+    for (int i = 0; i < n; i++) { items[i] = (float) rand.nextDouble(); }
+    sketch = update();
+    other = newSketch();
+    for (int i = 0; i < n; i++) { other.update((float) rand.nextDouble()); }
+    mem = Memory.wrap(sketch.toByteArray());
+    ranks = new double[NUM_QUERIES];
+    splitPoints = new float[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      ranks[i] = (double) i / NUM_QUERIES;
+      splitPoints[i] = sketch.getQuantile(ranks[i]);
+    }
+  }
+
+  private ReqSketch newSketch() {
+    return ReqSketch.builder().setK(k).setHighRankAccuracy(hra).build();
+  }
+
+  @Benchmark
+  public ReqSketch update() {
+    final ReqSketch sk = newSketch();
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public ReqSketch merge() {
+    final ReqSketch sk = newSketch();
+    sk.merge(sketch);
+    sk.merge(other);
+    return sk;
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public ReqSketch heapify() {
+    return ReqSketch.heapify(mem);
+  }
+
+  @Benchmark
+  public float getQuantile() {
+    return sketch.getQuantile(0.99);
+  }
+
+  @Benchmark
+  public float[] getQuantiles() {
+    return sketch.getQuantiles(ranks, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double[] getRanks() {
+    return sketch.getRanks(splitPoints, INCLUSIVE);
+  }
+
+  @Benchmark
+  public double[] getCDF() {
+    return sketch.getCDF(splitPoints, INCLUSIVE);
+  }
+}
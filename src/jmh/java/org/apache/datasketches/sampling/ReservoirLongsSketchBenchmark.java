@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.sampling;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the ReservoirLongsSketch update, union and serialization paths.
+ *
+ * <p>The update benchmarks load a new sketch with <i>n</i> items per invocation, one at a time or
+ * as a single array range.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservoirLongsSketchBenchmark {
+
+  @Param({"100", "10000"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private ReservoirLongsSketch sketch;
+  private ReservoirLongsSketch other;
+  private Memory mem;
+  private long[] items;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    items = new long[n];
+    for (int i = 0; i < n; i++) { items[i] = i; }
+    sketch = update();
+    other = update();
+    mem = Memory.wrap(sketch.toByteArray());
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch update() {
+    final ReservoirLongsSketch sk = ReservoirLongsSketch.newInstance(k);
+    for (int i = 0; i < n; i++) { sk.update(i); }
+    return sk;
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch updateBulk() {
+    final ReservoirLongsSketch sk = ReservoirLongsSketch.newInstance(k);
+    sk.update(items, 0, n);
+    return sk;
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch union() {
+    final ReservoirLongsUnion union = ReservoirLongsUnion.newInstance(k);
+    union.update(sketch);
+    union.update(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch heapify() {
+    return ReservoirLongsSketch.heapify(mem);
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tdigest;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the TDigestDouble update, merge, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new digest with <i>n</i> items per invocation.
+ * The steady-state benchmarks update or merge into a long-lived digest, and should show
+ * no allocation when run with <code>-prof gc</code>.
+ * The query benchmarks evaluate 100 evenly spaced ranks or values,
+ * one at a time or in a single batch call.
+ * The touch benchmarks add one item to a digest kept in a WritableMemory,
+ * either in place or by heapifying it and serializing it back.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TDigestDoubleBenchmark {
+  private static final int NUM_QUERIES = 100;
+
+  @Param({"100", "200"})
+  short k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private double[] items;
+  private double[] ranks;
+  private double[] values;
+  private TDigestDouble digest;
+  private TDigestDouble other;
+  private Memory mem;
+  private TDigestDouble steady;
+  private int next;
+  private WritableMemory updatableMem;
+  private byte[] compactBytes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new double[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextDouble(); }
+    digest = update();
+    other = new TDigestDouble(k);
+    for (int i = 0; i < n; i++) { other.update(rand.nextDouble()); }
+    mem = Memory.wrap(digest.toByteArray());
+    steady = update();
+    updatableMem = WritableMemory.allocate((int) TDigestDouble.getUpdatableStorageBytes(k));
+    TDigestDouble.newDirectInstance(k, updatableMem).merge(digest);
+    compactBytes = digest.toByteArray();
+    ranks = new double[NUM_QUERIES];
+    values = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      ranks[i] = (double) i / NUM_QUERIES;
+      values[i] = digest.getQuantile(ranks[i]);
+    }
+  }
+
+  @Benchmark
+  public TDigestDouble update() {
+    final TDigestDouble td = new TDigestDouble(k);
+    for (int i = 0; i < n; i++) { td.update(items[i]); }
+    return td;
+  }
+
+  @Benchmark
+  public TDigestDouble merge() {
+    final TDigestDouble td = new TDigestDouble(k);
+    td.merge(digest);
+    td.merge(other);
+    return td;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TDigestDouble updateSteadyState() {
+    steady.update(items[next]);
+    if (++next == n) { next = 0; }
+    return steady;
+  }
+
+  @Benchmark
+  public TDigestDouble mergeSteadyState() {
+    steady.merge(other);
+    return steady;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TDigestDouble touchInPlace() {
+    final TDigestDouble td = TDigestDouble.writableWrap(updatableMem);
+    td.update(items[next]);
+    if (++next == n) { next = 0; }
+    return td;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public byte[] touchHeapifyAndSerialize() {
+    final TDigestDouble td = TDigestDouble.heapify(Memory.wrap(compactBytes));
+    td.update(items[next]);
+    if (++next == n) { next = 0; }
+    compactBytes = td.toByteArray();
+    return compactBytes;
+  }
+
+  @Benchmark
+  public double[] getQuantilesWrapped() {
+    final TDigestDouble td = TDigestDouble.wrap(mem);
+    final double[] out = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) { out[i] = td.getQuantile(ranks[i]); }
+    return out;
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return digest.toByteArray();
+  }
+
+  @Benchmark
+  public TDigestDouble heapify() {
+    return TDigestDouble.heapify(mem);
+  }
+
+  @Benchmark
+  public double[] getQuantiles() {
+    final double[] out = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) { out[i] = digest.getQuantile(ranks[i]); }
+    return out;
+  }
+
+  @Benchmark
+  public double[] getRanks() {
+    final double[] out = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) { out[i] = digest.getRank(values[i]); }
+    return out;
+  }
+
+  @Benchmark
+  public double[] getQuantilesBatch() {
+    return digest.getQuantiles(ranks);
+  }
+
+  @Benchmark
+  public double[] getRanksBatch() {
+    return digest.getRanks(values);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.tdigest;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of TDigestFloat against TDigestDouble with the same k and the same
+ * log-normally distributed input, which resembles latencies.
+ *
+ * <p>Each pair of benchmarks runs the same operation on both variants.
+ * The accuracy and serialized sizes of both variants are compared in TDigestFloatTest.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TDigestFloatBenchmark {
+  private static final int NUM_QUERIES = 100;
+
+  @Param({"100", "200"})
+  short k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private float[] items;
+  private double[] ranks;
+  private TDigestFloat digestFloat;
+  private TDigestDouble digestDouble;
+  private Memory memFloat;
+  private Memory memDouble;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new float[n];
+    for (int i = 0; i < n; i++) { items[i] = (float) Math.exp(nextGaussian(rand)); }
+    digestFloat = updateFloat();
+    digestDouble = updateDouble();
+    memFloat = Memory.wrap(digestFloat.toByteArray());
+    memDouble = Memory.wrap(digestDouble.toByteArray());
+    ranks = new double[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) { ranks[i] = (double) i / NUM_QUERIES; }
+  }
+
+  // Box-Muller, since SplittableRandom has no nextGaussian() before Java 17
+  private static double nextGaussian(final SplittableRandom rand) {
+    return Math.sqrt(-2 * Math.log(1 - rand.nextDouble())) * Math.cos(2 * Math.PI * rand.nextDouble());
+  }
+
+  @Benchmark
+  public TDigestFloat updateFloat() {
+    final TDigestFloat td = new TDigestFloat(k);
+    for (int i = 0; i < n; i++) { td.update(items[i]); }
+    return td;
+  }
+
+  @Benchmark
+  public TDigestDouble updateDouble() {
+    final TDigestDouble td = new TDigestDouble(k);
+    for (int i = 0; i < n; i++) { td.update(items[i]); }
+    return td;
+  }
+
+  @Benchmark
+  public TDigestFloat mergeFloat() {
+    final TDigestFloat td = new TDigestFloat(k);
+    td.merge(digestFloat);
+    td.merge(digestFloat);
+    return td;
+  }
+
+  @Benchmark
+  public TDigestDouble mergeDouble() {
+    final TDigestDouble td = new TDigestDouble(k);
+    td.merge(digestDouble);
+    td.merge(digestDouble);
+    return td;
+  }
+
+  @Benchmark
+  public float[] getQuantilesFloat() {
+    return digestFloat.getQuantiles(ranks);
+  }
+
+  @Benchmark
+  public double[] getQuantilesDouble() {
+    return digestDouble.getQuantiles(ranks);
+  }
+
+  @Benchmark
+  public byte[] toByteArrayFloat() {
+    return digestFloat.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] toByteArrayDouble() {
+    return digestDouble.toByteArray();
+  }
+
+  @Benchmark
+  public TDigestFloat heapifyFloat() {
+    return TDigestFloat.heapify(memFloat);
+  }
+
+  @Benchmark
+  public TDigestDouble heapifyDouble() {
+    return TDigestDouble.heapify(memDouble);
+  }
+}
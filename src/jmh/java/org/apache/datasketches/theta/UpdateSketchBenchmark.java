@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableHandle;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the theta UpdateSketch update, union, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new QuickSelect sketch with <i>n</i> items per invocation.
+ * With <i>mem</i> = DIRECT the sketch and the union are backed by off-heap WritableMemory.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateSketchBenchmark {
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"HEAP", "DIRECT"})
+  String mem;
+
+  private long[] items;
+  private WritableHandle sketchHandle;
+  private WritableHandle unionHandle;
+  private UpdateSketch sketch;
+  private UpdateSketch other;
+  private Memory compactMem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    items = new long[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextLong(); }
+    if (mem.equals("DIRECT")) {
+      sketchHandle = WritableMemory.allocateDirect(Sketch.getMaxUpdateSketchBytes(1 << lgK));
+      unionHandle = WritableMemory.allocateDirect(Sketches.getMaxUnionBytes(1 << lgK));
+    }
+    sketch = update();
+    other = UpdateSketch.builder().setLogNominalEntries(lgK).build();
+    for (int i = 0; i < n; i++) { other.update(rand.nextLong()); }
+    compactMem = Memory.wrap(sketch.compact().toByteArray());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (sketchHandle != null) { sketchHandle.close(); }
+    if (unionHandle != null) { unionHandle.close(); }
+  }
+
+  @Benchmark
+  public UpdateSketch update() {
+    final UpdateSketchBuilder bldr = UpdateSketch.builder().setLogNominalEntries(lgK);
+    final UpdateSketch sk = (sketchHandle == null) ? bldr.build() : bldr.build(sketchHandle.getWritable());
+    for (int i = 0; i < n; i++) { sk.update(items[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public UpdateSketch updateAll() {
+    final UpdateSketchBuilder bldr = UpdateSketch.builder().setLogNominalEntries(lgK);
+    final UpdateSketch sk = (sketchHandle == null) ? bldr.build() : bldr.build(sketchHandle.getWritable());
+    sk.updateAll(items, 0, n);
+    return sk;
+  }
+
+  @Benchmark
+  public CompactSketch union() {
+    final SetOperationBuilder bldr = SetOperation.builder().setLogNominalEntries(lgK);
+    final Union union = (unionHandle == null) ? bldr.buildUnion() : bldr.buildUnion(unionHandle.getWritable());
+    union.union(sketch);
+    union.union(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] compactToByteArray() {
+    return sketch.compact().toByteArray();
+  }
+
+  @Benchmark
+  public Sketch heapify() {
+    return Sketch.heapify(compactMem);
+  }
+
+  @Benchmark
+  public double wrapAndGetEstimate() {
+    return Sketch.wrap(compactMem).getEstimate();
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+}
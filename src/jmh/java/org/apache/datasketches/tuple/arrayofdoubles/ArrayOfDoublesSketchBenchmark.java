@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the ArrayOfDoubles tuple sketch update, union, serialization and query paths.
+ *
+ * <p>The update benchmark loads a new sketch with <i>n</i> items per invocation.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArrayOfDoublesSketchBenchmark {
+
+  @Param({"4096", "65536"})
+  int nomEntries;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"1", "4"})
+  int numValues;
+
+  private long[] keys;
+  private double[] values;
+  private ArrayOfDoublesUpdatableSketch sketch;
+  private ArrayOfDoublesUpdatableSketch other;
+  private Memory mem;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    keys = new long[n];
+    for (int i = 0; i < n; i++) { keys[i] = rand.nextLong(); }
+    values = new double[numValues];
+    for (int j = 0; j < numValues; j++) { values[j] = j + 1; }
+    sketch = update();
+    other = newSketch();
+    for (int i = 0; i < n; i++) { other.update(rand.nextLong(), values); }
+    mem = Memory.wrap(sketch.compact().toByteArray());
+  }
+
+  private ArrayOfDoublesUpdatableSketch newSketch() {
+    return new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNominalEntries(nomEntries).setNumberOfValues(numValues).build();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesUpdatableSketch update() {
+    final ArrayOfDoublesUpdatableSketch sk = newSketch();
+    for (int i = 0; i < n; i++) { sk.update(keys[i], values); }
+    return sk;
+  }
+
+  @Benchmark
+  public ArrayOfDoublesCompactSketch union() {
+    final ArrayOfDoublesUnion union = new ArrayOfDoublesSetOperationBuilder()
+        .setNominalEntries(nomEntries).setNumberOfValues(numValues).buildUnion();
+    union.union(sketch);
+    union.union(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] compactToByteArray() {
+    return sketch.compact().toByteArray();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesSketch heapify() {
+    return ArrayOfDoublesSketch.heapify(mem);
+  }
+
+  @Benchmark
+  public double wrapAndGetEstimate() {
+    return ArrayOfDoublesSketch.wrap(mem).getEstimate();
+  }
+}
@@ -22,6 +22,7 @@ package org.apache.datasketches.cpc;
 import static java.lang.Math.log;
 import static java.lang.Math.sqrt;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.datasketches.common.Util.checkBounds;
 import static org.apache.datasketches.common.Util.invPow2;
 import static org.apache.datasketches.common.Util.zeroPad;
 import static org.apache.datasketches.cpc.CpcUtil.bitMatrixOfSketch;
@@ -85,6 +86,8 @@ public final class CpcSketch {
   double kxp;                  //used with HIP
   double hipEstAccum;          //used with HIP
 
+  private final long[] hashOut = new long[2]; //reused by the update methods to avoid allocation
+
   /**
    * Constructor with default log_base2 of k
    */
@@ -309,8 +312,7 @@ public final class CpcSketch {
    * @param datum The given long datum.
    */
   public void update(final long datum) {
-    final long[] data = { datum };
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(datum, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -325,8 +327,8 @@ public final class CpcSketch {
    */
   public void update(final double datum) {
     final double d = (datum == 0.0) ? 0.0 : datum; // canonicalize -0.0, 0.0
-    final long[] data = { Double.doubleToLongBits(d) };// canonicalize all NaN forms
-    final long[] arr = hash(data, seed);
+    final long data = Double.doubleToLongBits(d);// canonicalize all NaN forms
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -347,7 +349,7 @@ public final class CpcSketch {
   public void update(final String datum) {
     if ((datum == null) || datum.isEmpty()) { return; }
     final byte[] data = datum.getBytes(UTF_8);
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -359,7 +361,7 @@ public final class CpcSketch {
    */
   public void update(final byte[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -371,7 +373,7 @@ public final class CpcSketch {
    */
   public void update(final ByteBuffer data) {
     if ((data == null) || data.hasRemaining() == false) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -386,7 +388,7 @@ public final class CpcSketch {
    */
   public void update(final char[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -398,7 +400,7 @@ public final class CpcSketch {
    */
   public void update(final int[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -410,10 +412,80 @@ public final class CpcSketch {
    */
   public void update(final long[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
+  /**
+   * Present each long in the given range of the array as a potential unique item.
+   * The resulting state is the same as calling {@link #update(long)} for each item in order.
+   *
+   * @param items the given array of long items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final long[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      hash(items[i], seed, hashOut);
+      hashUpdate(hashOut[0], hashOut[1]);
+    }
+  }
+
+  /**
+   * Present each int in the given range of the array as a potential unique item.
+   * Each int is widened to a long, so the resulting state is the same as calling
+   * {@link #update(long)} for each item in order.
+   *
+   * @param items the given array of int items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final int[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      hash(items[i], seed, hashOut);
+      hashUpdate(hashOut[0], hashOut[1]);
+    }
+  }
+
+  /**
+   * Present each double in the given range of the array as a potential unique item.
+   * The resulting state is the same as calling {@link #update(double)} for each item in order.
+   *
+   * @param items the given array of double items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final double[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      final double d = (items[i] == 0.0) ? 0.0 : items[i]; // canonicalize -0.0, 0.0
+      hash(Double.doubleToLongBits(d), seed, hashOut);
+      hashUpdate(hashOut[0], hashOut[1]);
+    }
+  }
+
+  /**
+   * Present each String in the given range of the array as a potential unique item.
+   * The resulting state is the same as calling {@link #update(String)} for each item in order.
+   * Null or empty strings are ignored.
+   *
+   * @param items the given array of String items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final String[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      final String datum = items[i];
+      if ((datum == null) || datum.isEmpty()) { continue; }
+      final byte[] data = datum.getBytes(UTF_8);
+      hash(data, 0, data.length, seed, hashOut);
+      hashUpdate(hashOut[0], hashOut[1]);
+    }
+  }
+
   /**
    * Convience function that this Sketch is valid. This is a troubleshooting tool
    * for sketches that have been heapified from serialized images.
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.WritableBuffer;
+
+/**
+ * This class holds an array of bits on the heap that may be updated and queried by any number
+ * of threads concurrently.
+ *
+ * <p>Bits are set with an atomic compare-and-set OR on the 64-bit words. A bit that is already
+ * set is never rewritten, so updates of items that are already present cause no write traffic.
+ * Reads are lock-free volatile reads. The number of bits set is kept in a LongAdder, incremented
+ * by the thread that sets each bit, so it is exact whenever no update is in progress.</p>
+ *
+ * <p>Operations on the whole array (union, intersect, invert, reset, serialization) update or
+ * read each word atomically but are not atomic with respect to concurrent updates.</p>
+ */
+final class AtomicBitArray extends BitArray {
+  private final AtomicLongArray data_;
+  private final LongAdder numBitsSet_;
+
+  // creates an array of a given size
+  AtomicBitArray(final long numBits) {
+    if (numBits <= 0) {
+      throw new SketchesArgumentException("Number of bits must be strictly positive. Found: " + numBits);
+    }
+    if (numBits > MAX_BITS) {
+      throw new SketchesArgumentException("Number of bits may not exceed " + MAX_BITS + ". Found: " + numBits);
+    }
+
+    data_ = new AtomicLongArray((int) Math.ceil(numBits / 64.0));
+    numBitsSet_ = new LongAdder();
+  }
+
+  // reads a serialized image, but the BitArray is not fully self-describing so requires
+  // a flag to indicate whether the array is empty
+  static AtomicBitArray heapify(final Buffer buffer, final boolean isEmpty) {
+    final int numLongs = buffer.getInt();
+    if (numLongs <= 0) {
+      throw new SketchesArgumentException("Possible corruption: Must have strictly positive array size. Found: " + numLongs);
+    }
+
+    final AtomicBitArray bitArray = new AtomicBitArray((long) numLongs * Long.SIZE);
+    if (isEmpty) {
+      return bitArray;
+    }
+
+    buffer.getInt(); // unused
+    buffer.getLong(); // numBitsSet, may be -1 so recounted below
+
+    long numBitsSet = 0;
+    for (int i = 0; i < numLongs; ++i) {
+      final long word = buffer.getLong();
+      bitArray.data_.set(i, word);
+      numBitsSet += Long.bitCount(word);
+    }
+    bitArray.numBitsSet_.add(numBitsSet);
+    return bitArray;
+  }
+
+  @Override
+  boolean isEmpty() {
+    return numBitsSet_.sum() == 0;
+  }
+
+  // queries a single bit in the array
+  @Override
+  boolean getBit(final long index) {
+    return (data_.get(wordIndex(index)) & (1L << index)) != 0;
+  }
+
+  // sets a single bit in the array, which is no cheaper than also querying it here
+  @Override
+  void setBit(final long index) {
+    getAndSetBit(index);
+  }
+
+  // atomically sets a single bit and returns its existing value
+  @Override
+  boolean getAndSetBit(final long index) {
+    final int offset = wordIndex(index);
+    final long mask = 1L << index;
+    long word = data_.get(offset);
+    while ((word & mask) == 0) {
+      if (data_.compareAndSet(offset, word, word | mask)) {
+        numBitsSet_.increment();
+        return false; // new set
+      }
+      word = data_.get(offset);
+    }
+    return true; // already seen
+  }
+
+  // exact when no update is in progress
+  @Override
+  long getNumBitsSet() {
+    return numBitsSet_.sum();
+  }
+
+  @Override
+  int getArrayLength() { return data_.length(); }
+
+  @Override
+  long getLong(final int index) { return data_.get(index); }
+
+  @Override
+  void orLong(final int index, final long bits) {
+    long word = data_.get(index);
+    while ((word | bits) != word) {
+      if (data_.compareAndSet(index, word, word | bits)) {
+        numBitsSet_.add(Long.bitCount(bits & ~word));
+        return;
+      }
+      word = data_.get(index);
+    }
+  }
+
+  // applies logical OR, atomically per word so concurrent updates are never lost
+  @Override
+  void union(final BitArray other) {
+    if (data_.length() != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
+    }
+
+    for (int i = 0; i < data_.length(); ++i) {
+      final long bits = other.getLong(i);
+      long word = data_.get(i);
+      while ((word | bits) != word) {
+        if (data_.compareAndSet(i, word, word | bits)) {
+          numBitsSet_.add(Long.bitCount(bits & ~word));
+          break;
+        }
+        word = data_.get(i);
+      }
+    }
+  }
+
+  // applies logical AND, atomically per word
+  @Override
+  void intersect(final BitArray other) {
+    if (data_.length() != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
+    }
+
+    for (int i = 0; i < data_.length(); ++i) {
+      final long bits = other.getLong(i);
+      long word = data_.get(i);
+      while ((word & bits) != word) {
+        if (data_.compareAndSet(i, word, word & bits)) {
+          numBitsSet_.add(-Long.bitCount(word & ~bits));
+          break;
+        }
+        word = data_.get(i);
+      }
+    }
+  }
+
+  // applies bitwise inversion, atomically per word
+  @Override
+  void invert() {
+    for (int i = 0; i < data_.length(); ++i) {
+      long word = data_.get(i);
+      while (!data_.compareAndSet(i, word, ~word)) {
+        word = data_.get(i);
+      }
+      numBitsSet_.add(Long.SIZE - 2L * Long.bitCount(word));
+    }
+  }
+
+  // writes the words one at a time without an intermediate copy, so the number of bits set
+  // is counted from the words actually written and filled in afterwards
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf, final boolean isEmpty) {
+    wbuf.putInt(data_.length());
+    wbuf.putInt(0); // unused
+
+    if (!isEmpty) {
+      final long numBitsSetOffset = wbuf.getPosition();
+      wbuf.putLong(0L);
+      long numBitsSet = 0;
+      for (int i = 0; i < data_.length(); ++i) {
+        final long word = data_.get(i);
+        wbuf.putLong(word);
+        numBitsSet += Long.bitCount(word);
+      }
+      wbuf.putLong(numBitsSetOffset, numBitsSet);
+    }
+  }
+
+  // clears the array, keeping any bits set concurrently with the reset counted
+  @Override
+  void reset() {
+    for (int i = 0; i < data_.length(); ++i) {
+      numBitsSet_.add(-Long.bitCount(data_.getAndSet(i, 0L)));
+    }
+  }
+
+  @Override
+  boolean hasMemory() { return false; }
+
+  @Override
+  boolean isDirect() { return false; }
+
+  @Override
+  boolean isReadOnly() { return false; }
+
+  @Override
+  boolean isConcurrent() { return true; }
+}
@@ -17,187 +17,116 @@
  * under the License.
  */
 
-package org.apache.datasketches.filters.bloomfilter;
 
-import java.util.Arrays;
+package org.apache.datasketches.filters.bloomfilter;
 
-import org.apache.datasketches.common.SketchesArgumentException;
-import org.apache.datasketches.memory.Buffer;
 import org.apache.datasketches.memory.WritableBuffer;
 
 /**
- * This class holds an array of bits suitable for use in a Bloom Filter
+ * This class holds an array of bits suitable for use in a Bloom Filter. The bits
+ * live either on the heap or in a Memory, such as a memory-mapped file.
  *
- * <p>Rounds the number of bits up to the smallest multiple of 64 (one long)
- * that is not smaller than the specified number.
+ * <p>The serialized form of a non-empty array, which is also the in-memory form used by
+ * the direct implementations, is an int with the length in longs, an unused int, a long
+ * with the number of bits set (-1 if not known) and then the bits.</p>
  */
-final class BitArray {
+abstract class BitArray {
   // MAX_BITS using longs, based on array indices being capped at Integer.MAX_VALUE
-  private static final long MAX_BITS = Integer.MAX_VALUE * (long) Long.SIZE;
-
-  private long numBitsSet_;  // if -1, need to recompute value
-  private boolean isDirty_;
-  private long[] data_;
-
-  // creates an array of a given size
-  BitArray(final long numBits) {
-    if (numBits <= 0) {
-      throw new SketchesArgumentException("Number of bits must be strictly positive. Found: " + numBits);
-    }
-    if (numBits > MAX_BITS) {
-      throw new SketchesArgumentException("Number of bits may not exceed " + MAX_BITS + ". Found: " + numBits);
-    }
+  static final long MAX_BITS = Integer.MAX_VALUE * (long) Long.SIZE;
 
-    final int numLongs = (int) Math.ceil(numBits / 64.0);
-    numBitsSet_ = 0;
-    isDirty_ = false;
-    data_ = new long[numLongs];
-  }
+  // number of words reachable by the old heap word index, which narrowed the bit index to an int
+  // before shifting, so that bit indexes of 2^32 and above wrapped around into the first 2^26 words
+  static final int WRAPPED_WORDS = 1 << 26;
 
-  // uses the provided array
-  BitArray(final long numBitsSet, final long[] data) {
-    data_ = data;
-    isDirty_ = numBitsSet < 0;
-    numBitsSet_ = numBitsSet;
+  // returns the index of the long holding the given bit, shifting before narrowing so
+  // that bit indexes of 2^32 and above map to the same word in every implementation
+  static int wordIndex(final long bitIndex) {
+    return (int) (bitIndex >>> 6);
   }
 
-  // reads a serialized image, but the BitArray is not fully self-describing so requires
-  // a flag to indicate whether the array is empty
-  static BitArray heapify(final Buffer buffer, final boolean isEmpty) {
-    final int numLongs = buffer.getInt();
-    if (numLongs < 0) {
-      throw new SketchesArgumentException("Possible corruption: Must have strictly positive array size. Found: " + numLongs);
-    }
-
-    if (isEmpty) {
-      return new BitArray((long) numLongs * Long.SIZE);
-    }
-
-    buffer.getInt(); // unused
-
-    // will be -1 if dirty
-    final long numBitsSet = buffer.getLong();
-
-    final long[] data = new long[numLongs];
-    buffer.getLongArray(data, 0, numLongs);
-    return new BitArray(numBitsSet, data);
-  }
-
-  boolean isEmpty() {
-    return getNumBitsSet() == 0 && !isDirty_;
-  }
+  abstract boolean isEmpty();
 
   // queries a single bit in the array
-  boolean getBit(final long index) {
-    return (data_[(int) index >>> 6] & (1L << index)) != 0 ? true : false;
-  }
+  abstract boolean getBit(long index);
 
-  // sets a single bit in the array without querying, meaning the method
-  // cannot properly track the number of bits set so set isDirty = true
-  void setBit(final long index) {
-    data_[(int) index >>> 6] |= 1L << index;
-    isDirty_ = true;
-  }
+  // sets a single bit in the array without querying
+  abstract void setBit(long index);
 
   // returns existing value of bit
-  boolean getAndSetBit(final long index) {
-    final int offset = (int) index >>> 6;
-    final long mask = 1L << index;
-    if ((data_[offset] & mask) != 0) {
-      return true; // already seen
-    } else {
-      data_[offset] |= mask;
-      ++numBitsSet_; // increment regardless of isDirty_
-      return false; // new set
-    }
-  }
+  abstract boolean getAndSetBit(long index);
 
-  // may need to recompute value:
-  // O(1) if only getAndSetBit() has been used
-  // O(data_.length) if setBit() has ever been used
-  long getNumBitsSet() {
-    if (isDirty_) {
-      numBitsSet_ = 0;
-      for (final long val : data_) {
-        numBitsSet_ += Long.bitCount(val);
-      }
-    }
-    return numBitsSet_;
-  }
+  abstract long getNumBitsSet();
 
-  long getCapacity() { return (long) data_.length * Long.SIZE; }
+  long getCapacity() { return (long) getArrayLength() * Long.SIZE; }
 
-  int getArrayLength() { return data_.length; }
+  abstract int getArrayLength();
 
-  // applies logical OR
-  void union(final BitArray other) {
-    if (data_.length != other.data_.length) {
-      throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
-    }
+  // returns the word at the given index of the array
+  abstract long getLong(int index);
+
+  // applies logical OR to the word at the given index of the array
+  abstract void orLong(int index, long bits);
 
-    numBitsSet_ = 0;
-    for (int i = 0; i < data_.length; ++i) {
-      data_[i] |= other.data_[i];
-      numBitsSet_ += Long.bitCount(data_[i]);
+  // applies logical OR
+  abstract void union(BitArray other);
+
+  // Makes an array written with the old wrapped word index safe to query with wordIndex().
+  // Each bit that may have been wrapped is also set in every word it may have come from,
+  // which adds false positives but never loses a bit.
+  void remapWrappedWords() {
+    for (int i = WRAPPED_WORDS; i < getArrayLength(); ++i) {
+      final long bits = getLong(i & (WRAPPED_WORDS - 1));
+      if (bits != 0) { orLong(i, bits); }
     }
-    isDirty_ = false;
   }
 
   // applies logical AND
-  void intersect(final BitArray other) {
-    if (data_.length != other.data_.length) {
-      throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
-    }
-
-    numBitsSet_ = 0;
-    for (int i = 0; i < data_.length; ++i) {
-      data_[i] &= other.data_[i];
-      numBitsSet_ += Long.bitCount(data_[i]);
-    }
-    isDirty_ = false;
-  }
+  abstract void intersect(BitArray other);
 
   // applies bitwise inversion
-  void invert() {
-    if (isDirty_) {
-      numBitsSet_ = 0;
-      for (int i = 0; i < data_.length; ++i) {
-        data_[i] = ~data_[i];
-        numBitsSet_ += Long.bitCount(data_[i]);
-      }
-      isDirty_ = false;
-    } else {
-      for (int i = 0; i < data_.length; ++i) {
-        data_[i] = ~data_[i];
-      }
-      numBitsSet_ = getCapacity() - numBitsSet_;
-    }
-  }
+  abstract void invert();
 
   long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(isEmpty());
+  }
+
+  // The emptiness is passed in so that callers serializing an array that other threads may be
+  // updating can decide it once for both the size and the image
+  long getSerializedSizeBytes(final boolean isEmpty) {
     // We only really need an int for array length but this will keep everything
     // aligned to 8 bytes.
     // Always write array length and numBitsSet, even if empty
-    return isEmpty() ? Long.BYTES : Long.BYTES * (2L + data_.length);
+    return isEmpty ? Long.BYTES : Long.BYTES * (2L + getArrayLength());
   }
 
   void writeToBuffer(final WritableBuffer wbuf) {
-    wbuf.putInt(data_.length);
-    wbuf.putInt(0); // unused
-
-    if (!isEmpty()) {
-      wbuf.putLong(isDirty_ ? -1 : numBitsSet_);
-      wbuf.putLongArray(data_, 0, data_.length);
-    }
+    writeToBuffer(wbuf, isEmpty());
   }
 
+  // writes the array in the empty or non-empty form as given
+  abstract void writeToBuffer(WritableBuffer wbuf, boolean isEmpty);
+
+  // clears the array
+  abstract void reset();
+
+  // true if the bits are held in a Memory rather than on the heap
+  abstract boolean hasMemory();
+
+  // true if the bits are held off the Java heap
+  abstract boolean isDirect();
+
+  abstract boolean isReadOnly();
+
+  // true if the bits may be updated and queried by several threads concurrently
+  abstract boolean isConcurrent();
+
   // prints the raw BitArray as 0s and 1s, one long per row
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < data_.length; ++i) {
+    for (int i = 0; i < getArrayLength(); ++i) {
       sb.append(i + ": ")
-        .append(printLong(data_[i]))
+        .append(printLong(getLong(i)))
         .append("\n");
     }
     return sb.toString();
@@ -212,11 +141,4 @@ final class BitArray {
     }
     return sb.toString();
   }
-
-  // clears the array
-  void reset() {
-    Arrays.fill(data_, 0);
-    numBitsSet_ = 0;
-    isDirty_ = false;
-  }
 }
@@ -53,6 +53,28 @@ import org.apache.datasketches.memory.XxHash;
  * one sized correctly for a target number of distinct elements and a target
  * false positive probability.</p>
  *
+ * <p>A filter created with one of the <code>createBlocked</code> methods of BloomFilterBuilder is
+ * register-blocked: the bit array is divided into blocks of 512 bits (64 bytes, one typical
+ * cache line) and all of the hash functions for a given item set or probe bits inside a single
+ * block, selected by the first hash value. Every update or query therefore touches exactly one
+ * cache line, regardless of the number of hash functions, where each of the <i>k</i> probes of
+ * a standard filter may miss the cache. The price of locality is a slightly higher false positive
+ * probability for a given number of bits, since the load of the blocks varies from block to
+ * block. The gap is small at moderate targets (about 1.2% versus 1% when sized for 1%) and grows
+ * as the target shrinks, so filters aiming for very low false positive rates should be given
+ * proportionally more bits. A blocked filter may only be unioned or intersected with another
+ * blocked filter, and its serialized image carries a flag so that it is read back as blocked.</p>
+ *
+ * <p>A filter created with one of the <code>createConcurrent</code> methods of BloomFilterBuilder,
+ * or read with {@link #heapifyConcurrent(Memory)}, may be updated and queried by any number of
+ * threads concurrently, so that a single shared filter can replace one filter per thread. Bits
+ * are set with an atomic compare-and-set OR on the 64-bit words, and queries are lock-free.
+ * An update is visible to a query that starts after the update returns; a query that overlaps an
+ * update may see only some of its bits, and will then report the item as absent. Operations that
+ * touch the whole filter, such as {@link #union(BloomFilter)}, {@link #reset()} and serialization,
+ * are safe to run alongside updates but are not atomic with respect to them. All other filters
+ * require external synchronization when updated by more than one thread.</p>
+ *
  * <p>This implementation uses xxHash64 and follows the approach in Kirsch and Mitzenmacher,
  * "Less Hashing, Same Performance: Building a Better Bloom Filter," Wiley Interscience, 2008,
  * pp. 187-218.</p>
@@ -60,12 +82,29 @@ import org.apache.datasketches.memory.XxHash;
 public final class BloomFilter {
   // maximum number of longs in the array with space for a header at serialization
   static final long MAX_SIZE = (Integer.MAX_VALUE - Family.BLOOMFILTER.getMaxPreLongs()) * (long) Long.SIZE;
-  private static final int SER_VER = 1;
-  private static final int EMPTY_FLAG_MASK = 4;
-
-  private long seed_;            // hash seed
-  private short numHashes_;      // number of hash values
-  private BitArray bitArray_;    // the actual data bits
+  static final int SER_VER = 1;
+  static final int EMPTY_FLAG_MASK = 4;
+  static final int BLOCKED_FLAG_MASK = 8;
+  // set in images of more than 2^32 bits whose word index is computed from the full long bit index,
+  // see BitArray.wordIndex(). Without it such an image may come from the old heap word index.
+  static final int LONG_WORD_INDEX_FLAG_MASK = 16;
+  static final int BITS_PER_BLOCK = 512; // one typical cache line
+  static final int LONGS_PER_BLOCK = BITS_PER_BLOCK / Long.SIZE;
+  private static final int LG_BITS_PER_BLOCK = 9;
+  // byte offsets of the preamble fields, see the layout comment above toByteArray()
+  private static final int PREAMBLE_LONGS_BYTE = 0;
+  private static final int SER_VER_BYTE = 1;
+  private static final int FAMILY_ID_BYTE = 2;
+  private static final int FLAGS_BYTE = 3;
+  private static final int NUM_HASHES_SHORT = 4;
+  private static final int SEED_LONG = 8;
+  private static final int BIT_ARRAY_OFFSET = 16;
+  private static final int BATCH_SIZE = 256; // keys hashed per pass by the batch methods
+
+  private final long seed_;            // hash seed
+  private final short numHashes_;      // number of hash values
+  private final BitArray bitArray_;    // the actual data bits
+  private final int numBlocks_;        // number of 512-bit blocks if blocked, otherwise 0
 
   /**
    * Creates a BloomFilter with given number of bits and number of hash functions,
@@ -78,14 +117,45 @@ public final class BloomFilter {
   BloomFilter(final long numBits, final int numHashes, final long seed) {
     seed_ = seed;
     numHashes_ = (short) numHashes;
-    bitArray_ = new BitArray(numBits);
+    bitArray_ = new HeapBitArray(numBits);
+    numBlocks_ = 0;
+  }
+
+  // Constructor used with initialize(): writes an empty filter to the given Memory
+  BloomFilter(final long numBits, final int numHashes, final long seed, final WritableMemory wmem) {
+    if (wmem.getCapacity() < Family.BLOOMFILTER.getMinPreLongs() * (long) Long.BYTES) {
+      throw new SketchesArgumentException("Memory capacity " + wmem.getCapacity() + " is too small for a BloomFilter");
+    }
+    seed_ = seed;
+    numHashes_ = (short) numHashes;
+    wmem.putByte(PREAMBLE_LONGS_BYTE, (byte) Family.BLOOMFILTER.getMinPreLongs());
+    wmem.putByte(SER_VER_BYTE, (byte) SER_VER);
+    wmem.putByte(FAMILY_ID_BYTE, (byte) Family.BLOOMFILTER.getID());
+    wmem.putByte(FLAGS_BYTE, (byte) 0); // direct images always hold the bit array
+    wmem.putShort(NUM_HASHES_SHORT, numHashes_);
+    wmem.putShort(NUM_HASHES_SHORT + Short.BYTES, (short) 0); // unused
+    wmem.putLong(SEED_LONG, seed_);
+    bitArray_ = DirectBitArray.initialize(numBits,
+        wmem.writableRegion(BIT_ARRAY_OFFSET, wmem.getCapacity() - BIT_ARRAY_OFFSET));
+    wmem.putByte(FLAGS_BYTE, (byte) getWordIndexFlag(bitArray_.getCapacity()));
+    numBlocks_ = 0;
   }
 
-  // Constructor used with heapify()
+  // Constructor of a standard filter over the given bits
   BloomFilter(final short numHashes, final long seed, final BitArray bitArray) {
+    this(numHashes, seed, bitArray, false);
+  }
+
+  // Constructor used with heapify(), wrap() and for blocked filters
+  BloomFilter(final short numHashes, final long seed, final BitArray bitArray, final boolean isBlocked) {
+    if (isBlocked && bitArray.getArrayLength() % LONGS_PER_BLOCK != 0) {
+      throw new SketchesArgumentException("Possible corruption: BitArray length of a blocked filter must be a multiple of "
+          + LONGS_PER_BLOCK + ". Found: " + bitArray.getArrayLength());
+    }
     seed_ = seed;
     numHashes_ = numHashes;
     bitArray_ = bitArray;
+    numBlocks_ = isBlocked ? bitArray.getArrayLength() / LONGS_PER_BLOCK : 0;
   }
 
   /**
@@ -94,6 +164,21 @@ public final class BloomFilter {
    * @return a BloomFilter object
    */
   public static BloomFilter heapify(final Memory mem) {
+    return heapify(mem, false);
+  }
+
+  /**
+   * Reads a serialized image of a BloomFilter from the provided Memory into a filter that may be
+   * updated and queried by several threads concurrently, as if created by one of the
+   * <code>createConcurrent</code> methods of BloomFilterBuilder.
+   * @param mem Memory containing a previously serialized BloomFilter
+   * @return a thread-safe BloomFilter object
+   */
+  public static BloomFilter heapifyConcurrent(final Memory mem) {
+    return heapify(mem, true);
+  }
+
+  private static BloomFilter heapify(final Memory mem, final boolean isConcurrent) {
     final Buffer buf = mem.asBuffer();
     final int preLongs = buf.getByte();
     final int serVer = buf.getByte();
@@ -113,9 +198,116 @@ public final class BloomFilter {
 
     final boolean isEmpty = (flags & EMPTY_FLAG_MASK) != 0;
 
-    final BitArray bitArray = BitArray.heapify(buf, isEmpty);
+    final BitArray bitArray = isConcurrent
+        ? AtomicBitArray.heapify(buf, isEmpty)
+        : HeapBitArray.heapify(buf, isEmpty);
+    if (!isEmpty && hasWrappedWordIndex(flags, bitArray.getCapacity())) { bitArray.remapWrappedWords(); }
+
+    return new BloomFilter(numHashes, seed, bitArray, (flags & BLOCKED_FLAG_MASK) != 0);
+  }
+
+  /**
+   * Wraps a serialized image of a BloomFilter in the provided Memory as a read-only filter.
+   * The bits are not copied: queries read them directly from the Memory. If the Memory is a
+   * memory-mapped file, only the pages touched by queries are read from disk, and processes
+   * that map the same file share one copy in the page cache.
+   *
+   * <p>An image of an empty filter produced by {@link #toByteArray()} does not hold a bit array,
+   * so in that case the result is an empty heap filter, as from {@link #heapify(Memory)}.</p>
+   *
+   * <p>An image of more than 2^32 bits written before the word index of the heap filter was fixed
+   * cannot be wrapped read-only, since its bits have to be remapped: heapify or writableWrap it instead.</p>
+   *
+   * @param mem Memory containing a previously serialized BloomFilter
+   * @return a read-only BloomFilter backed by the given Memory
+   */
+  public static BloomFilter wrap(final Memory mem) {
+    if (checkPreamble(mem)) { return heapify(mem); }
+    final BitArray bitArray = new DirectBitArrayR(mem.region(BIT_ARRAY_OFFSET, mem.getCapacity() - BIT_ARRAY_OFFSET));
+    checkArgument(hasWrappedWordIndex(mem.getByte(FLAGS_BYTE), bitArray.getCapacity()),
+        "Cannot wrap a BloomFilter image of more than 2^32 bits written with the old word index read-only. "
+        + "Use heapify() or writableWrap(), which remap its bits.");
+    return new BloomFilter(mem.getShort(NUM_HASHES_SHORT), mem.getLong(SEED_LONG), bitArray, isBlocked(mem));
+  }
+
+  /**
+   * Wraps a serialized image of a BloomFilter in the provided WritableMemory. The bits are not
+   * copied: updates and queries operate directly on the Memory.
+   *
+   * <p>To keep a filter in a file, create the file with
+   * {@link BloomFilterBuilder#initializeBySize(long, int, long, WritableMemory)} on a
+   * {@link WritableMemory#writableMap(java.io.File, long, long, java.nio.ByteOrder) mapped}
+   * region of {@link #getSerializedSize(long)} bytes, and later reopen it with this method.
+   * Pages are read from disk lazily, as they are first touched. Updates reach the file when the
+   * operating system writes back the dirty pages; call <code>force()</code> on the map handle
+   * to write them back (msync) at a point of your choosing.</p>
+   *
+   * <p>An image of more than 2^32 bits written before the word index of the heap filter was fixed
+   * has its bits remapped in place the first time it is wrapped, see {@link #heapify(Memory)}.</p>
+   *
+   * @param wmem WritableMemory containing a previously serialized, non-empty BloomFilter image,
+   * or an image written by BloomFilterBuilder.initializeBySize()
+   * @return a BloomFilter backed by the given WritableMemory
+   */
+  public static BloomFilter writableWrap(final WritableMemory wmem) {
+    if (checkPreamble(wmem)) {
+      throw new SketchesArgumentException("Cannot writableWrap the image of an empty BloomFilter, which holds no bits. "
+          + "Use BloomFilterBuilder.initializeBySize() or initializeByAccuracy() instead.");
+    }
+    final BitArray bitArray = new DirectBitArray(wmem.writableRegion(BIT_ARRAY_OFFSET, wmem.getCapacity() - BIT_ARRAY_OFFSET));
+    final int flags = wmem.getByte(FLAGS_BYTE);
+    if (hasWrappedWordIndex(flags, bitArray.getCapacity())) {
+      bitArray.remapWrappedWords();
+      wmem.putByte(FLAGS_BYTE, (byte) (flags | LONG_WORD_INDEX_FLAG_MASK));
+    }
+    return new BloomFilter(wmem.getShort(NUM_HASHES_SHORT), wmem.getLong(SEED_LONG), bitArray, isBlocked(wmem));
+  }
+
+  // Validates the preamble of an image to be wrapped, returning true if it is the compact empty form
+  private static boolean checkPreamble(final Memory mem) {
+    checkArgument(mem.getCapacity() < BIT_ARRAY_OFFSET + Long.BYTES, "Possible corruption: Memory too small for a BloomFilter");
+    final int preLongs = mem.getByte(PREAMBLE_LONGS_BYTE);
+    final int serVer = mem.getByte(SER_VER_BYTE);
+    final int familyID = mem.getByte(FAMILY_ID_BYTE);
+    final int flags = mem.getByte(FLAGS_BYTE);
+
+    checkArgument(preLongs < Family.BLOOMFILTER.getMinPreLongs() || preLongs > Family.BLOOMFILTER.getMaxPreLongs(),
+      "Possible corruption: Incorrect number of preamble bytes specified in header");
+    checkArgument(serVer != SER_VER, "Possible corruption: Unrecognized serialization version: " + serVer);
+    checkArgument(familyID != Family.BLOOMFILTER.getID(), "Possible corruption: Incorrect FamilyID for bloom filter. Found: " + familyID);
 
-    return new BloomFilter(numHashes, seed, bitArray);
+    final short numHashes = mem.getShort(NUM_HASHES_SHORT);
+    checkArgument(numHashes < 1, "Possible corruption: Need strictly positive number of hash functions. Found: " + numHashes);
+    return (flags & EMPTY_FLAG_MASK) != 0;
+  }
+
+  private static boolean isBlocked(final Memory mem) {
+    return (mem.getByte(FLAGS_BYTE) & BLOCKED_FLAG_MASK) != 0;
+  }
+
+  // Returns the flag to write in the image of a filter with the given number of bits
+  private static int getWordIndexFlag(final long numBits) {
+    return numBits > (long) BitArray.WRAPPED_WORDS * Long.SIZE ? LONG_WORD_INDEX_FLAG_MASK : 0;
+  }
+
+  // Returns true if an image with the given flags and number of bits may have been written by a heap
+  // filter with the old word index, which wrapped bit indexes of 2^32 and above into the first 2^26 words.
+  // Smaller images map every bit to the same word either way.
+  private static boolean hasWrappedWordIndex(final int flags, final long numBits) {
+    return (flags & LONG_WORD_INDEX_FLAG_MASK) == 0 && getWordIndexFlag(numBits) != 0;
+  }
+
+  /**
+   * Returns the number of bytes needed to hold a non-empty BloomFilter with the given number of
+   * bits, which is the size of Memory to provide to BloomFilterBuilder.initializeBySize().
+   * @param numBits The size of the BloomFilter, in bits
+   * @return The serialized size of a non-empty BloomFilter of the given size, in bytes
+   */
+  public static long getSerializedSize(final long numBits) {
+    if (numBits <= 0 || numBits > MAX_SIZE) {
+      throw new SketchesArgumentException("Number of bits must be in [1, " + MAX_SIZE + "]. Found: " + numBits);
+    }
+    return BIT_ARRAY_OFFSET + DirectBitArrayR.getRequiredBytes((int) Math.ceil(numBits / 64.0));
   }
 
   /**
@@ -125,6 +317,39 @@ public final class BloomFilter {
     bitArray_.reset();
   }
 
+  /**
+   * Returns true if this filter is backed by a Memory rather than held on the heap.
+   * @return true if this filter is backed by a Memory
+   */
+  public boolean hasMemory() { return bitArray_.hasMemory(); }
+
+  /**
+   * Returns true if this filter is backed by off-heap Memory, such as a memory-mapped file.
+   * @return true if this filter is backed by off-heap Memory
+   */
+  public boolean isDirect() { return bitArray_.isDirect(); }
+
+  /**
+   * Returns true if this filter cannot be updated, as when obtained from {@link #wrap(Memory)}.
+   * Update methods of a read-only filter throw SketchesReadOnlyException.
+   * @return true if this filter is read-only
+   */
+  public boolean isReadOnly() { return bitArray_.isReadOnly(); }
+
+  /**
+   * Returns true if this filter may be updated and queried by several threads concurrently,
+   * as when created by one of the <code>createConcurrent</code> methods of BloomFilterBuilder.
+   * @return true if this filter is thread-safe
+   */
+  public boolean isConcurrent() { return bitArray_.isConcurrent(); }
+
+  /**
+   * Returns true if this filter is register-blocked, as when created by one of the
+   * <code>createBlocked</code> methods of BloomFilterBuilder.
+   * @return true if all of the bits of an item lie in a single 512-bit block
+   */
+  public boolean isBlocked() { return numBlocks_ > 0; }
+
   /**
    * Checks if the BloomFilter has processed any items
    * @return True if the BloomFilter is empty, otherwise False
@@ -273,11 +498,8 @@ public final class BloomFilter {
 
   // Internal method to apply updates given pre-computed hashes
   private void updateInternal(final long h0, final long h1) {
-    final long numBits = bitArray_.getCapacity();
     for (int i = 1; i <= numHashes_; ++i) {
-      // right-shift to ensure non-negative value
-      final long hashIndex = ((h0 + i * h1) >>> 1) % numBits;
-      bitArray_.setBit(hashIndex);
+      bitArray_.setBit(bitIndex(h0, h1, i));
     }
   }
 
@@ -337,6 +559,7 @@ public final class BloomFilter {
    * @return The query result prior to applying the update, or false if data is null
    */
   public boolean queryAndUpdate(final byte[] data) {
+    if (data == null) { return false; }
     final long h0 = XxHash.hashByteArr(data, 0, data.length, seed_);
     final long h1 = XxHash.hashByteArr(data, 0, data.length, h0);
     return queryAndUpdateInternal(h0, h1);
@@ -409,12 +632,10 @@ public final class BloomFilter {
 
   // Internal query-and-update method given pre-computed hashes
   private boolean queryAndUpdateInternal(final long h0, final long h1) {
-    final long numBits = bitArray_.getCapacity();
     boolean valueAlreadyExists = true;
     for (int i = 1; i <= numHashes_; ++i) {
-      final long hashIndex = ((h0 + i * h1) >>> 1) % numBits;
       // returns old value of bit
-      valueAlreadyExists &= bitArray_.getAndSetBit(hashIndex);
+      valueAlreadyExists &= bitArray_.getAndSetBit(bitIndex(h0, h1, i));
     }
     return valueAlreadyExists;
   }
@@ -565,17 +786,124 @@ public final class BloomFilter {
 
   // Internal method to query the filter given pre-computed hashes
   private boolean queryInternal(final long h0, final long h1) {
-    final long numBits = bitArray_.getCapacity();
     for (int i = 1; i <= numHashes_; ++i) {
-      final long hashIndex = ((h0 + i * h1) >>> 1) % numBits;
-      // returns old value of bit
-      if (!bitArray_.getBit(hashIndex)) {
+      if (!bitArray_.getBit(bitIndex(h0, h1, i))) {
         return false;
       }
     }
     return true;
   }
 
+  // Index of the i-th bit of an item given its pre-computed hashes
+  private long bitIndex(final long h0, final long h1, final int i) {
+    if (numBlocks_ > 0) {
+      return blockStart(h0, numBlocks_) + bitInBlock(h0, h1, i);
+    }
+    // right-shift to ensure non-negative value
+    return ((h0 + i * h1) >>> 1) % bitArray_.getCapacity();
+  }
+
+  // Index of the first bit of the block selected by the upper 32 bits of h0, using a
+  // multiply-shift range reduction rather than a modulus
+  static long blockStart(final long h0, final int numBlocks) {
+    return ((h0 >>> 32) * numBlocks >>> 32) << LG_BITS_PER_BLOCK;
+  }
+
+  // Position within the block of the i-th bit, taken from the top bits of the i-th
+  // double-hashing combination. The stride uses the low half of h0 because the high half
+  // is nearly constant among the items that map to the same block.
+  private static int bitInBlock(final long h0, final long h1, final int i) {
+    return (int) ((h1 + i * (h0 << 32)) >>> (Long.SIZE - LG_BITS_PER_BLOCK));
+  }
+
+  // BATCH METHODS
+  /**
+   * Queries the filter with each of the provided long items and stores whether each item
+   * <em>might</em> have been seen previously in the corresponding slot of <i>results</i>.
+   * The results are the same as calling {@link #query(long)} for each item.
+   *
+   * <p>Note: unlike {@link #query(long[])}, which treats the array as a single item, this
+   * method treats each element as a separate item.</p>
+   *
+   * <p>Items are processed in groups: all items of a group are hashed first, then the first
+   * bit of every item is probed, and finally the remaining bits of the items that passed the
+   * first probe. The probes within each pass are independent of each other, which lets the
+   * processor overlap their cache misses on filters larger than the cache.</p>
+   *
+   * @param keys the items with which to query the filter
+   * @param results receives the query result of each item, must be at least as long as <i>keys</i>
+   */
+  public void query(final long[] keys, final boolean[] results) {
+    checkBatchArgs(keys, results);
+    final long[] hashes = new long[2 * BATCH_SIZE]; // h0, h1 pairs of one pass, local so queries may run concurrently
+    for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+      final int n = Math.min(BATCH_SIZE, keys.length - start);
+      hashBatch(keys, start, n, hashes);
+      // first probe of every key: branch-free, so the loads can all be in flight together
+      for (int j = 0; j < n; ++j) {
+        results[start + j] = bitArray_.getBit(bitIndex(hashes[2 * j], hashes[2 * j + 1], 1));
+      }
+      // remaining probes only for the keys that survived the first one
+      for (int j = 0; j < n; ++j) {
+        if (!results[start + j]) { continue; }
+        final long h0 = hashes[2 * j];
+        final long h1 = hashes[2 * j + 1];
+        boolean found = true;
+        for (int i = 2; i <= numHashes_ && found; ++i) {
+          found = bitArray_.getBit(bitIndex(h0, h1, i));
+        }
+        results[start + j] = found;
+      }
+    }
+  }
+
+  /**
+   * Updates the filter with each of the provided long items and stores the result of querying
+   * each item, just prior to its own update, in the corresponding slot of <i>results</i>.
+   * The results and the final state are the same as calling {@link #queryAndUpdate(long)} for
+   * each item in order, so an item repeated within the batch reports true on its later occurrences.
+   *
+   * <p>Note: unlike {@link #queryAndUpdate(long[])}, which treats the array as a single item, this
+   * method treats each element as a separate item.</p>
+   *
+   * <p>As with {@link #query(long[], boolean[])}, all items of a group are hashed before the
+   * bit array is probed.</p>
+   *
+   * @param keys the items with which to update the filter
+   * @param results receives the query result of each item prior to its update, must be at
+   * least as long as <i>keys</i>
+   */
+  public void queryAndUpdate(final long[] keys, final boolean[] results) {
+    checkBatchArgs(keys, results);
+    final long[] hashes = new long[2 * BATCH_SIZE]; // h0, h1 pairs of one pass
+    for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+      final int n = Math.min(BATCH_SIZE, keys.length - start);
+      hashBatch(keys, start, n, hashes);
+      for (int j = 0; j < n; ++j) {
+        results[start + j] = queryAndUpdateInternal(hashes[2 * j], hashes[2 * j + 1]);
+      }
+    }
+  }
+
+  // Hashes n keys starting at the given offset into h0, h1 pairs
+  private void hashBatch(final long[] keys, final int offset, final int n, final long[] hashes) {
+    for (int j = 0; j < n; ++j) {
+      final long h0 = XxHash.hashLong(keys[offset + j], seed_);
+      hashes[2 * j] = h0;
+      hashes[2 * j + 1] = XxHash.hashLong(keys[offset + j], h0);
+    }
+  }
+
+  private static void checkBatchArgs(final long[] keys, final boolean[] results) {
+    if (keys == null || results == null) {
+      throw new SketchesArgumentException("keys and results must not be null");
+    }
+    if (results.length < keys.length) {
+      throw new SketchesArgumentException("results must be at least as long as keys. Found: "
+        + results.length + " < " + keys.length);
+    }
+  }
+
   // OTHER OPERATIONS
   /**
    * Unions two BloomFilters by applying a logical OR. The result will recognized
@@ -621,6 +949,7 @@ public final class BloomFilter {
     if (other == null
         || seed_ != other.seed_
         || numHashes_ != other.numHashes_
+        || numBlocks_ != other.numBlocks_
         || bitArray_.getArrayLength() != other.bitArray_.getArrayLength()) {
           return false;
     }
@@ -632,8 +961,12 @@ public final class BloomFilter {
    * @return The length of this BloomFilter when serialized, in bytes
    */
   public long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(bitArray_.isEmpty());
+  }
+
+  private long getSerializedSizeBytes(final boolean isEmpty) {
     long sizeBytes = 2L * Long.BYTES; // basic sketch info + baseSeed
-    sizeBytes += bitArray_.getSerializedSizeBytes();
+    sizeBytes += bitArray_.getSerializedSizeBytes(isEmpty);
     return sizeBytes;
   }
 
@@ -656,7 +989,14 @@ public final class BloomFilter {
  *  2   ||---------------------------------NumBitsSet------------------------------------|
  *  </pre>
  * 
- * The raw BitArray bits, if non-empty start at byte 24.
+ * The raw BitArray bits, if non-empty start at byte 32.
+ *
+ * Flags: 4 if empty, 8 if blocked, 16 if the filter has more than 2^32 bits. The last marks images
+ * written with the word index of every bit computed from its full long index. Older images of more
+ * than 2^32 bits written by a heap filter wrapped those bit indexes around into the first 2^26 words.
+ *
+ * A filter backed by a Memory (see wrap() and writableWrap()) uses the same layout, always in the
+ * non-empty form, with NumBitsSet kept up to date in place (-1 when it must be recounted).
  */
 
   /**
@@ -666,24 +1006,15 @@ public final class BloomFilter {
    * @return A serialized image of the current BloomFilter as byte[]
    */
   public byte[] toByteArray() {
-    final long sizeBytes = getSerializedSizeBytes();
+    // decided once, as a concurrent filter may change from empty to non-empty meanwhile
+    final boolean isEmpty = bitArray_.isEmpty();
+    final long sizeBytes = getSerializedSizeBytes(isEmpty);
     if (sizeBytes > Integer.MAX_VALUE) {
       throw new SketchesStateException("Cannot serialize a BloomFilter of this size using toByteArray(); use toLongArray() instead.");
     }
 
     final byte[] bytes = new byte[(int) sizeBytes];
-    final WritableBuffer wbuf = WritableMemory.writableWrap(bytes).asWritableBuffer();
-
-    wbuf.putByte((byte) Family.BLOOMFILTER.getMinPreLongs());
-    wbuf.putByte((byte) SER_VER); // to do: add constant
-    wbuf.putByte((byte) Family.BLOOMFILTER.getID());
-    wbuf.putByte((byte) (bitArray_.isEmpty() ? EMPTY_FLAG_MASK : 0));
-    wbuf.putShort(numHashes_);
-    wbuf.putShort((short) 0); // unused
-    wbuf.putLong(seed_);
-
-    bitArray_.writeToBuffer(wbuf);
-
+    writeToBuffer(WritableMemory.writableWrap(bytes).asWritableBuffer(), isEmpty);
     return bytes;
   }
 
@@ -694,22 +1025,25 @@ public final class BloomFilter {
    * @return A serialized image of the current BloomFilter as long[]
    */
   public long[] toLongArray() {
-    final long sizeBytes = getSerializedSizeBytes();
+    final boolean isEmpty = bitArray_.isEmpty();
+    final long sizeBytes = getSerializedSizeBytes(isEmpty);
 
     final long[] longs = new long[(int) (sizeBytes >> 3)];
-    final WritableBuffer wbuf = WritableMemory.writableWrap(longs).asWritableBuffer();
+    writeToBuffer(WritableMemory.writableWrap(longs).asWritableBuffer(), isEmpty);
+    return longs;
+  }
 
+  private void writeToBuffer(final WritableBuffer wbuf, final boolean isEmpty) {
     wbuf.putByte((byte) Family.BLOOMFILTER.getMinPreLongs());
     wbuf.putByte((byte) SER_VER); // to do: add constant
     wbuf.putByte((byte) Family.BLOOMFILTER.getID());
-    wbuf.putByte((byte) (bitArray_.isEmpty() ? EMPTY_FLAG_MASK : 0));
+    wbuf.putByte((byte) ((isBlocked() ? BLOCKED_FLAG_MASK : 0) | (isEmpty ? EMPTY_FLAG_MASK : 0)
+        | getWordIndexFlag(bitArray_.getCapacity())));
     wbuf.putShort(numHashes_);
     wbuf.putShort((short) 0); // unused
     wbuf.putLong(seed_);
 
-    bitArray_.writeToBuffer(wbuf);
-
-    return longs;
+    bitArray_.writeToBuffer(wbuf, isEmpty);
   }
 
   // Throws an exception with the provided message if the given condition is false
@@ -725,6 +1059,9 @@ public final class BloomFilter {
     final String thisSimpleName = this.getClass().getSimpleName();
     sb.append("### ").append(thisSimpleName).append(" SUMMARY: ").append(LS);
     sb.append("   numBits      : ").append(bitArray_.getCapacity()).append(LS);
+    if (isBlocked()) {
+      sb.append("   numBlocks    : ").append(numBlocks_).append(LS);
+    }
     sb.append("   numHashes    : ").append(numHashes_).append(LS);
     sb.append("   seed         : ").append(seed_).append(LS);
     sb.append("   bitsUsed     : ").append(bitArray_.getNumBitsSet()).append(LS);
@@ -22,6 +22,7 @@ package org.apache.datasketches.filters.bloomfilter;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
 
 /**
  * <p>This class provides methods to help estimate the correct paramters to use when
@@ -145,4 +146,192 @@ public final class BloomFilterBuilder {
 
     return new BloomFilter(numBits, numHashes, seed);
   }
+
+  /**
+   * Creates a new BloomFilter with an optimal number of bits and hash functions for the given inputs,
+   * using the provided base seed for the hash function, and writes it to the given WritableMemory.
+   * The Memory must hold at least {@link BloomFilter#getSerializedSize(long)} bytes for the suggested
+   * number of bits, {@link #suggestNumFilterBits(long, double)}.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @param seed A base hash seed
+   * @param dstMem A WritableMemory to hold the filter, such as a memory-mapped file
+   * @return A new BloomFilter backed by the given WritableMemory
+   */
+  public static BloomFilter initializeByAccuracy(final long maxDistinctItems, final double targetFalsePositiveProb,
+      final long seed, final WritableMemory dstMem) {
+    final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
+    final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
+    return initializeBySize(numBits, numHashes, seed, dstMem);
+  }
+
+  /**
+   * Creates a BloomFilter with given number of bits and number of hash functions,
+   * and a user-specified seed, and writes it to the given WritableMemory. All bits are cleared.
+   * The filter may be reopened later, e.g. from a memory-mapped file, with
+   * {@link BloomFilter#writableWrap(WritableMemory)} or {@link BloomFilter#wrap(org.apache.datasketches.memory.Memory)}.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed A base hash seed
+   * @param dstMem A WritableMemory of at least {@link BloomFilter#getSerializedSize(long)} bytes
+   * @return A new BloomFilter backed by the given WritableMemory
+   */
+  public static BloomFilter initializeBySize(final long numBits, final int numHashes, final long seed,
+      final WritableMemory dstMem) {
+    if (numBits > BloomFilter.MAX_SIZE) {
+      throw new SketchesArgumentException("Size of BloomFilter must be <= "
+      + BloomFilter.MAX_SIZE + ". Requested: " + numBits);
+    }
+    if (numHashes < 1) {
+      throw new SketchesArgumentException("Must specify a strictly positive number of hash functions. "
+      + "Requested: " + numHashes);
+    }
+    if (numHashes > Short.MAX_VALUE) {
+      throw new SketchesArgumentException("Number of hashes cannot exceed " + Short.MAX_VALUE
+      + ". Requested: " + numHashes);
+    }
+    if (dstMem == null) {
+      throw new SketchesArgumentException("dstMem must not be null");
+    }
+
+    return new BloomFilter(numBits, numHashes, seed, dstMem);
+  }
+
+  /**
+   * Creates a new register-blocked BloomFilter with an optimal number of bits and hash functions for the given inputs.
+   * The size is computed as for a standard BloomFilter and rounded up to whole 512-bit blocks; the
+   * realized false positive probability will be slightly higher than the target.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @return A new blocked BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createBlockedByAccuracy(final long maxDistinctItems, final double targetFalsePositiveProb) {
+    return createBlockedByAccuracy(maxDistinctItems, targetFalsePositiveProb, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Creates a new register-blocked BloomFilter with an optimal number of bits and hash functions for the given inputs,
+   * using the provided base seed for the hash function.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @param seed A base hash seed
+   * @return A new blocked BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createBlockedByAccuracy(final long maxDistinctItems,
+      final double targetFalsePositiveProb, final long seed) {
+    final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
+    final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
+    return createBlockedBySize(numBits, numHashes, seed);
+  }
+
+  /**
+   * Creates a register-blocked BloomFilter with given number of bits and number of hash functions,
+   * and a random seed. The number of bits is rounded up to a multiple of 512.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @return A new blocked BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createBlockedBySize(final long numBits, final int numHashes) {
+    return createBlockedBySize(numBits, numHashes, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Creates a register-blocked BloomFilter with given number of bits and number of hash functions,
+   * and a user-specified seed. The number of bits is rounded up to a multiple of 512.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed A base hash seed
+   * @return A new blocked BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createBlockedBySize(final long numBits, final int numHashes, final long seed) {
+    if (numBits > BloomFilter.MAX_SIZE - BloomFilter.BITS_PER_BLOCK) {
+      throw new SketchesArgumentException("Size of a blocked BloomFilter must be <= "
+      + (BloomFilter.MAX_SIZE - BloomFilter.BITS_PER_BLOCK) + ". Requested: " + numBits);
+    }
+    if (numBits < 1) {
+      throw new SketchesArgumentException("Number of bits must be strictly positive. Requested: " + numBits);
+    }
+    if (numHashes < 1) {
+      throw new SketchesArgumentException("Must specify a strictly positive number of hash functions. "
+      + "Requested: " + numHashes);
+    }
+    if (numHashes > Short.MAX_VALUE) {
+      throw new SketchesArgumentException("Number of hashes cannot exceed " + Short.MAX_VALUE
+      + ". Requested: " + numHashes);
+    }
+
+    final long numBlocks = (numBits + BloomFilter.BITS_PER_BLOCK - 1) / BloomFilter.BITS_PER_BLOCK;
+    return new BloomFilter((short) numHashes, seed, new HeapBitArray(numBlocks * BloomFilter.BITS_PER_BLOCK), true);
+  }
+
+  /**
+   * Creates a new thread-safe BloomFilter with an optimal number of bits and hash functions for the given inputs.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @return A new thread-safe BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createConcurrentByAccuracy(final long maxDistinctItems,
+      final double targetFalsePositiveProb) {
+    return createConcurrentByAccuracy(maxDistinctItems, targetFalsePositiveProb, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Creates a new thread-safe BloomFilter with an optimal number of bits and hash functions for the given inputs,
+   * using the provided base seed for the hash function.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @param seed A base hash seed
+   * @return A new thread-safe BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createConcurrentByAccuracy(final long maxDistinctItems,
+      final double targetFalsePositiveProb, final long seed) {
+    final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
+    final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
+    return createConcurrentBySize(numBits, numHashes, seed);
+  }
+
+  /**
+   * Creates a thread-safe BloomFilter with given number of bits and number of hash functions,
+   * and a random seed.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @return A new thread-safe BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createConcurrentBySize(final long numBits, final int numHashes) {
+    return createConcurrentBySize(numBits, numHashes, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Creates a thread-safe BloomFilter with given number of bits and number of hash functions,
+   * and a user-specified seed. The filter may be updated and queried by several threads
+   * concurrently, and is compatible with a BloomFilter created by createBySize() with the same arguments.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed A base hash seed
+   * @return A new thread-safe BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createConcurrentBySize(final long numBits, final int numHashes, final long seed) {
+    if (numBits > BloomFilter.MAX_SIZE) {
+      throw new SketchesArgumentException("Size of BloomFilter must be <= "
+      + BloomFilter.MAX_SIZE + ". Requested: " + numBits);
+    }
+    if (numBits < 1) {
+      throw new SketchesArgumentException("Number of bits must be strictly positive. Requested: " + numBits);
+    }
+    if (numHashes < 1) {
+      throw new SketchesArgumentException("Must specify a strictly positive number of hash functions. "
+      + "Requested: " + numHashes);
+    }
+    if (numHashes > Short.MAX_VALUE) {
+      throw new SketchesArgumentException("Number of hashes cannot exceed " + Short.MAX_VALUE
+      + ". Requested: " + numHashes);
+    }
+
+    return new BloomFilter((short) numHashes, seed, new AtomicBitArray(numBits));
+  }
 }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * This class holds an array of bits in a WritableMemory, laid out as in the serialized form
+ * of a non-empty BitArray, so updates go straight to the Memory. The number of bits set is
+ * kept in the Memory as well, with -1 standing for "unknown" after {@link #setBit(long)}.
+ */
+final class DirectBitArray extends DirectBitArrayR {
+  private final WritableMemory wmem_;
+
+  DirectBitArray(final WritableMemory wmem) {
+    super(wmem);
+    wmem_ = wmem;
+  }
+
+  // writes an empty array of the given size to the Memory and wraps it
+  static DirectBitArray initialize(final long numBits, final WritableMemory wmem) {
+    if (numBits <= 0) {
+      throw new SketchesArgumentException("Number of bits must be strictly positive. Found: " + numBits);
+    }
+    if (numBits > MAX_BITS) {
+      throw new SketchesArgumentException("Number of bits may not exceed " + MAX_BITS + ". Found: " + numBits);
+    }
+
+    final int numLongs = (int) Math.ceil(numBits / 64.0);
+    final long requiredBytes = getRequiredBytes(numLongs);
+    if (wmem.getCapacity() < requiredBytes) {
+      throw new SketchesArgumentException("Memory capacity " + wmem.getCapacity()
+          + " is too small for a bit array of " + numLongs + " longs");
+    }
+    wmem.putInt(0, numLongs);
+    wmem.putInt(Integer.BYTES, 0); // unused
+    wmem.putLong(NUM_BITS_OFFSET, 0L);
+    wmem.clear(DATA_OFFSET, requiredBytes - DATA_OFFSET);
+    return new DirectBitArray(wmem);
+  }
+
+  // sets a single bit in the array without querying, so the count becomes unknown
+  @Override
+  void setBit(final long index) {
+    final long offset = DATA_OFFSET + ((long) wordIndex(index) << 3);
+    final long word = wmem_.getLong(offset);
+    final long mask = 1L << index;
+    if ((word & mask) == 0) {
+      wmem_.putLong(offset, word | mask);
+      if (wmem_.getLong(NUM_BITS_OFFSET) >= 0) {
+        wmem_.putLong(NUM_BITS_OFFSET, -1L);
+      }
+    }
+  }
+
+  // returns existing value of bit
+  @Override
+  boolean getAndSetBit(final long index) {
+    final long offset = DATA_OFFSET + ((long) wordIndex(index) << 3);
+    final long word = wmem_.getLong(offset);
+    final long mask = 1L << index;
+    if ((word & mask) != 0) {
+      return true; // already seen
+    }
+    wmem_.putLong(offset, word | mask);
+    final long numBitsSet = wmem_.getLong(NUM_BITS_OFFSET);
+    if (numBitsSet >= 0) {
+      wmem_.putLong(NUM_BITS_OFFSET, numBitsSet + 1);
+    }
+    return false; // new set
+  }
+
+  // recomputes and stores the count if it is unknown
+  @Override
+  long getNumBitsSet() {
+    long numBitsSet = wmem_.getLong(NUM_BITS_OFFSET);
+    if (numBitsSet < 0) {
+      numBitsSet = countBitsSet();
+      wmem_.putLong(NUM_BITS_OFFSET, numBitsSet);
+    }
+    return numBitsSet;
+  }
+
+  // the count becomes unknown, as with setBit()
+  @Override
+  void orLong(final int index, final long bits) {
+    final long word = getLong(index);
+    if ((word | bits) != word) {
+      putLong(index, word | bits);
+      wmem_.putLong(NUM_BITS_OFFSET, -1L);
+    }
+  }
+
+  // applies logical OR
+  @Override
+  void union(final BitArray other) {
+    if (numLongs_ != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
+    }
+
+    long numBitsSet = 0;
+    for (int i = 0; i < numLongs_; ++i) {
+      final long word = getLong(i) | other.getLong(i);
+      putLong(i, word);
+      numBitsSet += Long.bitCount(word);
+    }
+    wmem_.putLong(NUM_BITS_OFFSET, numBitsSet);
+  }
+
+  // applies logical AND
+  @Override
+  void intersect(final BitArray other) {
+    if (numLongs_ != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
+    }
+
+    long numBitsSet = 0;
+    for (int i = 0; i < numLongs_; ++i) {
+      final long word = getLong(i) & other.getLong(i);
+      putLong(i, word);
+      numBitsSet += Long.bitCount(word);
+    }
+    wmem_.putLong(NUM_BITS_OFFSET, numBitsSet);
+  }
+
+  // applies bitwise inversion
+  @Override
+  void invert() {
+    long numBitsSet = 0;
+    for (int i = 0; i < numLongs_; ++i) {
+      final long word = ~getLong(i);
+      putLong(i, word);
+      numBitsSet += Long.bitCount(word);
+    }
+    wmem_.putLong(NUM_BITS_OFFSET, numBitsSet);
+  }
+
+  // clears the array
+  @Override
+  void reset() {
+    wmem_.clear(DATA_OFFSET, (long) numLongs_ * Long.BYTES);
+    wmem_.putLong(NUM_BITS_OFFSET, 0L);
+  }
+
+  private void putLong(final int index, final long word) {
+    wmem_.putLong(DATA_OFFSET + ((long) index << 3), word);
+  }
+
+  @Override
+  boolean isReadOnly() { return false; }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+
+/**
+ * This class provides read-only access to an array of bits held in a Memory, laid out as
+ * in the serialized form of a non-empty BitArray. Nothing is copied to the heap, so when the
+ * Memory is a mapped file only the pages touched by queries are read from disk.
+ */
+class DirectBitArrayR extends BitArray {
+  static final long NUM_BITS_OFFSET = Long.BYTES;   // offset of numBitsSet, -1 if unknown
+  static final long DATA_OFFSET = 2L * Long.BYTES;  // offset of the bits
+
+  final int numLongs_;
+  private final Memory mem_;
+
+  DirectBitArrayR(final Memory mem) {
+    final int numLongs = mem.getInt(0);
+    if (numLongs <= 0) {
+      throw new SketchesArgumentException("Possible corruption: Must have strictly positive array size. Found: " + numLongs);
+    }
+    if (mem.getCapacity() < DATA_OFFSET + (long) numLongs * Long.BYTES) {
+      throw new SketchesArgumentException("Memory capacity " + mem.getCapacity()
+          + " is too small for a bit array of " + numLongs + " longs");
+    }
+    numLongs_ = numLongs;
+    mem_ = mem;
+  }
+
+  // returns the number of bytes needed to hold an array of the given length
+  static long getRequiredBytes(final int numLongs) {
+    return DATA_OFFSET + (long) numLongs * Long.BYTES;
+  }
+
+  @Override
+  boolean isEmpty() {
+    return getNumBitsSet() == 0;
+  }
+
+  @Override
+  boolean getBit(final long index) {
+    return (mem_.getLong(DATA_OFFSET + ((long) wordIndex(index) << 3)) & (1L << index)) != 0;
+  }
+
+  @Override
+  void setBit(final long index) {
+    throw new SketchesReadOnlyException("Cannot update a read-only BloomFilter");
+  }
+
+  @Override
+  boolean getAndSetBit(final long index) {
+    throw new SketchesReadOnlyException("Cannot update a read-only BloomFilter");
+  }
+
+  // O(1) if the stored count is known, otherwise O(numLongs)
+  @Override
+  long getNumBitsSet() {
+    final long numBitsSet = mem_.getLong(NUM_BITS_OFFSET);
+    return numBitsSet < 0 ? countBitsSet() : numBitsSet;
+  }
+
+  long countBitsSet() {
+    long numBitsSet = 0;
+    for (int i = 0; i < numLongs_; ++i) {
+      numBitsSet += Long.bitCount(getLong(i));
+    }
+    return numBitsSet;
+  }
+
+  @Override
+  int getArrayLength() { return numLongs_; }
+
+  @Override
+  long getLong(final int index) { return mem_.getLong(DATA_OFFSET + ((long) index << 3)); }
+
+  @Override
+  void orLong(final int index, final long bits) {
+    throw new SketchesReadOnlyException("Cannot update a read-only BloomFilter");
+  }
+
+  @Override
+  void union(final BitArray other) {
+    throw new SketchesReadOnlyException("Cannot union into a read-only BloomFilter");
+  }
+
+  @Override
+  void intersect(final BitArray other) {
+    throw new SketchesReadOnlyException("Cannot intersect into a read-only BloomFilter");
+  }
+
+  @Override
+  void invert() {
+    throw new SketchesReadOnlyException("Cannot invert a read-only BloomFilter");
+  }
+
+  @Override
+  void reset() {
+    throw new SketchesReadOnlyException("Cannot reset a read-only BloomFilter");
+  }
+
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf, final boolean isEmpty) {
+    wbuf.putInt(numLongs_);
+    wbuf.putInt(0); // unused
+
+    if (!isEmpty) {
+      wbuf.putLong(mem_.getLong(NUM_BITS_OFFSET));
+      for (int i = 0; i < numLongs_; ++i) {
+        wbuf.putLong(getLong(i));
+      }
+    }
+  }
+
+  @Override
+  boolean hasMemory() { return true; }
+
+  @Override
+  boolean isDirect() { return mem_.isDirect(); }
+
+  @Override
+  boolean isConcurrent() { return false; }
+
+  @Override
+  boolean isReadOnly() { return true; }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import static org.apache.datasketches.frequencies.PreambleUtil.OFFSET_LONG;
+import static org.apache.datasketches.frequencies.PreambleUtil.SER_VER;
+import static org.apache.datasketches.frequencies.PreambleUtil.STREAMLENGTH_LONG;
+import static org.apache.datasketches.frequencies.PreambleUtil.UPDATABLE_FLAG_MASK;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractFamilyID;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractFlags;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractLgCurMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractLgMaxMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractPreLongs;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractSerVer;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertFamilyID;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertFlags;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertLgCurMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertLgMaxMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertPreLongs;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertSerVer;
+import static org.apache.datasketches.frequencies.Util.LG_MIN_MAP_SIZE;
+import static org.apache.datasketches.frequencies.Util.SAMPLE_SIZE;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * A LongsSketch that keeps all of its state in a WritableMemory, so that it can be updated and
+ * merged in place. The hash map has its maximum size from the start and is never resized.
+ *
+ * <p>The updatable image has the following layout:</p>
+ * <pre>
+ *  Bytes 0-31 : the full preamble of the compact image, with the UPDATABLE flag set and
+ *               LgCurMapSize equal to LgMaxMapSize. The empty flag is never set.
+ *  Bytes 32-  : long[mapSize] keys, long[mapSize] values, short[mapSize] states
+ * </pre>
+ */
+final class DirectLongsSketch extends LongsSketch {
+  private static final int PREAMBLE_BYTES = Family.FREQUENCY.getMaxPreLongs() << 3;
+  private final WritableMemory wmem;
+  private final boolean readOnly;
+  private final int lgMaxMapSize;
+  private final int sampleSize;
+  private final DirectReversePurgeLongHashMap hashMap;
+
+  private DirectLongsSketch(final WritableMemory wmem, final int lgMaxMapSize,
+      final boolean readOnly) {
+    this.wmem = wmem;
+    this.readOnly = readOnly;
+    this.lgMaxMapSize = lgMaxMapSize;
+    hashMap = new DirectReversePurgeLongHashMap(wmem, PREAMBLE_BYTES, 1 << lgMaxMapSize);
+    sampleSize = Math.min(SAMPLE_SIZE, hashMap.getCapacity());
+  }
+
+  static int getUpdatableBytes(final int lgMaxMapSize) {
+    return PREAMBLE_BYTES + (int) DirectReversePurgeLongHashMap.getArraysBytes(1 << lgMaxMapSize);
+  }
+
+  static DirectLongsSketch newInstance(final int lgMaxMapSize, final WritableMemory dstMem) {
+    final int lgMaxMapSz = Math.max(lgMaxMapSize, LG_MIN_MAP_SIZE);
+    checkCapacity(dstMem.getCapacity(), lgMaxMapSz);
+    long pre0 = 0L;
+    pre0 = insertPreLongs(Family.FREQUENCY.getMaxPreLongs(), pre0); //Byte 0
+    pre0 = insertSerVer(SER_VER, pre0);                       //Byte 1
+    pre0 = insertFamilyID(Family.FREQUENCY.getID(), pre0);    //Byte 2
+    pre0 = insertLgMaxMapSize(lgMaxMapSz, pre0);              //Byte 3
+    pre0 = insertLgCurMapSize(lgMaxMapSz, pre0);              //Byte 4
+    pre0 = insertFlags(UPDATABLE_FLAG_MASK, pre0);            //Byte 5
+    dstMem.putLong(0, pre0);
+    final DirectLongsSketch sketch = new DirectLongsSketch(dstMem, lgMaxMapSz, false);
+    sketch.reset();
+    return sketch;
+  }
+
+  static DirectLongsSketch wrapInstance(final WritableMemory srcMem, final boolean readOnly) {
+    final long pre0 = PreambleUtil.checkPreambleSize(srcMem);
+    final int maxPreLongs = Family.FREQUENCY.getMaxPreLongs();
+    final int preLongs = extractPreLongs(pre0);         //Byte 0
+    final int serVer = extractSerVer(pre0);             //Byte 1
+    final int familyID = extractFamilyID(pre0);         //Byte 2
+    final int lgMaxMapSize = extractLgMaxMapSize(pre0); //Byte 3
+    final int lgCurMapSize = extractLgCurMapSize(pre0); //Byte 4
+    final int flags = extractFlags(pre0);               //Byte 5
+
+    if ((flags & UPDATABLE_FLAG_MASK) == 0) {
+      throw new SketchesArgumentException(
+          "Only an updatable image can be wrapped. Use LongsSketch.getInstance(Memory).");
+    }
+    if (preLongs != maxPreLongs) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: PreLongs must be " + maxPreLongs + ": " + preLongs);
+    }
+    if (serVer != SER_VER) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: Ser Ver must be " + SER_VER + ": " + serVer);
+    }
+    final int actFamID = Family.FREQUENCY.getID();
+    if (familyID != actFamID) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: FamilyID must be " + actFamID + ": " + familyID);
+    }
+    if ((lgCurMapSize != lgMaxMapSize) || (lgMaxMapSize < LG_MIN_MAP_SIZE)) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: LgCurMapSize must equal LgMaxMapSize: " + lgCurMapSize
+          + ", " + lgMaxMapSize);
+    }
+    checkCapacity(srcMem.getCapacity(), lgMaxMapSize);
+    return new DirectLongsSketch(srcMem, lgMaxMapSize, readOnly);
+  }
+
+  private static void checkCapacity(final long capBytes, final int lgMaxMapSize) {
+    final int reqBytes = getUpdatableBytes(lgMaxMapSize);
+    if (capBytes < reqBytes) {
+      throw new SketchesArgumentException(
+          "Memory capacity is too small: " + capBytes + " < " + reqBytes);
+    }
+  }
+
+  @Override
+  public int getCurrentMapCapacity() {
+    return hashMap.getCapacity();
+  }
+
+  @Override
+  public long getEstimate(final long item) {
+    final long itemCount = hashMap.get(item);
+    return (itemCount > 0) ? itemCount + getMaximumError() : 0;
+  }
+
+  @Override
+  public long getLowerBound(final long item) {
+    return hashMap.get(item);
+  }
+
+  @Override
+  public long getMaximumError() {
+    return wmem.getLong(OFFSET_LONG);
+  }
+
+  @Override
+  public int getNumActiveItems() {
+    return hashMap.getNumActive();
+  }
+
+  @Override
+  public long getStreamLength() {
+    return wmem.getLong(STREAMLENGTH_LONG);
+  }
+
+  @Override
+  public long getUpperBound(final long item) {
+    return hashMap.get(item) + getMaximumError();
+  }
+
+  @Override
+  public boolean hasMemory() {
+    return true;
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  @Override
+  public LongsSketch merge(final LongsSketch other) {
+    if (other == null) { return this; }
+    if (other.isEmpty()) { return this; }
+    checkWritable();
+
+    final long streamWt = getStreamLength() + other.getStreamLength(); //capture before merge
+
+    other.mergeItemsInto(this); //this may add to offset during purges
+    wmem.putLong(OFFSET_LONG, getMaximumError() + other.getMaximumError());
+    wmem.putLong(STREAMLENGTH_LONG, streamWt); //corrected streamWeight
+    return this;
+  }
+
+  @Override
+  void mergeItemsInto(final LongsSketch target) {
+    final DirectReversePurgeLongHashMap.Iterator iter = hashMap.iterator();
+    while (iter.next()) {
+      target.update(iter.getKey(), iter.getValue());
+    }
+  }
+
+  @Override
+  public void reset() {
+    checkWritable();
+    hashMap.clear();
+    wmem.putLong(STREAMLENGTH_LONG, 0);
+    wmem.putLong(OFFSET_LONG, 0);
+  }
+
+  @Override
+  public void update(final long item, final long count) {
+    if (count == 0) { return; }
+    checkWritable();
+    if (count < 0) {
+      throw new SketchesArgumentException("Count may not be negative");
+    }
+    wmem.putLong(STREAMLENGTH_LONG, getStreamLength() + count);
+    hashMap.adjustOrPutValue(item, count);
+
+    if (getNumActiveItems() > hashMap.getCapacity()) { //over the threshold, must purge
+      wmem.putLong(OFFSET_LONG, getMaximumError() + hashMap.purge(sampleSize));
+      if (getNumActiveItems() > getMaximumMapCapacity()) {
+        throw new SketchesStateException("Purge did not reduce active items.");
+      }
+    }
+  }
+
+  @Override
+  Row[] sortItems(final long threshold, final ErrorType errorType) {
+    final ArrayList<Row> rowList = new ArrayList<>();
+    final long offset = getMaximumError();
+    final DirectReversePurgeLongHashMap.Iterator iter = hashMap.iterator();
+    while (iter.next()) {
+      final long lb = iter.getValue();
+      final long ub = lb + offset;
+      final long bound = (errorType == ErrorType.NO_FALSE_NEGATIVES) ? ub : lb;
+      if (bound >= threshold) {
+        rowList.add(new Row(iter.getKey(), (lb > 0) ? ub : 0, ub, lb));
+      }
+    }
+
+    // descending order
+    rowList.sort(new Comparator<Row>() {
+      @Override
+      public int compare(final Row r1, final Row r2) {
+        return r2.compareTo(r1);
+      }
+    });
+
+    return rowList.toArray(new Row[rowList.size()]);
+  }
+
+  @Override
+  int getLgMaxMapSize() {
+    return lgMaxMapSize;
+  }
+
+  @Override
+  int getLgCurMapSize() {
+    return lgMaxMapSize;
+  }
+
+  @Override
+  long[] getActiveKeys() {
+    return hashMap.getActiveKeys();
+  }
+
+  @Override
+  long[] getActiveValues() {
+    return hashMap.getActiveValues();
+  }
+
+  @Override
+  String serializeMapToString() {
+    return hashMap.serializeToString();
+  }
+
+  @Override
+  String mapToString() {
+    return hashMap.toString();
+  }
+
+  private void checkWritable() {
+    if (readOnly) { throw new SketchesReadOnlyException(); }
+  }
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import static org.apache.datasketches.common.Util.INVERSE_GOLDEN;
+import static org.apache.datasketches.common.Util.LS;
+import static org.apache.datasketches.frequencies.PreambleUtil.ACTIVE_ITEMS_INT;
+import static org.apache.datasketches.frequencies.Util.hash;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.QuickSelect;
+
+/**
+ * A variant of the {@link ReversePurgeLongHashMap} whose keys, values and states arrays and number of active
+ * keys live in a WritableMemory. The map has a fixed length and does not resize.
+ *
+ * <p>The arrays start at the given offset of the Memory as follows:</p>
+ * <pre>
+ *  long[length] keys, long[length] values, short[length] states
+ * </pre>
+ * <p>The number of active keys is kept in the int at ACTIVE_ITEMS_INT of the preamble.</p>
+ */
+class DirectReversePurgeLongHashMap {
+  private static final double LOAD_FACTOR = ReversePurgeLongHashMap.getLoadFactor();
+  private static final int DRIFT_LIMIT = 1024; //used only in stress testing
+  private final WritableMemory wmem;
+  private final int length;
+  private final int loadThreshold;
+  private final long keysOffset;
+  private final long valuesOffset;
+  private final long statesOffset;
+  private long[] samples;
+
+  /**
+   * Wraps the map arrays of the given length at the given offset of the Memory.
+   * @param wmem the Memory holding the preamble and the map arrays
+   * @param arraysOffset the offset of the keys array in bytes
+   * @param length the length of the map arrays, which must be a power of 2
+   */
+  DirectReversePurgeLongHashMap(final WritableMemory wmem, final long arraysOffset,
+      final int length) {
+    this.wmem = wmem;
+    this.length = length;
+    loadThreshold = (int) (length * LOAD_FACTOR);
+    keysOffset = arraysOffset;
+    valuesOffset = keysOffset + ((long) length << 3);
+    statesOffset = valuesOffset + ((long) length << 3);
+  }
+
+  /**
+   * @param length the length of the map arrays
+   * @return the number of bytes required by the map arrays of the given length
+   */
+  static long getArraysBytes(final int length) {
+    return (long) length * (Long.BYTES + Long.BYTES + Short.BYTES);
+  }
+
+  /**
+   * Sets all keys, values and states to zero.
+   */
+  void clear() {
+    wmem.clear(keysOffset, getArraysBytes(length));
+    setNumActive(0);
+  }
+
+  boolean isActive(final int probe) {
+    return getState(probe) > 0;
+  }
+
+  /**
+   * Gets the current value with the given key
+   * @param key the given key
+   * @return the positive value the key corresponds to or zero if the key is not found in the
+   * hash map.
+   */
+  long get(final long key) {
+    final int probe = hashProbe(key);
+    if (getState(probe) > 0) {
+      assert (getKey(probe) == key);
+      return getValue(probe);
+    }
+    return 0;
+  }
+
+  /**
+   * Increments the value mapped to the key if the key is present in the map. Otherwise,
+   * the key is inserted with the putAmount.
+   *
+   * @param key the key of the value to increment
+   * @param adjustAmount the amount by which to increment the value
+   */
+  void adjustOrPutValue(final long key, final long adjustAmount) {
+    final int arrayMask = length - 1;
+    int probe = (int) hash(key) & arrayMask;
+    int drift = 1;
+    short state;
+    while (((state = getState(probe)) != 0) && (getKey(probe) != key)) {
+      probe = (probe + 1) & arrayMask;
+      drift++;
+      //only used for theoretical analysis
+      assert (drift < DRIFT_LIMIT) : "drift: " + drift + " >= DRIFT_LIMIT";
+    }
+    if (state == 0) { //found empty slot
+      final int numActive = getNumActive();
+      assert (numActive <= loadThreshold)
+        : "numActive: " + numActive + " > loadThreshold : " + loadThreshold;
+      wmem.putLong(keysOffset + ((long) probe << 3), key);
+      wmem.putLong(valuesOffset + ((long) probe << 3), adjustAmount);
+      setState(probe, (short) drift);
+      setNumActive(numActive + 1);
+    } else { //found the key, adjust the value
+      final long valueOffset = valuesOffset + ((long) probe << 3);
+      wmem.putLong(valueOffset, wmem.getLong(valueOffset) + adjustAmount);
+    }
+  }
+
+  /**
+   * Processes the map arrays and retains only keys with positive counts.
+   */
+  void keepOnlyPositiveCounts() {
+    int numActive = getNumActive();
+    // Starting from the back, find the first empty cell, which marks a boundary between clusters.
+    int firstProbe = length - 1;
+    while (getState(firstProbe) > 0) {
+      firstProbe--;
+    }
+
+    //Work towards the front; delete any non-positive entries.
+    for (int probe = firstProbe; probe-- > 0; ) {
+      if ((getState(probe) > 0) && (getValue(probe) <= 0)) {
+        hashDelete(probe);
+        numActive--;
+      }
+    }
+    //now work on the first cluster that was skipped.
+    for (int probe = length; probe-- > firstProbe;) {
+      if ((getState(probe) > 0) && (getValue(probe) <= 0)) {
+        hashDelete(probe);
+        numActive--;
+      }
+    }
+    setNumActive(numActive);
+  }
+
+  /**
+   * @param adjustAmount value by which to shift all values.
+   */
+  void adjustAllValuesBy(final long adjustAmount) {
+    for (int i = length; i-- > 0; ) {
+      final long valueOffset = valuesOffset + ((long) i << 3);
+      wmem.putLong(valueOffset, wmem.getLong(valueOffset) + adjustAmount);
+    }
+  }
+
+  /**
+   * @return an array containing the active keys in the hash map.
+   */
+  long[] getActiveKeys() {
+    final int numActive = getNumActive();
+    if (numActive == 0) { return null; }
+    final long[] returnedKeys = new long[numActive];
+    int j = 0;
+    for (int i = 0; i < length; i++) {
+      if (isActive(i)) {
+        returnedKeys[j] = getKey(i);
+        j++;
+      }
+    }
+    assert (j == numActive) : "j: " + j + " != numActive: " + numActive;
+    return returnedKeys;
+  }
+
+  /**
+   * @return an array containing the values corresponding to the active keys in the hash map.
+   */
+  long[] getActiveValues() {
+    final int numActive = getNumActive();
+    if (numActive == 0) { return null; }
+    final long[] returnedValues = new long[numActive];
+    int j = 0;
+    for (int i = 0; i < length; i++) {
+      if (isActive(i)) {
+        returnedValues[j] = getValue(i);
+        j++;
+      }
+    }
+    assert (j == numActive);
+    return returnedValues;
+  }
+
+  /**
+   * @return a String representation of this hash map in the format of
+   * {@link ReversePurgeLongHashMap#serializeToString()}.
+   */
+  String serializeToString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%d,%d,", getNumActive(), length));
+
+    for (int i = 0; i < length; i++) {
+      if (getState(i) != 0) {
+        sb.append(String.format("%d,%d,", getKey(i), getValue(i)));
+      }
+    }
+    return sb.toString();
+  }
+
+  int getLength() {
+    return length;
+  }
+
+  int getLgLength() {
+    return Integer.numberOfTrailingZeros(length);
+  }
+
+  int getCapacity() {
+    return loadThreshold;
+  }
+
+  int getNumActive() {
+    return wmem.getInt(ACTIVE_ITEMS_INT);
+  }
+
+  @Override
+  public String toString() {
+    final String fmt  = "  %12d:%11d%20d %d";
+    final String hfmt = "  %12s:%11s%20s %s";
+    final StringBuilder sb = new StringBuilder();
+    sb.append("DirectReversePurgeLongHashMap:").append(LS);
+    sb.append(String.format(hfmt, "Index","States","Values","Keys")).append(LS);
+
+    for (int i = 0; i < length; i++) {
+      if (getState(i) <= 0) { continue; }
+      sb.append(String.format(fmt, i, getState(i), getValue(i), getKey(i))).append(LS);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Estimates the median of the counters via sampling, decrements all counts by this estimate and
+   * throws out all counters that are no longer positive.
+   * See {@link ReversePurgeLongHashMap#purge(int)}.
+   * @param sampleSize number of samples
+   * @return the median value
+   */
+  long purge(final int sampleSize) {
+    final int limit = Math.min(sampleSize, getNumActive());
+
+    int numSamples = 0;
+    int i = 0;
+    if ((samples == null) || (samples.length < limit)) { samples = new long[limit]; }
+
+    while (numSamples < limit) {
+      if (isActive(i)) {
+        samples[numSamples] = getValue(i);
+        numSamples++;
+      }
+      i++;
+    }
+
+    final long val = QuickSelect.select(samples, 0, numSamples - 1, limit / 2);
+    adjustAllValuesBy(-1 * val);
+    keepOnlyPositiveCounts();
+    return val;
+  }
+
+  private void hashDelete(int deleteProbe) {
+    // Looks ahead in the table to search for another item to move to this location.
+    // If none are found, the status is changed
+    setState(deleteProbe, (short) 0); //mark as empty
+    int drift = 1;
+    final int arrayMask = length - 1;
+    int probe = (deleteProbe + drift) & arrayMask; //map length must be a power of 2
+    // advance until you find a free location replacing locations as needed
+    short state;
+    while ((state = getState(probe)) != 0) {
+      if (state > drift) {
+        // move current element
+        wmem.putLong(keysOffset + ((long) deleteProbe << 3), getKey(probe));
+        wmem.putLong(valuesOffset + ((long) deleteProbe << 3), getValue(probe));
+        setState(deleteProbe, (short) (state - drift));
+        // marking the current probe location as deleted
+        setState(probe, (short) 0);
+        drift = 0;
+        deleteProbe = probe;
+      }
+      probe = (probe + 1) & arrayMask;
+      drift++;
+      //only used for theoretical analysis
+      assert (drift < DRIFT_LIMIT) : "drift: " + drift + " >= DRIFT_LIMIT";
+    }
+  }
+
+  private int hashProbe(final long key) {
+    final int arrayMask = length - 1;
+    int probe = (int) hash(key) & arrayMask;
+    while ((getState(probe) > 0) && (getKey(probe) != key)) {
+      probe = (probe + 1) & arrayMask;
+    }
+    return probe;
+  }
+
+  private long getKey(final int probe) {
+    return wmem.getLong(keysOffset + ((long) probe << 3));
+  }
+
+  private long getValue(final int probe) {
+    return wmem.getLong(valuesOffset + ((long) probe << 3));
+  }
+
+  private short getState(final int probe) {
+    return wmem.getShort(statesOffset + ((long) probe << 1));
+  }
+
+  private void setState(final int probe, final short state) {
+    wmem.putShort(statesOffset + ((long) probe << 1), state);
+  }
+
+  private void setNumActive(final int numActive) {
+    wmem.putInt(ACTIVE_ITEMS_INT, numActive);
+  }
+
+  Iterator iterator() {
+    return new Iterator(wmem, keysOffset, valuesOffset, statesOffset, length, getNumActive());
+  }
+
+  // This iterator uses strides based on golden ratio to avoid clustering during merge
+  static class Iterator {
+    private final Memory mem_;
+    private final long keysOffset_;
+    private final long valuesOffset_;
+    private final long statesOffset_;
+    private final int numActive_;
+    private final int stride_;
+    private final int mask_;
+    private int i_;
+    private int count_;
+
+    Iterator(final Memory mem, final long keysOffset, final long valuesOffset,
+        final long statesOffset, final int length, final int numActive) {
+      mem_ = mem;
+      keysOffset_ = keysOffset;
+      valuesOffset_ = valuesOffset;
+      statesOffset_ = statesOffset;
+      numActive_ = numActive;
+      stride_ = (int) (length * INVERSE_GOLDEN) | 1;
+      mask_ = length - 1;
+      i_ = -stride_;
+      count_ = 0;
+    }
+
+    boolean next() {
+      i_ = (i_ + stride_) & mask_;
+      while (count_ < numActive_) {
+        if (mem_.getShort(statesOffset_ + ((long) i_ << 1)) > 0) {
+          count_++;
+          return true;
+        }
+        i_ = (i_ + stride_) & mask_;
+      }
+      return false;
+    }
+
+    long getKey() {
+      return mem_.getLong(keysOffset_ + ((long) i_ << 3));
+    }
+
+    long getValue() {
+      return mem_.getLong(valuesOffset_ + ((long) i_ << 3));
+    }
+  }
+
+}
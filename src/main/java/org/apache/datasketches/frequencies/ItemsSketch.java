@@ -703,6 +703,10 @@ public class ItemsSketch<T> {
 
   } //End of class Row<T>
 
+  ReversePurgeItemHashMap<T> getHashMap() {
+    return hashMap;
+  }
+
   Row<T>[] sortItems(final long threshold, final ErrorType errorType) {
     final ArrayList<Row<T>> rowList = new ArrayList<>();
     final ReversePurgeItemHashMap.Iterator<T> iter = hashMap.iterator();
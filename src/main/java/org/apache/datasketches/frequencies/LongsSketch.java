@@ -25,6 +25,7 @@ import static org.apache.datasketches.common.Util.exactLog2OfInt;
 import static org.apache.datasketches.common.Util.isPowerOf2;
 import static org.apache.datasketches.frequencies.PreambleUtil.EMPTY_FLAG_MASK;
 import static org.apache.datasketches.frequencies.PreambleUtil.SER_VER;
+import static org.apache.datasketches.frequencies.PreambleUtil.UPDATABLE_FLAG_MASK;
 import static org.apache.datasketches.frequencies.PreambleUtil.extractActiveItems;
 import static org.apache.datasketches.frequencies.PreambleUtil.extractFamilyID;
 import static org.apache.datasketches.frequencies.PreambleUtil.extractFlags;
@@ -48,6 +49,7 @@ import java.util.Objects;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.Memory;
@@ -215,9 +217,69 @@ public class LongsSketch {
     sampleSize = Math.min(SAMPLE_SIZE, maxMapCap);
   }
 
+  /**
+   * Constructor for the {@link DirectLongsSketch}, which keeps all of its state in Memory.
+   */
+  LongsSketch() {}
+
+  /**
+   * Create a new direct, updatable instance of this sketch in the given WritableMemory.
+   * The hash map has its maximum size from the start, so the Memory must have a capacity of at
+   * least {@link #getUpdatableStorageBytes(int) getUpdatableStorageBytes(maxMapSize)}.
+   * The sketch is updated and merged in place and can later be re-attached with
+   * {@link #writableWrap(WritableMemory)} or {@link #wrap(Memory)}.
+   *
+   * @param maxMapSize Determines the physical size of the hash map managed by this
+   * sketch and must be a power of 2.
+   * @param dstMem the destination WritableMemory for use by the sketch
+   * @return a new direct instance of this sketch
+   */
+  public static LongsSketch newDirectInstance(final int maxMapSize, final WritableMemory dstMem) {
+    Objects.requireNonNull(dstMem, "Destination Memory must not be null.");
+    return DirectLongsSketch.newInstance(exactLog2OfInt(maxMapSize, "maxMapSize"), dstMem);
+  }
+
+  /**
+   * Wrap a sketch around the given WritableMemory containing an updatable image created by
+   * {@link #newDirectInstance(int, WritableMemory)}. Updates and merges are written through to
+   * the Memory.
+   *
+   * @param srcMem the WritableMemory holding an updatable image of this sketch
+   * @return a direct, updatable instance of this sketch
+   */
+  public static LongsSketch writableWrap(final WritableMemory srcMem) {
+    Objects.requireNonNull(srcMem, "Source Memory must not be null.");
+    if (srcMem.isReadOnly()) { throw new SketchesReadOnlyException(); }
+    return DirectLongsSketch.wrapInstance(srcMem, false);
+  }
+
+  /**
+   * Wrap a read-only sketch around the given Memory containing an updatable image created by
+   * {@link #newDirectInstance(int, WritableMemory)}. Compact images created by
+   * {@link #toByteArray()} cannot be wrapped, use {@link #getInstance(Memory)} instead.
+   *
+   * @param srcMem the Memory holding an updatable image of this sketch
+   * @return a direct, read-only instance of this sketch
+   */
+  public static LongsSketch wrap(final Memory srcMem) {
+    Objects.requireNonNull(srcMem, "Source Memory must not be null.");
+    return DirectLongsSketch.wrapInstance((WritableMemory) srcMem, true);
+  }
+
+  /**
+   * Returns the number of bytes required by a direct, updatable sketch with the given
+   * maxMapSize.
+   * @param maxMapSize the maximum map size of the sketch, which must be a power of 2.
+   * @return the number of bytes required by a direct, updatable sketch.
+   */
+  public static int getUpdatableStorageBytes(final int maxMapSize) {
+    return DirectLongsSketch.getUpdatableBytes(exactLog2OfInt(maxMapSize, "maxMapSize"));
+  }
+
   /**
    * Returns a sketch instance of this class from the given srcMem,
    * which must be a Memory representation of this sketch class.
+   * An updatable image of a direct sketch is copied to a new heap sketch.
    *
    * @param srcMem a Memory representation of a sketch of this class.
    * <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
@@ -256,6 +318,9 @@ public class LongsSketch {
           "Possible Corruption: (PreLongs == 1) ^ Empty == True.");
     }
 
+    if ((extractFlags(pre0) & UPDATABLE_FLAG_MASK) != 0) {  //Byte 5
+      return new LongsSketch(lgMaxMapSize, LG_MIN_MAP_SIZE).merge(wrap(srcMem));
+    }
     if (empty) {
       return new LongsSketch(lgMaxMapSize, LG_MIN_MAP_SIZE);
     }
@@ -453,7 +518,7 @@ public class LongsSketch {
    * @return the maximum number of counters the sketch is configured to support.
    */
   public int getMaximumMapCapacity() {
-    return (int) ((1 << lgMaxMapSize) * ReversePurgeLongHashMap.getLoadFactor());
+    return (int) ((1 << getLgMaxMapSize()) * ReversePurgeLongHashMap.getLoadFactor());
   }
 
   /**
@@ -515,17 +580,41 @@ public class LongsSketch {
     if (other == null) { return this; }
     if (other.isEmpty()) { return this; }
 
-    final long streamWt = streamWeight + other.streamWeight; //capture before merge
+    final long streamWt = streamWeight + other.getStreamLength(); //capture before merge
 
-    final ReversePurgeLongHashMap.Iterator iter = other.hashMap.iterator();
-    while (iter.next()) { //this may add to offset during rebuilds
-      this.update(iter.getKey(), iter.getValue());
-    }
-    offset += other.offset;
+    other.mergeItemsInto(this); //this may add to offset during rebuilds
+    offset += other.getMaximumError();
     streamWeight = streamWt; //corrected streamWeight
     return this;
   }
 
+  /**
+   * Updates the given sketch with all of the active (item, count) pairs of this sketch.
+   * @param target the sketch to update
+   */
+  void mergeItemsInto(final LongsSketch target) {
+    final ReversePurgeLongHashMap.Iterator iter = hashMap.iterator();
+    while (iter.next()) {
+      target.update(iter.getKey(), iter.getValue());
+    }
+  }
+
+  /**
+   * Returns true if this sketch keeps its state in a Memory.
+   * @return true if this sketch keeps its state in a Memory.
+   */
+  public boolean hasMemory() {
+    return false;
+  }
+
+  /**
+   * Returns true if this sketch is a read-only wrap of a Memory.
+   * @return true if this sketch is a read-only wrap of a Memory.
+   */
+  public boolean isReadOnly() {
+    return false;
+  }
+
   /**
    * Resets this sketch to a virgin state.
    */
@@ -548,13 +637,13 @@ public class LongsSketch {
     //start the string with parameters of the sketch
     final int serVer = SER_VER;                 //0
     final int famID = Family.FREQUENCY.getID(); //1
-    final int lgMaxMapSz = lgMaxMapSize;        //2
-    final int flags = (hashMap.getNumActive() == 0) ? EMPTY_FLAG_MASK : 0; //3
+    final int lgMaxMapSz = getLgMaxMapSize();   //2
+    final int flags = isEmpty() ? EMPTY_FLAG_MASK : 0; //3
     final String fmt = "%d,%d,%d,%d,%d,%d,";
     final String s =
-        String.format(fmt, serVer, famID, lgMaxMapSz, flags, streamWeight, offset);
+        String.format(fmt, serVer, famID, lgMaxMapSz, flags, getStreamLength(), getMaximumError());
     sb.append(s);
-    sb.append(hashMap.serializeToString()); //numActive, curMaplen, key[i], value[i], ...
+    sb.append(serializeMapToString()); //numActive, curMaplen, key[i], value[i], ...
     // maxMapCap, samplesize are deterministic functions of maxMapSize,
     //  so we don't need them in the serialization
     return sb.toString();
@@ -583,8 +672,8 @@ public class LongsSketch {
     pre0 = insertPreLongs(preLongs, pre0);                  //Byte 0
     pre0 = insertSerVer(SER_VER, pre0);                     //Byte 1
     pre0 = insertFamilyID(Family.FREQUENCY.getID(), pre0);  //Byte 2
-    pre0 = insertLgMaxMapSize(lgMaxMapSize, pre0);          //Byte 3
-    pre0 = insertLgCurMapSize(hashMap.getLgLength(), pre0); //Byte 4
+    pre0 = insertLgMaxMapSize(getLgMaxMapSize(), pre0);     //Byte 3
+    pre0 = insertLgCurMapSize(getLgCurMapSize(), pre0);     //Byte 4
     pre0 = (empty) ? insertFlags(EMPTY_FLAG_MASK, pre0) : insertFlags(0, pre0); //Byte 5
 
     if (empty) {
@@ -594,13 +683,13 @@ public class LongsSketch {
       final long[] preArr = new long[preLongs];
       preArr[0] = pre0;
       preArr[1] = insertActiveItems(activeItems, pre);
-      preArr[2] = streamWeight;
-      preArr[3] = offset;
+      preArr[2] = getStreamLength();
+      preArr[3] = getMaximumError();
       mem.putLongArray(0, preArr, 0, preLongs);
       final int preBytes = preLongs << 3;
-      mem.putLongArray(preBytes, hashMap.getActiveValues(), 0, activeItems);
+      mem.putLongArray(preBytes, getActiveValues(), 0, activeItems);
 
-      mem.putLongArray(preBytes + (activeItems << 3), hashMap.getActiveKeys(), 0,
+      mem.putLongArray(preBytes + (activeItems << 3), getActiveKeys(), 0,
           activeItems);
     }
     return outArr;
@@ -614,9 +703,9 @@ public class LongsSketch {
   public String toString() {
     final StringBuilder sb = new StringBuilder();
     sb.append("FrequentLongsSketch:").append(LS);
-    sb.append("  Stream Length    : " + streamWeight).append(LS);
-    sb.append("  Max Error Offset : " + offset).append(LS);
-    sb.append(hashMap.toString());
+    sb.append("  Stream Length    : " + getStreamLength()).append(LS);
+    sb.append("  Max Error Offset : " + getMaximumError()).append(LS);
+    sb.append(mapToString());
     return sb.toString();
   }
 
@@ -771,6 +860,30 @@ public class LongsSketch {
 
   } // End of class Row
 
+  int getLgMaxMapSize() {
+    return lgMaxMapSize;
+  }
+
+  int getLgCurMapSize() {
+    return hashMap.getLgLength();
+  }
+
+  long[] getActiveKeys() {
+    return hashMap.getActiveKeys();
+  }
+
+  long[] getActiveValues() {
+    return hashMap.getActiveValues();
+  }
+
+  String serializeMapToString() {
+    return hashMap.serializeToString();
+  }
+
+  String mapToString() {
+    return hashMap.toString();
+  }
+
   Row[] sortItems(final long threshold, final ErrorType errorType) {
     final ArrayList<Row> rowList = new ArrayList<>();
     final ReversePurgeLongHashMap.Iterator iter = hashMap.iterator();
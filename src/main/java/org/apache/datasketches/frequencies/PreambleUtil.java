@@ -86,6 +86,8 @@ final class PreambleUtil {
   // due to a mistake different bits were used in C++ and Java to indicate empty sketch
   // therefore both are set and checked for compatibility with historical binary format
   static final int EMPTY_FLAG_MASK = 5;
+  // the image is the full hash map of a direct, updatable LongsSketch
+  static final int UPDATABLE_FLAG_MASK = 8;
 
   // Specific values for this implementation
   static final int SER_VER = 1;
@@ -110,6 +112,7 @@ final class PreambleUtil {
 
     final String flagsStr = zeroPad(Integer.toBinaryString(flags), 8) + ", " + (flags);
     final boolean empty = (flags & EMPTY_FLAG_MASK) > 0;
+    final boolean updatable = (flags & UPDATABLE_FLAG_MASK) > 0;
     final int maxMapSize = 1 << lgMaxMapSize;
     final int curMapSize = 1 << lgCurMapSize;
     final int maxPreLongs = Family.FREQUENCY.getMaxPreLongs();
@@ -139,7 +142,8 @@ final class PreambleUtil {
       .append("Byte  3: MaxMapSize           : ").append(maxMapSize).append(LS)
       .append("Byte  4: CurMapSize           : ").append(curMapSize).append(LS)
       .append("Byte  5: Flags Field          : ").append(flagsStr).append(LS)
-      .append("  EMPTY                       : ").append(empty).append(LS);
+      .append("  EMPTY                       : ").append(empty).append(LS)
+      .append("  UPDATABLE                   : ").append(updatable).append(LS);
 
     if (preLongs == 1) {
       sb.append(" --ABSENT, ASSUMED:").append(LS);
@@ -150,7 +154,10 @@ final class PreambleUtil {
     }
 
     sb.append(  "Preamble Bytes                : ").append(preLongs * 8).append(LS);
-    sb.append(  "TOTAL Sketch Bytes            : ").append((preLongs + (activeItems * 2)) << 3)
+    final long totalBytes = updatable
+        ? (preLongs << 3) + DirectReversePurgeLongHashMap.getArraysBytes(maxMapSize)
+        : (preLongs + (activeItems * 2)) << 3;
+    sb.append(  "TOTAL Sketch Bytes            : ").append(totalBytes)
       .append(LS)
       .append("### END FREQUENCY SKETCH PREAMBLE SUMMARY").append(LS);
     return sb.toString();
@@ -0,0 +1,462 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.datasketches.common.Util.INVERSE_GOLDEN;
+import static org.apache.datasketches.common.Util.LS;
+import static org.apache.datasketches.common.Util.exactLog2OfInt;
+import static org.apache.datasketches.frequencies.Util.hash;
+
+import org.apache.datasketches.thetacommon.QuickSelect;
+
+/**
+ * A variant of the {@link ReversePurgeLongHashMap} for string items. The map is keyed by a 64-bit
+ * fingerprint of the UTF-8 bytes of each item, and the bytes themselves are kept in a single
+ * contiguous arena. Each active slot records the offset and length of its bytes in the arena.
+ *
+ * <p>Bytes are only appended to the arena when a new key is inserted. The space of keys removed by
+ * a purge is reclaimed by compacting the live bytes into a second arena of the same size, which is
+ * then swapped with the first, so that a map at its target size does not allocate.</p>
+ */
+class ReversePurgeStringHashMap {
+  private static final double LOAD_FACTOR = 0.75;
+  private static final int DRIFT_LIMIT = 1024; //used only in stress testing
+  private static final int MIN_ARENA_BYTES = 64;
+  private int lgLength;
+  private int loadThreshold;
+  private long[] keys;
+  private long[] values;
+  private short[] states;
+  private int[] offsets;
+  private int[] lengths;
+  private byte[] arena;
+  private byte[] spareArena;
+  private int arenaBytes = 0;
+  private long[] samples;
+  private int numActive = 0;
+
+  /**
+   * Constructor will create arrays of length mapSize, which must be a power of two.
+   *
+   * @param mapSize This determines the number of cells in the arrays underlying the
+   * HashMap implementation and must be a power of 2.
+   * The hash table will be expected to store LOAD_FACTOR * mapSize (key, value) pairs.
+   */
+  ReversePurgeStringHashMap(final int mapSize) {
+    lgLength = exactLog2OfInt(mapSize, "mapSize");
+    loadThreshold = (int) (mapSize * LOAD_FACTOR);
+    keys = new long[mapSize];
+    values = new long[mapSize];
+    states = new short[mapSize];
+    offsets = new int[mapSize];
+    lengths = new int[mapSize];
+    arena = new byte[MIN_ARENA_BYTES];
+  }
+
+  /**
+   * @param probe location in the hash table array
+   * @return true if the cell in the array contains an active key
+   */
+  boolean isActive(final int probe) {
+    return (states[probe] > 0);
+  }
+
+  /**
+   * Gets the current value with the given fingerprint
+   * @param key the fingerprint of the item
+   * @return the positive value the key corresponds to or zero if the key is not found in the
+   * hash map.
+   */
+  long get(final long key) {
+    final int probe = hashProbe(key);
+    if (states[probe] > 0) {
+      assert (keys[probe] == key);
+      return values[probe];
+    }
+    return 0;
+  }
+
+  /**
+   * Increments the value mapped to the key if the key is present in the map. Otherwise,
+   * the key is inserted with the adjustAmount and the given UTF-8 bytes are copied to the arena.
+   *
+   * @param key the fingerprint of the item
+   * @param utf8 the array holding the UTF-8 bytes of the item
+   * @param offsetBytes the offset of the item in the given array
+   * @param lengthBytes the length of the item in bytes
+   * @param adjustAmount the amount by which to increment the value
+   */
+  void adjustOrPutValue(final long key, final byte[] utf8, final int offsetBytes,
+      final int lengthBytes, final long adjustAmount) {
+    final int arrayMask = keys.length - 1;
+    int probe = (int) hash(key) & arrayMask;
+    int drift = 1;
+    while ((states[probe] != 0) && (keys[probe] != key)) {
+      probe = (probe + 1) & arrayMask;
+      drift++;
+      //only used for theoretical analysis
+      assert (drift < DRIFT_LIMIT) : "drift: " + drift + " >= DRIFT_LIMIT";
+    }
+    if (states[probe] == 0) { //found empty slot
+      assert (numActive <= loadThreshold)
+        : "numActive: " + numActive + " > loadThreshold : " + loadThreshold;
+      ensureArenaSpace(lengthBytes);
+      System.arraycopy(utf8, offsetBytes, arena, arenaBytes, lengthBytes);
+      keys[probe] = key;
+      values[probe] = adjustAmount;
+      states[probe] = (short) drift;
+      offsets[probe] = arenaBytes;
+      lengths[probe] = lengthBytes;
+      arenaBytes += lengthBytes;
+      numActive++;
+    } else { //found the key, adjust the value
+      assert (keys[probe] == key);
+      values[probe] += adjustAmount;
+    }
+  }
+
+  /**
+   * Processes the map arrays and retains only keys with positive counts.
+   */
+  void keepOnlyPositiveCounts() {
+    // Starting from the back, find the first empty cell, which marks a boundary between clusters.
+    int firstProbe = keys.length - 1;
+    while (states[firstProbe] > 0) {
+      firstProbe--;
+    }
+
+    //Work towards the front; delete any non-positive entries.
+    for (int probe = firstProbe; probe-- > 0; ) {
+      if ((states[probe] > 0) && (values[probe] <= 0)) {
+        hashDelete(probe);
+        numActive--;
+      }
+    }
+    //now work on the first cluster that was skipped.
+    for (int probe = keys.length; probe-- > firstProbe;) {
+      if ((states[probe] > 0) && (values[probe] <= 0)) {
+        hashDelete(probe);
+        numActive--;
+      }
+    }
+    compactArena();
+  }
+
+  /**
+   * @param adjustAmount value by which to shift all values. Only keys corresponding to positive
+   * values are retained.
+   */
+  void adjustAllValuesBy(final long adjustAmount) {
+    for (int i = keys.length; i-- > 0; ) {
+      values[i] += adjustAmount;
+    }
+  }
+
+  /**
+   * @return an array containing the values corresponding to the active keys in the hash map.
+   */
+  long[] getActiveValues() {
+    if (numActive == 0) { return null; }
+    final long[] returnedValues = new long[numActive];
+    int j = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (isActive(i)) {
+        returnedValues[j] = values[i];
+        j++;
+      }
+    }
+    assert (j == numActive);
+    return returnedValues;
+  }
+
+  /**
+   * Returns the active items in the same order as {@link #getActiveValues()}, each serialized as
+   * a 4-byte little-endian length followed by its UTF-8 bytes. This is the format of the
+   * {@link org.apache.datasketches.common.ArrayOfStringsSerDe ArrayOfStringsSerDe}.
+   *
+   * @return the serialized active items
+   */
+  byte[] getActiveItemBytes() {
+    final byte[] out = new byte[getActiveItemBytesLength()];
+    int pos = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (isActive(i)) {
+        final int len = lengths[i];
+        out[pos++] = (byte) len;
+        out[pos++] = (byte) (len >>> 8);
+        out[pos++] = (byte) (len >>> 16);
+        out[pos++] = (byte) (len >>> 24);
+        System.arraycopy(arena, offsets[i], out, pos, len);
+        pos += len;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * @return the number of bytes required by {@link #getActiveItemBytes()}
+   */
+  int getActiveItemBytesLength() {
+    return arenaBytes + (numActive * Integer.BYTES);
+  }
+
+  // assume newSize is power of 2
+  void resize(final int newSize) {
+    final long[] oldKeys = keys;
+    final long[] oldValues = values;
+    final short[] oldStates = states;
+    final int[] oldOffsets = offsets;
+    final int[] oldLengths = lengths;
+    final byte[] oldArena = arena;
+    keys = new long[newSize];
+    values = new long[newSize];
+    states = new short[newSize];
+    offsets = new int[newSize];
+    lengths = new int[newSize];
+    arena = (spareArena != null) && (spareArena.length >= oldArena.length)
+        ? spareArena : new byte[oldArena.length];
+    spareArena = oldArena;
+    arenaBytes = 0;
+    loadThreshold = (int) (newSize * LOAD_FACTOR);
+    lgLength = Integer.numberOfTrailingZeros(newSize);
+    numActive = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldStates[i] > 0) {
+        adjustOrPutValue(oldKeys[i], oldArena, oldOffsets[i], oldLengths[i], oldValues[i]);
+      }
+    }
+  }
+
+  /**
+   * @return length of hash table internal arrays
+   */
+  int getLength() {
+    return keys.length;
+  }
+
+  int getLgLength() {
+    return lgLength;
+  }
+
+  /**
+   * @return capacity of hash table internal arrays (i.e., max number of keys that can be stored)
+   */
+  int getCapacity() {
+    return loadThreshold;
+  }
+
+  /**
+   * @return number of populated keys
+   */
+  int getNumActive() {
+    return numActive;
+  }
+
+  /**
+   * @return the number of bytes of the arena occupied by the active items
+   */
+  int getArenaBytes() {
+    return arenaBytes;
+  }
+
+  /**
+   * Returns the hash table as a human readable string.
+   */
+  @Override
+  public String toString() {
+    final String fmt  = "  %12d:%11d%20d %s";
+    final String hfmt = "  %12s:%11s%20s %s";
+    final StringBuilder sb = new StringBuilder();
+    sb.append("ReversePurgeStringHashMap:").append(LS);
+    sb.append(String.format(hfmt, "Index","States","Values","Keys")).append(LS);
+
+    for (int i = 0; i < keys.length; i++) {
+      if (states[i] <= 0) { continue; }
+      sb.append(String.format(fmt, i, states[i], values[i],
+          new String(arena, offsets[i], lengths[i], UTF_8))).append(LS);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the load factor of the hash table, i.e, the ratio between the capacity and the array
+   * length
+   */
+  static double getLoadFactor() {
+    return LOAD_FACTOR;
+  }
+
+  /**
+   * This function is called when a key is processed that is not currently assigned a counter, and
+   * all the counters are in use. This function estimates the median of the counters in the sketch
+   * via sampling, decrements all counts by this estimate, throws out all counters that are no
+   * longer positive, and increments offset accordingly.
+   * @param sampleSize number of samples
+   * @return the median value
+   */
+  long purge(final int sampleSize) {
+    final int limit = Math.min(sampleSize, getNumActive());
+
+    int numSamples = 0;
+    int i = 0;
+    if ((samples == null) || (samples.length < limit)) { samples = new long[limit]; }
+
+    while (numSamples < limit) {
+      if (isActive(i)) {
+        samples[numSamples] = values[i];
+        numSamples++;
+      }
+      i++;
+    }
+
+    final long val = QuickSelect.select(samples, 0, numSamples - 1, limit / 2);
+    adjustAllValuesBy(-1 * val);
+    keepOnlyPositiveCounts();
+    return val;
+  }
+
+  private void ensureArenaSpace(final int lengthBytes) {
+    final int reqBytes = arenaBytes + lengthBytes;
+    if (reqBytes <= arena.length) { return; }
+    final byte[] newArena = new byte[Math.max(reqBytes, 2 * arena.length)];
+    System.arraycopy(arena, 0, newArena, 0, arenaBytes);
+    arena = newArena;
+    spareArena = null; //too small to compact into
+  }
+
+  // Copies the bytes of the active keys into the spare arena, which then becomes the arena.
+  private void compactArena() {
+    if ((spareArena == null) || (spareArena.length < arena.length)) {
+      spareArena = new byte[arena.length];
+    }
+    final byte[] dst = spareArena;
+    int pos = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (states[i] > 0) {
+        final int len = lengths[i];
+        System.arraycopy(arena, offsets[i], dst, pos, len);
+        offsets[i] = pos;
+        pos += len;
+      }
+    }
+    spareArena = arena;
+    arena = dst;
+    arenaBytes = pos;
+  }
+
+  private void hashDelete(int deleteProbe) {
+    // Looks ahead in the table to search for another item to move to this location.
+    // If none are found, the status is changed
+    states[deleteProbe] = 0; //mark as empty
+    int drift = 1;
+    final int arrayMask = keys.length - 1;
+    int probe = (deleteProbe + drift) & arrayMask; //map length must be a power of 2
+    // advance until you find a free location replacing locations as needed
+    while (states[probe] != 0) {
+      if (states[probe] > drift) {
+        // move current element
+        keys[deleteProbe] = keys[probe];
+        values[deleteProbe] = values[probe];
+        offsets[deleteProbe] = offsets[probe];
+        lengths[deleteProbe] = lengths[probe];
+        states[deleteProbe] = (short) (states[probe] - drift);
+        // marking the current probe location as deleted
+        states[probe] = 0;
+        drift = 0;
+        deleteProbe = probe;
+      }
+      probe = (probe + 1) & arrayMask;
+      drift++;
+      //only used for theoretical analysis
+      assert (drift < DRIFT_LIMIT) : "drift: " + drift + " >= DRIFT_LIMIT";
+    }
+  }
+
+  private int hashProbe(final long key) {
+    final int arrayMask = keys.length - 1;
+    int probe = (int) hash(key) & arrayMask;
+    while ((states[probe] > 0) && (keys[probe] != key)) {
+      probe = (probe + 1) & arrayMask;
+    }
+    return probe;
+  }
+
+  Iterator iterator() {
+    return new Iterator(this);
+  }
+
+  // This iterator uses strides based on golden ratio to avoid clustering during merge
+  static class Iterator {
+    private final ReversePurgeStringHashMap map_;
+    private final int stride_;
+    private final int mask_;
+    private int i_;
+    private int count_;
+
+    Iterator(final ReversePurgeStringHashMap map) {
+      map_ = map;
+      stride_ = (int) (map.keys.length * INVERSE_GOLDEN) | 1;
+      mask_ = map.keys.length - 1;
+      i_ = -stride_;
+      count_ = 0;
+    }
+
+    boolean next() {
+      i_ = (i_ + stride_) & mask_;
+      while (count_ < map_.numActive) {
+        if (map_.states[i_] > 0) {
+          count_++;
+          return true;
+        }
+        i_ = (i_ + stride_) & mask_;
+      }
+      return false;
+    }
+
+    long getFingerprint() {
+      return map_.keys[i_];
+    }
+
+    long getValue() {
+      return map_.values[i_];
+    }
+
+    /**
+     * @return the arena holding the UTF-8 bytes of the current item. Only valid until the map
+     * is next modified.
+     */
+    byte[] getArena() {
+      return map_.arena;
+    }
+
+    int getOffset() {
+      return map_.offsets[i_];
+    }
+
+    int getLength() {
+      return map_.lengths[i_];
+    }
+
+    String getKey() {
+      return new String(map_.arena, map_.offsets[i_], map_.lengths[i_], UTF_8);
+    }
+  }
+
+}
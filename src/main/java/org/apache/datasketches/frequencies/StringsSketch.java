@@ -0,0 +1,619 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import static org.apache.datasketches.common.Util.LS;
+import static org.apache.datasketches.common.Util.checkBounds;
+import static org.apache.datasketches.common.Util.exactLog2OfInt;
+import static org.apache.datasketches.frequencies.PreambleUtil.EMPTY_FLAG_MASK;
+import static org.apache.datasketches.frequencies.PreambleUtil.SER_VER;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractActiveItems;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractFamilyID;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractFlags;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractLgCurMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractLgMaxMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractPreLongs;
+import static org.apache.datasketches.frequencies.PreambleUtil.extractSerVer;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertActiveItems;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertFamilyID;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertFlags;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertLgCurMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertLgMaxMapSize;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertPreLongs;
+import static org.apache.datasketches.frequencies.PreambleUtil.insertSerVer;
+import static org.apache.datasketches.frequencies.Util.LG_MIN_MAP_SIZE;
+import static org.apache.datasketches.frequencies.Util.SAMPLE_SIZE;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Objects;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * <p>A frequent items sketch specialized for String items. It has the same behavior and accuracy
+ * guarantees as an {@link ItemsSketch ItemsSketch&lt;String&gt;} with the same <i>maxMapSize</i>,
+ * but does not retain a String object per tracked item.</p>
+ *
+ * <p>Items are identified by a 64-bit MurmurHash3 fingerprint of their UTF-8 encoding, and the
+ * UTF-8 bytes of the tracked items are stored in a single contiguous byte array. A String update
+ * encodes the item into a reusable buffer, so that, once the internal hash map has reached its
+ * maximum size, updating the sketch does not allocate. Items can also be given directly as UTF-8
+ * bytes. Two distinct items with the same fingerprint are counted as one item, which for
+ * <i>n</i> distinct items happens with probability about <i>n</i><sup>2</sup>/2<sup>65</sup>.</p>
+ *
+ * <p>The serialized form is identical to that of an <i>ItemsSketch&lt;String&gt;</i> serialized
+ * with the {@link org.apache.datasketches.common.ArrayOfStringsSerDe ArrayOfStringsSerDe}, so each
+ * sketch can be deserialized as the other. This sketch can also merge an
+ * <i>ItemsSketch&lt;String&gt;</i>.</p>
+ *
+ * <p>Excluding the arena of UTF-8 bytes, the internal memory space usage of this sketch is
+ * 34 * <i>mapSize</i> bytes, plus a small constant number of additional bytes. The arena and its
+ * spare copy each hold at least the UTF-8 bytes of all tracked items.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ *
+ * @see ItemsSketch
+ */
+public class StringsSketch {
+
+  private static final long FINGERPRINT_SEED = 9001L;
+
+  private int lgMaxMapSize;
+
+  private int curMapCap; //the threshold to purge
+
+  private long offset;
+
+  private long streamWeight = 0;
+
+  private int sampleSize;
+
+  private ReversePurgeStringHashMap hashMap;
+
+  //reusable buffers for encoding and hashing the items of updates and queries
+  private byte[] utf8Buf = new byte[64];
+
+  private final long[] hashOut = new long[2];
+
+  /**
+   * Construct this sketch with the parameter maxMapSize and the default initialMapSize (8).
+   *
+   * @param maxMapSize Determines the physical size of the internal hash map managed by this
+   * sketch and must be a power of 2. The maximum capacity of this internal hash map is
+   * 0.75 times * maxMapSize. Both the ultimate accuracy and size of this sketch are a
+   * function of maxMapSize.
+   */
+  public StringsSketch(final int maxMapSize) {
+    this(exactLog2OfInt(maxMapSize, "maxMapSize"), LG_MIN_MAP_SIZE);
+  }
+
+  /**
+   * Construct this sketch with parameter lgMaxMapSize and lgCurMapSize. This internal
+   * constructor is used when deserializing the sketch.
+   *
+   * @param lgMaxMapSize Log2 of the physical size of the internal hash map managed by this
+   * sketch.
+   * @param lgCurMapSize Log2 of the starting (current) physical size of the internal hash
+   * map managed by this sketch.
+   */
+  StringsSketch(final int lgMaxMapSize, final int lgCurMapSize) {
+    this.lgMaxMapSize = Math.max(lgMaxMapSize, LG_MIN_MAP_SIZE);
+    final int lgCurMapSz = Math.max(lgCurMapSize, LG_MIN_MAP_SIZE);
+    hashMap = new ReversePurgeStringHashMap(1 << lgCurMapSz);
+    this.curMapCap = hashMap.getCapacity();
+    final int maxMapCap =
+        (int) ((1 << lgMaxMapSize) * ReversePurgeStringHashMap.getLoadFactor());
+    offset = 0;
+    sampleSize = Math.min(SAMPLE_SIZE, maxMapCap);
+  }
+
+  /**
+   * Returns a sketch instance of this class from the given srcMem, which must be a Memory
+   * representation of this sketch class or of an <i>ItemsSketch&lt;String&gt;</i> serialized with
+   * the ArrayOfStringsSerDe.
+   *
+   * @param srcMem a Memory representation of a sketch of this class.
+   * <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
+   * @return a sketch instance of this class.
+   */
+  public static StringsSketch getInstance(final Memory srcMem) {
+    Objects.requireNonNull(srcMem, "srcMem must not be null.");
+
+    final long pre0 = PreambleUtil.checkPreambleSize(srcMem); //make sure preamble will fit
+    final int maxPreLongs = Family.FREQUENCY.getMaxPreLongs();
+
+    final int preLongs = extractPreLongs(pre0);         //Byte 0
+    final int serVer = extractSerVer(pre0);             //Byte 1
+    final int familyID = extractFamilyID(pre0);         //Byte 2
+    final int lgMaxMapSize = extractLgMaxMapSize(pre0); //Byte 3
+    final int lgCurMapSize = extractLgCurMapSize(pre0); //Byte 4
+    final boolean empty = (extractFlags(pre0) & EMPTY_FLAG_MASK) != 0; //Byte 5
+
+    // Checks
+    final boolean preLongsEq1 = (preLongs == 1);        //Byte 0
+    final boolean preLongsEqMax = (preLongs == maxPreLongs);
+    if (!preLongsEq1 && !preLongsEqMax) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: PreLongs must be 1 or " + maxPreLongs + ": " + preLongs);
+    }
+    if (serVer != SER_VER) {                            //Byte 1
+      throw new SketchesArgumentException(
+          "Possible Corruption: Ser Ver must be " + SER_VER + ": " + serVer);
+    }
+    final int actFamID = Family.FREQUENCY.getID();      //Byte 2
+    if (familyID != actFamID) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: FamilyID must be " + actFamID + ": " + familyID);
+    }
+    if (empty ^ preLongsEq1) {                          //Byte 5 and Byte 0
+      throw new SketchesArgumentException(
+          "Possible Corruption: (PreLongs == 1) ^ Empty == True.");
+    }
+
+    if (empty) {
+      return new StringsSketch(lgMaxMapSize, LG_MIN_MAP_SIZE);
+    }
+    //get full preamble
+    final long[] preArr = new long[preLongs];
+    srcMem.getLongArray(0, preArr, 0, preLongs);
+
+    final StringsSketch fss = new StringsSketch(lgMaxMapSize, lgCurMapSize);
+    fss.offset = preArr[3];
+
+    final int preBytes = preLongs << 3;
+    final int activeItems = extractActiveItems(preArr[1]);
+
+    //Get countArray
+    final long[] countArray = new long[activeItems];
+    final int reqBytes = preBytes + activeItems * Long.BYTES; //count Arr only
+    final long memCap = srcMem.getCapacity();
+    checkBounds(0, reqBytes, memCap); //check Memory capacity
+    srcMem.getLongArray(preBytes, countArray, 0, activeItems);
+
+    //Read the items directly into the update buffer
+    long itemOffset = reqBytes;
+    for (int i = 0; i < activeItems; i++) {
+      checkBounds(itemOffset, Integer.BYTES, memCap);
+      final int lengthBytes = srcMem.getInt(itemOffset);
+      itemOffset += Integer.BYTES;
+      checkBounds(itemOffset, lengthBytes, memCap);
+      fss.ensureUtf8BufSize(lengthBytes);
+      srcMem.getByteArray(itemOffset, fss.utf8Buf, 0, lengthBytes);
+      itemOffset += lengthBytes;
+      fss.update(fss.utf8Buf, 0, lengthBytes, countArray[i]);
+    }
+    fss.streamWeight = preArr[2]; //override streamWeight due to updating
+    return fss;
+  }
+
+  /**
+   * Returns the estimated <i>a priori</i> error given the maxMapSize for the sketch and the
+   * estimatedTotalStreamWeight.
+   * @param maxMapSize the planned map size to be used when constructing this sketch.
+   * @param estimatedTotalStreamWeight the estimated total stream weight.
+   * @return the estimated <i>a priori</i> error.
+   */
+  public static double getAprioriError(final int maxMapSize, final long estimatedTotalStreamWeight) {
+    return ItemsSketch.getAprioriError(maxMapSize, estimatedTotalStreamWeight);
+  }
+
+  /**
+   * Returns the current number of counters the sketch is configured to support.
+   *
+   * @return the current number of counters the sketch is configured to support.
+   */
+  public int getCurrentMapCapacity() {
+    return this.curMapCap;
+  }
+
+  /**
+   * Returns epsilon used to compute <i>a priori</i> error.
+   * @param maxMapSize the planned map size to be used when constructing this sketch.
+   * @return epsilon used to compute <i>a priori</i> error.
+   */
+  public static double getEpsilon(final int maxMapSize) {
+    return ItemsSketch.getEpsilon(maxMapSize);
+  }
+
+  /**
+   * Gets the estimate of the frequency of the given item.
+   * Note: The true frequency of a item would be the sum of the counts as a result of the
+   * two update functions.
+   *
+   * @param item the given item
+   * @return the estimate of the frequency of the given item
+   */
+  public long getEstimate(final String item) {
+    final long itemCount = get(item);
+    return (itemCount > 0) ? itemCount + offset : 0;
+  }
+
+  /**
+   * Gets the guaranteed lower bound frequency of the given item, which can never be
+   * negative.
+   *
+   * @param item the given item.
+   * @return the guaranteed lower bound frequency of the given item. That is, a number which
+   * is guaranteed to be no larger than the real frequency.
+   */
+  public long getLowerBound(final String item) {
+    return get(item);
+  }
+
+  /**
+   * Returns an array of Rows that include frequent items, estimates, upper and lower bounds
+   * given a threshold and an ErrorCondition. If the threshold is lower than getMaximumError(),
+   * then getMaximumError() will be used instead.
+   *
+   * <p>The rows are the same as would be returned by an <i>ItemsSketch&lt;String&gt;</i> given
+   * the same stream. See {@link ItemsSketch#getFrequentItems(long, ErrorType)}.</p>
+   *
+   * @param threshold to include items in the result list
+   * @param errorType determines whether no false positives or no false negatives are
+   * desired.
+   * @return an array of frequent items
+   */
+  public ItemsSketch.Row<String>[] getFrequentItems(final long threshold, final ErrorType errorType) {
+    return sortItems(threshold > getMaximumError() ? threshold : getMaximumError(), errorType);
+  }
+
+  /**
+   * Returns an array of Rows that include frequent items, estimates, upper and lower bounds
+   * given an ErrorCondition and the default threshold.
+   * This is the same as getFrequentItems(getMaximumError(), errorType)
+   *
+   * @param errorType determines whether no false positives or no false negatives are
+   * desired.
+   * @return an array of frequent items
+   */
+  public ItemsSketch.Row<String>[] getFrequentItems(final ErrorType errorType) {
+    return sortItems(getMaximumError(), errorType);
+  }
+
+  /**
+   * @return An upper bound on the maximum error of getEstimate(item) for any item.
+   * This is equivalent to the maximum distance between the upper bound and the lower bound
+   * for any item.
+   */
+  public long getMaximumError() {
+    return offset;
+  }
+
+  /**
+   * Returns the maximum number of counters the sketch is configured to support.
+   *
+   * @return the maximum number of counters the sketch is configured to support.
+   */
+  public int getMaximumMapCapacity() {
+    return (int) ((1 << lgMaxMapSize) * ReversePurgeStringHashMap.getLoadFactor());
+  }
+
+  /**
+   * @return the number of active items in the sketch.
+   */
+  public int getNumActiveItems() {
+    return hashMap.getNumActive();
+  }
+
+  /**
+   * Returns the sum of the frequencies in the stream seen so far by the sketch
+   *
+   * @return the sum of the frequencies in the stream seen so far by the sketch
+   */
+  public long getStreamLength() {
+    return this.streamWeight;
+  }
+
+  /**
+   * Gets the guaranteed upper bound frequency of the given item.
+   *
+   * @param item the given item
+   * @return the guaranteed upper bound frequency of the given item. That is, a number which
+   * is guaranteed to be no smaller than the real frequency.
+   */
+  public long getUpperBound(final String item) {
+    return get(item) + offset;
+  }
+
+  /**
+   * Returns true if this sketch is empty
+   *
+   * @return true if this sketch is empty
+   */
+  public boolean isEmpty() {
+    return getNumActiveItems() == 0;
+  }
+
+  /**
+   * This function merges the other sketch into this one.
+   * The other sketch may be of a different size.
+   *
+   * @param other sketch of this class
+   * @return a sketch whose estimates are within the guarantees of the
+   * largest error tolerance of the two merged sketches.
+   */
+  public StringsSketch merge(final StringsSketch other) {
+    if (other == null) { return this; }
+    if (other.isEmpty()) { return this; }
+
+    final long streamLen = this.streamWeight + other.streamWeight; //capture before merge
+
+    final ReversePurgeStringHashMap.Iterator iter = other.hashMap.iterator();
+    while (iter.next()) { //this may add to offset during rebuilds
+      updateFingerprint(iter.getFingerprint(), iter.getArena(), iter.getOffset(), iter.getLength(),
+          iter.getValue());
+    }
+    this.offset += other.offset;
+    this.streamWeight = streamLen; //corrected streamWeight
+    return this;
+  }
+
+  /**
+   * This function merges an <i>ItemsSketch&lt;String&gt;</i> into this one.
+   * The other sketch may be of a different size.
+   *
+   * @param other an ItemsSketch of String items
+   * @return a sketch whose estimates are within the guarantees of the
+   * largest error tolerance of the two merged sketches.
+   */
+  public StringsSketch merge(final ItemsSketch<String> other) {
+    if (other == null) { return this; }
+    if (other.isEmpty()) { return this; }
+
+    final long streamLen = this.streamWeight + other.getStreamLength(); //capture before merge
+
+    final ReversePurgeItemHashMap.Iterator<String> iter = other.getHashMap().iterator();
+    while (iter.next()) { //this may add to offset during rebuilds
+      this.update(iter.getKey(), iter.getValue());
+    }
+    this.offset += other.getMaximumError();
+    this.streamWeight = streamLen; //corrected streamWeight
+    return this;
+  }
+
+  /**
+   * Resets this sketch to a virgin state.
+   */
+  public void reset() {
+    hashMap = new ReversePurgeStringHashMap(1 << LG_MIN_MAP_SIZE);
+    this.curMapCap = hashMap.getCapacity();
+    this.offset = 0;
+    this.streamWeight = 0;
+  }
+
+  //Serialization
+
+  /**
+   * Returns a byte array representation of this sketch. The format is the same as that of
+   * an <i>ItemsSketch&lt;String&gt;</i> serialized with the ArrayOfStringsSerDe.
+   * @return a byte array representation of this sketch
+   */
+  public byte[] toByteArray() {
+    final int preLongs;
+    final int outBytes;
+    final boolean empty = isEmpty();
+    final int activeItems = getNumActiveItems();
+    if (empty) {
+      preLongs = 1;
+      outBytes = 8;
+    } else {
+      preLongs = Family.FREQUENCY.getMaxPreLongs();
+      outBytes = ((preLongs + activeItems) << 3) + hashMap.getActiveItemBytesLength();
+    }
+    final byte[] outArr = new byte[outBytes];
+    final WritableMemory mem = WritableMemory.writableWrap(outArr);
+
+    // build first preLong empty or not
+    long pre0 = 0L;
+    pre0 = insertPreLongs(preLongs, pre0);                  //Byte 0
+    pre0 = insertSerVer(SER_VER, pre0);                     //Byte 1
+    pre0 = insertFamilyID(Family.FREQUENCY.getID(), pre0);  //Byte 2
+    pre0 = insertLgMaxMapSize(lgMaxMapSize, pre0);          //Byte 3
+    pre0 = insertLgCurMapSize(hashMap.getLgLength(), pre0); //Byte 4
+    pre0 = empty ? insertFlags(EMPTY_FLAG_MASK, pre0) : insertFlags(0, pre0); //Byte 5
+
+    if (empty) {
+      mem.putLong(0, pre0);
+    } else {
+      final long pre = 0;
+      final long[] preArr = new long[preLongs];
+      preArr[0] = pre0;
+      preArr[1] = insertActiveItems(activeItems, pre);
+      preArr[2] = this.streamWeight;
+      preArr[3] = this.offset;
+      mem.putLongArray(0, preArr, 0, preLongs);
+      final int preBytes = preLongs << 3;
+      mem.putLongArray(preBytes, hashMap.getActiveValues(), 0, activeItems);
+      final byte[] bytes = hashMap.getActiveItemBytes();
+      mem.putByteArray(preBytes + (activeItems << 3), bytes, 0, bytes.length);
+    }
+    return outArr;
+  }
+
+  /**
+   * Returns a human readable summary of this sketch.
+   * @return a human readable summary of this sketch.
+   */
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("FrequentStringsSketch:").append(LS);
+    sb.append("  Stream Length    : " + streamWeight).append(LS);
+    sb.append("  Max Error Offset : " + offset).append(LS);
+    sb.append(hashMap.toString());
+    return sb.toString();
+  }
+
+  /**
+   * Update this sketch with an item and a frequency count of one.
+   * @param item for which the frequency should be increased.
+   */
+  public void update(final String item) {
+    update(item, 1);
+  }
+
+  /**
+   * Update this sketch with an item and a positive frequency count.
+   * @param item for which the frequency should be increased. The sketch uses
+   * its UTF-8 encoding.
+   * @param count the amount by which the frequency of the item should be increased.
+   * An count of zero is a no-op, and a negative count will throw an exception.
+   */
+  public void update(final String item, final long count) {
+    if ((item == null) || (count == 0)) {
+      return;
+    }
+    final int lengthBytes = encodeUtf8(item);
+    update(utf8Buf, 0, lengthBytes, count);
+  }
+
+  /**
+   * Update this sketch with an item given as UTF-8 bytes and a positive frequency count.
+   * The bytes are copied only if the item is not already tracked by the sketch.
+   * @param utf8 the array holding the UTF-8 bytes of the item
+   * @param offsetBytes the offset of the item in the given array
+   * @param lengthBytes the length of the item in bytes
+   * @param count the amount by which the frequency of the item should be increased.
+   * An count of zero is a no-op, and a negative count will throw an exception.
+   */
+  public void update(final byte[] utf8, final int offsetBytes, final int lengthBytes,
+      final long count) {
+    if ((utf8 == null) || (count == 0)) {
+      return;
+    }
+    checkBounds(offsetBytes, lengthBytes, utf8.length);
+    updateFingerprint(fingerprint(utf8, offsetBytes, lengthBytes), utf8, offsetBytes, lengthBytes,
+        count);
+  }
+
+  private void updateFingerprint(final long fingerprint, final byte[] utf8, final int offsetBytes,
+      final int lengthBytes, final long count) {
+    if (count < 0) {
+      throw new SketchesArgumentException("Count may not be negative");
+    }
+    this.streamWeight += count;
+    hashMap.adjustOrPutValue(fingerprint, utf8, offsetBytes, lengthBytes, count);
+
+    if (getNumActiveItems() > curMapCap) { //over the threshold, we need to do something
+      if (hashMap.getLgLength() < lgMaxMapSize) { //below tgt size, we can grow
+        hashMap.resize(2 * hashMap.getLength());
+        curMapCap = hashMap.getCapacity();
+      } else { //At tgt size, must purge
+        offset += hashMap.purge(sampleSize);
+        if (getNumActiveItems() > getMaximumMapCapacity()) {
+          throw new SketchesStateException("Purge did not reduce active items.");
+        }
+      }
+    }
+  }
+
+  ItemsSketch.Row<String>[] sortItems(final long threshold, final ErrorType errorType) {
+    final ArrayList<ItemsSketch.Row<String>> rowList = new ArrayList<>();
+    final ReversePurgeStringHashMap.Iterator iter = hashMap.iterator();
+    while (iter.next()) {
+      final long lb = iter.getValue();
+      final long ub = lb + offset;
+      final long est = (lb > 0) ? ub : 0;
+      final long bound = (errorType == ErrorType.NO_FALSE_NEGATIVES) ? ub : lb;
+      if (bound >= threshold) {
+        rowList.add(new ItemsSketch.Row<>(iter.getKey(), est, ub, lb));
+      }
+    }
+
+    // descending order
+    rowList.sort(new Comparator<ItemsSketch.Row<String>>() {
+      @Override
+      public int compare(final ItemsSketch.Row<String> r1, final ItemsSketch.Row<String> r2) {
+        return r2.compareTo(r1);
+      }
+    });
+
+    @SuppressWarnings("unchecked")
+    final ItemsSketch.Row<String>[] rowsArr =
+      rowList.toArray((ItemsSketch.Row<String>[]) Array.newInstance(ItemsSketch.Row.class, rowList.size()));
+    return rowsArr;
+  }
+
+  private long get(final String item) {
+    return (item == null) ? 0 : hashMap.get(fingerprint(item));
+  }
+
+  private long fingerprint(final String item) {
+    return fingerprint(utf8Buf, 0, encodeUtf8(item));
+  }
+
+  private long fingerprint(final byte[] utf8, final int offsetBytes, final int lengthBytes) {
+    //the hash requires a non-empty array, even for an empty item
+    final byte[] key = (utf8.length == 0) ? utf8Buf : utf8;
+    return MurmurHash3.hash(key, offsetBytes, lengthBytes, FINGERPRINT_SEED, hashOut)[0];
+  }
+
+  /**
+   * Encodes the given String into the reusable UTF-8 buffer the same way as
+   * <i>String.getBytes(UTF_8)</i>, which replaces unpaired surrogates with '?'.
+   * @param item the given String
+   * @return the number of bytes written to the buffer
+   */
+  private int encodeUtf8(final String item) {
+    final int numChars = item.length();
+    ensureUtf8BufSize(3 * numChars); //a surrogate pair of 2 chars takes 4 bytes
+    final byte[] buf = utf8Buf;
+    int pos = 0;
+    for (int i = 0; i < numChars; i++) {
+      final char c = item.charAt(i);
+      if (c < 0x80) {
+        buf[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        buf[pos++] = (byte) (0xC0 | (c >>> 6));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        final char c2 = (i + 1) < numChars ? item.charAt(i + 1) : 0;
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(c2)) {
+          final int cp = Character.toCodePoint(c, c2);
+          buf[pos++] = (byte) (0xF0 | (cp >>> 18));
+          buf[pos++] = (byte) (0x80 | ((cp >>> 12) & 0x3F));
+          buf[pos++] = (byte) (0x80 | ((cp >>> 6) & 0x3F));
+          buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+          i++;
+        } else {
+          buf[pos++] = (byte) '?';
+        }
+      } else {
+        buf[pos++] = (byte) (0xE0 | (c >>> 12));
+        buf[pos++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return pos;
+  }
+
+  private void ensureUtf8BufSize(final int numBytes) {
+    if (utf8Buf.length < numBytes) {
+      utf8Buf = new byte[Math.max(numBytes, 2 * utf8Buf.length)];
+    }
+  }
+
+}
@@ -79,8 +79,22 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final long key, final long seed) {
+    return hash(key, seed, new long[2]);
+  }
+
+  /**
+   * Hash the given long into the given array. This produces the same result as
+   * {@link #hash(long, long)} and {@link #hash(long[], long)} with an array of one long,
+   * but does not allocate.
+   *
+   * @param key The input long.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final long key, final long seed, final long[] hashOut) {
     final HashState hashState = new HashState(seed, seed);
-    return hashState.finalMix128(key, 0, Long.BYTES);
+    return hashState.finalMix128(key, 0, Long.BYTES, hashOut);
   }
 
   //--Hash of long[]-------------------------------------------------------
@@ -95,6 +109,19 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given long[] array into the given array. This produces the same result as
+   * {@link #hash(long[], long)}, but does not allocate.
+   *
+   * @param key The input long[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final long[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given long[] array.
    *
@@ -105,6 +132,22 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2
    */
   public static long[] hash(final long[] key, final int offsetLongs, final int lengthLongs, final long seed) {
+    return hash(key, offsetLongs, lengthLongs, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given long[] array into the given array. This produces the same result as
+   * {@link #hash(long[], int, int, long)}, but does not allocate.
+   *
+   * @param key The input long[] array. It must be non-null and non-empty.
+   * @param offsetLongs the starting offset in longs.
+   * @param lengthLongs the length in longs of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final long[] key, final int offsetLongs, final int lengthLongs, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
@@ -129,7 +172,7 @@ public final class MurmurHash3 implements Serializable {
     // Get the tail
     final long k1 = rem == 0 ? 0 : key[offsetLongs + tail]; //k2 -> 0
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, 0, lengthLongs << 3); //convert to bytes
+    return hashState.finalMix128(k1, 0, lengthLongs << 3, hashOut); //convert to bytes
   }
 
   //--Hash of int[]--------------------------------------------------------
@@ -144,6 +187,19 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given int[] array into the given array. This produces the same result as
+   * {@link #hash(int[], long)}, but does not allocate.
+   *
+   * @param key The input int[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final int[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given int[] array.
    *
@@ -154,6 +210,22 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final int[] key, final int offsetInts, final int lengthInts, final long seed) {
+    return hash(key, offsetInts, lengthInts, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given int[] array into the given array. This produces the same result as
+   * {@link #hash(int[], int, int, long)}, but does not allocate.
+   *
+   * @param key The input int[] array. It must be non-null and non-empty.
+   * @param offsetInts the starting offset in ints.
+   * @param lengthInts the length in ints of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final int[] key, final int offsetInts, final int lengthInts, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
@@ -187,7 +259,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthInts << 2); //convert to bytes
+    return hashState.finalMix128(k1, k2, lengthInts << 2, hashOut); //convert to bytes
   }
 
   //--Hash of char[]-------------------------------------------------------
@@ -202,6 +274,19 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given char[] array into the given array. This produces the same result as
+   * {@link #hash(char[], long)}, but does not allocate.
+   *
+   * @param key The input char[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final char[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given char[] array.
    *
@@ -212,6 +297,22 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2
    */
   public static long[] hash(final char[] key, final int offsetChars, final int lengthChars, final long seed) {
+    return hash(key, offsetChars, lengthChars, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given char[] array into the given array. This produces the same result as
+   * {@link #hash(char[], int, int, long)}, but does not allocate.
+   *
+   * @param key The input char[] array. It must be non-null and non-empty.
+   * @param offsetChars the starting offset in chars.
+   * @param lengthChars the length in chars of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final char[] key, final int offsetChars, final int lengthChars, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
@@ -245,7 +346,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthChars << 1); //convert to bytes
+    return hashState.finalMix128(k1, k2, lengthChars << 1, hashOut); //convert to bytes
   }
 
   //--Hash of byte[]-------------------------------------------------------
@@ -260,6 +361,19 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given byte[] array into the given array. This produces the same result as
+   * {@link #hash(byte[], long)}, but does not allocate.
+   *
+   * @param key The input byte[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final byte[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given byte[] array.
    *
@@ -270,6 +384,22 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final byte[] key, final int offsetBytes, final int lengthBytes, final long seed) {
+    return hash(key, offsetBytes, lengthBytes, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given byte[] array into the given array. This produces the same result as
+   * {@link #hash(byte[], int, int, long)}, but does not allocate.
+   *
+   * @param key The input byte[] array. It must be non-null and non-empty.
+   * @param offsetBytes the starting offset in bytes.
+   * @param lengthBytes the length in bytes of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final byte[] key, final int offsetBytes, final int lengthBytes, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
@@ -303,7 +433,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthBytes);
+    return hashState.finalMix128(k1, k2, lengthBytes, hashOut);
   }
 
   //--Hash of ByteBuffer---------------------------------------------------
@@ -315,12 +445,25 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final ByteBuffer buf, final long seed) {
+    return hash(buf, seed, new long[2]);
+  }
+
+  /**
+   * Hash the remaining bytes of the given ByteBuffer starting at position() into the given array.
+   * This produces the same result as {@link #hash(ByteBuffer, long)}.
+   *
+   * @param buf The input ByteBuffer. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final ByteBuffer buf, final long seed, final long[] hashOut) {
     Objects.requireNonNull(buf);
     final int pos = buf.position();
     final int rem = buf.remaining();
     checkPositive(rem);
     final Memory mem = Memory.wrap(buf, ByteOrder.LITTLE_ENDIAN).region(pos, rem);
-    return hash(mem, seed);
+    return hash(mem, seed, hashOut);
   }
 
   //--Hash of Memory-------------------------------------------------------
@@ -337,6 +480,19 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final Memory mem, final long seed) {
+    return hash(mem, seed, new long[2]);
+  }
+
+  /**
+   * Hash the given Memory into the given array. This produces the same result as
+   * {@link #hash(Memory, long)}, but does not allocate if the Memory is Little Endian.
+   *
+   * @param mem The input Memory. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut A long array of size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final Memory mem, final long seed, final long[] hashOut) {
     Objects.requireNonNull(mem);
     final long lengthBytes = mem.getCapacity();
     checkPositive(lengthBytes);
@@ -373,7 +529,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthBytes);
+    return hashState.finalMix128(k1, k2, lengthBytes, hashOut);
   }
 
   //--HashState class------------------------------------------------------
@@ -409,7 +565,7 @@ public final class MurmurHash3 implements Serializable {
       h2 = h2 * 5 + 0x38495ab5;
     }
 
-    long[] finalMix128(final long k1, final long k2, final long inputLengthBytes) {
+    long[] finalMix128(final long k1, final long k2, final long inputLengthBytes, final long[] hashOut) {
       h1 ^= mixK1(k1);
       h2 ^= mixK2(k2);
       h1 ^= inputLengthBytes;
@@ -420,7 +576,9 @@ public final class MurmurHash3 implements Serializable {
       h2 = finalMix64(h2);
       h1 += h2;
       h2 += h1;
-      return new long[] { h1, h2 };
+      hashOut[0] = h1;
+      hashOut[1] = h2;
+      return hashOut;
     }
 
     /**
@@ -20,6 +20,7 @@
 package org.apache.datasketches.hll;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.datasketches.common.Util.checkBounds;
 import static org.apache.datasketches.hash.MurmurHash3.hash;
 import static org.apache.datasketches.hll.HllUtil.HLL_HIP_RSE_FACTOR;
 import static org.apache.datasketches.hll.HllUtil.HLL_NON_HIP_RSE_FACTOR;
@@ -38,6 +39,7 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @author Kevin Lang
  */
 abstract class BaseHllSketch {
+  private final long[] hashOut = new long[2]; //reused by the update methods to avoid allocation
 
   abstract void couponUpdate(int coupon);
 
@@ -298,8 +300,7 @@ abstract class BaseHllSketch {
    * @param datum The given long datum.
    */
   public void update(final long datum) {
-    final long[] data = { datum };
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(datum, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -313,8 +314,8 @@ abstract class BaseHllSketch {
    */
   public void update(final double datum) {
     final double d = (datum == 0.0) ? 0.0 : datum; // canonicalize -0.0, 0.0
-    final long[] data = { Double.doubleToLongBits(d) };// canonicalize all NaN & +/- infinity forms
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    final long data = Double.doubleToLongBits(d);// canonicalize all NaN & +/- infinity forms
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -334,7 +335,7 @@ abstract class BaseHllSketch {
   public void update(final String datum) {
     if ((datum == null) || datum.isEmpty()) { return; }
     final byte[] data = datum.getBytes(UTF_8);
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -351,7 +352,7 @@ abstract class BaseHllSketch {
    */
   public void update(final ByteBuffer data) {
     if ((data == null) || (data.remaining() == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -362,7 +363,7 @@ abstract class BaseHllSketch {
    */
   public void update(final byte[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -376,7 +377,7 @@ abstract class BaseHllSketch {
    */
   public void update(final char[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -387,7 +388,7 @@ abstract class BaseHllSketch {
    */
   public void update(final int[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -398,7 +399,73 @@ abstract class BaseHllSketch {
    */
   public void update(final long[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
+  }
+
+  /**
+   * Present each long in the given range of the array as a potential unique item.
+   * The resulting state is the same as calling {@link #update(long)} for each item in order.
+   *
+   * @param items the given array of long items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final long[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      couponUpdate(coupon(hash(items[i], ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
+    }
+  }
+
+  /**
+   * Present each int in the given range of the array as a potential unique item.
+   * Each int is widened to a long, so the resulting state is the same as calling
+   * {@link #update(long)} for each item in order.
+   *
+   * @param items the given array of int items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final int[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      couponUpdate(coupon(hash(items[i], ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
+    }
+  }
+
+  /**
+   * Present each double in the given range of the array as a potential unique item.
+   * The resulting state is the same as calling {@link #update(double)} for each item in order.
+   *
+   * @param items the given array of double items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final double[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      final double d = (items[i] == 0.0) ? 0.0 : items[i]; // canonicalize -0.0, 0.0
+      couponUpdate(coupon(hash(Double.doubleToLongBits(d), ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
+    }
+  }
+
+  /**
+   * Present each String in the given range of the array as a potential unique item.
+   * The resulting state is the same as calling {@link #update(String)} for each item in order.
+   * Null or empty strings are ignored.
+   *
+   * @param items the given array of String items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final String[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    for (int i = from; i < to; i++) {
+      final String datum = items[i];
+      if ((datum == null) || datum.isEmpty()) { continue; }
+      final byte[] data = datum.getBytes(UTF_8);
+      couponUpdate(coupon(hash(data, 0, data.length, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
+    }
   }
 
   private static final int coupon(final long[] hash) {
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * This is a bounded size buffer of HLL coupons that operates in the context of a single writing
+ * thread. Instances are obtained from {@link ConcurrentHllSketch#newLocalBuffer()}.
+ *
+ * <p>Each update is hashed into a coupon exactly as by {@link HllSketch}. A coupon that would not
+ * raise the corresponding register of the shared sketch is discarded immediately; otherwise it is
+ * held in the buffer. When the buffer becomes full its content is propagated into the shared
+ * sketch by the updating thread, without locks. A buffer size of one keeps the shared sketch
+ * current; larger sizes amortize the cost of propagation. The staleness caused by the buffering is
+ * a perspective of time and synchronization, not a true error: once every buffer has been
+ * flushed, the shared sketch has seen every update.</p>
+ *
+ * <p>This is a buffer, not a sketch. It extends the common HLL sketch API in order to offer the
+ * familiar update methods, but all queries are redirected to the shared sketch. A buffer must not
+ * be used by more than one thread, and {@link #flush()} should be called when a writing thread
+ * has finished.</p>
+ */
+public final class ConcurrentHllBuffer extends BaseHllSketch {
+  private final ConcurrentHllSketch shared;
+  private final int configKmask;
+  private final int[] coupons;
+  private int numCoupons;
+
+  ConcurrentHllBuffer(final ConcurrentHllSketch shared, final int maxBufferedCoupons) {
+    this.shared = shared;
+    configKmask = (1 << shared.getLgConfigK()) - 1;
+    coupons = new int[maxBufferedCoupons];
+    numCoupons = 0;
+  }
+
+  /**
+   * Propagates any buffered coupons into the shared sketch.
+   */
+  public void flush() {
+    if (numCoupons > 0) {
+      shared.propagate(coupons, numCoupons);
+      numCoupons = 0;
+    }
+  }
+
+  /**
+   * Gets the number of coupons currently held in this buffer that have not yet been propagated.
+   * @return the number of coupons currently held in this buffer.
+   */
+  public int getNumBufferedCoupons() {
+    return numCoupons;
+  }
+
+  /**
+   * Returns the shared sketch this buffer propagates into.
+   * @return the shared sketch this buffer propagates into.
+   */
+  public ConcurrentHllSketch getSharedSketch() {
+    return shared;
+  }
+
+  @Override
+  void couponUpdate(final int coupon) {
+    if ((coupon >>> KEY_BITS_26) <= shared.getSlotValue(coupon & configKmask)) { return; }
+    coupons[numCoupons++] = coupon;
+    if (numCoupons == coupons.length) { flush(); }
+  }
+
+  //Proxies to the shared sketch
+
+  @Override
+  public int getCompactSerializationBytes() {
+    return shared.toCompactByteArray().length;
+  }
+
+  @Override
+  public double getCompositeEstimate() {
+    return shared.getEstimate();
+  }
+
+  @Override
+  CurMode getCurMode() {
+    return CurMode.HLL;
+  }
+
+  @Override
+  public double getEstimate() {
+    return shared.getEstimate();
+  }
+
+  @Override
+  public TgtHllType getTgtHllType() {
+    return TgtHllType.HLL_8;
+  }
+
+  @Override
+  public int getLgConfigK() {
+    return shared.getLgConfigK();
+  }
+
+  @Override
+  public double getLowerBound(final int numStdDev) {
+    return shared.getLowerBound(numStdDev);
+  }
+
+  @Override
+  public int getUpdatableSerializationBytes() {
+    return shared.toUpdatableByteArray().length;
+  }
+
+  @Override
+  public double getUpperBound(final int numStdDev) {
+    return shared.getUpperBound(numStdDev);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return shared.isEmpty();
+  }
+
+  @Override
+  public boolean isCompact() {
+    return false;
+  }
+
+  @Override
+  public boolean isMemory() {
+    return false;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  boolean isOutOfOrder() {
+    return true;
+  }
+
+  @Override
+  public boolean isSameResource(final Memory mem) {
+    return false;
+  }
+
+  /**
+   * Discards any buffered coupons that have not yet been propagated.
+   * The shared sketch is not affected.
+   */
+  @Override
+  public void reset() {
+    numCoupons = 0;
+  }
+
+  @Override
+  public byte[] toCompactByteArray() {
+    return shared.toCompactByteArray();
+  }
+
+  @Override
+  public byte[] toUpdatableByteArray() {
+    return shared.toUpdatableByteArray();
+  }
+
+  @Override
+  public String toString(final boolean summary, final boolean detail, final boolean auxDetail,
+      final boolean all) {
+    return shared.toHllSketch().toString(summary, detail, auxDetail, all);
+  }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+import static org.apache.datasketches.hll.HllUtil.VAL_MASK_6;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+
+/**
+ * A shared HLL sketch that can be updated concurrently by many writing threads without locks.
+ *
+ * <p>The shared sketch holds one 8-bit register per slot, the same layout as an HLL_8 sketch,
+ * packed four to an int in an {@link AtomicIntegerArray}. Writers never update the shared
+ * sketch directly. Each writing thread obtains its own {@link ConcurrentHllBuffer} from
+ * {@link #newLocalBuffer()} and presents its items to that buffer. The buffer hashes the items,
+ * discards any coupon that would not raise the corresponding shared register, and collects the
+ * remaining coupons. When the buffer is full its coupons are propagated into the shared registers
+ * with a compare-and-set of the register maximum. Because the HLL register merge is an idempotent
+ * maximum, propagations from different threads may interleave freely and need no coordination.</p>
+ *
+ * <p>Readers may query this sketch at any time from any thread. The answer reflects every coupon
+ * that has been propagated; each writer may hold back at most <i>maxBufferedCoupons</i> register
+ * raises that have not yet been propagated. After all writers have called
+ * {@link ConcurrentHllBuffer#flush()} the shared sketch is identical to a sequential HLL_8 sketch
+ * that has been merged through a {@link Union}, and there is no additional error.</p>
+ *
+ * <p>Since the shared registers are filled in no particular order the HIP estimator cannot be
+ * used, and the estimates are always those of the composite estimator, as with the result of
+ * a union.</p>
+ */
+public final class ConcurrentHllSketch {
+
+  /**
+   * The default maximum number of coupons held by a local buffer before it propagates.
+   */
+  public static final int DEFAULT_MAX_BUFFERED_COUPONS = 16;
+
+  private final int lgConfigK;
+  private final AtomicIntegerArray registers; //four 8-bit registers per int
+  private final AtomicLong numRaises; //incremented after the raises of each propagation
+  private volatile Snapshot snapshot = null;
+
+  /**
+   * Constructs a new, empty shared sketch.
+   * @param lgConfigK The Log2 of K for this sketch. This value must be
+   * between 4 and 21 inclusively.
+   */
+  public ConcurrentHllSketch(final int lgConfigK) {
+    this.lgConfigK = HllUtil.checkLgK(lgConfigK);
+    registers = new AtomicIntegerArray(1 << (lgConfigK - 2));
+    numRaises = new AtomicLong();
+  }
+
+  /**
+   * Returns a new local buffer for a single writing thread, which propagates into this sketch
+   * after {@link #DEFAULT_MAX_BUFFERED_COUPONS} register raises have been collected.
+   * @return a new local buffer for a single writing thread.
+   */
+  public ConcurrentHllBuffer newLocalBuffer() {
+    return newLocalBuffer(DEFAULT_MAX_BUFFERED_COUPONS);
+  }
+
+  /**
+   * Returns a new local buffer for a single writing thread.
+   * A value of one propagates every register raise as soon as it is seen, which keeps the
+   * shared sketch current at the cost of one compare-and-set per raise. Larger values amortize
+   * the propagation cost at the cost of staleness.
+   * @param maxBufferedCoupons the maximum number of coupons the buffer may hold before it
+   * propagates. This must be at least one.
+   * @return a new local buffer for a single writing thread.
+   */
+  public ConcurrentHllBuffer newLocalBuffer(final int maxBufferedCoupons) {
+    if (maxBufferedCoupons < 1) {
+      throw new SketchesArgumentException(
+          "maxBufferedCoupons must be at least one: " + maxBufferedCoupons);
+    }
+    return new ConcurrentHllBuffer(this, maxBufferedCoupons);
+  }
+
+  /**
+   * Gets the <i>lgConfigK</i>.
+   * @return the <i>lgConfigK</i>.
+   */
+  public int getLgConfigK() {
+    return lgConfigK;
+  }
+
+  /**
+   * Return the cardinality estimate of all propagated items.
+   * @return the cardinality estimate of all propagated items.
+   */
+  public double getEstimate() {
+    return getSnapshot().getCompositeEstimate();
+  }
+
+  /**
+   * Gets the approximate lower error bound given the specified number of Standard Deviations.
+   *
+   * @param numStdDev This must be an integer between 1 and 3, inclusive.
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the lower bound.
+   */
+  public double getLowerBound(final int numStdDev) {
+    return getSnapshot().getLowerBound(numStdDev);
+  }
+
+  /**
+   * Gets the approximate upper error bound given the specified number of Standard Deviations.
+   *
+   * @param numStdDev This must be an integer between 1 and 3, inclusive.
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the upper bound.
+   */
+  public double getUpperBound(final int numStdDev) {
+    return getSnapshot().getUpperBound(numStdDev);
+  }
+
+  /**
+   * Returns true if no coupon has been propagated to this sketch.
+   * @return true if no coupon has been propagated to this sketch.
+   */
+  public boolean isEmpty() {
+    return numRaises.get() == 0;
+  }
+
+  /**
+   * Returns a point-in-time copy of this sketch as an HLL_8 sketch on the Java heap.
+   * @return a point-in-time copy of this sketch as an HLL_8 sketch on the Java heap.
+   */
+  public HllSketch toHllSketch() {
+    return getSnapshot().copy();
+  }
+
+  /**
+   * Returns a point-in-time copy of this sketch on the Java heap with the specified TgtHllType.
+   * @param tgtHllType the TgtHllType enum
+   * @return a point-in-time copy of this sketch with the specified TgtHllType.
+   */
+  public HllSketch toHllSketch(final TgtHllType tgtHllType) {
+    return getSnapshot().copyAs(tgtHllType);
+  }
+
+  /**
+   * Serializes a point-in-time copy of this sketch as a compact HLL_8 byte array, which can be
+   * heapified or wrapped as an {@link HllSketch} or used to initialize a {@link Union}.
+   * @return a point-in-time copy of this sketch as a compact byte array.
+   */
+  public byte[] toCompactByteArray() {
+    return getSnapshot().toCompactByteArray();
+  }
+
+  /**
+   * Serializes a point-in-time copy of this sketch as an updatable HLL_8 byte array.
+   * @return a point-in-time copy of this sketch as an updatable byte array.
+   */
+  public byte[] toUpdatableByteArray() {
+    return getSnapshot().toUpdatableByteArray();
+  }
+
+  @Override
+  public String toString() {
+    return getSnapshot().toString(true, false, false, false);
+  }
+
+  //restricted
+
+  final int getSlotValue(final int slotNo) {
+    return (registers.get(slotNo >>> 2) >>> ((slotNo & 3) << 3)) & VAL_MASK_6;
+  }
+
+  /**
+   * Raises the shared registers addressed by the given coupons, using compare-and-set.
+   * @param coupons the coupons
+   * @param numCoupons the number of valid coupons at the front of the array
+   */
+  final void propagate(final int[] coupons, final int numCoupons) {
+    final int configKmask = (1 << lgConfigK) - 1;
+    int raised = 0;
+    for (int i = 0; i < numCoupons; i++) {
+      final int coupon = coupons[i];
+      if (raiseSlot(coupon & configKmask, coupon >>> KEY_BITS_26)) { raised++; }
+    }
+    if (raised > 0) { numRaises.addAndGet(raised); }
+  }
+
+  private boolean raiseSlot(final int slotNo, final int newValue) {
+    final int index = slotNo >>> 2;
+    final int shift = (slotNo & 3) << 3;
+    while (true) {
+      final int word = registers.get(index);
+      final int oldValue = (word >>> shift) & VAL_MASK_6;
+      if (newValue <= oldValue) { return false; }
+      final int newWord = (word & ~(0xFF << shift)) | (newValue << shift);
+      if (registers.compareAndSet(index, word, newWord)) { return true; }
+    }
+  }
+
+  /**
+   * Returns an HLL_8 sketch built from the shared registers. The sketch is rebuilt only if
+   * registers have been raised since it was last built, so repeated queries are cheap.
+   * The returned sketch may be shared between readers and must not be modified.
+   * @return an HLL_8 sketch built from the shared registers.
+   */
+  private HllSketch getSnapshot() {
+    final long version = numRaises.get(); //must be read before the registers
+    final Snapshot snap = snapshot;
+    if ((snap != null) && (snap.version == version)) { return snap.sketch; }
+    final HllSketch sketch;
+    if (version == 0) {
+      sketch = new HllSketch(lgConfigK, TgtHllType.HLL_8);
+    } else {
+      final Hll8Array hll8Array = new Hll8Array(lgConfigK);
+      final byte[] hllByteArr = hll8Array.hllByteArr;
+      final int numWords = registers.length();
+      for (int i = 0; i < numWords; i++) {
+        final int word = registers.get(i);
+        final int slotNo = i << 2;
+        hllByteArr[slotNo] = (byte) word;
+        hllByteArr[slotNo + 1] = (byte) (word >>> 8);
+        hllByteArr[slotNo + 2] = (byte) (word >>> 16);
+        hllByteArr[slotNo + 3] = (byte) (word >>> 24);
+      }
+      hll8Array.putOutOfOrder(true);
+      hll8Array.putRebuildCurMinNumKxQFlag(true);
+      sketch = new HllSketch(hll8Array);
+      Union.checkRebuildCurMinNumKxQ(sketch);
+    }
+    snapshot = new Snapshot(version, sketch);
+    return sketch;
+  }
+
+  private static final class Snapshot {
+    final long version;
+    final HllSketch sketch;
+
+    Snapshot(final long version, final HllSketch sketch) {
+      this.version = version;
+      this.sketch = sketch;
+    }
+  }
+
+}
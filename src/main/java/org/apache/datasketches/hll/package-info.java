@@ -123,6 +123,13 @@
  * chose forever, or you would have to rebuild all your sketches from scratch, or worse, not be able to recover your
  * historical data.</p>
  *
+ * <h3>Concurrent Updating</h3>
+ * A {@link org.apache.datasketches.hll.ConcurrentHllSketch ConcurrentHllSketch} can be updated by many threads at once
+ * without locks. Each writing thread updates its own small
+ * {@link org.apache.datasketches.hll.ConcurrentHllBuffer ConcurrentHllBuffer}, which propagates register raises into
+ * the shared HLL_8 registers using compare-and-set. Readers see an estimate that lags the writers by at most the
+ * configured buffer size per writer.
+ *
  * <h3>Multi-language, multi-platform.</h3>
  * The binary structures for our sketch serializations are language and platform independent.
  * This means it is possible to generate an HLL sketch on a C++ Windows platform and it can be used on a
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hllmap;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToDoubleBiFunction;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3;
+
+/**
+ * A thread-safe version of the {@link UniqueCountMap} that can be updated and queried by many
+ * threads at once.
+ *
+ * <p>The keys are hashed to a fixed number of independent shards. Each shard is a complete
+ * {@link UniqueCountMap} with its own hierarchy of internal maps and its own promotion logic, so
+ * the space used per key is the same as that of a single UniqueCountMap. Each shard is guarded by
+ * its own {@link StampedLock}. Updates hold the write lock of one shard only, so writers of keys
+ * in different shards never contend, and throughput grows with the number of cores as long as
+ * there are several times more shards than writing threads.</p>
+ *
+ * <p>Queries of a single key hold the read lock of their shard, since the internal maps are not
+ * safe to read while a writer probes, promotes or removes keys. Readers of the same shard do not
+ * block each other, and readers never block writers of other shards.</p>
+ *
+ * <p>The aggregate methods, such as {@link #getActiveEntries()}, visit the shards one at a time
+ * and are therefore not an atomic snapshot of the whole map while updates are in progress.</p>
+ *
+ * @see UniqueCountMap
+ */
+public final class ConcurrentUniqueCountMap {
+  private static final String LS = System.getProperty("line.separator");
+  private static final long SHARD_SEED = 9001L; // independent of the seed of the internal maps
+  private static final int INITIAL_NUM_ENTRIES = 1000003;
+  private static final int MAX_NUM_SHARDS = 1 << 16;
+
+  private static final ToDoubleBiFunction<UniqueCountMap, byte[]> ESTIMATE =
+      UniqueCountMap::getEstimate;
+  private static final ToDoubleBiFunction<UniqueCountMap, byte[]> UPPER_BOUND =
+      UniqueCountMap::getUpperBound;
+  private static final ToDoubleBiFunction<UniqueCountMap, byte[]> LOWER_BOUND =
+      UniqueCountMap::getLowerBound;
+
+  private final int keySizeBytes_;
+  private final int shardMask_;
+  private final UniqueCountMap[] shards_;
+  private final StampedLock[] locks_;
+
+  /**
+   * Constructs a ConcurrentUniqueCountMap with an initial capacity of one million entries
+   * and a default number of shards, which is four times the number of available processors
+   * rounded up to a power of two.
+   * @param keySizeBytes must be at least 4 bytes to have sufficient entropy.
+   */
+  public ConcurrentUniqueCountMap(final int keySizeBytes) {
+    this(INITIAL_NUM_ENTRIES, keySizeBytes);
+  }
+
+  /**
+   * Constructs a ConcurrentUniqueCountMap with a given initial number of entries
+   * and a default number of shards, which is four times the number of available processors
+   * rounded up to a power of two.
+   * @param initialNumEntries The initial number of entries across all shards.
+   * See {@link UniqueCountMap#UniqueCountMap(int, int)}.
+   * @param keySizeBytes must be at least 4 bytes to have sufficient entropy
+   */
+  public ConcurrentUniqueCountMap(final int initialNumEntries, final int keySizeBytes) {
+    this(initialNumEntries, keySizeBytes, 4 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a ConcurrentUniqueCountMap with a given initial number of entries and
+   * number of shards.
+   * @param initialNumEntries The initial number of entries across all shards.
+   * See {@link UniqueCountMap#UniqueCountMap(int, int)}.
+   * @param keySizeBytes must be at least 4 bytes to have sufficient entropy
+   * @param numShards the number of independent shards. This is rounded up to a power of two
+   * and must be between 1 and 65536 inclusive.
+   */
+  public ConcurrentUniqueCountMap(final int initialNumEntries, final int keySizeBytes,
+      final int numShards) {
+    if (numShards < 1 || numShards > MAX_NUM_SHARDS) {
+      throw new SketchesArgumentException(
+          "numShards must be between 1 and " + MAX_NUM_SHARDS + ": " + numShards);
+    }
+    final int shards = Util.ceilingPowerOf2(numShards);
+    final int shardEntries = initialNumEntries / shards;
+    keySizeBytes_ = keySizeBytes;
+    shardMask_ = shards - 1;
+    shards_ = new UniqueCountMap[shards];
+    locks_ = new StampedLock[shards];
+    for (int i = 0; i < shards; i++) {
+      shards_[i] = new UniqueCountMap(shardEntries, keySizeBytes);
+      locks_[i] = new StampedLock();
+    }
+  }
+
+  /**
+   * Updates the map with a given key and identifier and returns the estimate of the number of
+   * unique identifiers encountered so far for the given key.
+   * @param key the given key
+   * @param identifier the given identifier for unique counting associated with the key
+   * @return the estimate of the number of unique identifiers encountered so far for the given key.
+   */
+  public double update(final byte[] key, final byte[] identifier) {
+    if (key == null) { return Double.NaN; }
+    checkMethodKeySize(key);
+    final int shard = shardOf(key);
+    final StampedLock lock = locks_[shard];
+    final long stamp = lock.writeLock();
+    try {
+      return shards_[shard].update(key, identifier);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes the given key and all of its identifiers from this map.
+   * See {@link UniqueCountMap#remove(byte[])}.
+   * @param key the given key
+   * @return true if the key was present
+   */
+  public boolean remove(final byte[] key) {
+    if (key == null) { return false; }
+    checkMethodKeySize(key);
+    final int shard = shardOf(key);
+    final StampedLock lock = locks_[shard];
+    final long stamp = lock.writeLock();
+    try {
+      return shards_[shard].remove(key);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Retrieves the current estimate of unique count for a given key.
+   * @param key given key
+   * @return estimate of unique count so far
+   */
+  public double getEstimate(final byte[] key) {
+    return query(key, ESTIMATE);
+  }
+
+  /**
+   * Returns the upper bound cardinality with respect to {@link #getEstimate(byte[])} associated
+   * with the given key.
+   * @param key the given key
+   * @return the upper bound cardinality with respect to {@link #getEstimate(byte[])} associated
+   * with the given key.
+   */
+  public double getUpperBound(final byte[] key) {
+    return query(key, UPPER_BOUND);
+  }
+
+  /**
+   * Returns the lower bound cardinality with respect to {@link #getEstimate(byte[])} associated
+   * with the given key.
+   * @param key the given key
+   * @return the lower bound cardinality with respect to {@link #getEstimate(byte[])} associated
+   * with the given key.
+   */
+  public double getLowerBound(final byte[] key) {
+    return query(key, LOWER_BOUND);
+  }
+
+  /**
+   * Returns the number of shards.
+   * @return the number of shards.
+   */
+  public int getNumShards() {
+    return shards_.length;
+  }
+
+  /**
+   * Returns the number of active, unique keys across all shards
+   * @return the number of active, unique keys across all shards
+   */
+  public int getActiveEntries() {
+    int total = 0;
+    for (int i = 0; i < shards_.length; i++) {
+      final long stamp = locks_[i].readLock();
+      try {
+        total += shards_[i].getActiveEntries();
+      } finally {
+        locks_[i].unlockRead(stamp);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns total bytes used by all internal maps of all shards
+   * @return total bytes used by all internal maps of all shards
+   */
+  public long getMemoryUsageBytes() {
+    long total = 0;
+    for (int i = 0; i < shards_.length; i++) {
+      final long stamp = locks_[i].readLock();
+      try {
+        total += shards_[i].getMemoryUsageBytes();
+      } finally {
+        locks_[i].unlockRead(stamp);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns total bytes used for key storage in all shards
+   * @return total bytes used for key storage in all shards
+   */
+  public long getKeyMemoryUsageBytes() {
+    long total = 0;
+    for (int i = 0; i < shards_.length; i++) {
+      final long stamp = locks_[i].readLock();
+      try {
+        total += shards_[i].getKeyMemoryUsageBytes();
+      } finally {
+        locks_[i].unlockRead(stamp);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the average memory storage per key that is dedicated to sketching the unique counts.
+   * @return the average memory storage per key that is dedicated to sketching the unique counts.
+   */
+  public double getAverageSketchMemoryPerKey() {
+    return (double) (getMemoryUsageBytes() - getKeyMemoryUsageBytes()) / getActiveEntries();
+  }
+
+  /**
+   * Returns a string with a human-readable summary of the ConcurrentUniqueCountMap
+   * @return human-readable summary
+   */
+  @Override
+  public String toString() {
+    final String ksb = Map.fmtLong(keySizeBytes_);
+    final String ns = Map.fmtLong(shards_.length);
+    final String tKeys = Map.fmtLong(getActiveEntries());
+    final String tMem = Map.fmtLong(getMemoryUsageBytes());
+    final String kMem = Map.fmtLong(getKeyMemoryUsageBytes());
+    final String avgValMem = Map.fmtDouble(getAverageSketchMemoryPerKey());
+
+    final StringBuilder sb = new StringBuilder();
+    final String thisSimpleName = this.getClass().getSimpleName();
+    sb.append("## ").append(thisSimpleName).append(" SUMMARY: ").append(LS);
+    sb.append("   Key Size Bytes             : ").append(ksb).append(LS);
+    sb.append("   Shards                     : ").append(ns).append(LS);
+    sb.append("   Total keys                 : ").append(tKeys).append(LS);
+    sb.append("   Total Memory Bytes         : ").append(tMem).append(LS);
+    sb.append("   Total Key Memory Bytes     : ").append(kMem).append(LS);
+    sb.append("   Avg Sketch Memory Bytes/Key: ").append(avgValMem).append(LS);
+    sb.append("## ").append("END CONCURRENT UNIQUE COUNT MAP SUMMARY");
+    sb.append(LS);
+    return sb.toString();
+  }
+
+  private double query(final byte[] key, final ToDoubleBiFunction<UniqueCountMap, byte[]> fn) {
+    if (key == null) { return Double.NaN; }
+    checkMethodKeySize(key);
+    final int shard = shardOf(key);
+    final UniqueCountMap map = shards_[shard];
+    final StampedLock lock = locks_[shard];
+    final long stamp = lock.readLock();
+    try {
+      return fn.applyAsDouble(map, key);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private int shardOf(final byte[] key) {
+    return (int) (MurmurHash3.hash(key, SHARD_SEED)[0] >>> 32) & shardMask_;
+  }
+
+  private void checkMethodKeySize(final byte[] key) {
+    if (key.length != keySizeBytes_) {
+      throw new SketchesArgumentException("Key size must be " + keySizeBytes_ + " bytes.");
+    }
+  }
+
+}
@@ -26,6 +26,8 @@ import java.util.Arrays;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.WritableBuffer;
 
 /**
  * Implements a key-value map where the value is a hash map of coupons.
@@ -88,6 +90,34 @@ final class CouponHashMap extends Map {
     return map;
   }
 
+  static CouponHashMap heapify(final Buffer buf, final int keySizeBytes,
+      final int maxCouponsPerKey) {
+    checkMaxCouponsPerKey(maxCouponsPerKey);
+    final int tableEntries = buf.getInt();
+    final int numActiveKeys = buf.getInt();
+    final int numDeletedKeys = buf.getInt();
+    final CouponHashMap map = new CouponHashMap(keySizeBytes, maxCouponsPerKey);
+    checkSerializedMap(buf, tableEntries, numActiveKeys + numDeletedKeys,
+        ((long) tableEntries * map.entrySizeBytes_));
+
+    map.tableEntries_ = tableEntries;
+    map.capacityEntries_ = (int)(tableEntries * COUPON_MAP_GROW_TRIGGER_FACTOR);
+    map.numActiveKeys_ = numActiveKeys;
+    map.numDeletedKeys_ = numDeletedKeys;
+
+    map.keysArr_ = new byte[tableEntries * keySizeBytes];
+    map.couponsArr_ = new short[tableEntries * maxCouponsPerKey];
+    map.curCountsArr_ = new byte[tableEntries];
+    map.invPow2SumArr_ = new float[tableEntries];
+    map.hipEstAccumArr_ = new float[tableEntries];
+    buf.getByteArray(map.keysArr_, 0, map.keysArr_.length);
+    buf.getShortArray(map.couponsArr_, 0, map.couponsArr_.length);
+    buf.getByteArray(map.curCountsArr_, 0, tableEntries);
+    buf.getFloatArray(map.invPow2SumArr_, 0, tableEntries);
+    buf.getFloatArray(map.hipEstAccumArr_, 0, tableEntries);
+    return map;
+  }
+
   @Override
   double update(final byte[] key, final short coupon) {
     final int entryIndex = findOrInsertKey(key);
@@ -245,6 +275,23 @@ final class CouponHashMap extends Map {
     return arrays + other;
   }
 
+  @Override
+  long getSerializedSizeBytes() {
+    return (3L * Integer.BYTES) + ((long) tableEntries_ * entrySizeBytes_);
+  }
+
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf) {
+    wbuf.putInt(tableEntries_);
+    wbuf.putInt(numActiveKeys_);
+    wbuf.putInt(numDeletedKeys_);
+    wbuf.putByteArray(keysArr_, 0, keysArr_.length);
+    wbuf.putShortArray(couponsArr_, 0, couponsArr_.length);
+    wbuf.putByteArray(curCountsArr_, 0, tableEntries_);
+    wbuf.putFloatArray(invPow2SumArr_, 0, tableEntries_);
+    wbuf.putFloatArray(hipEstAccumArr_, 0, tableEntries_);
+  }
+
   @Override
   int getActiveEntries() {
     return numActiveKeys_;
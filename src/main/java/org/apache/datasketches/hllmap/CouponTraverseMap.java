@@ -23,6 +23,8 @@ import java.util.Arrays;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.WritableBuffer;
 
 /**
  * Implements a key-value map where the value is a simple array of coupons. Search operations are a
@@ -78,6 +80,30 @@ final class CouponTraverseMap extends Map {
     return map;
   }
 
+  static CouponTraverseMap heapify(final Buffer buf, final int keySizeBytes,
+      final int maxCouponsPerKey) {
+    final int tableEntries = buf.getInt();
+    final int numActiveKeys = buf.getInt();
+    final int numDeletedKeys = buf.getInt();
+    checkSerializedMap(buf, tableEntries, numActiveKeys + numDeletedKeys,
+        getSerializedSizeBytes(tableEntries, keySizeBytes, maxCouponsPerKey) - (3 * Integer.BYTES));
+
+    final CouponTraverseMap map = new CouponTraverseMap(keySizeBytes, maxCouponsPerKey);
+    map.tableEntries_ = tableEntries;
+    map.capacityEntries_ = (int)(tableEntries * COUPON_MAP_GROW_TRIGGER_FACTOR);
+    map.numActiveKeys_ = numActiveKeys;
+    map.numDeletedKeys_ = numDeletedKeys;
+    map.entrySizeBytes_ = updateEntrySizeBytes(tableEntries, keySizeBytes, maxCouponsPerKey);
+
+    map.keysArr_ = new byte[tableEntries * keySizeBytes];
+    map.couponsArr_ = new short[tableEntries * maxCouponsPerKey];
+    map.stateArr_ = new byte[(int) Math.ceil(tableEntries / 8.0)];
+    buf.getByteArray(map.keysArr_, 0, map.keysArr_.length);
+    buf.getShortArray(map.couponsArr_, 0, map.couponsArr_.length);
+    buf.getByteArray(map.stateArr_, 0, map.stateArr_.length);
+    return map;
+  }
+
   @Override //used for test
   double update(final byte[] key, final short coupon) {
     final int entryIndex = findOrInsertKey(key);
@@ -219,6 +245,21 @@ final class CouponTraverseMap extends Map {
         + stateArr_.length + (4L * Integer.BYTES);
   }
 
+  @Override
+  long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(tableEntries_, keySizeBytes_, maxCouponsPerKey_);
+  }
+
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf) {
+    wbuf.putInt(tableEntries_);
+    wbuf.putInt(numActiveKeys_);
+    wbuf.putInt(numDeletedKeys_);
+    wbuf.putByteArray(keysArr_, 0, keysArr_.length);
+    wbuf.putShortArray(couponsArr_, 0, couponsArr_.length);
+    wbuf.putByteArray(stateArr_, 0, stateArr_.length);
+  }
+
   @Override
   int getActiveEntries() {
     return numActiveKeys_;
@@ -293,6 +334,13 @@ final class CouponTraverseMap extends Map {
     }
   }
 
+  private static long getSerializedSizeBytes(final int tableEntries, final int keySizeBytes,
+      final int maxCouponsPerKey) {
+    return (3L * Integer.BYTES)
+        + ((long) tableEntries * (keySizeBytes + ((long) maxCouponsPerKey * Short.BYTES)))
+        + (long) Math.ceil(tableEntries / 8.0);
+  }
+
   private static final double updateEntrySizeBytes(final int tableEntries, final int keySizeBytes,
       final int maxCouponsPerKey) {
     final double byteFraction = Math.ceil(tableEntries / 8.0) / tableEntries;
@@ -28,6 +28,8 @@ import java.util.Arrays;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.WritableBuffer;
 
 /**
  * Implements a key-value map where the value is a compact HLL sketch of size k.
@@ -40,6 +42,8 @@ import org.apache.datasketches.hash.MurmurHash3;
  * estimators and the early estimators in this implementation are quite novel and provide superior
  * error performance over most other HLL implementations.
  *
+ * <p>A deleted key keeps its slot, marked by a zero invPow2SumHi register, until the next resize.
+ *
  * @author Lee Rhodes
  * @author KevinLang
  * @author Alexander Saydakov
@@ -49,6 +53,7 @@ final class HllMap extends Map {
   private static final int HLL_INIT_NUM_ENTRIES = 157;
   private static final int HLL_INIT_NUM_ENTRIES_ARR_SIZE = (int) Math.ceil(HLL_INIT_NUM_ENTRIES / 8.0);
   private static final float HLL_RESIZE_FACTOR = 2.0F;
+  private static final double HLL_SHRINK_TRIGGER_FACTOR = 0.25;
   private static final double RSE = sqrt(log(2.0)) / 32.0;
   private final int k_;
   private final int hllArrLongs_; //# of longs required to store the HLL array
@@ -56,6 +61,7 @@ final class HllMap extends Map {
   private int tableEntries_;      //Full size of the table
   private int capacityEntries_;   //max capacity entries defined by Load factor
   private int curCountEntries_;   //current count of valid entries
+  private int numDeletedKeys_;    //count of deleted entries not yet purged by a resize
   private float growthFactor_;    //e.g., 1.2 to 2.0
   private double entrySizeBytes_;
 
@@ -96,6 +102,36 @@ final class HllMap extends Map {
     return map;
   }
 
+  static HllMap heapify(final Buffer buf, final int keySizeBytes, final int k) {
+    final int tableEntries = buf.getInt();
+    final int curCountEntries = buf.getInt();
+    final int numDeletedKeys = buf.getInt();
+    final HllMap map = new HllMap(keySizeBytes, k);
+    checkSerializedMap(buf, tableEntries, curCountEntries + numDeletedKeys,
+        getSerializedSizeBytes(tableEntries, keySizeBytes, map.hllArrLongs_) - (3 * Integer.BYTES));
+
+    map.tableEntries_ = tableEntries;
+    map.capacityEntries_ = (int)(tableEntries * LOAD_FACTOR);
+    map.curCountEntries_ = curCountEntries;
+    map.numDeletedKeys_ = numDeletedKeys;
+    map.growthFactor_ = HLL_RESIZE_FACTOR;
+    map.entrySizeBytes_ = updateEntrySizeBytes(tableEntries, keySizeBytes, map.hllArrLongs_);
+
+    map.keysArr_ = new byte[tableEntries * keySizeBytes];
+    map.arrOfHllArr_ = new long[tableEntries * map.hllArrLongs_];
+    map.invPow2SumHiArr_ = new double[tableEntries];
+    map.invPow2SumLoArr_ = new double[tableEntries];
+    map.hipEstAccumArr_ = new double[tableEntries];
+    map.stateArr_ = new byte[(int) Math.ceil(tableEntries / 8.0)];
+    buf.getByteArray(map.keysArr_, 0, map.keysArr_.length);
+    buf.getLongArray(map.arrOfHllArr_, 0, map.arrOfHllArr_.length);
+    buf.getDoubleArray(map.invPow2SumHiArr_, 0, tableEntries);
+    buf.getDoubleArray(map.invPow2SumLoArr_, 0, tableEntries);
+    buf.getDoubleArray(map.hipEstAccumArr_, 0, tableEntries);
+    buf.getByteArray(map.stateArr_, 0, map.stateArr_.length);
+    return map;
+  }
+
   @Override
   double update(final byte[] key, final short coupon) {
     final int entryIndex = findOrInsertKey(key);
@@ -135,7 +171,7 @@ final class HllMap extends Map {
 
   /**
    * Returns the entry index for the given key given the array of keys, if found.
-   * Otherwise, returns the one's complement of first empty entry found;
+   * Otherwise, returns the one's complement of first deleted or empty entry found;
    * @param key the key to search for
    * @return the entry index of the given key, or the one's complement of the index if not found.
    */
@@ -145,13 +181,16 @@ final class HllMap extends Map {
     final long[] hash = MurmurHash3.hash(key, SEED);
     int entryIndex  = getIndex(hash[0], tableEntries_);
     final int stride = getStride(hash[1], tableEntries_);
+    int firstDeletedIndex = -1;
     final int loopIndex = entryIndex;
 
     do {
       if (isBitClear(stateArr_, entryIndex)) { //check if slot is empty
-        return ~entryIndex;
+        return firstDeletedIndex == -1 ? ~entryIndex : ~firstDeletedIndex;
       }
-      if (arraysEqual(key, 0, keysArr_, entryIndex * keyLen, keyLen)) { //check for key match
+      if (invPow2SumHiArr_[entryIndex] == 0) { //deleted
+        if (firstDeletedIndex == -1) { firstDeletedIndex = entryIndex; }
+      } else if (arraysEqual(key, 0, keysArr_, entryIndex * keyLen, keyLen)) { //check for key match
         return entryIndex;
       }
       entryIndex = (entryIndex + stride) % tableEntries_;
@@ -164,13 +203,17 @@ final class HllMap extends Map {
     int entryIndex = findKey(key);
     if (entryIndex < 0) { //key not found, initialize new row
       entryIndex = ~entryIndex;
+      if (isBitSet(stateArr_, entryIndex)) { // reusing slot from a deleted key
+        Arrays.fill(arrOfHllArr_, entryIndex * hllArrLongs_, (entryIndex + 1) * hllArrLongs_, 0L);
+        numDeletedKeys_--;
+      }
       System.arraycopy(key, 0, keysArr_, entryIndex * keySizeBytes_, keySizeBytes_);
       setBit(stateArr_, entryIndex);
       invPow2SumHiArr_[entryIndex] = k_;
       invPow2SumLoArr_[entryIndex] = 0;
       hipEstAccumArr_[entryIndex] = 0;
       curCountEntries_++;
-      if (curCountEntries_ > capacityEntries_) {
+      if ((curCountEntries_ + numDeletedKeys_) > capacityEntries_) {
         resize();
         entryIndex = findKey(key);
         assert entryIndex >= 0;
@@ -207,10 +250,28 @@ final class HllMap extends Map {
         + ((long) invPow2SumHiArr_.length * Double.BYTES)
         + ((long) hipEstAccumArr_.length * Double.BYTES)
         + stateArr_.length;
-    final long other = (5L * Integer.BYTES) + Float.BYTES + Double.BYTES;
+    final long other = (6L * Integer.BYTES) + Float.BYTES + Double.BYTES;
     return arrays + other;
   }
 
+  @Override
+  long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(tableEntries_, keySizeBytes_, hllArrLongs_);
+  }
+
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf) {
+    wbuf.putInt(tableEntries_);
+    wbuf.putInt(curCountEntries_);
+    wbuf.putInt(numDeletedKeys_);
+    wbuf.putByteArray(keysArr_, 0, keysArr_.length);
+    wbuf.putLongArray(arrOfHllArr_, 0, arrOfHllArr_.length);
+    wbuf.putDoubleArray(invPow2SumHiArr_, 0, tableEntries_);
+    wbuf.putDoubleArray(invPow2SumLoArr_, 0, tableEntries_);
+    wbuf.putDoubleArray(hipEstAccumArr_, 0, tableEntries_);
+    wbuf.putByteArray(stateArr_, 0, stateArr_.length);
+  }
+
   @Override
   CouponsIterator getCouponsIterator(final int index) {
     // not applicable
@@ -236,7 +297,18 @@ final class HllMap extends Map {
 
   @Override
   int getDeletedEntries() {
-    return 0;
+    return numDeletedKeys_;
+  }
+
+  @Override
+  void deleteKey(final int entryIndex) {
+    invPow2SumHiArr_[entryIndex] = 0;
+    curCountEntries_--;
+    numDeletedKeys_++;
+    if ((curCountEntries_ > HLL_INIT_NUM_ENTRIES)
+        && (curCountEntries_ < (tableEntries_ * HLL_SHRINK_TRIGGER_FACTOR))) {
+      resize();
+    }
   }
 
   /**
@@ -296,7 +368,12 @@ final class HllMap extends Map {
   }
 
   private final void resize() {
-    final int newTableEntries = nextPrime((int)(tableEntries_ * growthFactor_));
+    // grow if full of valid entries, otherwise purge the deleted entries and fit the table
+    // to the valid entries
+    final int newTableEntries = (curCountEntries_ > capacityEntries_)
+        ? nextPrime((int)(tableEntries_ * growthFactor_))
+        : Math.max(nextPrime((int)((curCountEntries_ * growthFactor_) / LOAD_FACTOR)),
+            HLL_INIT_NUM_ENTRIES);
     final int newCapacityEntries = (int)(newTableEntries * LOAD_FACTOR);
 
     final byte[] newKeysArr = new byte[newTableEntries * keySizeBytes_];
@@ -307,7 +384,7 @@ final class HllMap extends Map {
     final byte[] newStateArr = new byte[(int) Math.ceil(newTableEntries / 8.0)];
 
     for (int oldIndex = 0; oldIndex < tableEntries_; oldIndex++) {
-      if (isBitClear(stateArr_, oldIndex)) { continue; }
+      if (isBitClear(stateArr_, oldIndex) || (invPow2SumHiArr_[oldIndex] == 0)) { continue; }
       // extract an old key
       final byte[] key =
           Arrays.copyOfRange(keysArr_, oldIndex * keySizeBytes_, (oldIndex + 1) * keySizeBytes_);
@@ -324,6 +401,7 @@ final class HllMap extends Map {
     //restore into sketch
     tableEntries_ = newTableEntries;
     capacityEntries_ = newCapacityEntries;
+    numDeletedKeys_ = 0;
     //curCountEntries_, growthFactor_  unchanged
     entrySizeBytes_ = updateEntrySizeBytes(tableEntries_, keySizeBytes_, hllArrLongs_);
 
@@ -335,6 +413,13 @@ final class HllMap extends Map {
     stateArr_ = newStateArr;
   }
 
+  private static long getSerializedSizeBytes(final int tableEntries, final int keySizeBytes,
+      final int hllArrLongs) {
+    return (3L * Integer.BYTES)
+        + ((long) tableEntries * (keySizeBytes + ((long) hllArrLongs * Long.BYTES) + (3L * Double.BYTES)))
+        + (long) Math.ceil(tableEntries / 8.0);
+  }
+
   private static final double updateEntrySizeBytes(final int tableEntries, final int keySizeBytes,
       final int hllArrLongs) {
     final double byteFraction = Math.ceil(tableEntries / 8.0) / tableEntries;
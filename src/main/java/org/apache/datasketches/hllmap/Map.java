@@ -21,7 +21,10 @@ package org.apache.datasketches.hllmap;
 
 import java.math.BigInteger;
 
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.WritableBuffer;
 
 /**
  * Base class and API for all the maps.
@@ -128,6 +131,19 @@ abstract class Map {
 
   abstract long getMemoryUsageBytes();
 
+  /**
+   * Returns the number of bytes required to serialize this map
+   * @return the number of bytes required to serialize this map
+   */
+  abstract long getSerializedSizeBytes();
+
+  /**
+   * Writes this map to the given buffer, starting at its current position.
+   * The image is read back by the static <i>heapify</i> method of the same subclass.
+   * @param wbuf the given buffer
+   */
+  abstract void writeToBuffer(WritableBuffer wbuf);
+
   int getKeySizeBytes() {
     return keySizeBytes_;
   }
@@ -221,6 +237,26 @@ abstract class Map {
     return BigInteger.valueOf(target).nextProbablePrime().intValueExact();
   }
 
+  /**
+   * Checks the header fields of a serialized map and that the remainder of its image fits in
+   * the given buffer.
+   * @param buf the buffer positioned just after the header fields
+   * @param tableEntries the number of table entries read from the header
+   * @param countEntries the number of entries in use read from the header
+   * @param bodyBytes the number of bytes of the image that follow the header
+   */
+  static void checkSerializedMap(final Buffer buf, final int tableEntries, final int countEntries,
+      final long bodyBytes) {
+    if ((tableEntries < 3) || (countEntries < 0) || (countEntries > tableEntries)) {
+      throw new SketchesArgumentException("Possible corruption: table entries " + tableEntries
+          + ", count entries " + countEntries);
+    }
+    if (buf.getRemaining() < bodyBytes) {
+      throw new SketchesArgumentException("Possible corruption: image of " + buf.getRemaining()
+          + " bytes is smaller than the required " + bodyBytes);
+    }
+  }
+
   static String fmtLong(final long value) {
     return String.format("%,d", value);
   }
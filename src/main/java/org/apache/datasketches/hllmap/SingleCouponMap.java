@@ -23,12 +23,14 @@ import java.util.Arrays;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.WritableBuffer;
 
 /**
  * Implements a key-value map where the value is a single coupon or a map reference.
  * This map holds all keys for all levels of the {@link UniqueCountMap}.
  * This map is implemented with a prime sized Open Address, Double Hash, with a 1-bit state array,
- * which indicates the contents of the value.
+ * which indicates the contents of the value. Deleted keys leave a marker until the next resize.
  *
  * @author Lee Rhodes
  * @author Alexander Saydakov
@@ -36,10 +38,12 @@ import org.apache.datasketches.hash.MurmurHash3;
  */
 final class SingleCouponMap extends Map {
   private static final double RSE = 0.408 / Math.sqrt(1024);
+  private static final short DELETED_KEY_MARKER = (short) 0XFFFF; // never a valid level
 
   private int tableEntries_;
   private int capacityEntries_;
   private int curCountEntries_;
+  private int numDeletedKeys_;
   private double entrySizeBytes_;
 
   // Arrays
@@ -49,7 +53,7 @@ final class SingleCouponMap extends Map {
   /**
    * <ul><li>state: 0: empty or valid; empty if coupon is 0, otherwise valid.</li>
    * <li>state: 1: original coupon has been promoted, current coupon contains a table #
-   * reference instead.</li>
+   * reference instead. If the table # is DELETED_KEY_MARKER the key has been deleted.</li>
    * </ul>
    */
   private byte[] stateArr_;
@@ -73,6 +77,29 @@ final class SingleCouponMap extends Map {
     return map;
   }
 
+  static SingleCouponMap heapify(final Buffer buf, final int keySizeBytes) {
+    final int tableEntries = buf.getInt();
+    final int curCountEntries = buf.getInt();
+    final int numDeletedKeys = buf.getInt();
+    checkSerializedMap(buf, tableEntries, curCountEntries + numDeletedKeys,
+        getSerializedSizeBytes(tableEntries, keySizeBytes) - (3 * Integer.BYTES));
+
+    final SingleCouponMap map = new SingleCouponMap(keySizeBytes);
+    map.tableEntries_ = tableEntries;
+    map.capacityEntries_ = (int)(tableEntries * COUPON_MAP_GROW_TRIGGER_FACTOR);
+    map.curCountEntries_ = curCountEntries;
+    map.numDeletedKeys_ = numDeletedKeys;
+    map.entrySizeBytes_ = updateEntrySizeBytes(tableEntries, keySizeBytes);
+
+    map.keysArr_ = new byte[tableEntries * keySizeBytes];
+    map.couponsArr_ = new short[tableEntries];
+    map.stateArr_ = new byte[(int) Math.ceil(tableEntries / 8.0)];
+    buf.getByteArray(map.keysArr_, 0, map.keysArr_.length);
+    buf.getShortArray(map.couponsArr_, 0, map.couponsArr_.length);
+    buf.getByteArray(map.stateArr_, 0, map.stateArr_.length);
+    return map;
+  }
+
   @Override
   double update(final byte[] key, final short coupon) {
     final int entryIndex = findOrInsertKey(key);
@@ -124,13 +151,16 @@ final class SingleCouponMap extends Map {
     final long[] hash = MurmurHash3.hash(key, SEED);
     int entryIndex = getIndex(hash[0], tableEntries_);
     final int stride = getStride(hash[1], tableEntries_);
+    int firstDeletedIndex = -1;
     final int loopIndex = entryIndex;
 
     do {
       if (couponsArr_[entryIndex] == 0) {
-        return ~entryIndex; //empty
+        return firstDeletedIndex == -1 ? ~entryIndex : ~firstDeletedIndex; //empty or deleted
       }
-      if (Map.arraysEqual(key, 0, keysArr_, entryIndex * keySizeBytes_, keySizeBytes_)) {
+      if (isDeleted(entryIndex)) {
+        if (firstDeletedIndex == -1) { firstDeletedIndex = entryIndex; }
+      } else if (Map.arraysEqual(key, 0, keysArr_, entryIndex * keySizeBytes_, keySizeBytes_)) {
         return entryIndex;
       }
       entryIndex = (entryIndex + stride) % tableEntries_;
@@ -142,7 +172,11 @@ final class SingleCouponMap extends Map {
   int findOrInsertKey(final byte[] key) {
     int entryIndex = findKey(key);
     if (entryIndex < 0) {
-      if (curCountEntries_ + 1 > capacityEntries_) {
+      if (isDeleted(~entryIndex)) { // reusing slot from a deleted key
+        setCoupon(~entryIndex, (short) 0, false);
+        numDeletedKeys_--;
+      }
+      if (curCountEntries_ + numDeletedKeys_ + 1 > capacityEntries_) {
         resize();
         entryIndex = findKey(key);
         assert entryIndex < 0;
@@ -154,6 +188,17 @@ final class SingleCouponMap extends Map {
     return entryIndex;
   }
 
+  @Override
+  void deleteKey(final int entryIndex) {
+    setLevel(entryIndex, DELETED_KEY_MARKER);
+    curCountEntries_--;
+    numDeletedKeys_++;
+    if ((curCountEntries_ > COUPON_MAP_MIN_NUM_ENTRIES)
+        && (curCountEntries_ < (tableEntries_ * COUPON_MAP_SHRINK_TRIGGER_FACTOR))) {
+      resize();
+    }
+  }
+
   @Override
   CouponsIterator getCouponsIterator(final int entryIndex) {
     return new CouponsIterator(couponsArr_, entryIndex, 1);
@@ -176,7 +221,29 @@ final class SingleCouponMap extends Map {
 
   @Override
   int getDeletedEntries() {
-    return 0;
+    return numDeletedKeys_;
+  }
+
+  /**
+   * Returns true if the given entry holds a key that has not been deleted
+   * @param entryIndex the given entry index
+   * @return true if the given entry holds a key that has not been deleted
+   */
+  boolean isActive(final int entryIndex) {
+    return (couponsArr_[entryIndex] != 0) && !isDeleted(entryIndex);
+  }
+
+  /**
+   * Copies the key at the given entry index into the given array
+   * @param entryIndex the given entry index
+   * @param key the destination array of length keySizeBytes
+   */
+  void copyKey(final int entryIndex, final byte[] key) {
+    System.arraycopy(keysArr_, entryIndex * keySizeBytes_, key, 0, keySizeBytes_);
+  }
+
+  private boolean isDeleted(final int entryIndex) {
+    return (couponsArr_[entryIndex] == DELETED_KEY_MARKER) && isBitSet(stateArr_, entryIndex);
   }
 
   boolean isCoupon(final int entryIndex) {
@@ -226,16 +293,35 @@ final class SingleCouponMap extends Map {
     final long arrays = keysArr_.length
         + (long)couponsArr_.length * Short.BYTES
         + stateArr_.length;
-    final long other = 4 * 4 + 8;
+    final long other = 5 * 4 + 8;
     return arrays + other;
   }
 
+  @Override
+  long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(tableEntries_, keySizeBytes_);
+  }
+
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf) {
+    wbuf.putInt(tableEntries_);
+    wbuf.putInt(curCountEntries_);
+    wbuf.putInt(numDeletedKeys_);
+    wbuf.putByteArray(keysArr_, 0, keysArr_.length);
+    wbuf.putShortArray(couponsArr_, 0, couponsArr_.length);
+    wbuf.putByteArray(stateArr_, 0, stateArr_.length);
+  }
+
   private void resize() {
     final byte[] oldKeysArr = keysArr_;
     final short[] oldCouponsArr = couponsArr_;
     final byte[] oldStateArr = stateArr_;
     final int oldTableEntries = tableEntries_;
-    tableEntries_ = nextPrime((int) (curCountEntries_ / COUPON_MAP_TARGET_FILL_FACTOR));
+    tableEntries_ = Math.max(
+      nextPrime((int) (curCountEntries_ / COUPON_MAP_TARGET_FILL_FACTOR)),
+      COUPON_MAP_MIN_NUM_ENTRIES
+    );
+    numDeletedKeys_ = 0;
     capacityEntries_ = (int)(tableEntries_ * COUPON_MAP_GROW_TRIGGER_FACTOR);
     keysArr_ = new byte[tableEntries_ * keySizeBytes_];
     couponsArr_ = new short[tableEntries_];
@@ -243,7 +329,8 @@ final class SingleCouponMap extends Map {
     entrySizeBytes_ = updateEntrySizeBytes(tableEntries_, keySizeBytes_);
     //move the data
     for (int i = 0; i < oldTableEntries; i++) {
-      if (oldCouponsArr[i] != 0) {
+      if ((oldCouponsArr[i] != 0)
+          && !((oldCouponsArr[i] == DELETED_KEY_MARKER) && isBitSet(oldStateArr, i))) {
         final byte[] key =
             Arrays.copyOfRange(oldKeysArr, i * keySizeBytes_, i * keySizeBytes_ + keySizeBytes_);
         insertEntry(key, oldCouponsArr[i], isBitSet(oldStateArr, i));
@@ -268,6 +355,11 @@ final class SingleCouponMap extends Map {
     throw new SketchesArgumentException("Key not found and no empty slots!");
   }
 
+  private static long getSerializedSizeBytes(final int tableEntries, final int keySizeBytes) {
+    return (3L * Integer.BYTES) + ((long) tableEntries * (keySizeBytes + Short.BYTES))
+        + (long) Math.ceil(tableEntries / 8.0);
+  }
+
   private static final double updateEntrySizeBytes(final int tableEntries, final int keySizeBytes) {
     final double byteFraction = Math.ceil(tableEntries / 8.0) / tableEntries;
     return keySizeBytes + Short.BYTES + byteFraction;
@@ -19,7 +19,15 @@
 
 package org.apache.datasketches.hllmap;
 
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
 
 /**
  * This is a real-time, key-value HLL mapping sketch that tracks approximate unique counts of
@@ -65,7 +73,17 @@ import org.apache.datasketches.common.SketchesArgumentException;
  * are stored in small OASH hash tables.
  *
  * <p>All the intermediate maps support deletes and can dynamically grow and shrink as required by
- * the input stream.
+ * the input stream. Keys can also be removed explicitly with {@link #remove(byte[])}, which
+ * frees their slots in the base map and in the map of their current level.
+ *
+ * <p>The active keys and their estimates can be visited with {@link #iterator()}, and the keys
+ * with the largest estimates are returned by {@link #getTopKeys(int)}.
+ *
+ * <p>The whole hierarchy of internal maps can be serialized with {@link #toByteArray()} or written
+ * directly into a {@link WritableMemory}, such as a memory-mapped file, with
+ * {@link #putMemory(WritableMemory)}, and read back with {@link #heapify(Memory)}. Since the
+ * internal tables are copied as they are, reading the image back does not rehash or replay
+ * any keys.
  *
  * <p>The sketch estimator algorithms are unbiased with a Relative Standard Error (RSE)
  * of about 2.6% with 68% confidence, or equivalently, about 5.2% with a 95% confidence.
@@ -88,6 +106,8 @@ public final class UniqueCountMap {
   private static final int HLL_K = 1024;
   private static final int INITIAL_NUM_ENTRIES = 1000003;
   private static final int MIN_INITIAL_NUM_ENTRIES = 157;
+  private static final int PREAMBLE_LONGS = 2;
+  private static final int SER_VER = 1;
   private final int keySizeBytes_;
 
   /** TraverseCouponMap or HashCouponMap instances */
@@ -116,6 +136,61 @@ public final class UniqueCountMap {
     maps_[0] = SingleCouponMap.getInstance(initEntries, keySizeBytes);
   }
 
+  // Constructor used with heapify()
+  private UniqueCountMap(final int keySizeBytes, final Map[] maps) {
+    keySizeBytes_ = keySizeBytes;
+    maps_ = maps;
+  }
+
+  /**
+   * Heapifies the given Memory, which must contain an image of a UniqueCountMap produced by
+   * {@link #toByteArray()} or {@link #putMemory(WritableMemory)}.
+   * The Memory may be a memory-mapped file. It is not modified, and is no longer referenced
+   * once this method returns.
+   * @param mem the given Memory
+   * @return a new UniqueCountMap on the Java heap
+   */
+  public static UniqueCountMap heapify(final Memory mem) {
+    if (mem.getCapacity() < PREAMBLE_LONGS * Long.BYTES) {
+      throw new SketchesArgumentException("Possible corruption: Memory capacity "
+          + mem.getCapacity() + " is too small for a UniqueCountMap");
+    }
+    final Buffer buf = mem.asBuffer();
+    final int preLongs = buf.getByte();
+    final int serVer = buf.getByte();
+    final int numLevels = buf.getByte();
+    buf.getByte(); // unused
+    final int keySizeBytes = buf.getInt();
+    final int activeLevels = buf.getInt();
+    buf.getInt(); // unused
+    if (preLongs != PREAMBLE_LONGS) {
+      throw new SketchesArgumentException("Possible corruption: preamble longs: " + preLongs);
+    }
+    if (serVer != SER_VER) {
+      throw new SketchesArgumentException("Possible corruption: serialization version: " + serVer);
+    }
+    if (numLevels != NUM_LEVELS || (activeLevels & 1) == 0 || (activeLevels >>> NUM_LEVELS) != 0) {
+      throw new SketchesArgumentException("Possible corruption: levels: " + numLevels
+          + ", active levels: " + Integer.toBinaryString(activeLevels));
+    }
+    checkConstructorKeySize(keySizeBytes);
+
+    final Map[] maps = new Map[NUM_LEVELS];
+    maps[0] = SingleCouponMap.heapify(buf, keySizeBytes);
+    for (int level = 1; level < NUM_LEVELS; level++) {
+      if ((activeLevels & (1 << level)) == 0) { continue; }
+      final int maxCouponsPerKey = 1 << level;
+      if (level <= NUM_TRAVERSE_MAPS) {
+        maps[level] = CouponTraverseMap.heapify(buf, keySizeBytes, maxCouponsPerKey);
+      } else if (level < (NUM_LEVELS - 1)) {
+        maps[level] = CouponHashMap.heapify(buf, keySizeBytes, maxCouponsPerKey);
+      } else {
+        maps[level] = HllMap.heapify(buf, keySizeBytes, HLL_K);
+      }
+    }
+    return new UniqueCountMap(keySizeBytes, maps);
+  }
+
   /**
    * Updates the map with a given key and identifier and returns the estimate of the number of
    * unique identifiers encountered so far for the given key.
@@ -196,6 +271,70 @@ public final class UniqueCountMap {
     return map.getLowerBound(key);
   }
 
+  /**
+   * Removes the given key and all of its identifiers from this map. The slots of the key are
+   * reclaimed by the internal maps, which may shrink as a result. An internal map above the base
+   * map that no longer holds any keys is released.
+   * @param key the given key
+   * @return true if the key was present
+   */
+  public boolean remove(final byte[] key) {
+    if (key == null) { return false; }
+    checkMethodKeySize(key);
+    final SingleCouponMap baseMap = (SingleCouponMap) maps_[0];
+    final int baseMapIndex = baseMap.findKey(key);
+    if (baseMapIndex < 0) { return false; }
+    if (!baseMap.isCoupon(baseMapIndex)) {
+      final int level = baseMap.getCoupon(baseMapIndex);
+      final Map map = maps_[level];
+      map.deleteKey(map.findKey(key));
+      if (map.getActiveEntries() == 0) { maps_[level] = null; }
+    }
+    baseMap.deleteKey(baseMapIndex);
+    return true;
+  }
+
+  /**
+   * Returns an iterator over the active keys and their estimates.
+   * This map must not be updated while the iterator is in use.
+   * @return an iterator over the active keys and their estimates.
+   */
+  public UniqueCountMapIterator iterator() {
+    return new UniqueCountMapIterator((SingleCouponMap) maps_[0], maps_);
+  }
+
+  /**
+   * Returns up to <i>n</i> keys with the largest estimates, in order of decreasing estimate.
+   * Ties are broken arbitrarily. This visits all keys once and keeps the current top <i>n</i> in a
+   * bounded heap, so it requires space proportional to <i>n</i>, not to the number of keys.
+   * @param n the maximum number of keys to return
+   * @return an array of up to <i>n</i> rows in order of decreasing estimate.
+   */
+  public Row[] getTopKeys(final int n) {
+    if (n < 0) {
+      throw new SketchesArgumentException("n must not be negative: " + n);
+    }
+    final PriorityQueue<Row> heap = new PriorityQueue<>(Math.max(1, Math.min(n, getActiveEntries())),
+        Comparator.comparingDouble(Row::getEstimate));
+    if (n > 0) {
+      final UniqueCountMapIterator it = iterator();
+      while (it.next()) {
+        final double est = it.getEstimate();
+        if (heap.size() < n) {
+          heap.add(new Row(it.getKey(), est));
+        } else if (est > heap.peek().getEstimate()) {
+          heap.poll();
+          heap.add(new Row(it.getKey(), est));
+        }
+      }
+    }
+    final Row[] rows = new Row[heap.size()];
+    for (int i = rows.length; i-- > 0; ) {
+      rows[i] = heap.poll();
+    }
+    return rows;
+  }
+
   /**
    * Returns the number of active, unique keys across all internal maps
    * @return the number of active, unique keys across all internal maps
@@ -240,6 +379,87 @@ public final class UniqueCountMap {
     return (double) (getMemoryUsageBytes() - getKeyMemoryUsageBytes()) / getActiveEntries();
   }
 
+/*
+ * The serialized image starts with 2 longs of preamble, followed by the image of each active
+ * internal map in level order, starting with the base map:
+ *
+ * <pre>
+ * Long || Start Byte Adr:
+ * Adr:
+ *      ||    0     |    1   |     2     |    3   |    4   |    5   |    6   |    7   |
+ *  0   || PreLongs | SerVer | NumLevels | Unused |----------Key Size Bytes-----------|
+ *
+ *      ||    8     |    9   |    10     |   11   |   12   |   13   |   14   |   15   |
+ *  1   ||-----Active Levels (one bit per level)--|--------------Unused---------------|
+ * </pre>
+ *
+ * Each internal map image starts with its int counters, followed by its arrays as they are held
+ * on the heap. The type and coupon capacity of a map follow from its level.
+ */
+
+  /**
+   * Returns the number of bytes required to serialize this map.
+   * @return the number of bytes required to serialize this map.
+   */
+  public long getSerializedSizeBytes() {
+    long total = PREAMBLE_LONGS * Long.BYTES;
+    for (int i = 0; i < maps_.length; i++) {
+      if (maps_[i] != null) {
+        total += maps_[i].getSerializedSizeBytes();
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Serializes this map, including all of its internal maps, into a byte array.
+   * @return this map serialized into a byte array.
+   * @throws SketchesStateException if the image is larger than <code>Integer.MAX_VALUE</code>
+   * bytes. Use {@link #putMemory(WritableMemory)} in that case.
+   */
+  public byte[] toByteArray() {
+    final long sizeBytes = getSerializedSizeBytes();
+    if (sizeBytes > Integer.MAX_VALUE) {
+      throw new SketchesStateException("Cannot serialize a UniqueCountMap of " + sizeBytes
+          + " bytes using toByteArray(); use putMemory() instead.");
+    }
+    final byte[] bytes = new byte[(int) sizeBytes];
+    putMemory(WritableMemory.writableWrap(bytes));
+    return bytes;
+  }
+
+  /**
+   * Serializes this map, including all of its internal maps, into the given WritableMemory,
+   * starting at offset zero. The tables are written directly without an intermediate copy, so
+   * the destination can be a memory-mapped file that serves as a checkpoint of this map.
+   * @param dstMem the destination, which must have a capacity of at least
+   * {@link #getSerializedSizeBytes()}
+   */
+  public void putMemory(final WritableMemory dstMem) {
+    final long sizeBytes = getSerializedSizeBytes();
+    if (dstMem.getCapacity() < sizeBytes) {
+      throw new SketchesArgumentException("Destination capacity " + dstMem.getCapacity()
+          + " is less than the required " + sizeBytes + " bytes.");
+    }
+    int activeLevels = 0;
+    for (int i = 0; i < maps_.length; i++) {
+      if (maps_[i] != null) { activeLevels |= 1 << i; }
+    }
+    final WritableBuffer wbuf = dstMem.asWritableBuffer();
+    wbuf.putByte((byte) PREAMBLE_LONGS);
+    wbuf.putByte((byte) SER_VER);
+    wbuf.putByte((byte) NUM_LEVELS);
+    wbuf.putByte((byte) 0); // unused
+    wbuf.putInt(keySizeBytes_);
+    wbuf.putInt(activeLevels);
+    wbuf.putInt(0); // unused
+    for (int i = 0; i < maps_.length; i++) {
+      if (maps_[i] != null) {
+        maps_[i].writeToBuffer(wbuf);
+      }
+    }
+  }
+
   /**
    * Returns the number of active internal maps so far.
    * Only the base map is initialized in the constructor, so this method would return 1.
@@ -313,6 +533,29 @@ public final class UniqueCountMap {
     return sb.toString();
   }
 
+  /**
+   * A key and its estimate, as returned by {@link #getTopKeys(int)}.
+   */
+  public static final class Row {
+    private final byte[] key;
+    private final double est;
+
+    Row(final byte[] key, final double estimate) {
+      this.key = key;
+      est = estimate;
+    }
+
+    /**
+     * @return the key
+     */
+    public byte[] getKey() { return key.clone(); }
+
+    /**
+     * @return the estimate of the number of unique identifiers of the key
+     */
+    public double getEstimate() { return est; }
+  }
+
   private void setLevelInBaseMap(final int index, final int level) {
     ((SingleCouponMap) maps_[0]).setLevel(index, level);
   }
@@ -326,7 +569,7 @@ public final class UniqueCountMap {
       final double est = newMap.update(newMapIndex, it.getValue());
       assert est > 0;
     }
-    fromMap.deleteKey(fromIndex);
+    if (fromLevel > 0) { fromMap.deleteKey(fromIndex); } // the base map keeps all keys
     newMap.updateEstimate(newMapIndex, estimate);
     final double newEstimate = newMap.update(newMapIndex, coupon);
     setLevelInBaseMap(baseMapIndex, fromLevel + 1);
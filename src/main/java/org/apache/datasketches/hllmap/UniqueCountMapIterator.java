@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hllmap;
+
+/**
+ * Iterator over the active keys of a {@link UniqueCountMap} and their estimates.
+ * All keys are visited exactly once, whatever the level of the internal map they are held in,
+ * in no particular order. The map must not be updated while it is being iterated.
+ */
+public final class UniqueCountMapIterator {
+
+  private final SingleCouponMap baseMap_;
+  private final Map[] maps_;
+  private final int tableEntries_;
+  private final byte[] key_;
+  private int index_;
+
+  UniqueCountMapIterator(final SingleCouponMap baseMap, final Map[] maps) {
+    baseMap_ = baseMap;
+    maps_ = maps;
+    tableEntries_ = baseMap.getTableEntries();
+    key_ = new byte[baseMap.getKeySizeBytes()];
+    index_ = -1;
+  }
+
+  /**
+   * Advancing the iterator and checking existence of the next entry
+   * is combined here for efficiency. This results in an undefined
+   * state of the iterator before the first call of this method.
+   * @return true if the next element exists
+   */
+  public boolean next() {
+    index_++;
+    while (index_ < tableEntries_) {
+      if (baseMap_.isActive(index_)) {
+        baseMap_.copyKey(index_, key_);
+        return true;
+      }
+      index_++;
+    }
+    return false;
+  }
+
+  /**
+   * Gets a copy of the key of the current entry.
+   * Don't call this before calling next() for the first time
+   * or after getting false from next().
+   * @return a copy of the key of the current entry
+   */
+  public byte[] getKey() {
+    return key_.clone();
+  }
+
+  /**
+   * Gets the estimate of the number of unique identifiers of the current entry.
+   * Don't call this before calling next() for the first time
+   * or after getting false from next().
+   * @return the estimate of the current entry
+   */
+  public double getEstimate() {
+    if (baseMap_.isCoupon(index_)) { return 1; }
+    return maps_[baseMap_.getCoupon(index_)].getEstimate(key_);
+  }
+
+}
@@ -33,6 +33,10 @@
  * and provides an RSE of less than 2.5%. Your results will vary depending on the actual
  * distribution of identifiers per key.
  *
+ * <p>The UniqueCountMap is not thread-safe. The ConcurrentUniqueCountMap shards the keys over
+ * several independent UniqueCountMaps so that it can be updated and queried by many threads.
+ *
  * @see org.apache.datasketches.hllmap.UniqueCountMap
+ * @see org.apache.datasketches.hllmap.ConcurrentUniqueCountMap
  */
 package org.apache.datasketches.hllmap;
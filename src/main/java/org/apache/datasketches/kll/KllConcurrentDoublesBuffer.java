@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.kll;
+
+/**
+ * This is a bounded size buffer of items that operates in the context of a single writing
+ * thread. Instances are obtained from {@link KllConcurrentDoublesSketch#newLocalBuffer()}.
+ *
+ * <p>Updates are simply appended to the buffer. When the buffer becomes full the writing thread
+ * compacts its items into a small sketch that is handed off to be merged into the shared sketch,
+ * and the buffer starts over with the same array. A buffer
+ * must not be used by more than one thread, and {@link #flush()} should be called when a writing
+ * thread has finished.</p>
+ */
+public final class KllConcurrentDoublesBuffer {
+  private final KllConcurrentDoublesSketch shared;
+  private final double[] items;
+  private int numItems;
+
+  KllConcurrentDoublesBuffer(final KllConcurrentDoublesSketch shared, final int bufferSize) {
+    this.shared = shared;
+    items = new double[bufferSize];
+    numItems = 0;
+  }
+
+  /**
+   * Updates this buffer with the given item. NaNs are ignored.
+   * @param item the given item
+   */
+  public void update(final double item) {
+    if (Double.isNaN(item)) { return; }
+    items[numItems++] = item;
+    if (numItems == items.length) { flush(); }
+  }
+
+  /**
+   * Hands off any buffered items to be merged into the shared sketch.
+   * The merge completes asynchronously.
+   */
+  public void flush() {
+    if (numItems == 0) { return; }
+    shared.handOff(items, numItems);
+    numItems = 0;
+  }
+
+  /**
+   * Gets the number of items currently held in this buffer that have not yet been handed off.
+   * @return the number of items currently held in this buffer.
+   */
+  public int getNumBufferedItems() {
+    return numItems;
+  }
+
+  /**
+   * Returns the shared sketch this buffer is merged into.
+   * @return the shared sketch this buffer is merged into.
+   */
+  public KllConcurrentDoublesSketch getSharedSketch() {
+    return shared;
+  }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.quantilescommon.DoublesSortedView;
+import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
+
+/**
+ * A shared KLL doubles sketch that can be fed by many writing threads at once.
+ *
+ * <p>Writers never update the shared sketch directly. Each writing thread obtains its own
+ * {@link KllConcurrentDoublesBuffer} from {@link #newLocalBuffer()} and presents its items to that
+ * buffer. When a buffer is full the writing thread compacts its items into a small KLL sketch of
+ * its own, without any locking, and hands that sketch to a background thread that merges it into
+ * the shared {@link KllDoublesSketch} as a whole. If the background thread falls behind by more
+ * than <i>maxPendingBuffers</i> buffers, the writer that filled the next buffer performs that merge
+ * itself, which bounds the memory held by pending buffers.</p>
+ *
+ * <p>Readers query a {@link DoublesSortedView} of the shared sketch. The view is cached and only
+ * rebuilt after new items have been merged. A rebuild holds the shared sketch just long enough to
+ * take a serialized copy, and builds the view from the copy, so a reader delays a merge by about
+ * the time of one merge and never holds up a writer that is filling its buffer. The answer
+ * reflects every merged item; each writer may hold back at most one buffer of items that have not
+ * yet been handed off.</p>
+ *
+ * <p>The background thread is a daemon thread owned by this sketch that exits after being idle
+ * for a second, so a sketch that is no longer used does not keep a thread alive. {@link #close()}
+ * waits for all pending merges to complete. Queries remain valid after closing.</p>
+ */
+public final class KllConcurrentDoublesSketch {
+
+  /**
+   * The default number of items held by a local buffer before it is handed off.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  /**
+   * The default number of full buffers that may wait for the background thread.
+   */
+  public static final int DEFAULT_MAX_PENDING_BUFFERS = 64;
+
+  private static final long MERGE_THREAD_IDLE_MILLIS = 1000;
+
+  private final int k;
+  private final KllDoublesSketch sketch; //guarded by itself
+  private final ThreadPoolExecutor executor;
+  private volatile long mergedN = 0;
+  private volatile DoublesSortedView sortedView = null;
+
+  /**
+   * Constructs a new shared sketch with the default <i>k</i> = 200 and default limit of
+   * pending buffers.
+   */
+  public KllConcurrentDoublesSketch() {
+    this(KllSketch.DEFAULT_K, DEFAULT_MAX_PENDING_BUFFERS);
+  }
+
+  /**
+   * Constructs a new shared sketch.
+   * @param k parameter that controls size of the shared sketch and its accuracy.
+   * It must be greater than or equal to 8 and less than or equal to 65535.
+   * @param maxPendingBuffers the number of full buffers that may wait for the background thread
+   * before writers start merging their own buffers. This must be at least one.
+   */
+  public KllConcurrentDoublesSketch(final int k, final int maxPendingBuffers) {
+    if (maxPendingBuffers < 1) {
+      throw new SketchesArgumentException(
+          "maxPendingBuffers must be at least one: " + maxPendingBuffers);
+    }
+    sketch = KllDoublesSketch.newHeapInstance(k);
+    this.k = k;
+    executor = new ThreadPoolExecutor(1, 1, MERGE_THREAD_IDLE_MILLIS, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(maxPendingBuffers),
+        r -> {
+          final Thread thread = new Thread(r, "KllConcurrentDoublesSketch-merge");
+          thread.setDaemon(true);
+          return thread;
+        },
+        (r, e) -> r.run()); //full queue or closed: the writer merges its own buffer
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Returns a new local buffer for a single writing thread with the default buffer size.
+   * @return a new local buffer for a single writing thread.
+   */
+  public KllConcurrentDoublesBuffer newLocalBuffer() {
+    return newLocalBuffer(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Returns a new local buffer for a single writing thread.
+   * @param bufferSize the number of items the buffer holds before it is handed off.
+   * This must be at least one.
+   * @return a new local buffer for a single writing thread.
+   */
+  public KllConcurrentDoublesBuffer newLocalBuffer(final int bufferSize) {
+    if (bufferSize < 1) {
+      throw new SketchesArgumentException("bufferSize must be at least one: " + bufferSize);
+    }
+    return new KllConcurrentDoublesBuffer(this, bufferSize);
+  }
+
+  /**
+   * Returns the parameter <i>k</i> of the shared sketch.
+   * @return the parameter <i>k</i> of the shared sketch.
+   */
+  public int getK() {
+    return k;
+  }
+
+  /**
+   * Returns the number of items that have been merged into the shared sketch.
+   * @return the number of items that have been merged into the shared sketch.
+   */
+  public long getN() {
+    return mergedN;
+  }
+
+  /**
+   * Returns true if no items have been merged into the shared sketch.
+   * @return true if no items have been merged into the shared sketch.
+   */
+  public boolean isEmpty() {
+    return mergedN == 0;
+  }
+
+  /**
+   * Gets the approximate quantile of the given normalized rank, using the INCLUSIVE criterion.
+   * @param rank the given normalized rank, a double in the range [0.0, 1.0].
+   * @return the approximate quantile given the normalized rank.
+   * @throws IllegalArgumentException if the sketch is empty.
+   */
+  public double getQuantile(final double rank) {
+    return getQuantile(rank, INCLUSIVE);
+  }
+
+  /**
+   * Gets the approximate quantile of the given normalized rank and the given search criterion.
+   * @param rank the given normalized rank, a double in the range [0.0, 1.0].
+   * @param searchCrit the desired search criterion.
+   * @return the approximate quantile given the normalized rank.
+   * @throws IllegalArgumentException if the sketch is empty.
+   */
+  public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    return getSortedView().getQuantile(rank, searchCrit);
+  }
+
+  /**
+   * Gets the normalized rank corresponding to the given quantile, using the INCLUSIVE criterion.
+   * @param quantile the given quantile
+   * @return the normalized rank corresponding to the given quantile.
+   * @throws IllegalArgumentException if the sketch is empty.
+   */
+  public double getRank(final double quantile) {
+    return getRank(quantile, INCLUSIVE);
+  }
+
+  /**
+   * Gets the normalized rank corresponding to the given quantile and the given search criterion.
+   * @param quantile the given quantile
+   * @param searchCrit the desired search criterion.
+   * @return the normalized rank corresponding to the given quantile.
+   * @throws IllegalArgumentException if the sketch is empty.
+   */
+  public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
+    return getSortedView().getRank(quantile, searchCrit);
+  }
+
+  /**
+   * Gets a sorted view of the shared sketch as of the last completed merge. The view is
+   * immutable, so it may be kept and queried by the reader without any synchronization.
+   * @return a sorted view of the shared sketch.
+   * @throws IllegalArgumentException if the sketch is empty.
+   */
+  public DoublesSortedView getSortedView() {
+    final DoublesSortedView view = sortedView;
+    if ((view != null) && (view.getN() == mergedN)) { return view; }
+    final KllDoublesSketch snapshot = toKllDoublesSketch(); //holds the shared sketch only for the copy
+    if (snapshot.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final DoublesSortedView newView = snapshot.getSortedView();
+    sortedView = newView;
+    return newView;
+  }
+
+  /**
+   * Returns a point-in-time copy of the shared sketch on the Java heap.
+   * @return a point-in-time copy of the shared sketch on the Java heap.
+   */
+  public KllDoublesSketch toKllDoublesSketch() {
+    final byte[] bytes;
+    synchronized (sketch) {
+      bytes = sketch.toByteArray();
+    }
+    return KllDoublesSketch.heapify(Memory.wrap(bytes));
+  }
+
+  /**
+   * Waits for all pending merges to complete and releases the background thread. Buffers should be
+   * flushed before closing; a buffer flushed after closing is merged by its writing thread.
+   */
+  public void close() {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        //keep waiting for the pending merges
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SketchesStateException("Interrupted while waiting for pending merges.");
+    }
+  }
+
+  @Override
+  public String toString() {
+    synchronized (sketch) {
+      return sketch.toString();
+    }
+  }
+
+  //restricted
+
+  /**
+   * Compacts the first <i>numItems</i> of the given array into a new sketch on the calling thread
+   * and hands that sketch off to the background thread. The array may be reused on return.
+   * @param items the buffered items
+   * @param numItems the number of valid items at the front of the array
+   */
+  void handOff(final double[] items, final int numItems) {
+    final KllDoublesSketch part = KllDoublesSketch.newHeapInstance(k);
+    for (int i = 0; i < numItems; i++) {
+      part.update(items[i]);
+    }
+    executor.execute(() -> merge(part));
+  }
+
+  private void merge(final KllDoublesSketch part) {
+    synchronized (sketch) {
+      sketch.merge(part);
+      mergedN = sketch.getN();
+    }
+  }
+
+}
@@ -196,6 +196,18 @@ class KllDirectDoublesSketch extends KllDoublesSketch {
     return doubleItemsArr;
   }
 
+  @Override
+  void getDoubleItems(final int index, final double[] dst, final int length) {
+    if (sketchStructure == COMPACT_EMPTY || sketchStructure == COMPACT_SINGLE) {
+      System.arraycopy(getDoubleItemsArray(), index, dst, 0, length);
+      return;
+    }
+    final int shift = (sketchStructure == COMPACT_FULL) ? levelsArr[0] : 0;
+    final int offset = DATA_START_ADR + getLevelsArrSizeBytes(sketchStructure) + 2 * ITEM_BYTES
+        + (index - shift) * ITEM_BYTES;
+    wmem.getDoubleArray(offset, dst, 0, length);
+  }
+
   @Override //returns compact items array of retained items, no free space.
   double[] getDoubleRetainedItemsArray() {
     if (sketchStructure == COMPACT_EMPTY) { return new double[0]; }
@@ -87,9 +87,9 @@ final class KllDoublesHelper {
       Arrays.sort(myDoubleItemsArr, adjBeg, adjBeg + adjPop);
     }
     if (popAbove == 0) {
-      KllDoublesHelper.randomlyHalveUpDoubles(myDoubleItemsArr, adjBeg, adjPop, KllSketch.random);
+      KllDoublesHelper.randomlyHalveUpDoubles(myDoubleItemsArr, adjBeg, adjPop, dblSk.getRandom());
     } else {
-      KllDoublesHelper.randomlyHalveDownDoubles(myDoubleItemsArr, adjBeg, adjPop, KllSketch.random);
+      KllDoublesHelper.randomlyHalveDownDoubles(myDoubleItemsArr, adjBeg, adjPop, dblSk.getRandom());
       KllDoublesHelper.mergeSortedDoubleArrays(
           myDoubleItemsArr, adjBeg, halfAdjPop,
           myDoubleItemsArr, rawEnd, popAbove,
@@ -177,7 +177,7 @@ final class KllDoublesHelper {
 
       // notice that workbuf is being used as both the input and output
       final int[] result = generalDoublesCompress(mySketch.getK(), mySketch.getM(), provisionalNumLevels,
-          workbuf, worklevels, workbuf, outlevels, mySketch.isLevelZeroSorted(), KllSketch.random);
+          workbuf, worklevels, workbuf, outlevels, mySketch.isLevelZeroSorted(), mySketch.getRandom());
       final int targetItemCount = result[1]; //was finalCapacity. Max size given k, m, numLevels
       final int curItemCount = result[2]; //was finalPop
 
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+import static org.apache.datasketches.quantilescommon.QuantilesUtil.getNaturalRank;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.quantilescommon.DoublesSketchSortedView;
+import org.apache.datasketches.quantilescommon.DoublesSortedView;
+import org.apache.datasketches.quantilescommon.DoublesSortedViewIterator;
+import org.apache.datasketches.quantilescommon.InequalitySearch;
+import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
+import org.apache.datasketches.quantilescommon.QuantilesUtil;
+
+/**
+ * A live sorted view of a KllDoublesSketch that is kept up to date incrementally.
+ *
+ * <p>The levels above level zero only change when the sketch compacts or merges. Their items are
+ * merged into a sorted array with cumulative weights once per such change. Level zero is copied and
+ * sorted separately when it has changed since the last query. Ranks and quantiles are then computed by
+ * binary searches over the two sorted runs, without merging them, so a query that follows a single
+ * update costs about as much as sorting level zero.</p>
+ *
+ * <p>This view reads the current state of the sketch and is not exposed to users. Its arrays are
+ * materialized into a DoublesSketchSortedView snapshot on demand.</p>
+ */
+final class KllDoublesIncrementalSortedView implements DoublesSortedView {
+  private final KllDoublesSketch sketch;
+  private double[] upperQuantiles = new double[0]; //sorted items of levels one and above
+  private long[] upperCumWeights = new long[0];  //cumulative natural weights of upperQuantiles
+  private boolean upperValid = false;
+  private double[] level0 = new double[0];       //sorted copy of level zero, valid up to level0Len
+  private int level0Len = 0;
+  private boolean level0Valid = false;
+
+  KllDoublesIncrementalSortedView(final KllDoublesSketch sketch) {
+    this.sketch = sketch;
+  }
+
+  /**
+   * Marks the whole view as stale, after a compaction, merge or reset of the sketch.
+   */
+  void invalidate() {
+    upperValid = false;
+    level0Valid = false;
+  }
+
+  /**
+   * Marks only level zero as stale, after an update that did not compact the sketch.
+   */
+  void invalidateLevelZero() {
+    level0Valid = false;
+  }
+
+  @Override
+  public long[] getCumulativeWeights() {
+    return toSortedView().getCumulativeWeights();
+  }
+
+  @Override
+  public double getMaxItem() {
+    return sketch.getMaxItem();
+  }
+
+  @Override
+  public double getMinItem() {
+    return sketch.getMinItem();
+  }
+
+  @Override
+  public long getN() {
+    return sketch.getN();
+  }
+
+  @Override
+  public int getNumRetained() {
+    return sketch.getNumRetained();
+  }
+
+  @Override
+  public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    QuantilesUtil.checkNormalizedRankBounds(rank);
+    refresh();
+    final double naturalRank = getNaturalRank(rank, getN(), searchCrit);
+    final int upperIndex = findFirstReaching(upperQuantiles, upperQuantiles.length, naturalRank, searchCrit);
+    final int level0Index = findFirstReaching(level0, level0Len, naturalRank, searchCrit);
+    if (upperIndex == -1 && level0Index == -1) { //EXCLUSIVE (GT) case: normRank == 1.0
+      final double upperMax = upperQuantiles.length > 0 ? upperQuantiles[upperQuantiles.length - 1] : Double.NaN;
+      final double level0Max = level0Len > 0 ? level0[level0Len - 1] : Double.NaN;
+      return level0Len == 0 ? upperMax : upperQuantiles.length == 0 ? level0Max : Math.max(upperMax, level0Max);
+    }
+    if (upperIndex == -1) { return level0[level0Index]; }
+    if (level0Index == -1) { return upperQuantiles[upperIndex]; }
+    return Math.min(upperQuantiles[upperIndex], level0[level0Index]);
+  }
+
+  @Override
+  public double[] getQuantiles() {
+    return toSortedView().getQuantiles();
+  }
+
+  @Override
+  public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    refresh();
+    return (double) getWeight(quantile, searchCrit) / getN();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return sketch.isEmpty();
+  }
+
+  @Override
+  public DoublesSortedViewIterator iterator() {
+    return toSortedView().iterator();
+  }
+
+  /**
+   * Merges the two sorted runs into a standalone snapshot of the current state of the sketch.
+   * @return a new DoublesSketchSortedView
+   */
+  DoublesSketchSortedView toSortedView() {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    refresh();
+    final int upperLen = upperQuantiles.length;
+    final int numQuantiles = upperLen + level0Len;
+    final double[] quantiles = new double[numQuantiles];
+    final long[] cumWeights = new long[numQuantiles];
+    int i = 0;
+    int j = 0;
+    long cumWeight = 0;
+    for (int k = 0; k < numQuantiles; k++) {
+      if (j == level0Len || (i < upperLen && upperQuantiles[i] <= level0[j])) {
+        quantiles[k] = upperQuantiles[i];
+        cumWeight += upperCumWeights[i] - (i == 0 ? 0 : upperCumWeights[i - 1]);
+        i++;
+      } else {
+        quantiles[k] = level0[j++];
+        cumWeight++;
+      }
+      cumWeights[k] = cumWeight;
+    }
+    return new DoublesSketchSortedView(quantiles, cumWeights, getN(), getMaxItem(), getMinItem());
+  }
+
+  private void refresh() {
+    if (upperValid && level0Valid) { return; }
+    final int[] levels = sketch.levelsArr;
+    if (!upperValid) {
+      rebuildUpper(sketch.getDoubleItemsArray(), levels, sketch.getNumLevels());
+      upperValid = true;
+    }
+    if (!level0Valid) {
+      level0Len = levels[1] - levels[0];
+      if (level0.length < level0Len) { level0 = new double[levels[1]]; }
+      if (sketch.hasMemory()) {
+        //reads level zero only, since getDoubleItemsArray() copies all items out of the Memory
+        sketch.getDoubleItems(levels[0], level0, level0Len);
+        if (!sketch.isLevelZeroSorted()) { Arrays.sort(level0, 0, level0Len); }
+      } else {
+        final double[] items = sketch.getDoubleItemsArray();
+        if (!sketch.isLevelZeroSorted()) { //same as the full rebuild, so both modes compact alike
+          Arrays.sort(items, levels[0], levels[1]);
+          sketch.setLevelZeroSorted(true);
+        }
+        System.arraycopy(items, levels[0], level0, 0, level0Len);
+      }
+      level0Valid = true;
+    }
+  }
+
+  private void rebuildUpper(final double[] items, final int[] levels, final int numLevels) {
+    final int offset = levels[1];
+    final int numItems = levels[numLevels] - offset;
+    upperQuantiles = new double[numItems];
+    upperCumWeights = new long[numItems];
+    System.arraycopy(items, offset, upperQuantiles, 0, numItems);
+    final int[] myLevels = new int[numLevels + 1];
+    int dstLevel = 0;
+    long weight = 2;
+    for (int srcLevel = 1; srcLevel < numLevels; srcLevel++) {
+      final int fromIndex = levels[srcLevel] - offset;
+      final int toIndex = levels[srcLevel + 1] - offset; // exclusive
+      if (fromIndex < toIndex) { // if equal, skip empty level
+        Arrays.fill(upperCumWeights, fromIndex, toIndex, weight);
+        myLevels[dstLevel] = fromIndex;
+        myLevels[dstLevel + 1] = toIndex;
+        dstLevel++;
+      }
+      weight *= 2;
+    }
+    if (dstLevel > 0) {
+      KllDoublesSketch.blockyTandemMergeSort(upperQuantiles, upperCumWeights, myLevels, dstLevel);
+      KllHelper.convertToCumulative(upperCumWeights);
+    }
+  }
+
+  /**
+   * Returns the total weight of the retained items &le; the given quantile if INCLUSIVE,
+   * or &lt; the given quantile if EXCLUSIVE.
+   */
+  private long getWeight(final double quantile, final QuantileSearchCriteria searchCrit) {
+    final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.LE : InequalitySearch.LT;
+    long weight = 0;
+    final int upperLen = upperQuantiles.length;
+    if (upperLen > 0) {
+      final int index = InequalitySearch.find(upperQuantiles, 0, upperLen - 1, quantile, crit);
+      if (index != -1) { weight += upperCumWeights[index]; }
+    }
+    if (level0Len > 0) {
+      weight += InequalitySearch.find(level0, 0, level0Len - 1, quantile, crit) + 1;
+    }
+    return weight;
+  }
+
+  /**
+   * Returns the index of the smallest item in the given sorted run whose inclusive weight reaches the
+   * given natural rank: &ge; if INCLUSIVE, &gt; if EXCLUSIVE. Returns -1 if there is no such item.
+   */
+  private int findFirstReaching(final double[] run, final int len, final double naturalRank,
+      final QuantileSearchCriteria searchCrit) {
+    int lo = 0;
+    int hi = len - 1;
+    int found = -1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      final long weight = getWeight(run[mid], INCLUSIVE);
+      final boolean reaches = (searchCrit == INCLUSIVE) ? weight >= naturalRank : weight > naturalRank;
+      if (reaches) {
+        found = mid;
+        hi = mid - 1;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return found;
+  }
+
+}
@@ -27,6 +27,7 @@ import static org.apache.datasketches.kll.KllSketch.SketchType.DOUBLES_SKETCH;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.Random;
 
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -37,6 +38,7 @@ import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.quantilescommon.DoublesSketchSortedView;
+import org.apache.datasketches.quantilescommon.DoublesSortedView;
 import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
 import org.apache.datasketches.quantilescommon.QuantilesDoublesAPI;
 import org.apache.datasketches.quantilescommon.QuantilesDoublesSketchIterator;
@@ -48,6 +50,7 @@ import org.apache.datasketches.quantilescommon.QuantilesDoublesSketchIterator;
  */
 public abstract class KllDoublesSketch extends KllSketch implements QuantilesDoublesAPI {
   private DoublesSketchSortedView doublesSV = null;
+  private KllDoublesIncrementalSortedView incrementalSV = null;
   final static int ITEM_BYTES = Double.BYTES;
 
   KllDoublesSketch(
@@ -79,6 +82,22 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     return new KllHeapDoublesSketch(k, DEFAULT_M);
   }
 
+  /**
+   * Create a new heap instance of this sketch with a given parameter <em>k</em> and a given
+   * source of random bits for compaction.
+   * By default each compaction draws from the ThreadLocalRandom of the updating thread.
+   * A seeded Random makes the sketch contents reproducible for the same sequence of updates and merges.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param random the source of random bits used by this sketch for compaction.
+   * @return new KllDoublesSketch on the Java heap.
+   */
+  public static KllDoublesSketch newHeapInstance(final int k, final Random random) {
+    Objects.requireNonNull(random, "Parameter 'random' must not be null");
+    final KllDoublesSketch sk = new KllHeapDoublesSketch(k, DEFAULT_M);
+    sk.random = random;
+    return sk;
+  }
+
   //Factories for new direct instances.
 
   /**
@@ -111,6 +130,26 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     return KllDirectDoublesSketch.newDirectUpdatableInstance(k, DEFAULT_M, dstMem, memReqSvr);
   }
 
+  /**
+   * Create a new direct updatable instance of this sketch with a given <em>k</em> and a given
+   * source of random bits for compaction.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param dstMem the given destination WritableMemory object for use by the sketch
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param random the source of random bits used by this sketch for compaction.
+   * @return a new direct instance of this sketch
+   */
+  public static KllDoublesSketch newDirectInstance(
+      final int k,
+      final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr,
+      final Random random) {
+    Objects.requireNonNull(random, "Parameter 'random' must not be null");
+    final KllDoublesSketch sk = newDirectInstance(k, dstMem, memReqSvr);
+    sk.random = random;
+    return sk;
+  }
+
   //Factory to create an heap instance from a Memory image
 
   /**
@@ -171,34 +210,25 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
   @Override
   public double[] getCDF(final double[] splitPoints, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    refreshSortedView();
-    return doublesSV.getCDF(splitPoints, searchCrit);
+    return querySortedView().getCDF(splitPoints, searchCrit);
   }
 
   @Override
   public double[] getPMF(final double[] splitPoints, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    refreshSortedView();
-    return doublesSV.getPMF(splitPoints, searchCrit);
+    return querySortedView().getPMF(splitPoints, searchCrit);
   }
 
   @Override
   public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    refreshSortedView();
-    return doublesSV.getQuantile(rank, searchCrit);
+    return querySortedView().getQuantile(rank, searchCrit);
   }
 
   @Override
   public double[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    refreshSortedView();
-    final int len = ranks.length;
-    final double[] quantiles = new double[len];
-    for (int i = 0; i < len; i++) {
-      quantiles[i] = doublesSV.getQuantile(ranks[i], searchCrit);
-    }
-    return quantiles;
+    return querySortedView().getQuantiles(ranks, searchCrit);
   }
 
   /**
@@ -224,8 +254,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
   @Override
   public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    refreshSortedView();
-    return doublesSV.getRank(quantile, searchCrit);
+    return querySortedView().getRank(quantile, searchCrit);
   }
 
   /**
@@ -251,23 +280,27 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
   @Override
   public double[] getRanks(final double[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = doublesSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return querySortedView().getRanks(quantiles, searchCrit);
   }
 
   @Override
   @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "OK in this case.")
   public DoublesSketchSortedView getSortedView() {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    if (incrementalSV != null && doublesSV == null) { doublesSV = incrementalSV.toSortedView(); }
     refreshSortedView();
     return doublesSV;
   }
 
+  /**
+   * Returns true if rank and quantile queries are answered from an incrementally maintained sorted view.
+   * @return true if rank and quantile queries are answered from an incrementally maintained sorted view.
+   * @see #setIncrementalSortedView(boolean)
+   */
+  public boolean isIncrementalSortedView() {
+    return incrementalSV != null;
+  }
+
   @Override
   public QuantilesDoublesSketchIterator iterator() {
     return new KllDoublesSketchIterator(
@@ -282,6 +315,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     if (othDblSk.isEmpty()) { return; }
     KllDoublesHelper.mergeDoubleImpl(this, othDblSk);
     doublesSV = null;
+    if (incrementalSV != null) { incrementalSV.invalidate(); }
   }
 
   /**
@@ -301,6 +335,26 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     setMaxItem(Double.NaN);
     setDoubleItemsArray(new double[k]);
     doublesSV = null;
+    if (incrementalSV != null) { incrementalSV.invalidate(); }
+  }
+
+  /**
+   * Sets whether rank and quantile queries are answered from an incrementally maintained sorted view.
+   *
+   * <p>By default every update discards the sorted view, and the next query rebuilds it from all
+   * retained items. In incremental mode the levels above level zero are merged only after a compaction
+   * or a merge, and only level zero is sorted again at query time. This suits workloads that interleave
+   * updates with frequent rank or quantile queries. The results are the same in either mode.</p>
+   *
+   * <p>The incremental view keeps its own sorted copy of the retained items for as long as the mode
+   * is on.</p>
+   *
+   * @param incremental true to maintain the sorted view incrementally, false to rebuild it on demand.
+   */
+  public void setIncrementalSortedView(final boolean incremental) {
+    if (readOnly || sketchStructure != UPDATABLE) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    if (incremental && incrementalSV == null) { incrementalSV = new KllDoublesIncrementalSortedView(this); }
+    else if (!incremental) { incrementalSV = null; }
   }
 
   @Override
@@ -323,6 +377,9 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
   public void update(final double item) {
     if (Double.isNaN(item)) { return; } //ignore
     if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    if (incrementalSV != null) { //only a full level zero triggers a compaction
+      if (levelsArr[0] == 0) { incrementalSV.invalidate(); } else { incrementalSV.invalidateLevelZero(); }
+    }
     KllDoublesHelper.updateDouble(this, item);
     doublesSV = null;
   }
@@ -336,6 +393,9 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     if (Double.isNaN(item)) { return; } //ignore
     if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
     if (weight < 1L) { throw new SketchesArgumentException("Weight is less than one."); }
+    if (incrementalSV != null) { //a weight that does not fit in level zero is merged in
+      if (weight >= levelsArr[0]) { incrementalSV.invalidate(); } else { incrementalSV.invalidateLevelZero(); }
+    }
     if (weight == 1L) { KllDoublesHelper.updateDouble(this, item); }
     else { KllDoublesHelper.updateDouble(this, item, weight); }
     doublesSV = null;
@@ -348,6 +408,15 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
    */
   abstract double[] getDoubleItemsArray();
 
+  /**
+   * Copies a range of the full size internal items array into the given array, without
+   * materializing the whole items array of a sketch in Memory.
+   * @param index the index of the first item in the full size internal items array
+   * @param dst the destination array, which receives the items from its start
+   * @param length the number of items to copy
+   */
+  abstract void getDoubleItems(int index, double[] dst, int length);
+
   /**
    * @return items array of retained items.
    */
@@ -412,6 +481,10 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     }
   }
 
+  private final DoublesSortedView querySortedView() {
+    return (incrementalSV == null) ? refreshSortedView() : incrementalSV;
+  }
+
   private final DoublesSketchSortedView refreshSortedView() {
     if (doublesSV == null) {
       final CreateSortedView csv = new CreateSortedView();
@@ -469,7 +542,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     }
   } //End of class CreateSortedView
 
-  private static void blockyTandemMergeSort(final double[] quantiles, final long[] weights,
+  static void blockyTandemMergeSort(final double[] quantiles, final long[] weights,
       final int[] levels, final int numLevels) {
     if (numLevels == 1) { return; }
 
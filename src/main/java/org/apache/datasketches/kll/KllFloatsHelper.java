@@ -87,9 +87,9 @@ final class KllFloatsHelper {
       Arrays.sort(myFloatItemsArr, adjBeg, adjBeg + adjPop);
     }
     if (popAbove == 0) {
-      KllFloatsHelper.randomlyHalveUpFloats(myFloatItemsArr, adjBeg, adjPop, KllSketch.random);
+      KllFloatsHelper.randomlyHalveUpFloats(myFloatItemsArr, adjBeg, adjPop, fltSk.getRandom());
     } else {
-      KllFloatsHelper.randomlyHalveDownFloats(myFloatItemsArr, adjBeg, adjPop, KllSketch.random);
+      KllFloatsHelper.randomlyHalveDownFloats(myFloatItemsArr, adjBeg, adjPop, fltSk.getRandom());
       KllFloatsHelper.mergeSortedFloatArrays(
           myFloatItemsArr, adjBeg, halfAdjPop,
           myFloatItemsArr, rawEnd, popAbove,
@@ -177,7 +177,7 @@ final class KllFloatsHelper {
 
       // notice that workbuf is being used as both the input and output
       final int[] result = generalFloatsCompress(mySketch.getK(), mySketch.getM(), provisionalNumLevels,
-          workbuf, worklevels, workbuf, outlevels, mySketch.isLevelZeroSorted(), KllSketch.random);
+          workbuf, worklevels, workbuf, outlevels, mySketch.isLevelZeroSorted(), mySketch.getRandom());
       final int targetItemCount = result[1]; //was finalCapacity. Max size given k, m, numLevels
       final int curItemCount = result[2]; //was finalPop
 
@@ -26,6 +26,7 @@ import static org.apache.datasketches.kll.KllSketch.SketchStructure.UPDATABLE;
 import static org.apache.datasketches.kll.KllSketch.SketchType.FLOATS_SKETCH;
 
 import java.util.Objects;
+import java.util.Random;
 
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -78,6 +79,22 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
     return new KllHeapFloatsSketch(k, DEFAULT_M);
   }
 
+  /**
+   * Create a new heap instance of this sketch with a given parameter <em>k</em> and a given
+   * source of random bits for compaction.
+   * By default each compaction draws from the ThreadLocalRandom of the updating thread.
+   * A seeded Random makes the sketch contents reproducible for the same sequence of updates and merges.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param random the source of random bits used by this sketch for compaction.
+   * @return new KllFloatsSketch on the Java heap.
+   */
+  public static KllFloatsSketch newHeapInstance(final int k, final Random random) {
+    Objects.requireNonNull(random, "Parameter 'random' must not be null");
+    final KllFloatsSketch sk = new KllHeapFloatsSketch(k, DEFAULT_M);
+    sk.random = random;
+    return sk;
+  }
+
   //Factories for new direct instances.
 
   /**
@@ -110,6 +127,26 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
     return KllDirectFloatsSketch.newDirectUpdatableInstance(k, DEFAULT_M, dstMem, memReqSvr);
   }
 
+  /**
+   * Create a new direct updatable instance of this sketch with a given <em>k</em> and a given
+   * source of random bits for compaction.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param dstMem the given destination WritableMemory object for use by the sketch
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param random the source of random bits used by this sketch for compaction.
+   * @return a new direct instance of this sketch
+   */
+  public static KllFloatsSketch newDirectInstance(
+      final int k,
+      final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr,
+      final Random random) {
+    Objects.requireNonNull(random, "Parameter 'random' must not be null");
+    final KllFloatsSketch sk = newDirectInstance(k, dstMem, memReqSvr);
+    sk.random = random;
+    return sk;
+  }
+
   //Factory to create an heap instance from a Memory image
 
   /**
@@ -192,12 +229,7 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
   public float[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
-    final int len = ranks.length;
-    final float[] quantiles = new float[len];
-    for (int i = 0; i < len; i++) {
-      quantiles[i] = kllFloatsSV.getQuantile(ranks[i], searchCrit);
-    }
-    return quantiles;
+    return kllFloatsSV.getQuantiles(ranks, searchCrit);
   }
 
   /**
@@ -251,12 +283,7 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
   public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = kllFloatsSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return kllFloatsSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
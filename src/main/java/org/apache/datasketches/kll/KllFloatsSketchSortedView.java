@@ -127,6 +127,18 @@ public final class KllFloatsSketchSortedView implements FloatsSortedView {
     return quantiles.clone();
   }
 
+  @Override
+  public float[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int len = ranks.length;
+    final float[] quants = new float[len];
+    final int[] indexes = QuantilesUtil.getQuantileIndexes(cumWeights, totalN, ranks, searchCrit);
+    for (int i = 0; i < len; i++) {
+      quants[i] = quantiles[indexes[i]];
+    }
+    return quants;
+  }
+
   @Override
   public double getRank(final float quantile, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
@@ -139,6 +151,12 @@ public final class KllFloatsSketchSortedView implements FloatsSortedView {
     return (double)cumWeights[index] / totalN;
   }
 
+  @Override
+  public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    return QuantilesUtil.getRanks(this.quantiles, cumWeights, totalN, quantiles, searchCrit);
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
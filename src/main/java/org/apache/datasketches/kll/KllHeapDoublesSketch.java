@@ -201,6 +201,11 @@ final class KllHeapDoublesSketch extends KllDoublesSketch {
   @Override
   double[] getDoubleItemsArray() { return doubleItems; }
 
+  @Override
+  void getDoubleItems(final int index, final double[] dst, final int length) {
+    System.arraycopy(doubleItems, index, dst, 0, length);
+  }
+
   @Override
   double getDoubleSingleItem() {
     if (n != 1L) { throw new SketchesArgumentException(NOT_SINGLE_ITEM_MSG); }
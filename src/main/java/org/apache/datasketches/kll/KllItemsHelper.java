@@ -88,9 +88,9 @@ final class KllItemsHelper {
       Arrays.sort((T[])myItemsArr, adjBeg, adjBeg + adjPop, itmSk.comparator);
     }
     if (popAbove == 0) {
-      KllItemsHelper.randomlyHalveUpItems(myItemsArr, adjBeg, adjPop, KllSketch.random);
+      KllItemsHelper.randomlyHalveUpItems(myItemsArr, adjBeg, adjPop, itmSk.getRandom());
     } else {
-      KllItemsHelper.randomlyHalveDownItems(myItemsArr, adjBeg, adjPop, KllSketch.random);
+      KllItemsHelper.randomlyHalveDownItems(myItemsArr, adjBeg, adjPop, itmSk.getRandom());
       KllItemsHelper.mergeSortedItemsArrays(
           myItemsArr, adjBeg, halfAdjPop,
           myItemsArr, rawEnd, popAbove,
@@ -179,7 +179,7 @@ final class KllItemsHelper {
 
       // notice that workbuf is being used as both the input and output
       final int[] result = generalItemsCompress(mySketch.getK(), mySketch.getM(), provisionalNumLevels,
-          workbuf, worklevels, workbuf, outlevels, mySketch.isLevelZeroSorted(), KllSketch.random, comp);
+          workbuf, worklevels, workbuf, outlevels, mySketch.isLevelZeroSorted(), mySketch.getRandom(), comp);
       final int targetItemCount = result[1]; //was finalCapacity. Max size given k, m, numLevels
       final int curItemCount = result[2]; //was finalPop
 
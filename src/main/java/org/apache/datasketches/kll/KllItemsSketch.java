@@ -28,6 +28,7 @@ import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.Random;
 
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -102,6 +103,29 @@ public abstract class KllItemsSketch<T> extends KllSketch implements QuantilesGe
     return new KllHeapItemsSketch<>(k, DEFAULT_M, comparator, serDe);
   }
 
+  /**
+   * Create a new heap instance of this sketch with a given parameter <em>k</em> and a given
+   * source of random bits for compaction.
+   * By default each compaction draws from the ThreadLocalRandom of the updating thread.
+   * A seeded Random makes the sketch contents reproducible for the same sequence of updates and merges.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param comparator to compare items
+   * @param serDe Serializer / deserializer for items of type <i>T</i> and <i>T[]</i>.
+   * @param random the source of random bits used by this sketch for compaction.
+   * @param <T> The sketch data type
+   * @return new KllItemsSketch on the heap.
+   */
+  public static <T> KllItemsSketch<T> newHeapInstance(
+      final int k,
+      final Comparator<? super T> comparator,
+      final ArrayOfItemsSerDe<T> serDe,
+      final Random random) {
+    Objects.requireNonNull(random, "Parameter 'random' must not be null");
+    final KllItemsSketch<T> itmSk = new KllHeapItemsSketch<>(k, DEFAULT_M, comparator, serDe);
+    itmSk.random = random;
+    return itmSk;
+  }
+
   // Factory to create an heap instance from a Memory image
 
   /**
@@ -181,12 +205,7 @@ public abstract class KllItemsSketch<T> extends KllSketch implements QuantilesGe
   public T[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
-    final int len = ranks.length;
-    final T[] quantiles = (T[]) Array.newInstance(getMinItem().getClass(), len);
-    for (int i = 0; i < len; i++) {
-      quantiles[i] = itemsSV.getQuantile(ranks[i], searchCrit);
-    }
-    return quantiles;
+    return itemsSV.getQuantiles(ranks, searchCrit);
   }
 
   @Override
@@ -230,12 +249,7 @@ public abstract class KllItemsSketch<T> extends KllSketch implements QuantilesGe
   public double[] getRanks(final T[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = itemsSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return itemsSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
@@ -37,6 +37,7 @@ import static org.apache.datasketches.kll.KllSketch.SketchType.ITEMS_SKETCH;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -108,12 +109,12 @@ public abstract class KllSketch implements QuantilesAPI {
   static final int DEFAULT_M = 8;
   static final int MAX_M = 8; //The maximum M
   static final int MIN_M = 2; //The minimum M
-  static final Random random = new Random();
 
   final SketchType sketchType;
   final SketchStructure sketchStructure;
   boolean readOnly;
   int[] levelsArr; //Always updatable form
+  Random random; //null means use the ThreadLocalRandom of the compacting thread
 
   /**
    * Constructor for on-heap and off-heap.
@@ -345,6 +346,16 @@ public abstract class KllSketch implements QuantilesAPI {
    */
   abstract int getM();
 
+  /**
+   * Returns the source of random bits for compaction. If no Random was given at construction
+   * this is the ThreadLocalRandom of the calling thread, so that threads updating their own sketches
+   * do not contend on a shared seed.
+   * @return the source of random bits for compaction
+   */
+  final Random getRandom() {
+    return (random == null) ? ThreadLocalRandom.current() : random;
+  }
+
   /**
    * Gets the MemoryRequestServer or null.
    * @return the MemoryRequestServer or null.
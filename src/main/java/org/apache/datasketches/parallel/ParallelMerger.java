@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.parallel;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SuppressFBWarnings;
+
+/**
+ * Merges a large number of sketches, or of their serialized images, with a fork-join reduction tree.
+ *
+ * <p>The inputs are split recursively into about four tasks per thread of the pool, but never into tasks
+ * of fewer than <i>minInputsPerTask</i> inputs. Each task merges its inputs sequentially into its own union,
+ * and the unions of the tasks are merged pairwise in the order of the inputs. The result is the same as
+ * that of a sequential merge for the sketches whose unions do not depend on the order of the inputs,
+ * such as HLL and CPC, and within the usual error guarantees for the others, such as KLL.</p>
+ *
+ * <p>For example, to merge a list of serialized KLL sketches on all cores:</p>
+ * <pre>
+ * KllDoublesSketch result = new ParallelMerger&lt;&gt;(
+ *     SketchMergers.kllDoubles(200).mapInputs(KllDoublesSketch::wrap)).merge(memories);
+ * </pre>
+ *
+ * @param <T> the type of the inputs
+ * @param <U> the type of the union
+ * @param <R> the type of the result
+ */
+public final class ParallelMerger<T, U, R> {
+
+  /**
+   * The default minimum number of inputs merged sequentially by one task.
+   */
+  public static final int DEFAULT_MIN_INPUTS_PER_TASK = 64;
+
+  private static final int TASKS_PER_THREAD = 4;
+
+  private final SketchMerger<T, U, R> merger;
+  private final ForkJoinPool pool;
+  private final int minInputsPerTask;
+
+  /**
+   * Creates a ParallelMerger that runs in the common fork-join pool.
+   * @param merger tells how to merge the inputs
+   */
+  public ParallelMerger(final SketchMerger<T, U, R> merger) {
+    this(merger, ForkJoinPool.commonPool(), DEFAULT_MIN_INPUTS_PER_TASK);
+  }
+
+  /**
+   * Creates a ParallelMerger that runs in the given fork-join pool.
+   * @param merger tells how to merge the inputs
+   * @param pool the pool to run the tasks in
+   * @param minInputsPerTask the minimum number of inputs merged sequentially by one task, at least 1
+   */
+  public ParallelMerger(final SketchMerger<T, U, R> merger, final ForkJoinPool pool, final int minInputsPerTask) {
+    this.merger = Objects.requireNonNull(merger, "merger must not be null");
+    this.pool = Objects.requireNonNull(pool, "pool must not be null");
+    if (minInputsPerTask < 1) {
+      throw new SketchesArgumentException("minInputsPerTask must be at least 1: " + minInputsPerTask);
+    }
+    this.minInputsPerTask = minInputsPerTask;
+  }
+
+  /**
+   * Merges the given inputs.
+   * @param inputs the inputs to merge
+   * @return the result of merging all the inputs
+   */
+  public R merge(final Collection<? extends T> inputs) {
+    return merge(inputs.spliterator());
+  }
+
+  /**
+   * Merges the inputs of the given Spliterator.
+   * A Spliterator of unknown size is split into batches as it is traversed.
+   * @param inputs the inputs to merge
+   * @return the result of merging all the inputs
+   */
+  public R merge(final Spliterator<? extends T> inputs) {
+    final long size = inputs.estimateSize();
+    final long tasks = (long) pool.getParallelism() * TASKS_PER_THREAD;
+    final long inputsPerTask = size == Long.MAX_VALUE ? minInputsPerTask : Math.max(minInputsPerTask, size / tasks);
+    return merger.getResult(pool.invoke(new MergeTask(inputs, inputsPerTask)));
+  }
+
+  @SuppressFBWarnings(value = {"SE_BAD_FIELD", "SE_BAD_FIELD_INNER_CLASS"}, justification = "Tasks are never serialized")
+  private final class MergeTask extends RecursiveTask<U> {
+    private static final long serialVersionUID = 1L;
+    private final Spliterator<? extends T> inputs;
+    private final long inputsPerTask;
+
+    MergeTask(final Spliterator<? extends T> inputs, final long inputsPerTask) {
+      this.inputs = inputs;
+      this.inputsPerTask = inputsPerTask;
+    }
+
+    @Override
+    protected U compute() {
+      if (inputs.estimateSize() > inputsPerTask) {
+        final Spliterator<? extends T> prefix = inputs.trySplit();
+        if (prefix != null) {
+          final MergeTask left = new MergeTask(prefix, inputsPerTask);
+          left.fork();
+          final U right = new MergeTask(inputs, inputsPerTask).compute();
+          final U union = left.join();
+          merger.merge(union, right);
+          return union;
+        }
+      }
+      final U union = merger.newUnion();
+      inputs.forEachRemaining(input -> merger.update(union, input));
+      return union;
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.parallel;
+
+import java.util.function.Function;
+
+/**
+ * This tells a {@link ParallelMerger} how to merge inputs of one sketch type.
+ * Ready-made implementations for the sketch families are in {@link SketchMergers}.
+ *
+ * <p>Each fork-join task creates its own union with {@link #newUnion()} and updates it with its share
+ * of the inputs. The unions of the tasks are then merged pairwise up the tree. A union is never
+ * accessed by more than one thread at a time, so the implementation does not need to be thread-safe.</p>
+ *
+ * @param <T> the type of the inputs, such as a sketch or a Memory image of a sketch
+ * @param <U> the type of the union or merge target that accumulates the inputs
+ * @param <R> the type of the result
+ */
+public interface SketchMerger<T, U, R> {
+
+  /**
+   * Creates a new empty union.
+   * @return a new empty union
+   */
+  U newUnion();
+
+  /**
+   * Updates the given union with the given input.
+   * @param union the union to update
+   * @param input the input to merge into the union
+   */
+  void update(U union, T input);
+
+  /**
+   * Merges the other union into the given one. The other union is not used afterwards.
+   * @param union the union to merge into
+   * @param other the union to merge
+   */
+  void merge(U union, U other);
+
+  /**
+   * Gets the result from the given union after all the inputs have been merged.
+   * @param union the union with all the inputs
+   * @return the result
+   */
+  R getResult(U union);
+
+  /**
+   * Returns a merger that converts each input with the given function before updating the union.
+   * This is how Memory images are merged, e.g.,
+   * <code>SketchMergers.kllDoubles(200).mapInputs(KllDoublesSketch::wrap)</code>.
+   * The function is called on the worker threads.
+   * @param <V> the type of the new inputs
+   * @param fn the function that converts the new inputs to the inputs of this merger
+   * @return a merger of the new inputs
+   */
+  default <V> SketchMerger<V, U, R> mapInputs(final Function<? super V, ? extends T> fn) {
+    final SketchMerger<T, U, R> merger = this;
+    return new SketchMerger<V, U, R>() {
+      @Override
+      public U newUnion() {
+        return merger.newUnion();
+      }
+
+      @Override
+      public void update(final U union, final V input) {
+        merger.update(union, fn.apply(input));
+      }
+
+      @Override
+      public void merge(final U union, final U other) {
+        merger.merge(union, other);
+      }
+
+      @Override
+      public R getResult(final U union) {
+        return merger.getResult(union);
+      }
+    };
+  }
+
+}
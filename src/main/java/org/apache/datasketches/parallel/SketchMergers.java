@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.parallel;
+
+import static org.apache.datasketches.thetacommon.ThetaUtil.DEFAULT_UPDATE_SEED;
+
+import org.apache.datasketches.cpc.CpcSketch;
+import org.apache.datasketches.cpc.CpcUnion;
+import org.apache.datasketches.frequencies.ItemsSketch;
+import org.apache.datasketches.frequencies.LongsSketch;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.kll.KllFloatsSketch;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.req.ReqSketch;
+import org.apache.datasketches.theta.CompactSketch;
+import org.apache.datasketches.theta.SetOperation;
+import org.apache.datasketches.theta.Sketch;
+import org.apache.datasketches.theta.Union;
+import org.apache.datasketches.tuple.Summary;
+import org.apache.datasketches.tuple.SummarySetOperations;
+
+/**
+ * Ready-made {@link SketchMerger} implementations for the sketch families.
+ *
+ * <p>Each of them merges sketch objects. To merge Memory images, convert them on the worker threads
+ * with {@link SketchMerger#mapInputs(java.util.function.Function)}, using <i>wrap</i> where the sketch
+ * supports it, e.g., <code>hll(12, TgtHllType.HLL_4).mapInputs(HllSketch::wrap)</code>
+ * or <code>cpc(11).&lt;Memory&gt;mapInputs(CpcSketch::heapify)</code>.
+ * Theta images can be merged directly with {@link #thetaImages(int, long)}.</p>
+ */
+public final class SketchMergers {
+
+  private SketchMergers() {}
+
+  /**
+   * Merges theta sketches with the default update seed.
+   * @param nomEntries the nominal entries of the union
+   * @return a merger of theta sketches
+   */
+  public static SketchMerger<Sketch, Union, CompactSketch> theta(final int nomEntries) {
+    return theta(nomEntries, DEFAULT_UPDATE_SEED);
+  }
+
+  /**
+   * Merges theta sketches.
+   * @param nomEntries the nominal entries of the union
+   * @param seed the update seed of the sketches
+   * @return a merger of theta sketches
+   */
+  public static SketchMerger<Sketch, Union, CompactSketch> theta(final int nomEntries, final long seed) {
+    return new ThetaMerger<Sketch>(nomEntries, seed) {
+      @Override
+      public void update(final Union union, final Sketch input) {
+        union.union(input);
+      }
+    };
+  }
+
+  /**
+   * Merges Memory images of theta sketches without heapifying them.
+   * @param nomEntries the nominal entries of the union
+   * @param seed the update seed of the sketches
+   * @return a merger of Memory images of theta sketches
+   */
+  public static SketchMerger<Memory, Union, CompactSketch> thetaImages(final int nomEntries, final long seed) {
+    return new ThetaMerger<Memory>(nomEntries, seed) {
+      @Override
+      public void update(final Union union, final Memory input) {
+        union.union(input);
+      }
+    };
+  }
+
+  /**
+   * Merges HLL sketches.
+   * @param lgMaxK the maximum log2 of K of the union
+   * @param tgtHllType the type of the result
+   * @return a merger of HLL sketches
+   */
+  public static SketchMerger<HllSketch, org.apache.datasketches.hll.Union, HllSketch> hll(final int lgMaxK,
+      final TgtHllType tgtHllType) {
+    return new SketchMerger<HllSketch, org.apache.datasketches.hll.Union, HllSketch>() {
+      @Override
+      public org.apache.datasketches.hll.Union newUnion() {
+        return new org.apache.datasketches.hll.Union(lgMaxK);
+      }
+
+      @Override
+      public void update(final org.apache.datasketches.hll.Union union, final HllSketch input) {
+        union.update(input);
+      }
+
+      @Override
+      public void merge(final org.apache.datasketches.hll.Union union, final org.apache.datasketches.hll.Union other) {
+        union.update(other.getResult(TgtHllType.HLL_8)); // the type of the union itself, so nothing is lost
+      }
+
+      @Override
+      public HllSketch getResult(final org.apache.datasketches.hll.Union union) {
+        return union.getResult(tgtHllType);
+      }
+    };
+  }
+
+  /**
+   * Merges CPC sketches with the default update seed.
+   * @param lgK the log2 of K of the union
+   * @return a merger of CPC sketches
+   */
+  public static SketchMerger<CpcSketch, CpcUnion, CpcSketch> cpc(final int lgK) {
+    return cpc(lgK, DEFAULT_UPDATE_SEED);
+  }
+
+  /**
+   * Merges CPC sketches.
+   * @param lgK the log2 of K of the union
+   * @param seed the update seed of the sketches
+   * @return a merger of CPC sketches
+   */
+  public static SketchMerger<CpcSketch, CpcUnion, CpcSketch> cpc(final int lgK, final long seed) {
+    return new SketchMerger<CpcSketch, CpcUnion, CpcSketch>() {
+      @Override
+      public CpcUnion newUnion() {
+        return new CpcUnion(lgK, seed);
+      }
+
+      @Override
+      public void update(final CpcUnion union, final CpcSketch input) {
+        union.update(input);
+      }
+
+      @Override
+      public void merge(final CpcUnion union, final CpcUnion other) {
+        union.update(other.getResult());
+      }
+
+      @Override
+      public CpcSketch getResult(final CpcUnion union) {
+        return union.getResult();
+      }
+    };
+  }
+
+  /**
+   * Merges KLL doubles sketches into a heap sketch.
+   * @param k the K of the result
+   * @return a merger of KLL doubles sketches
+   */
+  public static SketchMerger<KllDoublesSketch, KllDoublesSketch, KllDoublesSketch> kllDoubles(final int k) {
+    return new SelfMerger<KllDoublesSketch>() {
+      @Override
+      public KllDoublesSketch newUnion() {
+        return KllDoublesSketch.newHeapInstance(k);
+      }
+
+      @Override
+      public void update(final KllDoublesSketch union, final KllDoublesSketch input) {
+        union.merge(input);
+      }
+    };
+  }
+
+  /**
+   * Merges KLL floats sketches into a heap sketch.
+   * @param k the K of the result
+   * @return a merger of KLL floats sketches
+   */
+  public static SketchMerger<KllFloatsSketch, KllFloatsSketch, KllFloatsSketch> kllFloats(final int k) {
+    return new SelfMerger<KllFloatsSketch>() {
+      @Override
+      public KllFloatsSketch newUnion() {
+        return KllFloatsSketch.newHeapInstance(k);
+      }
+
+      @Override
+      public void update(final KllFloatsSketch union, final KllFloatsSketch input) {
+        union.merge(input);
+      }
+    };
+  }
+
+  /**
+   * Merges REQ sketches.
+   * @param k the K of the result
+   * @param highRankAccuracy the HighRankAccuracy setting, which must match that of the inputs
+   * @return a merger of REQ sketches
+   */
+  public static SketchMerger<ReqSketch, ReqSketch, ReqSketch> req(final int k, final boolean highRankAccuracy) {
+    return new SelfMerger<ReqSketch>() {
+      @Override
+      public ReqSketch newUnion() {
+        return ReqSketch.builder().setK(k).setHighRankAccuracy(highRankAccuracy).build();
+      }
+
+      @Override
+      public void update(final ReqSketch union, final ReqSketch input) {
+        union.merge(input);
+      }
+    };
+  }
+
+  /**
+   * Merges tuple sketches.
+   * @param <S> the type of the summary
+   * @param nomEntries the nominal entries of the union
+   * @param summarySetOps the operations to combine summaries
+   * @return a merger of tuple sketches
+   */
+  public static <S extends Summary> SketchMerger<org.apache.datasketches.tuple.Sketch<S>,
+      org.apache.datasketches.tuple.Union<S>, org.apache.datasketches.tuple.CompactSketch<S>>
+      tuple(final int nomEntries, final SummarySetOperations<S> summarySetOps) {
+    return new SketchMerger<org.apache.datasketches.tuple.Sketch<S>, org.apache.datasketches.tuple.Union<S>,
+        org.apache.datasketches.tuple.CompactSketch<S>>() {
+      @Override
+      public org.apache.datasketches.tuple.Union<S> newUnion() {
+        return new org.apache.datasketches.tuple.Union<>(nomEntries, summarySetOps);
+      }
+
+      @Override
+      public void update(final org.apache.datasketches.tuple.Union<S> union,
+          final org.apache.datasketches.tuple.Sketch<S> input) {
+        union.union(input);
+      }
+
+      @Override
+      public void merge(final org.apache.datasketches.tuple.Union<S> union,
+          final org.apache.datasketches.tuple.Union<S> other) {
+        union.union(other.getResult());
+      }
+
+      @Override
+      public org.apache.datasketches.tuple.CompactSketch<S> getResult(final org.apache.datasketches.tuple.Union<S> union) {
+        return union.getResult();
+      }
+    };
+  }
+
+  /**
+   * Merges frequent longs sketches.
+   * @param maxMapSize the maximum map size of the result
+   * @return a merger of frequent longs sketches
+   */
+  public static SketchMerger<LongsSketch, LongsSketch, LongsSketch> frequentLongs(final int maxMapSize) {
+    return new SelfMerger<LongsSketch>() {
+      @Override
+      public LongsSketch newUnion() {
+        return new LongsSketch(maxMapSize);
+      }
+
+      @Override
+      public void update(final LongsSketch union, final LongsSketch input) {
+        union.merge(input);
+      }
+    };
+  }
+
+  /**
+   * Merges frequent items sketches.
+   * @param <T> the type of the items
+   * @param maxMapSize the maximum map size of the result
+   * @return a merger of frequent items sketches
+   */
+  public static <T> SketchMerger<ItemsSketch<T>, ItemsSketch<T>, ItemsSketch<T>> frequentItems(final int maxMapSize) {
+    return new SelfMerger<ItemsSketch<T>>() {
+      @Override
+      public ItemsSketch<T> newUnion() {
+        return new ItemsSketch<>(maxMapSize);
+      }
+
+      @Override
+      public void update(final ItemsSketch<T> union, final ItemsSketch<T> input) {
+        union.merge(input);
+      }
+    };
+  }
+
+  private abstract static class ThetaMerger<T> implements SketchMerger<T, Union, CompactSketch> {
+    private final int nomEntries;
+    private final long seed;
+
+    ThetaMerger(final int nomEntries, final long seed) {
+      this.nomEntries = nomEntries;
+      this.seed = seed;
+    }
+
+    @Override
+    public Union newUnion() {
+      return SetOperation.builder().setNominalEntries(nomEntries).setSeed(seed).buildUnion();
+    }
+
+    @Override
+    public void merge(final Union union, final Union other) {
+      union.union(other.getResult());
+    }
+
+    @Override
+    public CompactSketch getResult(final Union union) {
+      return union.getResult();
+    }
+  }
+
+  // for the sketches that are their own merge target, so the result is the union itself
+  private abstract static class SelfMerger<S> implements SketchMerger<S, S, S> {
+    @Override
+    public void merge(final S union, final S other) {
+      update(union, other);
+    }
+
+    @Override
+    public S getResult(final S union) {
+      return union;
+    }
+  }
+
+}
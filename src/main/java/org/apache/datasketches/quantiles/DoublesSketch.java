@@ -191,12 +191,7 @@ public abstract class DoublesSketch implements QuantilesDoublesAPI {
   public double[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int len = ranks.length;
-    final double[] quantiles = new double[len];
-    for (int i = 0; i < len; i++) {
-      quantiles[i] = doublesSV.getQuantile(ranks[i], searchCrit);
-    }
-    return quantiles;
+    return doublesSV.getQuantiles(ranks, searchCrit);
   }
 
   /**
@@ -250,12 +245,7 @@ public abstract class DoublesSketch implements QuantilesDoublesAPI {
   public double[] getRanks(final double[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = doublesSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return doublesSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
@@ -338,12 +338,7 @@ public final class ItemsSketch<T> implements QuantilesGenericAPI<T> {
   public double[] getRanks(final T[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = classicQisSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return classicQisSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
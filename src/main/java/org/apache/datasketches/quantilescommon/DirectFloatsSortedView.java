@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+import static org.apache.datasketches.quantilescommon.QuantilesUtil.getNaturalRank;
+import static org.apache.datasketches.quantilescommon.SortedViewPreambleUtil.DATA_START;
+import static org.apache.datasketches.quantilescommon.SortedViewPreambleUtil.FLOATS_TYPE;
+import static org.apache.datasketches.quantilescommon.SortedViewPreambleUtil.MAX_DOUBLE;
+import static org.apache.datasketches.quantilescommon.SortedViewPreambleUtil.MIN_DOUBLE;
+import static org.apache.datasketches.quantilescommon.SortedViewPreambleUtil.N_LONG;
+
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * A read-only FloatsSortedView that answers queries directly from a serialized sorted view snapshot in Memory.
+ *
+ * <p>A snapshot is created once from the sorted view of an immutable sketch with {@link #toByteArray(FloatsSortedView)}
+ * or {@link #putMemory(FloatsSortedView, WritableMemory)}. The {@link #wrap(Memory)} of a snapshot, for example in a
+ * memory-mapped file, does not copy the quantiles or cumulative weights to the heap.
+ * Ranks and quantiles are found with binary searches on the Memory.</p>
+ */
+public final class DirectFloatsSortedView implements FloatsSortedView {
+  private static final int ITEM_BYTES = Float.BYTES;
+  private final Memory mem;
+  private final int numRetained;
+  private final long totalN;
+  private final float minItem;
+  private final float maxItem;
+  private final long quantilesOffset;
+
+  private DirectFloatsSortedView(final Memory mem, final int numRetained) {
+    this.mem = mem;
+    this.numRetained = numRetained;
+    this.totalN = mem.getLong(N_LONG);
+    this.minItem = (float) mem.getDouble(MIN_DOUBLE);
+    this.maxItem = (float) mem.getDouble(MAX_DOUBLE);
+    this.quantilesOffset = DATA_START + (long) numRetained * Long.BYTES;
+  }
+
+  /**
+   * Wraps the given Memory, which must hold a snapshot created by this class.
+   * The Memory is only read, and must not be modified while this view is in use.
+   * @param srcMem the Memory holding the snapshot
+   * @return a DirectFloatsSortedView backed by the given Memory
+   */
+  public static DirectFloatsSortedView wrap(final Memory srcMem) {
+    Objects.requireNonNull(srcMem, "Parameter 'srcMem' must not be null");
+    final int numRetained = SortedViewPreambleUtil.checkPreamble(srcMem, FLOATS_TYPE, ITEM_BYTES);
+    return new DirectFloatsSortedView(srcMem, numRetained);
+  }
+
+  /**
+   * Returns the number of bytes required to store a snapshot of the given sorted view.
+   * @param sv the given sorted view
+   * @return the number of bytes required to store a snapshot of the given sorted view
+   */
+  public static long getSerializedSizeBytes(final FloatsSortedView sv) {
+    return SortedViewPreambleUtil.getSerializedSizeBytes(sv.getNumRetained(), ITEM_BYTES);
+  }
+
+  /**
+   * Returns a snapshot of the given sorted view as a byte array.
+   * @param sv the given sorted view, which must not be empty
+   * @return a snapshot of the given sorted view as a byte array
+   */
+  public static byte[] toByteArray(final FloatsSortedView sv) {
+    final long bytes = getSerializedSizeBytes(sv);
+    if (bytes > Integer.MAX_VALUE) {
+      throw new SketchesArgumentException("Snapshot of " + bytes + " bytes does not fit in a byte array");
+    }
+    final byte[] arr = new byte[(int) bytes];
+    putMemory(sv, WritableMemory.writableWrap(arr));
+    return arr;
+  }
+
+  /**
+   * Writes a snapshot of the given sorted view into the given WritableMemory, starting at offset zero.
+   * @param sv the given sorted view, which must not be empty
+   * @param dstMem the destination, with a capacity of at least {@link #getSerializedSizeBytes(FloatsSortedView)}
+   */
+  public static void putMemory(final FloatsSortedView sv, final WritableMemory dstMem) {
+    Objects.requireNonNull(sv, "Parameter 'sv' must not be null");
+    Objects.requireNonNull(dstMem, "Parameter 'dstMem' must not be null");
+    if (sv.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final long bytes = getSerializedSizeBytes(sv);
+    if (dstMem.getCapacity() < bytes) {
+      throw new SketchesArgumentException("Memory capacity " + dstMem.getCapacity() + " is less than required "
+          + bytes);
+    }
+    final int numRetained = sv.getNumRetained();
+    SortedViewPreambleUtil.putPreamble(dstMem, FLOATS_TYPE, numRetained, sv.getN(), sv.getMinItem(), sv.getMaxItem());
+    dstMem.putLongArray(DATA_START, sv.getCumulativeWeights(), 0, numRetained);
+    dstMem.putFloatArray(DATA_START + (long) numRetained * Long.BYTES, sv.getQuantiles(), 0, numRetained);
+  }
+
+  @Override
+  public long[] getCumulativeWeights() {
+    final long[] cumWeights = new long[numRetained];
+    mem.getLongArray(DATA_START, cumWeights, 0, numRetained);
+    return cumWeights;
+  }
+
+  @Override
+  public float getMaxItem() {
+    return maxItem;
+  }
+
+  @Override
+  public float getMinItem() {
+    return minItem;
+  }
+
+  @Override
+  public long getN() {
+    return totalN;
+  }
+
+  @Override
+  public int getNumRetained() {
+    return numRetained;
+  }
+
+  @Override
+  public float getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    QuantilesUtil.checkNormalizedRankBounds(rank);
+    final double naturalRank = getNaturalRank(rank, totalN, searchCrit);
+    //the first index with a cumulative weight >= naturalRank (INCLUSIVE) or > naturalRank (EXCLUSIVE)
+    int lo = 0;
+    int hi = numRetained;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final long cumWeight = mem.getLong(DATA_START + (long) mid * Long.BYTES);
+      if ((searchCrit == INCLUSIVE) ? cumWeight < naturalRank : cumWeight <= naturalRank) { lo = mid + 1; }
+      else { hi = mid; }
+    }
+    final int index = (lo == numRetained) ? numRetained - 1 : lo; //EXCLUSIVE (GT) case: normRank == 1.0
+    return mem.getFloat(quantilesOffset + (long) index * ITEM_BYTES);
+  }
+
+  @Override
+  public float[] getQuantiles() {
+    final float[] quantiles = new float[numRetained];
+    mem.getFloatArray(quantilesOffset, quantiles, 0, numRetained);
+    return quantiles;
+  }
+
+  @Override
+  public double getRank(final float quantile, final QuantileSearchCriteria searchCrit) {
+    if (Float.isNaN(quantile)) { throw new SketchesArgumentException("Input quantile must not be NaN."); }
+    //the number of retained items <= quantile (INCLUSIVE) or < quantile (EXCLUSIVE)
+    int lo = 0;
+    int hi = numRetained;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final float item = mem.getFloat(quantilesOffset + (long) mid * ITEM_BYTES);
+      if ((searchCrit == INCLUSIVE) ? item <= quantile : item < quantile) { lo = mid + 1; }
+      else { hi = mid; }
+    }
+    if (lo == 0) {
+      return 0; //EXCLUSIVE (LT) case: quantile <= minQuantile; INCLUSIVE (LE) case: quantile < minQuantile
+    }
+    return (double) mem.getLong(DATA_START + (long) (lo - 1) * Long.BYTES) / totalN;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  @Override
+  public FloatsSortedViewIterator iterator() {
+    return new FloatsSortedViewIterator(getQuantiles(), getCumulativeWeights());
+  }
+
+}
@@ -98,6 +98,18 @@ public final class DoublesSketchSortedView implements DoublesSortedView {
     return quantiles.clone();
   }
 
+  @Override
+  public double[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int len = ranks.length;
+    final double[] quants = new double[len];
+    final int[] indexes = QuantilesUtil.getQuantileIndexes(cumWeights, totalN, ranks, searchCrit);
+    for (int i = 0; i < len; i++) {
+      quants[i] = quantiles[indexes[i]];
+    }
+    return quants;
+  }
+
   @Override
   public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
@@ -110,6 +122,12 @@ public final class DoublesSketchSortedView implements DoublesSortedView {
     return (double)cumWeights[index] / totalN;
   }
 
+  @Override
+  public double[] getRanks(final double[] quantiles, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    return QuantilesUtil.getRanks(this.quantiles, cumWeights, totalN, quantiles, searchCrit);
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
@@ -19,6 +19,8 @@
 
 package org.apache.datasketches.quantilescommon;
 
+import java.util.Arrays;
+
 /**
  * The Sorted View for quantile sketches of primitive type double.
  * @see SortedView
@@ -63,10 +65,7 @@ public interface DoublesSortedView extends SortedView {
   default double[] getCDF(double[] splitPoints, QuantileSearchCriteria searchCrit) {
     QuantilesUtil.checkDoublesSplitPointsOrder(splitPoints);
     final int len = splitPoints.length + 1;
-    final double[] buckets = new double[len];
-    for (int i = 0; i < len - 1; i++) {
-      buckets[i] = getRank(splitPoints[i], searchCrit);
-    }
+    final double[] buckets = Arrays.copyOf(getRanks(splitPoints, searchCrit), len);
     buckets[len - 1] = 1.0;
     return buckets;
   }
@@ -158,6 +157,25 @@ public interface DoublesSortedView extends SortedView {
    */
   double[] getQuantiles();
 
+  /**
+   * Gets the approximate quantiles of the given normalized ranks and the given search criterion.
+   * If the ranks are in non-decreasing order, implementations may resolve them in a single pass.
+   *
+   * @param ranks the given array of normalized ranks, each in the range [0.0, 1.0].
+   * @param searchCrit the desired search criteria.
+   * @return an array of quantiles corresponding to the given array of normalized ranks.
+   * @throws IllegalArgumentException if sketch is empty.
+   * @see #getQuantile(double, QuantileSearchCriteria)
+   */
+  default double[] getQuantiles(double[] ranks, QuantileSearchCriteria searchCrit) {
+    final int len = ranks.length;
+    final double[] quantiles = new double[len];
+    for (int i = 0; i < len; i++) {
+      quantiles[i] = getQuantile(ranks[i], searchCrit);
+    }
+    return quantiles;
+  }
+
   /**
    * Gets the normalized rank corresponding to the given a quantile.
    *
@@ -169,6 +187,25 @@ public interface DoublesSortedView extends SortedView {
    */
   double getRank(double quantile, QuantileSearchCriteria searchCrit);
 
+  /**
+   * Gets the normalized ranks corresponding to the given array of quantiles and the given search criterion.
+   * If the quantiles are in non-decreasing order, implementations may resolve them in a single pass.
+   *
+   * @param quantiles the given array of quantiles
+   * @param searchCrit the desired search criteria.
+   * @return an array of normalized ranks corresponding to the given array of quantiles.
+   * @throws IllegalArgumentException if sketch is empty.
+   * @see #getRank(double, QuantileSearchCriteria)
+   */
+  default double[] getRanks(double[] quantiles, QuantileSearchCriteria searchCrit) {
+    final int len = quantiles.length;
+    final double[] ranks = new double[len];
+    for (int i = 0; i < len; i++) {
+      ranks[i] = getRank(quantiles[i], searchCrit);
+    }
+    return ranks;
+  }
+
   @Override
   DoublesSortedViewIterator iterator();
 
@@ -160,6 +160,25 @@ public interface GenericSortedView<T> extends PartitioningFeature<T>, SortedView
    */
   double getRank(T quantile, QuantileSearchCriteria searchCrit);
 
+  /**
+   * Gets the normalized ranks corresponding to the given array of quantiles and the given search criterion.
+   * If the quantiles are in non-decreasing order, implementations may resolve them in a single pass.
+   *
+   * @param quantiles the given array of quantiles
+   * @param searchCrit the desired search criteria.
+   * @return an array of normalized ranks corresponding to the given array of quantiles.
+   * @throws IllegalArgumentException if sketch is empty.
+   * @see #getRank(Object, QuantileSearchCriteria)
+   */
+  default double[] getRanks(T[] quantiles, QuantileSearchCriteria searchCrit) {
+    final int len = quantiles.length;
+    final double[] ranks = new double[len];
+    for (int i = 0; i < len; i++) {
+      ranks[i] = getRank(quantiles[i], searchCrit);
+    }
+    return ranks;
+  }
+
   @Override
   GenericSortedViewIterator<T> iterator();
 
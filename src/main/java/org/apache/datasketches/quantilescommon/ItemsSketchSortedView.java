@@ -26,6 +26,7 @@ import static org.apache.datasketches.quantilescommon.QuantilesUtil.evenlySpaced
 import static org.apache.datasketches.quantilescommon.QuantilesUtil.getNaturalRank;
 
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Comparator;
 
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -84,10 +85,7 @@ public class ItemsSketchSortedView<T> implements GenericSortedView<T> {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     GenericSortedView.validateItems(splitPoints, comparator);
     final int len = splitPoints.length + 1;
-    final double[] buckets = new double[len];
-    for (int i = 0; i < len - 1; i++) {
-      buckets[i] = getRank(splitPoints[i], searchCrit);
-    }
+    final double[] buckets = Arrays.copyOf(getRanks(splitPoints, searchCrit), len);
     buckets[len - 1] = 1.0;
     return buckets;
   }
@@ -248,8 +246,9 @@ public class ItemsSketchSortedView<T> implements GenericSortedView<T> {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     final int len = ranks.length;
     final T[] quants = (T[]) Array.newInstance(clazz, len);
+    final int[] indexes = QuantilesUtil.getQuantileIndexes(cumWeights, totalN, ranks, searchCrit);
     for (int i = 0; i < len; i++) {
-      quants[i] = getQuantile(ranks[i], searchCrit);
+      quants[i] = quantiles[indexes[i]];
     }
     return quants;
   }
@@ -271,6 +270,12 @@ public class ItemsSketchSortedView<T> implements GenericSortedView<T> {
     return (double)cumWeights[index] / totalN;
   }
 
+  @Override
+  public double[] getRanks(final T[] quantiles, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    return QuantilesUtil.getRanks(this.quantiles, cumWeights, totalN, quantiles, searchCrit, comparator);
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
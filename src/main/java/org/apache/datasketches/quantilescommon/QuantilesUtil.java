@@ -23,10 +23,12 @@ import static java.lang.Math.log;
 import static java.lang.Math.pow;
 import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
 
+import java.util.Comparator;
 import java.util.Objects;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.quantilescommon.GenericInequalitySearch.Inequality;
 
 /**
  * Utilities for the quantiles sketches.
@@ -222,5 +224,196 @@ public final class QuantilesUtil {
     return (searchCrit == INCLUSIVE) ? (long)Math.ceil(naturalRank) : (long)Math.floor(naturalRank);
   }
 
-}
+  //Batch evaluation against the arrays of a sorted view
+
+  /**
+   * Returns the indexes into the given cumulative weights of a sorted view that answer each of the given
+   * normalized ranks, as getQuantile(rank, searchCrit) of the sorted view would.
+   *
+   * <p>If the ranks are in non-decreasing order and there are enough of them, all ranks are resolved in a single
+   * merge-style sweep over the cumulative weights in <i>O(n + m)</i> time. Otherwise each rank is resolved with
+   * a binary search in <i>O(m log n)</i> time.</p>
+   *
+   * @param cumWeights the cumulative natural weights of the sorted view, of length <i>n</i>.
+   * @param totalN the total number of items presented to the sketch.
+   * @param ranks the given normalized ranks, of length <i>m</i>.
+   * @param searchCrit the desired search criteria.
+   * @return the index of the quantile of the sorted view for each given rank.
+   */
+  public static int[] getQuantileIndexes(final long[] cumWeights, final long totalN, final double[] ranks,
+      final QuantileSearchCriteria searchCrit) {
+    final int len = cumWeights.length;
+    final int numRanks = ranks.length;
+    final int[] indexes = new int[numRanks];
+    if (isSweepCheaper(numRanks, len) && isNonDecreasing(ranks)) {
+      int j = 0;
+      for (int i = 0; i < numRanks; i++) {
+        checkNormalizedRankBounds(ranks[i]);
+        final double naturalRank = getNaturalRank(ranks[i], totalN, searchCrit);
+        if (searchCrit == INCLUSIVE) {
+          while (j < len && cumWeights[j] < naturalRank) { j++; }
+        } else {
+          while (j < len && cumWeights[j] <= naturalRank) { j++; }
+        }
+        indexes[i] = (j == len) ? len - 1 : j; //EXCLUSIVE (GT) case: normRank == 1.0
+      }
+    } else {
+      final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.GE : InequalitySearch.GT;
+      for (int i = 0; i < numRanks; i++) {
+        checkNormalizedRankBounds(ranks[i]);
+        final double naturalRank = getNaturalRank(ranks[i], totalN, searchCrit);
+        final int index = InequalitySearch.find(cumWeights, 0, len - 1, naturalRank, crit);
+        indexes[i] = (index == -1) ? len - 1 : index;
+      }
+    }
+    return indexes;
+  }
+
+  /**
+   * Returns the normalized ranks of the given quantiles against the arrays of a sorted view,
+   * as getRank(quantile, searchCrit) of the sorted view would.
+   *
+   * <p>If the quantiles are in non-decreasing order and there are enough of them, all quantiles are resolved in a
+   * single merge-style sweep over the sorted view in <i>O(n + m)</i> time. Otherwise each quantile is resolved with
+   * a binary search in <i>O(m log n)</i> time.</p>
+   *
+   * @param svQuantiles the sorted quantiles of the sorted view, of length <i>n</i>.
+   * @param cumWeights the cumulative natural weights of the sorted view.
+   * @param totalN the total number of items presented to the sketch.
+   * @param quantiles the given quantiles, of length <i>m</i>.
+   * @param searchCrit the desired search criteria.
+   * @return the normalized rank of each given quantile.
+   */
+  public static double[] getRanks(final double[] svQuantiles, final long[] cumWeights, final long totalN,
+      final double[] quantiles, final QuantileSearchCriteria searchCrit) {
+    final int len = svQuantiles.length;
+    final int numQuantiles = quantiles.length;
+    final double[] ranks = new double[numQuantiles];
+    if (isSweepCheaper(numQuantiles, len) && isNonDecreasing(quantiles)) {
+      int j = 0; //number of retained items <= (INCLUSIVE) or < (EXCLUSIVE) the current quantile
+      for (int i = 0; i < numQuantiles; i++) {
+        final double quantile = quantiles[i];
+        if (searchCrit == INCLUSIVE) {
+          while (j < len && svQuantiles[j] <= quantile) { j++; }
+        } else {
+          while (j < len && svQuantiles[j] < quantile) { j++; }
+        }
+        ranks[i] = (j == 0) ? 0 : (double)cumWeights[j - 1] / totalN;
+      }
+    } else {
+      final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.LE : InequalitySearch.LT;
+      for (int i = 0; i < numQuantiles; i++) {
+        final int index = InequalitySearch.find(svQuantiles, 0, len - 1, quantiles[i], crit);
+        ranks[i] = (index == -1) ? 0 : (double)cumWeights[index] / totalN;
+      }
+    }
+    return ranks;
+  }
+
+  /**
+   * Returns the normalized ranks of the given quantiles against the arrays of a sorted view,
+   * as getRank(quantile, searchCrit) of the sorted view would.
+   * @param svQuantiles the sorted quantiles of the sorted view, of length <i>n</i>.
+   * @param cumWeights the cumulative natural weights of the sorted view.
+   * @param totalN the total number of items presented to the sketch.
+   * @param quantiles the given quantiles, of length <i>m</i>.
+   * @param searchCrit the desired search criteria.
+   * @return the normalized rank of each given quantile.
+   * @see #getRanks(double[], long[], long, double[], QuantileSearchCriteria)
+   */
+  public static double[] getRanks(final float[] svQuantiles, final long[] cumWeights, final long totalN,
+      final float[] quantiles, final QuantileSearchCriteria searchCrit) {
+    final int len = svQuantiles.length;
+    final int numQuantiles = quantiles.length;
+    final double[] ranks = new double[numQuantiles];
+    if (isSweepCheaper(numQuantiles, len) && isNonDecreasing(quantiles)) {
+      int j = 0; //number of retained items <= (INCLUSIVE) or < (EXCLUSIVE) the current quantile
+      for (int i = 0; i < numQuantiles; i++) {
+        final float quantile = quantiles[i];
+        if (searchCrit == INCLUSIVE) {
+          while (j < len && svQuantiles[j] <= quantile) { j++; }
+        } else {
+          while (j < len && svQuantiles[j] < quantile) { j++; }
+        }
+        ranks[i] = (j == 0) ? 0 : (double)cumWeights[j - 1] / totalN;
+      }
+    } else {
+      final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.LE : InequalitySearch.LT;
+      for (int i = 0; i < numQuantiles; i++) {
+        final int index = InequalitySearch.find(svQuantiles, 0, len - 1, quantiles[i], crit);
+        ranks[i] = (index == -1) ? 0 : (double)cumWeights[index] / totalN;
+      }
+    }
+    return ranks;
+  }
+
+  /**
+   * Returns the normalized ranks of the given quantiles against the arrays of a sorted view,
+   * as getRank(quantile, searchCrit) of the sorted view would.
+   * @param <T> the item type
+   * @param svQuantiles the sorted quantiles of the sorted view, of length <i>n</i>.
+   * @param cumWeights the cumulative natural weights of the sorted view.
+   * @param totalN the total number of items presented to the sketch.
+   * @param quantiles the given quantiles, of length <i>m</i>.
+   * @param searchCrit the desired search criteria.
+   * @param comparator the Comparator for type T
+   * @return the normalized rank of each given quantile.
+   * @see #getRanks(double[], long[], long, double[], QuantileSearchCriteria)
+   */
+  public static <T> double[] getRanks(final T[] svQuantiles, final long[] cumWeights, final long totalN,
+      final T[] quantiles, final QuantileSearchCriteria searchCrit, final Comparator<? super T> comparator) {
+    final int len = svQuantiles.length;
+    final int numQuantiles = quantiles.length;
+    final double[] ranks = new double[numQuantiles];
+    if (isSweepCheaper(numQuantiles, len) && isNonDecreasing(quantiles, comparator)) {
+      int j = 0; //number of retained items <= (INCLUSIVE) or < (EXCLUSIVE) the current quantile
+      for (int i = 0; i < numQuantiles; i++) {
+        final T quantile = quantiles[i];
+        if (searchCrit == INCLUSIVE) {
+          while (j < len && comparator.compare(svQuantiles[j], quantile) <= 0) { j++; }
+        } else {
+          while (j < len && comparator.compare(svQuantiles[j], quantile) < 0) { j++; }
+        }
+        ranks[i] = (j == 0) ? 0 : (double)cumWeights[j - 1] / totalN;
+      }
+    } else {
+      final Inequality crit = (searchCrit == INCLUSIVE) ? Inequality.LE : Inequality.LT;
+      for (int i = 0; i < numQuantiles; i++) {
+        final int index = GenericInequalitySearch.find(svQuantiles, 0, len - 1, quantiles[i], crit, comparator);
+        ranks[i] = (index == -1) ? 0 : (double)cumWeights[index] / totalN;
+      }
+    }
+    return ranks;
+  }
+
+  /**
+   * Returns true if one sweep over <i>svLen</i> retained items is cheaper than
+   * <i>numQueries</i> binary searches over them.
+   */
+  private static boolean isSweepCheaper(final int numQueries, final int svLen) {
+    return (long)numQueries * (32 - Integer.numberOfLeadingZeros(svLen)) >= svLen;
+  }
 
+  private static boolean isNonDecreasing(final double[] values) {
+    for (int i = 1; i < values.length; i++) {
+      if (!(values[i - 1] <= values[i])) { return false; } //also false for NaN
+    }
+    return true;
+  }
+
+  private static boolean isNonDecreasing(final float[] values) {
+    for (int i = 1; i < values.length; i++) {
+      if (!(values[i - 1] <= values[i])) { return false; } //also false for NaN
+    }
+    return true;
+  }
+
+  private static <T> boolean isNonDecreasing(final T[] values, final Comparator<? super T> comparator) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) { return false; } //let the binary search reject it
+      if (i > 0 && comparator.compare(values[i - 1], values[i]) > 0) { return false; }
+    }
+    return true;
+  }
+
+}
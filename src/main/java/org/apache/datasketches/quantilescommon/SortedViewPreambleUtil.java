@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * This class defines the serialized form of a sorted view snapshot, which is shared by
+ * DirectDoublesSortedView and DirectFloatsSortedView.
+ *
+ * <p>A snapshot holds the precomputed arrays of a non-empty sorted view, so that a query-only
+ * consumer can answer rank and quantile queries directly from the Memory without rebuilding them.
+ * The multi-byte primitives are stored in native byte order.
+ * The min and max items are stored as doubles for both types.</p>
+ *
+ * <pre>{@code
+ * Long Adr:  Byte Adr ->
+ *    0     ||       0       |    1   |   2   |   3    |   4   |   5   |   6   |   7   |
+ *          || PreambleLongs | SerVer | Type  | unused |----------NumRetained----------|
+ *
+ *    1     ||       8       |    9   |  10   |   11   |  12   |  13   |  14   |  15   |
+ *          ||------------------------------------N------------------------------------|
+ *
+ *    2     ||      16       |   17   |  18   |   19   |  20   |  21   |  22   |  23   |
+ *          ||-------------------------------MinItem (double)--------------------------|
+ *
+ *    3     ||      24       |   25   |  26   |   27   |  28   |  29   |  30   |  31   |
+ *          ||-------------------------------MaxItem (double)--------------------------|
+ *
+ *          ||      32       |
+ *          ||{cumWeights: NumRetained longs}{quantiles: NumRetained doubles or floats}
+ * }</pre>
+ */
+final class SortedViewPreambleUtil {
+
+  private SortedViewPreambleUtil() {}
+
+  static final int PREAMBLE_LONGS = 4;
+  static final int SERIAL_VERSION = 1;
+  static final int DOUBLES_TYPE = 1;
+  static final int FLOATS_TYPE = 2;
+
+  static final int PREAMBLE_LONGS_BYTE = 0;
+  static final int SERIAL_VERSION_BYTE = 1;
+  static final int TYPE_BYTE = 2;
+  static final int NUM_RETAINED_INT = 4;
+  static final int N_LONG = 8;
+  static final int MIN_DOUBLE = 16;
+  static final int MAX_DOUBLE = 24;
+  static final int DATA_START = 32;
+
+  static long getSerializedSizeBytes(final int numRetained, final int itemBytes) {
+    return DATA_START + (long) numRetained * (Long.BYTES + itemBytes);
+  }
+
+  static void putPreamble(final WritableMemory wmem, final int type, final int numRetained, final long n,
+      final double minItem, final double maxItem) {
+    wmem.putByte(PREAMBLE_LONGS_BYTE, (byte) PREAMBLE_LONGS);
+    wmem.putByte(SERIAL_VERSION_BYTE, (byte) SERIAL_VERSION);
+    wmem.putByte(TYPE_BYTE, (byte) type);
+    wmem.putInt(NUM_RETAINED_INT, numRetained);
+    wmem.putLong(N_LONG, n);
+    wmem.putDouble(MIN_DOUBLE, minItem);
+    wmem.putDouble(MAX_DOUBLE, maxItem);
+  }
+
+  /**
+   * Checks the preamble of a snapshot of the given type and returns the number of retained items.
+   * @param mem the Memory holding the snapshot
+   * @param type the expected type
+   * @param itemBytes the size of one quantile in bytes
+   * @return the number of retained items
+   */
+  static int checkPreamble(final Memory mem, final int type, final int itemBytes) {
+    if (mem.getCapacity() < DATA_START) {
+      throw new SketchesArgumentException("Memory capacity " + mem.getCapacity() + " is less than the preamble size "
+          + DATA_START);
+    }
+    final int preambleLongs = mem.getByte(PREAMBLE_LONGS_BYTE) & 0XFF;
+    if (preambleLongs != PREAMBLE_LONGS) {
+      throw new SketchesArgumentException("Preamble longs mismatch: expected " + PREAMBLE_LONGS + ", actual "
+          + preambleLongs);
+    }
+    final int serialVersion = mem.getByte(SERIAL_VERSION_BYTE) & 0XFF;
+    if (serialVersion != SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + SERIAL_VERSION + ", actual "
+          + serialVersion);
+    }
+    final int actualType = mem.getByte(TYPE_BYTE) & 0XFF;
+    if (actualType != type) {
+      throw new SketchesArgumentException("Sorted view type mismatch: expected " + type + ", actual " + actualType);
+    }
+    final int numRetained = mem.getInt(NUM_RETAINED_INT);
+    if (numRetained < 1) {
+      throw new SketchesArgumentException("Number of retained items must be positive: " + numRetained);
+    }
+    final long bytes = getSerializedSizeBytes(numRetained, itemBytes);
+    if (mem.getCapacity() < bytes) {
+      throw new SketchesArgumentException("Memory capacity " + mem.getCapacity() + " is less than required "
+          + bytes);
+    }
+    return numRetained;
+  }
+
+}
@@ -266,12 +266,7 @@ public final class ReqSketch extends BaseReqSketch {
   public float[] getQuantiles(final double[] normRanks, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int len = normRanks.length;
-    final float[] qArr = new float[len];
-    for (int i = 0; i < len; i++) {
-      qArr[i] = reqSV.getQuantile(normRanks[i], searchCrit);
-    }
-    return qArr;
+    return reqSV.getQuantiles(normRanks, searchCrit);
   }
 
   /**
@@ -330,12 +325,7 @@ public final class ReqSketch extends BaseReqSketch {
   public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int numQuantiles = quantiles.length;
-    final double[] retArr = new double[numQuantiles];
-    for (int i = 0; i < numQuantiles; i++) {
-      retArr[i] = reqSV.getRank(quantiles[i], searchCrit); //already normalized
-    }
-    return retArr;
+    return reqSV.getRanks(quantiles, searchCrit);
   }
 
   /**
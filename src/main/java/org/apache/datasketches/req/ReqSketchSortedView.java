@@ -118,6 +118,18 @@ public final class ReqSketchSortedView implements FloatsSortedView {
     return quantiles.clone();
   }
 
+  @Override
+  public float[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    final int len = ranks.length;
+    final float[] quants = new float[len];
+    final int[] indexes = QuantilesUtil.getQuantileIndexes(cumWeights, totalN, ranks, searchCrit);
+    for (int i = 0; i < len; i++) {
+      quants[i] = quantiles[indexes[i]];
+    }
+    return quants;
+  }
+
   @Override
   public double getRank(final float quantile, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
@@ -130,6 +142,12 @@ public final class ReqSketchSortedView implements FloatsSortedView {
     return (double)cumWeights[index] / totalN;
   }
 
+  @Override
+  public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    return QuantilesUtil.getRanks(this.quantiles, cumWeights, totalN, quantiles, searchCrit);
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
@@ -79,6 +79,8 @@ public final class ReservoirItemsSketch<T> {
   private long itemsSeen_;               // number of items presented to sketch
   private final ResizeFactor rf_;        // resize factor
   private ArrayList<T> data_;            // stored sampled items
+  private double skipW_;                 // Algorithm L weight, see SamplingUtil
+  private long nextSampleN_;             // items seen when the next item is sampled, 0 if not drawn
 
   private ReservoirItemsSketch(final int k, final ResizeFactor rf) {
     // required due to a theorem about lightness during merging
@@ -320,12 +322,13 @@ public final class ReservoirItemsSketch<T> {
       data_.add(item);
       ++itemsSeen_;
     } else { // code for steady state where we sample randomly
+      if (nextSampleN_ == 0) { initSkip(); }
       ++itemsSeen_;
-      // prob(keep_item) < k / n = reservoirSize_ / itemsSeen_
-      // so multiply to get: keep if rand * itemsSeen_ < reservoirSize_
-      if ((SamplingUtil.rand().nextDouble() * itemsSeen_) < reservoirSize_) {
+      // items between sampled positions are skipped without drawing a random number
+      if (itemsSeen_ == nextSampleN_) {
         final int newSlot = SamplingUtil.rand().nextInt(reservoirSize_);
         data_.set(newSlot, item);
+        advanceSkip();
       }
     }
   }
@@ -341,6 +344,7 @@ public final class ReservoirItemsSketch<T> {
     currItemsAlloc_ = SamplingUtil.getAdjustedSize(reservoirSize_, 1 << initialLgSize);
     data_ = new ArrayList<>(currItemsAlloc_);
     itemsSeen_ = 0;
+    nextSampleN_ = 0;
   }
 
   /**
@@ -594,6 +598,7 @@ public final class ReservoirItemsSketch<T> {
    */
   void forceIncrementItemsSeen(final long inc) {
     itemsSeen_ += inc;
+    nextSampleN_ = 0; // the skip must be drawn afresh for the new number of items
 
     if (itemsSeen_ > MAX_ITEMS_SEEN) {
       throw new SketchesStateException("Sketch has exceeded capacity for total items seen. "
@@ -636,6 +641,22 @@ public final class ReservoirItemsSketch<T> {
     return ris;
   }
 
+  /**
+   * Draws the Algorithm L weight for a full reservoir and the position of the next sampled item.
+   */
+  private void initSkip() {
+    skipW_ = SamplingUtil.initialSkipWeight(itemsSeen_, reservoirSize_);
+    nextSampleN_ = itemsSeen_ + 1 + Math.min(SamplingUtil.nextSkip(skipW_), MAX_ITEMS_SEEN);
+  }
+
+  /**
+   * Draws the position of the next sampled item after the item at itemsSeen_ was sampled.
+   */
+  private void advanceSkip() {
+    skipW_ = SamplingUtil.nextSkipWeight(skipW_, reservoirSize_);
+    nextSampleN_ = itemsSeen_ + 1 + Math.min(SamplingUtil.nextSkip(skipW_), MAX_ITEMS_SEEN);
+  }
+
   /**
    * Increases allocated sampling size by (adjusted) ResizeFactor and copies items from old
    * sampling.
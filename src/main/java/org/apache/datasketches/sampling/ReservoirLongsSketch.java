@@ -74,6 +74,8 @@ public final class ReservoirLongsSketch {
   private long itemsSeen_;             // number of items presented to sketch
   private final ResizeFactor rf_;      // resize factor
   private long[] data_;                // stored sampling items
+  private double skipW_;               // Algorithm L weight, see SamplingUtil
+  private long nextSampleN_;           // items seen when the next item is sampled, 0 if not drawn
 
   /**
    * The basic constructor for building an empty sketch.
@@ -320,16 +322,53 @@ public final class ReservoirLongsSketch {
       data_[(int) itemsSeen_] = item; // since less than reservoir size, cast is safe
       ++itemsSeen_;
     } else { // code for steady state where we sample randomly
+      if (nextSampleN_ == 0) { initSkip(); }
       ++itemsSeen_;
-      // prob(keep_item) < k / n = reservoirSize_ / itemsSeen_
-      // so multiply to get: keep if rand * itemsSeen_ < reservoirSize_
-      if ((SamplingUtil.rand().nextDouble() * itemsSeen_) < reservoirSize_) {
+      // items between sampled positions are skipped without drawing a random number
+      if (itemsSeen_ == nextSampleN_) {
         final int newSlot = SamplingUtil.rand().nextInt(reservoirSize_);
         data_[newSlot] = item;
+        advanceSkip();
       }
     }
   }
 
+  /**
+   * Presents the items in the given range of the array to the sketch, in order. This gives the
+   * same distribution of samples as calling {@link #update(long)} on each item, but once the
+   * reservoir is full only the items at the sampled positions are read.
+   *
+   * @param items the array of unit-weight items
+   * @param from the index of the first item, inclusive
+   * @param to the index of the last item, exclusive
+   */
+  public void update(final long[] items, final int from, final int to) {
+    if ((from < 0) || (from > to) || (to > items.length)) {
+      throw new SketchesArgumentException("Invalid range [" + from + ", " + to
+          + ") for an array of length " + items.length);
+    }
+    if ((to - from) > (MAX_ITEMS_SEEN - itemsSeen_)) {
+      throw new SketchesStateException(
+          "Sketch has exceeded capacity for total items seen: " + MAX_ITEMS_SEEN);
+    }
+    int i = from;
+    while ((i < to) && (itemsSeen_ < reservoirSize_)) {
+      update(items[i++]);
+    }
+    if (i == to) { return; }
+
+    if (nextSampleN_ == 0) { initSkip(); }
+    final long endN = itemsSeen_ + (to - i);
+    while (nextSampleN_ <= endN) {
+      i += (int) (nextSampleN_ - itemsSeen_) - 1; // index of the sampled item
+      itemsSeen_ = nextSampleN_;
+      final int newSlot = SamplingUtil.rand().nextInt(reservoirSize_);
+      data_[newSlot] = items[i++];
+      advanceSkip();
+    }
+    itemsSeen_ = endN;
+  }
+
   /**
    * Resets this sketch to the empty state, but retains the original value of k.
    */
@@ -342,6 +381,7 @@ public final class ReservoirLongsSketch {
     currItemsAlloc_ = SamplingUtil.getAdjustedSize(reservoirSize_, 1 << initialLgSize);
     data_ = new long[currItemsAlloc_];
     itemsSeen_ = 0;
+    nextSampleN_ = 0;
   }
 
   /**
@@ -522,6 +562,7 @@ public final class ReservoirLongsSketch {
    */
   void forceIncrementItemsSeen(final long inc) {
     itemsSeen_ += inc;
+    nextSampleN_ = 0; // the skip must be drawn afresh for the new number of items
 
     if (itemsSeen_ > MAX_ITEMS_SEEN) {
       throw new SketchesStateException("Sketch has exceeded capacity for total items seen. "
@@ -557,6 +598,22 @@ public final class ReservoirLongsSketch {
     return rls;
   }
 
+  /**
+   * Draws the Algorithm L weight for a full reservoir and the position of the next sampled item.
+   */
+  private void initSkip() {
+    skipW_ = SamplingUtil.initialSkipWeight(itemsSeen_, reservoirSize_);
+    nextSampleN_ = itemsSeen_ + 1 + Math.min(SamplingUtil.nextSkip(skipW_), MAX_ITEMS_SEEN);
+  }
+
+  /**
+   * Draws the position of the next sampled item after the item at itemsSeen_ was sampled.
+   */
+  private void advanceSkip() {
+    skipW_ = SamplingUtil.nextSkipWeight(skipW_, reservoirSize_);
+    nextSampleN_ = itemsSeen_ + 1 + Math.min(SamplingUtil.nextSkip(skipW_), MAX_ITEMS_SEEN);
+  }
+
   /**
    * Increases allocated sampling size by (adjusted) ResizeFactor and copies items from old sampling.
    */
@@ -62,6 +62,75 @@ final class SamplingUtil {
     return r;
   }
 
+  // Skip-based reservoir sampling, Li's Algorithm L ("Reservoir-sampling algorithms of time
+  // complexity O(n(1 + log(N/n)))", ACM TOMS 1994). W is the largest of the random priorities
+  // held by a reservoir of size k that keeps the k smallest priorities seen. Given W, the number
+  // of items to skip before the next one enters the reservoir is geometric with parameter W.
+
+  /**
+   * Returns the number of items to skip before the next item is sampled.
+   *
+   * @param w the current Algorithm L weight
+   * @return the number of items to skip, capped at Long.MAX_VALUE
+   */
+  static long nextSkip(final double w) {
+    return (long) Math.floor(Math.log(nextDoubleExcludeZero()) / Math.log1p(-w));
+  }
+
+  /**
+   * Returns the Algorithm L weight after an item has been sampled.
+   *
+   * @param w the current Algorithm L weight
+   * @param k the reservoir size
+   * @return the new weight
+   */
+  static double nextSkipWeight(final double w, final int k) {
+    return w * Math.exp(Math.log(nextDoubleExcludeZero()) / k);
+  }
+
+  /**
+   * Returns an Algorithm L weight for a full reservoir of size k that has seen n items, which is
+   * distributed as the k-th smallest of n uniform priorities, Beta(k, n - k + 1). The weight is
+   * independent of which items are in the reservoir, so it can be drawn afresh after the sketch
+   * has been deserialized or unioned.
+   *
+   * @param n the number of items seen, at least k
+   * @param k the reservoir size
+   * @return a random weight
+   */
+  static double initialSkipWeight(final long n, final int k) {
+    if (n == k) {
+      return Math.exp(Math.log(nextDoubleExcludeZero()) / k);
+    }
+    final double x = nextGamma(k);
+    final double y = nextGamma(n - k + 1);
+    return x / (x + y);
+  }
+
+  /**
+   * Returns a Gamma(shape, 1) distributed random value using the method of Marsaglia and Tsang,
+   * "A simple method for generating gamma variables", ACM TOMS 2000.
+   *
+   * @param shape the shape parameter, at least 1
+   * @return a random value
+   */
+  static double nextGamma(final double shape) {
+    final double d = shape - (1.0 / 3.0);
+    final double c = 1.0 / Math.sqrt(9.0 * d);
+    while (true) {
+      final double x = rand().nextGaussian();
+      final double t = 1.0 + (c * x);
+      if (t <= 0.0) { continue; }
+      final double v = t * t * t;
+      final double u = nextDoubleExcludeZero();
+      final double x2 = x * x;
+      if ((u < (1.0 - (0.0331 * x2 * x2)))
+          || (Math.log(u) < ((0.5 * x2) + (d * ((1.0 - v) + Math.log(v)))))) {
+        return d * v;
+      }
+    }
+  }
+
   static int startingSubMultiple(final int lgTarget, final int lgRf, final int lgMin) {
     return (lgTarget <= lgMin)
             ? lgMin : (lgRf == 0) ? lgTarget
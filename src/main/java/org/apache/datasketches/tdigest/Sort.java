@@ -22,7 +22,8 @@ package org.apache.datasketches.tdigest;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Specialized sorting algorithm that can sort one array and permute another array the same way.
+ * Specialized sorting algorithms that can sort one array and permute another array the same way,
+ * or sort a single array in place. None of them allocate.
  */
 public final class Sort {
 
@@ -140,6 +141,117 @@ public final class Sort {
     }
   }
   
+  /**
+   * Sort the first n elements of the given array in place.
+   * Unlike <code>Arrays.sort()</code>, this never allocates a work array, which matters
+   * when sorting is done on every update path. The order of equal values is irrelevant here
+   * since they are indistinguishable. NaN values are not supported.
+   *
+   * @param values array to be sorted
+   * @param n number of elements to sort from the beginning of the array
+   */
+  public static void sort(final double[] values, final int n) {
+    limitedQuickSort(values, 0, n, 32);
+    insertionSort(values, n);
+  }
+
+  // leaves every element within its final partition of at most limit elements
+  private static void limitedQuickSort(final double[] values, int start, int end, final int limit) {
+    // the while loop implements tail-recursion to avoid excessive stack calls on nasty cases
+    while (end - start > limit) {
+      final double pivotValue = values[start + ThreadLocalRandom.current().nextInt(end - start)];
+
+      // three way partition: [start, low) < pivot, [low, i) == pivot, [high, end) > pivot
+      int low = start;
+      int high = end;
+      int i = start;
+      while (i < high) {
+        final double vi = values[i];
+        if (vi < pivotValue) {
+          swap(values, low++, i++);
+        } else if (vi > pivotValue) {
+          swap(values, i, --high);
+        } else {
+          i++;
+        }
+      }
+
+      // recurse into the smaller side, loop on the larger one
+      if (low - start < end - high) {
+        limitedQuickSort(values, start, low, limit);
+        start = high;
+      } else {
+        limitedQuickSort(values, high, end, limit);
+        end = low;
+      }
+    }
+  }
+
+  private static void insertionSort(final double[] values, final int n) {
+    for (int i = 1; i < n; i++) {
+      final double v = values[i];
+      int j = i;
+      while (j > 0 && values[j - 1] > v) {
+        values[j] = values[j - 1];
+        j--;
+      }
+      values[j] = v;
+    }
+  }
+
+  /**
+   * Sort the first n elements of the given array in place.
+   * NaN values are not supported.
+   *
+   * @param values array to be sorted
+   * @param n number of elements to sort from the beginning of the array
+   */
+  public static void sort(final float[] values, final int n) {
+    limitedQuickSort(values, 0, n, 32);
+    insertionSort(values, n);
+  }
+
+  // same as the double version above
+  private static void limitedQuickSort(final float[] values, int start, int end, final int limit) {
+    while (end - start > limit) {
+      final float pivotValue = values[start + ThreadLocalRandom.current().nextInt(end - start)];
+
+      int low = start;
+      int high = end;
+      int i = start;
+      while (i < high) {
+        final float vi = values[i];
+        if (vi < pivotValue) {
+          swap(values, low++, i++);
+        } else if (vi > pivotValue) {
+          swap(values, i, --high);
+        } else {
+          i++;
+        }
+      }
+
+      if (low - start < end - high) {
+        limitedQuickSort(values, start, low, limit);
+        start = high;
+      } else {
+        limitedQuickSort(values, high, end, limit);
+        end = low;
+      }
+    }
+  }
+
+  private static void insertionSort(final float[] values, final int n) {
+    for (int i = 1; i < n; i++) {
+      final float v = values[i];
+      int j = i;
+      while (j > 0 && values[j - 1] > v) {
+        values[j] = values[j - 1];
+        j--;
+      }
+      values[j] = v;
+    }
+  }
+
   private static void swap(final double[] values, final int i, final int j) {
     final double tmpValue = values[i];
     values[i] = values[j];
@@ -152,6 +264,18 @@ public final class Sort {
     values[j] = tmpValue;
   }
 
+  private static void swap(final float[] values, final int i, final int j) {
+    final float tmpValue = values[i];
+    values[i] = values[j];
+    values[j] = tmpValue;
+  }
+
+  private static void swap(final int[] values, final int i, final int j) {
+    final int tmpValue = values[i];
+    values[i] = values[j];
+    values[j] = tmpValue;
+  }
+
   /**
    * Reverse the first n elements of the given array.
    *
@@ -175,4 +299,28 @@ public final class Sort {
       swap(values, i, n - i - 1);
     }
   }
+
+  /**
+   * Reverse the first n elements of the given array.
+   *
+   * @param values array to be reversed
+   * @param n number of elements to reverse
+   */
+  public static void reverse(final float[] values, final int n) {
+    for (int i = 0; i < n / 2; i++) {
+      swap(values, i, n - i - 1);
+    }
+  }
+
+  /**
+   * Reverse the first n elements of the given array.
+   *
+   * @param values array to be reversed
+   * @param n number of elements to reverse
+   */
+  public static void reverse(final int[] values, final int n) {
+    for (int i = 0; i < n / 2; i++) {
+      swap(values, i, n - i - 1);
+    }
+  }
 }
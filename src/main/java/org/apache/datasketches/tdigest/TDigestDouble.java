@@ -24,12 +24,14 @@ import java.util.Arrays;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Buffer;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableBuffer;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.quantilescommon.QuantilesAPI;
+import org.apache.datasketches.quantilescommon.QuantilesUtil;
 
 /**
  * t-Digest for estimating quantiles and ranks.
@@ -38,6 +40,15 @@ import org.apache.datasketches.quantilescommon.QuantilesAPI;
  * and the following implementation:
  * https://github.com/tdunning/t-digest
  * This implementation is similar to MergingDigest in the above implementation
+ *
+ * <p>A TDigest can also live in a WritableMemory in an updatable format
+ * (see {@link #newDirectInstance(short, WritableMemory)} and {@link #writableWrap(WritableMemory)}).
+ * In that case the centroids, the buffer and all the other state are kept in the Memory:
+ * update() writes straight into the buffer in place, and compress() and merge() write the
+ * new centroids back into the Memory. Since compression and queries are linear in the number
+ * of centroids anyway, they work on copies of the centroids in arrays that are allocated on first
+ * use and reused after that. A compact image produced by {@link #toByteArray()} can be wrapped
+ * read-only using {@link #wrap(Memory)}.</p>
  */
 public final class TDigestDouble {
 
@@ -56,17 +67,47 @@ public final class TDigestDouble {
   private long centroidsWeight_;
   private int numBuffered_;
   private double[] bufferValues_;
+  private double[] scratchValues_;  // reused by compress() and merge(), allocated on first use
+  private long[] scratchWeights_;
+  private final Memory mem_;          // null if on heap
+  private final WritableMemory wmem_; // null if on heap or read-only
+  private final boolean compactImage_;
+  private final long centroidsOffset_;
+  private final long bufferOffset_;
+  private long loadedCentroidsWeight_ = -1; // centroidsWeight_ of the image the arrays hold the centroids of, -1 if none
+  private TDigestDouble compressedCopy_;    // read-only image with buffered values, compressed on heap
+  private long compressedCopyWeight_;       // centroidsWeight_ and numBuffered_ of the image the copy was made from
+  private int compressedCopyBuffered_;
 
-  private static final int BUFFER_MULTIPLIER = 4;
+  static final int BUFFER_MULTIPLIER = 4;
 
-  private static final byte PREAMBLE_LONGS_EMPTY_OR_SINGLE = 1;
-  private static final byte PREAMBLE_LONGS_MULTIPLE = 2;
-  private static final byte SERIAL_VERSION = 1;
+  // the compact format is shared with TDigestFloat
+  static final byte PREAMBLE_LONGS_EMPTY_OR_SINGLE = 1;
+  static final byte PREAMBLE_LONGS_MULTIPLE = 2;
+  private static final byte PREAMBLE_LONGS_UPDATABLE = 3;
+  static final byte SERIAL_VERSION = 1;
 
   private static final int COMPAT_DOUBLE = 1;
   private static final int COMPAT_FLOAT = 2;
 
-  private enum Flags { IS_EMPTY, IS_SINGLE_VALUE, REVERSE_MERGE }
+  enum Flags { IS_EMPTY, IS_SINGLE_VALUE, REVERSE_MERGE, IS_UPDATABLE }
+
+  // offsets in the serialized image
+  private static final int PREAMBLE_LONGS_BYTE = 0;
+  private static final int SERIAL_VERSION_BYTE = 1;
+  private static final int SKETCH_TYPE_BYTE = 2;
+  private static final int K_SHORT = 3;
+  private static final int FLAGS_BYTE = 5;
+  private static final int NUM_CENTROIDS_INT = 8;
+  private static final int NUM_BUFFERED_INT = 12; // updatable format only
+  private static final int COMPACT_MIN_DOUBLE = 16;
+  private static final int COMPACT_MAX_DOUBLE = 24;
+  private static final int COMPACT_CENTROIDS_START = 32;
+  private static final int CENTROIDS_WEIGHT_LONG = 16;
+  private static final int MIN_DOUBLE = 24;
+  private static final int MAX_DOUBLE = 32;
+  private static final int CENTROIDS_START = 40;
+  private static final int CENTROID_BYTES = Double.BYTES + Long.BYTES;
 
   /**
    * Constructor with the default K
@@ -83,6 +124,86 @@ public final class TDigestDouble {
     this(false, k, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, null, null, 0, null);
   }
 
+  /**
+   * Create a new empty TDigest in the updatable format in the given WritableMemory.
+   * All the state is kept in the Memory, which must have at least
+   * {@link #getUpdatableStorageBytes(short)} bytes.
+   * @param k affects the size of TDigest and its estimation error
+   * @param dstMem destination WritableMemory
+   * @return a new direct instance of TDigest
+   */
+  public static TDigestDouble newDirectInstance(final short k, final WritableMemory dstMem) {
+    final int capacity = computeCentroidsCapacity(k);
+    final long bytes = getUpdatableStorageBytes(k);
+    if (dstMem.getCapacity() < bytes) {
+      throw new SketchesArgumentException("Memory capacity " + dstMem.getCapacity() + " is less than required " + bytes);
+    }
+    dstMem.clear(0, CENTROIDS_START);
+    dstMem.putByte(PREAMBLE_LONGS_BYTE, PREAMBLE_LONGS_UPDATABLE);
+    dstMem.putByte(SERIAL_VERSION_BYTE, SERIAL_VERSION);
+    dstMem.putByte(SKETCH_TYPE_BYTE, (byte) Family.TDIGEST.getID());
+    dstMem.putShort(K_SHORT, k);
+    dstMem.putByte(FLAGS_BYTE, (byte) (1 << Flags.IS_UPDATABLE.ordinal()));
+    dstMem.putDouble(MIN_DOUBLE, Double.POSITIVE_INFINITY);
+    dstMem.putDouble(MAX_DOUBLE, Double.NEGATIVE_INFINITY);
+    return new TDigestDouble(k, capacity, dstMem, dstMem, false);
+  }
+
+  /**
+   * Computes the size of the updatable format, which does not depend on the number of values.
+   * @param k affects the size of TDigest and its estimation error
+   * @return size in bytes needed for a TDigest in the updatable format
+   */
+  public static long getUpdatableStorageBytes(final short k) {
+    return CENTROIDS_START + (long) computeCentroidsCapacity(k) * (CENTROID_BYTES + BUFFER_MULTIPLIER * Double.BYTES);
+  }
+
+  /**
+   * Wrap a TDigest around the given Memory without copying for queries only.
+   * Both the updatable format and the compact format produced by {@link #toByteArray()} are supported.
+   * An empty or single-value compact image, as well as the format of the reference implementation,
+   * is simply heapified.
+   * Queries on an updatable image with buffered values are answered from a compressed heap copy,
+   * which is made again whenever the image changes,
+   * so compressing the image before making it read-only is recommended.
+   * @param mem Memory with a serialized TDigest
+   * @return a read-only TDigest backed by the given Memory
+   */
+  public static TDigestDouble wrap(final Memory mem) {
+    return wrap(mem, null);
+  }
+
+  /**
+   * Wrap a TDigest around the given WritableMemory in the updatable format to be updated and merged into in place.
+   * Following the convention of other sketches, a compact image is wrapped read-only as in {@link #wrap(Memory)}.
+   * @param wmem WritableMemory with a serialized TDigest
+   * @return a TDigest backed by the given WritableMemory
+   */
+  public static TDigestDouble writableWrap(final WritableMemory wmem) {
+    return wrap(wmem, wmem);
+  }
+
+  /**
+   * @return true if this TDigest is backed by a Memory
+   */
+  public boolean hasMemory() {
+    return mem_ != null;
+  }
+
+  /**
+   * @return true if this TDigest is backed by off-heap (direct or memory-mapped) Memory
+   */
+  public boolean isDirect() {
+    return mem_ != null && mem_.isDirect();
+  }
+
+  /**
+   * @return true if this TDigest cannot be updated, as when obtained from {@link #wrap(Memory)}
+   */
+  public boolean isReadOnly() {
+    return mem_ != null && wmem_ == null;
+  }
+
   /**
    * @return parameter k (compression) that was used to configure this TDigest
    */
@@ -96,6 +217,7 @@ public final class TDigestDouble {
    */
   public void update(final double value) {
     if (Double.isNaN(value)) { return; }
+    if (mem_ != null) { updateDirect(value); return; }
     if (numBuffered_ == centroidsCapacity_ * BUFFER_MULTIPLIER) { compress(); }
     bufferValues_[numBuffered_] = value;
     numBuffered_++;
@@ -108,36 +230,79 @@ public final class TDigestDouble {
    * @param other TDigest to merge
    */
   public void merge(final TDigestDouble other) {
+    checkWritable();
     if (other.isEmpty()) { return; }
-    final int num = numCentroids_ + numBuffered_ + other.numCentroids_ + other.numBuffered_;
-    final double[] values = new double[num];
-    final long[] weights = new long[num];
+    other.loadState();
+    loadState();
+    final int numBuffered = numBuffered_ + other.numBuffered_;
+    final int num = numBuffered + other.numCentroids_ + numCentroids_;
+    ensureScratchCapacity(num);
+    // the buffered values are indistinguishable and the centroids are already sorted, so sorting
+    // the buffers in place and merging the three runs from the back gives the same order as a stable sort
+    // of the buffers followed by the centroids of the other TDigest and then the centroids of this one
+    final double[] values = scratchValues_;
+    final long[] weights = scratchWeights_;
     System.arraycopy(bufferValues_, 0, values, 0, numBuffered_);
-    Arrays.fill(weights, 0, numBuffered_, 1);
     System.arraycopy(other.bufferValues_, 0, values, numBuffered_, other.numBuffered_);
-    Arrays.fill(weights, numBuffered_, numBuffered_ + other.numBuffered_, 1);
-    System.arraycopy(other.centroidMeans_, 0, values, numBuffered_ + other.numBuffered_, other.numCentroids_);
-    System.arraycopy(other.centroidWeights_, 0, weights, numBuffered_ + other.numBuffered_, other.numCentroids_);
-    merge(values, weights, numBuffered_ + other.getTotalWeight(), numBuffered_ + other.numBuffered_ + other.numCentroids_);
+    Sort.sort(values, numBuffered);
+    int b = numBuffered;
+    int o = other.numCentroids_;
+    int c = numCentroids_;
+    for (int i = num; i-- > 0; ) { // never overwrites a buffered value not merged yet since i >= b - 1
+      if (c > 0 && (o == 0 || centroidMeans_[c - 1] >= other.centroidMeans_[o - 1])
+          && (b == 0 || centroidMeans_[c - 1] >= values[b - 1])) {
+        values[i] = centroidMeans_[--c];
+        weights[i] = centroidWeights_[c];
+      } else if (o > 0 && (b == 0 || other.centroidMeans_[o - 1] >= values[b - 1])) {
+        values[i] = other.centroidMeans_[--o];
+        weights[i] = other.centroidWeights_[o];
+      } else {
+        values[i] = values[--b];
+        weights[i] = 1;
+      }
+    }
+    centroidsWeight_ += numBuffered_ + other.getTotalWeight();
+    merge(values, weights, num);
+    storeState();
   }
 
   /**
    * Process buffered values and merge centroids if needed
    */
   public void compress() {
+    loadHeader();
     if (numBuffered_ == 0) { return; }
+    checkWritable();
+    loadCentroids();
+    loadBuffer();
     final int num = numBuffered_ + numCentroids_;
-    final double[] values =  new double[num];
-    final long[] weights = new long[num];
-    System.arraycopy(bufferValues_, 0, values, 0, numBuffered_);
-    Arrays.fill(weights, 0, numBuffered_, 1);
-    merge(values, weights, numBuffered_, numBuffered_);
+    ensureScratchCapacity(num);
+    // the centroids are already sorted, so sorting the buffer in place and merging the two
+    // runs gives the same order as a stable sort of the buffer followed by the centroids
+    Sort.sort(bufferValues_, numBuffered_);
+    final double[] values = scratchValues_;
+    final long[] weights = scratchWeights_;
+    int b = 0;
+    int c = 0;
+    for (int i = 0; i < num; i++) {
+      if (c == numCentroids_ || (b < numBuffered_ && bufferValues_[b] <= centroidMeans_[c])) {
+        values[i] = bufferValues_[b++];
+        weights[i] = 1;
+      } else {
+        values[i] = centroidMeans_[c];
+        weights[i] = centroidWeights_[c++];
+      }
+    }
+    centroidsWeight_ += numBuffered_;
+    merge(values, weights, num);
+    storeState();
   }
 
   /**
    * @return true if TDigest has not seen any data
    */
   public boolean isEmpty() {
+    loadHeader();
     return numCentroids_ == 0 && numBuffered_ == 0;
   }
 
@@ -161,6 +326,7 @@ public final class TDigestDouble {
    * @return total weight
    */
   public long getTotalWeight() {
+    loadHeader();
     return centroidsWeight_ + numBuffered_;
   }
 
@@ -175,51 +341,49 @@ public final class TDigestDouble {
     if (value < minValue_) { return 0; }
     if (value > maxValue_) { return 1; }
     if (numCentroids_ + numBuffered_ == 1) { return 0.5; }
+    if (isReadOnlyWithBuffer()) { return compressedCopy().getRank(value); }
 
-    compress(); // side effect
+    prepareCentroids(); // side effect
 
-    // left tail
-    final double firstMean = centroidMeans_[0];
-    if (value < firstMean) {
-      if (firstMean - minValue_ > 0) {
-        if (value == minValue_) { return 0.5 / centroidsWeight_; }
-        return (1.0 + (value - minValue_) / (firstMean - minValue_) * (centroidWeights_[0] / 2.0 - 1.0));
-      }
-      return 0; // should never happen
-    }
+    final int lower = BinarySearch.lowerBound(centroidMeans_, 0, numCentroids_, value);
+    final int upper = BinarySearch.upperBound(centroidMeans_, lower, numCentroids_, value);
+    long weightBelowLower = 0;
+    int i = 0;
+    while (i != lower) { weightBelowLower += centroidWeights_[i++]; }
+    long weightBelowUpper = weightBelowLower;
+    while (i != upper) { weightBelowUpper += centroidWeights_[i++]; }
+    return getRank(value, lower, weightBelowLower, upper, weightBelowUpper);
+  }
 
-    // right tail
-    final double lastMean = centroidMeans_[numCentroids_ - 1];
-    if (value > lastMean) {
-      if (maxValue_ - lastMean > 0) {
-        if (value == maxValue_) { return 1.0 - 0.5 / centroidsWeight_; }
-        return 1.0 - ((1.0 + (maxValue_ - value) / (maxValue_ - lastMean)
-            * (centroidWeights_[numCentroids_ - 1] / 2.0 - 1.0)) / centroidsWeight_);
-      }
-      return 1; // should never happen
+  /**
+   * Compute approximate normalized ranks of the given values in a single pass over the centroids.
+   * The values do not have to be sorted, but sorted values avoid sorting a copy.
+   * @param values to be ranked
+   * @return array of normalized ranks (from 0 to 1 inclusive) in the order of the given values
+   */
+  public double[] getRanks(final double[] values) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    for (final double value: values) {
+      if (Double.isNaN(value)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
     }
+    if (isReadOnlyWithBuffer()) { return compressedCopy().getRanks(values); }
 
-    int lower = BinarySearch.lowerBound(centroidMeans_, 0, numCentroids_, value);
-    if (lower == numCentroids_) { throw new SketchesStateException("lower == end in getRank()"); }
-    int upper = BinarySearch.upperBound(centroidMeans_, lower, numCentroids_, value);
-    if (upper == 0) { throw new SketchesStateException("upper == begin in getRank()"); }
-    if (value < centroidMeans_[lower]) { lower--; }
-    if (upper == numCentroids_ || !(centroidMeans_[upper - 1] < value)) { upper--; }
+    prepareCentroids(); // side effect
 
-    double weightBelow = 0;
-    int i = 0;
-    while (i != lower) { weightBelow += centroidWeights_[i++]; }
-    weightBelow += centroidWeights_[lower] / 2.0;
-
-    double weightDelta = 0;
-    while (i != upper) { weightDelta += centroidWeights_[i++]; }
-    weightDelta -= centroidWeights_[lower] / 2.0;
-    weightDelta += centroidWeights_[upper] / 2.0;
-    if (centroidMeans_[upper] - centroidMeans_[lower] > 0) {
-      return (weightBelow + weightDelta * (value - centroidMeans_[lower])
-          / (centroidMeans_[upper] - centroidMeans_[lower])) / centroidsWeight_;
+    final double[] ranks = new double[values.length];
+    final long[] order = getSortedOrder(values);
+    int lower = 0; // lower bound of the current value
+    long weightBelowLower = 0;
+    int upper = 0; // upper bound of the current value
+    long weightBelowUpper = 0;
+    for (int j = 0; j < values.length; j++) {
+      final int index = order == null ? j : (int) order[j];
+      final double value = values[index];
+      while (lower != numCentroids_ && centroidMeans_[lower] < value) { weightBelowLower += centroidWeights_[lower++]; }
+      while (upper != numCentroids_ && !(value < centroidMeans_[upper])) { weightBelowUpper += centroidWeights_[upper++]; }
+      ranks[index] = getRank(value, lower, weightBelowLower, upper, weightBelowUpper);
     }
-    return (weightBelow + weightDelta / 2.0) / centroidsWeight_;
+    return ranks;
   }
 
   /**
@@ -229,51 +393,87 @@ public final class TDigestDouble {
    */
   public double getQuantile(final double rank) {
     if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
-    if (Double.isNaN(rank)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
-    if (rank < 0 || rank > 1) { throw new SketchesArgumentException("Normalized rank must be within [0, 1]"); } 
-    
-    compress(); // side effect
+    checkRank(rank);
+    if (isReadOnlyWithBuffer()) { return compressedCopy().getQuantile(rank); }
+
+    prepareCentroids(); // side effect
 
     if (numCentroids_ == 1) { return centroidMeans_[0]; }
 
-    // at least 2 centroids
     final double weight = rank * centroidsWeight_;
-    if (weight < 1) { return minValue_; }
-    if (weight > centroidsWeight_ - 1.0) { return maxValue_; }
-    final double firstWeight = centroidWeights_[0];
-    if (firstWeight > 1 && weight < firstWeight / 2.0) {
-      return minValue_ + (weight - 1.0) / (firstWeight / 2.0 - 1.0) * (centroidMeans_[0] - minValue_);
-    }
-    final double lastWeight = centroidWeights_[numCentroids_ - 1];
-    if (lastWeight > 1 && centroidsWeight_ - weight <= lastWeight / 2.0) {
-      return maxValue_ + (centroidsWeight_ - weight - 1.0) / (lastWeight / 2.0 - 1.0) * (maxValue_ - centroidMeans_[numCentroids_ - 1]);
+    int i = 0;
+    double weightSoFar = centroidWeights_[0] / 2.0;
+    while (i != numCentroids_ - 1 && !(weightSoFar + (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0 > weight)) {
+      weightSoFar += (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+      i++;
     }
+    return getQuantile(weight, i, weightSoFar);
+  }
 
-    // interpolate between extremes
-    double weightSoFar = firstWeight / 2.0;
-    for (int i = 0; i < numCentroids_ - 1; i++) {
-      final double dw = (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
-      if (weightSoFar + dw > weight) {
-        // the target weight is between centroids i and i+1
-        double leftWeight = 0;
-        if (centroidWeights_[i] == 1) {
-          if (weight - weightSoFar < 0.5) { return centroidMeans_[i]; }
-          leftWeight = 0.5;
-        }
-        double rightWeight = 0;
-        if (centroidWeights_[i + 1] == 1) {
-          if (weightSoFar + dw - weight <= 0.5) { return centroidMeans_[i + 1]; }
-          rightWeight = 0.5;
-        }
-        final double w1 = weight - weightSoFar - leftWeight;
-        final double w2 = weightSoFar + dw - weight - rightWeight;
-        return weightedAverage(centroidMeans_[i], w1, centroidMeans_[i + 1], w2);
+  /**
+   * Compute approximate quantile values corresponding to the given normalized ranks
+   * in a single pass over the centroids.
+   * The ranks do not have to be sorted, but sorted ranks avoid sorting a copy.
+   * @param ranks normalized ranks (from 0 to 1 inclusive)
+   * @return array of quantile values in the order of the given ranks
+   */
+  public double[] getQuantiles(final double[] ranks) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    for (final double rank: ranks) { checkRank(rank); }
+    if (isReadOnlyWithBuffer()) { return compressedCopy().getQuantiles(ranks); }
+
+    prepareCentroids(); // side effect
+
+    final double[] quantiles = new double[ranks.length];
+    final long[] order = getSortedOrder(ranks);
+    int i = 0;
+    double weightSoFar = centroidWeights_[0] / 2.0;
+    for (int j = 0; j < ranks.length; j++) {
+      final int index = order == null ? j : (int) order[j];
+      final double weight = ranks[index] * centroidsWeight_;
+      while (i < numCentroids_ - 1 && !(weightSoFar + (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0 > weight)) {
+        weightSoFar += (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+        i++;
       }
-      weightSoFar += dw;
+      quantiles[index] = numCentroids_ == 1 ? centroidMeans_[0] : getQuantile(weight, i, weightSoFar);
     }
-    final double w1 = weight - centroidsWeight_ - centroidWeights_[numCentroids_ - 1] / 2.0;
-    final double w2 = centroidWeights_[numCentroids_ - 1] / 2.0 - w1;
-    return weightedAverage(centroidWeights_[numCentroids_ - 1], w1, maxValue_, w2);
+    return quantiles;
+  }
+
+  /**
+   * Returns an approximation to the Cumulative Distribution Function (CDF), which is the
+   * cumulative analog of the PMF, of the input stream given a set of split points.
+   * All the ranks are computed in a single pass over the centroids.
+   * @param splitPoints an array of <i>m</i> unique, monotonically increasing values
+   * that divide the input domain into <i>m+1</i> consecutive disjoint intervals.
+   * @return an array of m+1 doubles, which are a consecutive approximation to the CDF
+   * of the input stream given the splitPoints. The value at array position j of the returned
+   * CDF array is the sum of the returned values in positions 0 through j of the returned PMF
+   * array. This can be viewed as array of ranks of the given split points plus one more value
+   * that is always 1.
+   */
+  public double[] getCDF(final double[] splitPoints) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    QuantilesUtil.checkDoublesSplitPointsOrder(splitPoints);
+    final double[] ranks = Arrays.copyOf(getRanks(splitPoints), splitPoints.length + 1);
+    ranks[splitPoints.length] = 1.0;
+    return ranks;
+  }
+
+  /**
+   * Returns an approximation to the Probability Mass Function (PMF) of the input stream
+   * given a set of split points.
+   * @param splitPoints an array of <i>m</i> unique, monotonically increasing values
+   * that divide the input domain into <i>m+1</i> consecutive disjoint intervals (bins).
+   * @return an array of m+1 doubles each of which is an approximation to the fraction of
+   * the input stream values (the mass) that fall into one of those intervals.
+   */
+  public double[] getPMF(final double[] splitPoints) {
+    final double[] buckets = getCDF(splitPoints);
+    for (int i = buckets.length; i-- > 1; ) {
+      buckets[i] -= buckets[i - 1];
+    }
+    return buckets;
   }
 
   /**
@@ -281,6 +481,8 @@ public final class TDigestDouble {
    * @return size in bytes needed to serialize this tdigest
    */
   int getSerializedSizeBytes() {
+    loadHeader();
+    if (isReadOnlyWithBuffer()) { return compressedCopy().getSerializedSizeBytes(); }
     compress(); // side effect
     return getPreambleLongs() * Long.BYTES
     + (isEmpty() ? 0 : (isSingleValue() ? Double.BYTES : 2 * Double.BYTES + (Double.BYTES + Long.BYTES) * numCentroids_));
@@ -291,7 +493,9 @@ public final class TDigestDouble {
    * @return byte array
    */
   public byte[] toByteArray() {
-    compress(); // side effect
+    loadHeader();
+    if (isReadOnlyWithBuffer()) { return compressedCopy().toByteArray(); }
+    prepareCentroids(); // side effect
     final byte[] bytes = new byte[getSerializedSizeBytes()];
     final WritableBuffer wbuf = WritableMemory.writableWrap(bytes).asWritableBuffer();
     wbuf.putByte((byte) getPreambleLongs());
@@ -322,7 +526,7 @@ public final class TDigestDouble {
 
   /**
    * Deserialize TDigest from a given memory.
-   * Supports reading format of the reference implementation (autodetected).
+   * Supports reading the updatable format and the format of the reference implementation (autodetected).
    * @param mem instance of Memory
    * @return an instance of TDigest
    */
@@ -352,6 +556,7 @@ public final class TDigestDouble {
     }
     final short k = buff.getShort();
     final byte flagsByte = buff.getByte();
+    if ((flagsByte & (1 << Flags.IS_UPDATABLE.ordinal())) > 0) { return heapifyUpdatable(mem); }
     final boolean isEmpty = (flagsByte & (1 << Flags.IS_EMPTY.ordinal())) > 0;
     final boolean isSingleValue = (flagsByte & (1 << Flags.IS_SINGLE_VALUE.ordinal())) > 0;
     final byte expectedPreambleLongs = isEmpty || isSingleValue ? PREAMBLE_LONGS_EMPTY_OR_SINGLE : PREAMBLE_LONGS_MULTIPLE;
@@ -392,6 +597,55 @@ public final class TDigestDouble {
     return new TDigestDouble(reverseMerge, k, min, max, means, weights, totalWeight, null);
   }
 
+  private static TDigestDouble heapifyUpdatable(final Memory mem) {
+    final TDigestDouble td = wrap(mem);
+    td.loadState();
+    return new TDigestDouble(td.reverseMerge_, td.k_, td.minValue_, td.maxValue_,
+        Arrays.copyOf(td.centroidMeans_, td.numCentroids_), Arrays.copyOf(td.centroidWeights_, td.numCentroids_),
+        td.centroidsWeight_, Arrays.copyOf(td.bufferValues_, td.numBuffered_));
+  }
+
+  private static TDigestDouble wrap(final Memory mem, final WritableMemory wmem) {
+    final byte preambleLongs = mem.getByte(PREAMBLE_LONGS_BYTE);
+    final byte serialVersion = mem.getByte(SERIAL_VERSION_BYTE);
+    final byte sketchType = mem.getByte(SKETCH_TYPE_BYTE);
+    if (sketchType != (byte) Family.TDIGEST.getID()) { return heapify(mem); } // reference format or error
+    if (serialVersion != SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + SERIAL_VERSION + ", actual " + serialVersion);
+    }
+    final short k = mem.getShort(K_SHORT);
+    final byte flagsByte = mem.getByte(FLAGS_BYTE);
+    final int capacity = computeCentroidsCapacity(k);
+    if ((flagsByte & (1 << Flags.IS_UPDATABLE.ordinal())) > 0) {
+      if (preambleLongs != PREAMBLE_LONGS_UPDATABLE) {
+        throw new SketchesArgumentException("Preamble longs mismatch: expected " + PREAMBLE_LONGS_UPDATABLE
+            + ", actual " + preambleLongs);
+      }
+      if (mem.getCapacity() < getUpdatableStorageBytes(k)) {
+        throw new SketchesArgumentException("Memory capacity " + mem.getCapacity() + " is less than required "
+            + getUpdatableStorageBytes(k));
+      }
+      return new TDigestDouble(k, capacity, mem, wmem, false);
+    }
+    final int emptyOrSingle = (1 << Flags.IS_EMPTY.ordinal()) | (1 << Flags.IS_SINGLE_VALUE.ordinal());
+    if (preambleLongs != PREAMBLE_LONGS_MULTIPLE || (flagsByte & emptyOrSingle) != 0) {
+      return heapify(mem); // empty or single value, or invalid
+    }
+    final TDigestDouble td = new TDigestDouble(k, capacity, mem, null, true);
+    td.reverseMerge_ = (flagsByte & (1 << Flags.REVERSE_MERGE.ordinal())) > 0;
+    td.numCentroids_ = mem.getInt(NUM_CENTROIDS_INT);
+    if (mem.getCapacity() < COMPACT_CENTROIDS_START + (long) td.numCentroids_ * CENTROID_BYTES) {
+      throw new SketchesArgumentException("Memory capacity " + mem.getCapacity() + " is too small for "
+          + td.numCentroids_ + " centroids");
+    }
+    td.minValue_ = mem.getDouble(COMPACT_MIN_DOUBLE);
+    td.maxValue_ = mem.getDouble(COMPACT_MAX_DOUBLE);
+    for (int i = 0; i < td.numCentroids_; i++) {
+      td.centroidsWeight_ += mem.getLong(COMPACT_CENTROIDS_START + (long) i * CENTROID_BYTES + Double.BYTES);
+    }
+    return td;
+  }
+
   // compatibility with the format of the reference implementation
   // default byte order of ByteBuffer is used there, which is big endian
   private static TDigestDouble heapifyCompat(final Memory mem) {
@@ -449,6 +703,7 @@ public final class TDigestDouble {
    * @return summary of this TDigest
    */
   public String toString(final boolean printCentroids) {
+    loadState();
     final StringBuilder sb = new StringBuilder();
 
     sb.append("MergingDigest").append(LS)
@@ -459,7 +714,8 @@ public final class TDigestDouble {
       .append(" Buffer Capacity: ").append(centroidsCapacity_ * BUFFER_MULTIPLIER).append(LS)
       .append("Centroids Weight: ").append(centroidsWeight_).append(LS)
       .append(" Total Weight: ").append(getTotalWeight()).append(LS)
-      .append(" Reverse Merge: ").append(reverseMerge_).append(LS);
+      .append(" Reverse Merge: ").append(reverseMerge_).append(LS)
+      .append(" Memory: ").append(hasMemory() ? (isReadOnly() ? "read-only" : "writable") : "none").append(LS);
     if (!isEmpty()) {
       sb.append(" Min: ").append(minValue_).append(LS)
         .append(" Max: ").append(maxValue_).append(LS);
@@ -487,9 +743,12 @@ public final class TDigestDouble {
     k_ = k;
     minValue_ = min;
     maxValue_ = max;
-    if (k < 10) { throw new SketchesArgumentException("k must be at least 10"); }
-    final int fudge = k < 30 ? 30 : 10;
-    centroidsCapacity_ = k_ * 2 + fudge;
+    centroidsCapacity_ = computeCentroidsCapacity(k);
+    mem_ = null;
+    wmem_ = null;
+    compactImage_ = false;
+    centroidsOffset_ = 0;
+    bufferOffset_ = 0;
     centroidMeans_ = new double[centroidsCapacity_];
     centroidWeights_ = new long[centroidsCapacity_];
     bufferValues_ =  new double[centroidsCapacity_ * BUFFER_MULTIPLIER];
@@ -507,14 +766,249 @@ public final class TDigestDouble {
     }
   }
 
-  // assumes that there is enough room in the input arrays to add centroids from this TDigest
-  private void merge(final double[] values, final long[] weights, final long weight, int num) {
-    System.arraycopy(centroidMeans_, 0, values, num, numCentroids_);
-    System.arraycopy(centroidWeights_, 0, weights, num, numCentroids_);
-    num += numCentroids_;
-    centroidsWeight_ += weight;
+  // state is in the given Memory, the arrays are only used as working copies and are allocated on first use
+  private TDigestDouble(final short k, final int capacity, final Memory mem, final WritableMemory wmem,
+      final boolean compactImage) {
+    k_ = k;
+    centroidsCapacity_ = capacity;
+    mem_ = mem;
+    wmem_ = wmem;
+    compactImage_ = compactImage;
+    centroidsOffset_ = compactImage ? COMPACT_CENTROIDS_START : CENTROIDS_START;
+    bufferOffset_ = centroidsOffset_ + (long) capacity * CENTROID_BYTES;
+  }
+
+  static int computeCentroidsCapacity(final short k) {
+    if (k < 10) { throw new SketchesArgumentException("k must be at least 10"); }
+    final int fudge = k < 30 ? 30 : 10;
+    return k * 2 + fudge;
+  }
+
+  private void updateDirect(final double value) {
+    checkWritable();
+    int numBuffered = wmem_.getInt(NUM_BUFFERED_INT);
+    if (numBuffered == centroidsCapacity_ * BUFFER_MULTIPLIER) {
+      compress();
+      numBuffered = 0;
+    }
+    wmem_.putDouble(bufferOffset_ + (long) numBuffered * Double.BYTES, value);
+    wmem_.putInt(NUM_BUFFERED_INT, numBuffered + 1);
+    wmem_.putDouble(MIN_DOUBLE, Math.min(wmem_.getDouble(MIN_DOUBLE), value));
+    wmem_.putDouble(MAX_DOUBLE, Math.max(wmem_.getDouble(MAX_DOUBLE), value));
+  }
+
+  private void checkWritable() {
+    if (mem_ != null && wmem_ == null) { throw new SketchesReadOnlyException(); }
+  }
+
+  private boolean isReadOnlyWithBuffer() {
+    return isReadOnly() && numBuffered_ > 0;
+  }
+
+  // the image cannot be compressed in place, so it is compressed on heap once for each state of the image
+  // the header identifies the state, since every update or merge increases the total weight
+  // and a compress() moves the buffered weight into the centroids
+  private TDigestDouble compressedCopy() {
+    if (compressedCopy_ == null || compressedCopyWeight_ != centroidsWeight_ || compressedCopyBuffered_ != numBuffered_) {
+      compressedCopyWeight_ = centroidsWeight_;
+      compressedCopyBuffered_ = numBuffered_;
+      compressedCopy_ = heapify(mem_);
+      compressedCopy_.compress();
+    }
+    return compressedCopy_;
+  }
+
+  static void checkRank(final double rank) {
+    if (Double.isNaN(rank)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
+    if (rank < 0 || rank > 1) { throw new SketchesArgumentException("Normalized rank must be within [0, 1]"); }
+  }
+
+  // returns the order of the given values as an array of indices, or null if they are sorted already
+  static long[] getSortedOrder(final double[] values) {
+    int i = 1;
+    while (i < values.length && values[i - 1] <= values[i]) { i++; }
+    if (i >= values.length) { return null; }
+    return getSortedOrderOf(values.clone());
+  }
+
+  // sorts the given keys and returns the original index of each key in the sorted order
+  static long[] getSortedOrderOf(final double[] keys) {
+    final long[] order = new long[keys.length];
+    for (int i = 0; i < order.length; i++) { order[i] = i; }
+    Sort.stableSort(keys, order, keys.length);
+    return order;
+  }
+
+  // rank of the given value after prepareCentroids()
+  // lowerBound and upperBound are the results of the lower and upper bound binary search for the value
+  // over all the centroids, and the weights are the total weights of the centroids below them
+  private double getRank(final double value, final int lowerBound, final long weightBelowLowerBound,
+      final int upperBound, final long weightBelowUpperBound) {
+    if (value < minValue_) { return 0; }
+    if (value > maxValue_) { return 1; }
+    if (numCentroids_ == 1) { return 0.5; }
+
+    // left tail
+    final double firstMean = centroidMeans_[0];
+    if (value < firstMean) {
+      if (firstMean - minValue_ > 0) {
+        if (value == minValue_) { return 0.5 / centroidsWeight_; }
+        return (1.0 + (value - minValue_) / (firstMean - minValue_) * (centroidWeights_[0] / 2.0 - 1.0));
+      }
+      return 0; // should never happen
+    }
+
+    // right tail
+    final double lastMean = centroidMeans_[numCentroids_ - 1];
+    if (value > lastMean) {
+      if (maxValue_ - lastMean > 0) {
+        if (value == maxValue_) { return 1.0 - 0.5 / centroidsWeight_; }
+        return 1.0 - ((1.0 + (maxValue_ - value) / (maxValue_ - lastMean)
+            * (centroidWeights_[numCentroids_ - 1] / 2.0 - 1.0)) / centroidsWeight_);
+      }
+      return 1; // should never happen
+    }
+
+    if (lowerBound == numCentroids_) { throw new SketchesStateException("lower == end in getRank()"); }
+    if (upperBound == 0) { throw new SketchesStateException("upper == begin in getRank()"); }
+    int lower = lowerBound;
+    long weightBelowLower = weightBelowLowerBound;
+    if (value < centroidMeans_[lower]) { weightBelowLower -= centroidWeights_[--lower]; }
+    int upper = upperBound;
+    long weightBelowUpper = weightBelowUpperBound;
+    if (upper == numCentroids_ || !(centroidMeans_[upper - 1] < value)) { weightBelowUpper -= centroidWeights_[--upper]; }
+
+    final double weightBelow = weightBelowLower + centroidWeights_[lower] / 2.0;
+    double weightDelta = weightBelowUpper - weightBelowLower;
+    weightDelta -= centroidWeights_[lower] / 2.0;
+    weightDelta += centroidWeights_[upper] / 2.0;
+    if (centroidMeans_[upper] - centroidMeans_[lower] > 0) {
+      return (weightBelow + weightDelta * (value - centroidMeans_[lower])
+          / (centroidMeans_[upper] - centroidMeans_[lower])) / centroidsWeight_;
+    }
+    return (weightBelow + weightDelta / 2.0) / centroidsWeight_;
+  }
+
+  // quantile for the given weight after prepareCentroids() with at least 2 centroids
+  // i is the first centroid such that the target weight is between centroids i and i+1,
+  // or the last centroid if there is none, and weightSoFar is the weight up to the middle of centroid i
+  private double getQuantile(final double weight, final int i, final double weightSoFar) {
+    if (weight < 1) { return minValue_; }
+    if (weight > centroidsWeight_ - 1.0) { return maxValue_; }
+    final double firstWeight = centroidWeights_[0];
+    if (firstWeight > 1 && weight < firstWeight / 2.0) {
+      return minValue_ + (weight - 1.0) / (firstWeight / 2.0 - 1.0) * (centroidMeans_[0] - minValue_);
+    }
+    final double lastWeight = centroidWeights_[numCentroids_ - 1];
+    if (lastWeight > 1 && centroidsWeight_ - weight <= lastWeight / 2.0) {
+      return maxValue_ + (centroidsWeight_ - weight - 1.0) / (lastWeight / 2.0 - 1.0) * (maxValue_ - centroidMeans_[numCentroids_ - 1]);
+    }
+
+    // interpolate between extremes
+    if (i != numCentroids_ - 1) {
+      final double dw = (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+      double leftWeight = 0;
+      if (centroidWeights_[i] == 1) {
+        if (weight - weightSoFar < 0.5) { return centroidMeans_[i]; }
+        leftWeight = 0.5;
+      }
+      double rightWeight = 0;
+      if (centroidWeights_[i + 1] == 1) {
+        if (weightSoFar + dw - weight <= 0.5) { return centroidMeans_[i + 1]; }
+        rightWeight = 0.5;
+      }
+      final double w1 = weight - weightSoFar - leftWeight;
+      final double w2 = weightSoFar + dw - weight - rightWeight;
+      return weightedAverage(centroidMeans_[i], w1, centroidMeans_[i + 1], w2);
+    }
+    final double w1 = weight - centroidsWeight_ - centroidWeights_[numCentroids_ - 1] / 2.0;
+    final double w2 = centroidWeights_[numCentroids_ - 1] / 2.0 - w1;
+    return weightedAverage(centroidMeans_[numCentroids_ - 1], w1, maxValue_, w2);
+  }
+
+  // the following methods copy the state between the Memory and the fields, they do nothing on heap
+  // a compact image is read-only and has no buffer, so its header fields are set once in wrap()
+  // the centroids are copied only if the image has changed since the last copy, which every change
+  // of the centroids shows as a change of the centroids weight
+
+  private void loadHeader() {
+    if (mem_ == null || compactImage_) { return; }
+    reverseMerge_ = (mem_.getByte(FLAGS_BYTE) & (1 << Flags.REVERSE_MERGE.ordinal())) > 0;
+    numCentroids_ = mem_.getInt(NUM_CENTROIDS_INT);
+    numBuffered_ = mem_.getInt(NUM_BUFFERED_INT);
+    centroidsWeight_ = mem_.getLong(CENTROIDS_WEIGHT_LONG);
+    minValue_ = mem_.getDouble(MIN_DOUBLE);
+    maxValue_ = mem_.getDouble(MAX_DOUBLE);
+  }
+
+  private void loadCentroids() {
+    if (mem_ == null || centroidsWeight_ == loadedCentroidsWeight_) { return; }
+    if (centroidMeans_ == null) {
+      centroidMeans_ = new double[centroidsCapacity_];
+      centroidWeights_ = new long[centroidsCapacity_];
+    }
+    long offset = centroidsOffset_;
+    for (int i = 0; i < numCentroids_; i++) {
+      centroidMeans_[i] = mem_.getDouble(offset);
+      centroidWeights_[i] = mem_.getLong(offset + Double.BYTES);
+      offset += CENTROID_BYTES;
+    }
+    loadedCentroidsWeight_ = centroidsWeight_;
+  }
+
+  private void loadBuffer() {
+    if (mem_ == null) { return; }
+    if (bufferValues_ == null) { bufferValues_ = new double[centroidsCapacity_ * BUFFER_MULTIPLIER]; }
+    if (numBuffered_ > 0) { mem_.getDoubleArray(bufferOffset_, bufferValues_, 0, numBuffered_); }
+  }
+
+  private void loadState() {
+    loadHeader();
+    loadCentroids();
+    loadBuffer();
+  }
+
+  // the buffer is always empty after compress() or merge(), so only the header and the centroids are written
+  private void storeState() {
+    if (mem_ == null) { return; }
+    wmem_.putByte(FLAGS_BYTE, (byte) ((1 << Flags.IS_UPDATABLE.ordinal())
+        | (reverseMerge_ ? 1 << Flags.REVERSE_MERGE.ordinal() : 0)));
+    wmem_.putInt(NUM_CENTROIDS_INT, numCentroids_);
+    wmem_.putInt(NUM_BUFFERED_INT, numBuffered_);
+    wmem_.putLong(CENTROIDS_WEIGHT_LONG, centroidsWeight_);
+    wmem_.putDouble(MIN_DOUBLE, minValue_);
+    wmem_.putDouble(MAX_DOUBLE, maxValue_);
+    long offset = centroidsOffset_;
+    for (int i = 0; i < numCentroids_; i++) {
+      wmem_.putDouble(offset, centroidMeans_[i]);
+      wmem_.putLong(offset + Double.BYTES, centroidWeights_[i]);
+      offset += CENTROID_BYTES;
+    }
+    loadedCentroidsWeight_ = centroidsWeight_;
+  }
+
+  // compresses the buffer if needed and makes sure the centroids are in the arrays
+  private void prepareCentroids() {
+    if (numBuffered_ > 0) {
+      compress();
+    } else {
+      loadCentroids();
+    }
+  }
+
+  // makes sure the scratch arrays can hold num centroids, allocating only if they cannot
+  private void ensureScratchCapacity(final int num) {
+    if (scratchValues_ == null || scratchValues_.length < num) {
+      final int size = Math.max(num, centroidsCapacity_ * (BUFFER_MULTIPLIER + 1));
+      scratchValues_ = new double[size];
+      scratchWeights_ = new long[size];
+    }
+  }
+
+  // compresses the given sorted values and weights into the centroids of this TDigest
+  // centroidsWeight_ must already include the total weight of the input
+  private void merge(final double[] values, final long[] weights, final int num) {
     numCentroids_ = 0;
-    Sort.stableSort(values, weights, num);
     if (reverseMerge_) { // this might be avoidable if stableSort could be implemented with a boolean parameter to invert the logic
       Sort.reverse(values, num);
       Sort.reverse(weights, num);
@@ -568,7 +1062,7 @@ public final class TDigestDouble {
    * The use of a normalizing function results in a strictly bounded number of clusters no matter how many samples.
    * Corresponds to K_2 in the reference implementation
    */
-  private static final class ScaleFunction {
+  static final class ScaleFunction {
     static double max(final double q, final double normalizer) {
       return q * (1 - q) / normalizer;
     }
@@ -582,7 +1076,7 @@ public final class TDigestDouble {
     }
   }
 
-  private static double weightedAverage(final double x1, final double w1, final double x2, final double w2) {
+  static double weightedAverage(final double x1, final double w1, final double x2, final double w2) {
     return (x1 * w1 + x2 * w2) / (w1 + w2);
   }
 }
@@ -0,0 +1,647 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.tdigest;
+
+import static org.apache.datasketches.tdigest.TDigestDouble.BUFFER_MULTIPLIER;
+import static org.apache.datasketches.tdigest.TDigestDouble.LS;
+import static org.apache.datasketches.tdigest.TDigestDouble.PREAMBLE_LONGS_EMPTY_OR_SINGLE;
+import static org.apache.datasketches.tdigest.TDigestDouble.PREAMBLE_LONGS_MULTIPLE;
+import static org.apache.datasketches.tdigest.TDigestDouble.SERIAL_VERSION;
+import static org.apache.datasketches.tdigest.TDigestDouble.checkRank;
+import static org.apache.datasketches.tdigest.TDigestDouble.computeCentroidsCapacity;
+import static org.apache.datasketches.tdigest.TDigestDouble.weightedAverage;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantilescommon.QuantilesAPI;
+import org.apache.datasketches.quantilescommon.QuantilesUtil;
+import org.apache.datasketches.tdigest.TDigestDouble.Flags;
+import org.apache.datasketches.tdigest.TDigestDouble.ScaleFunction;
+
+/**
+ * t-Digest for estimating quantiles and ranks with float values.
+ * This is the same algorithm as {@link TDigestDouble}, but the centroids are kept as (float, int)
+ * pairs for (mean, weight) and the buffer holds floats, so this TDigest takes about half the space
+ * of a TDigestDouble with the same k, both on the heap and serialized.
+ * The weight of a single centroid is limited to Integer.MAX_VALUE. The total weight is not limited.
+ *
+ * <p>The serialized form is the compact format of TDigestDouble with floats instead of doubles
+ * and ints instead of longs. It can also be read by {@link TDigestDouble#heapify(Memory, boolean)}.</p>
+ */
+public final class TDigestFloat {
+
+  private boolean reverseMerge_;
+  private final short k_;
+  private float minValue_;
+  private float maxValue_;
+  private final int centroidsCapacity_;
+  private int numCentroids_;
+  private final float[] centroidMeans_;
+  private final int[] centroidWeights_;
+  private long centroidsWeight_;
+  private int numBuffered_;
+  private final float[] bufferValues_;
+  private float[] scratchValues_;  // reused by compress() and merge(), allocated on first use
+  private int[] scratchWeights_;
+
+  /**
+   * Constructor with the default K
+   */
+  public TDigestFloat() {
+    this(TDigestDouble.DEFAULT_K);
+  }
+
+  /**
+   * Constructor
+   * @param k affects the size of TDigest and its estimation error
+   */
+  public TDigestFloat(final short k) {
+    this(false, k, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, null, null, 0);
+  }
+
+  /**
+   * @return parameter k (compression) that was used to configure this TDigest
+   */
+  public short getK() {
+    return k_;
+  }
+
+  /**
+   * Update this TDigest with the given value
+   * @param value to update the TDigest with
+   */
+  public void update(final float value) {
+    if (Float.isNaN(value)) { return; }
+    if (numBuffered_ == centroidsCapacity_ * BUFFER_MULTIPLIER) { compress(); }
+    bufferValues_[numBuffered_] = value;
+    numBuffered_++;
+    minValue_ = Math.min(minValue_, value);
+    maxValue_ = Math.max(maxValue_, value);
+  }
+
+  /**
+   * Merge the given TDigest into this one
+   * @param other TDigest to merge
+   */
+  public void merge(final TDigestFloat other) {
+    if (other.isEmpty()) { return; }
+    final int numBuffered = numBuffered_ + other.numBuffered_;
+    final int num = numBuffered + other.numCentroids_ + numCentroids_;
+    ensureScratchCapacity(num);
+    // the same three-run merge as TDigestDouble.merge()
+    final float[] values = scratchValues_;
+    final int[] weights = scratchWeights_;
+    System.arraycopy(bufferValues_, 0, values, 0, numBuffered_);
+    System.arraycopy(other.bufferValues_, 0, values, numBuffered_, other.numBuffered_);
+    Sort.sort(values, numBuffered);
+    int b = numBuffered;
+    int o = other.numCentroids_;
+    int c = numCentroids_;
+    for (int i = num; i-- > 0; ) {
+      if (c > 0 && (o == 0 || centroidMeans_[c - 1] >= other.centroidMeans_[o - 1])
+          && (b == 0 || centroidMeans_[c - 1] >= values[b - 1])) {
+        values[i] = centroidMeans_[--c];
+        weights[i] = centroidWeights_[c];
+      } else if (o > 0 && (b == 0 || other.centroidMeans_[o - 1] >= values[b - 1])) {
+        values[i] = other.centroidMeans_[--o];
+        weights[i] = other.centroidWeights_[o];
+      } else {
+        values[i] = values[--b];
+        weights[i] = 1;
+      }
+    }
+    centroidsWeight_ += numBuffered_ + other.getTotalWeight();
+    merge(values, weights, num);
+  }
+
+  /**
+   * Process buffered values and merge centroids if needed
+   */
+  public void compress() {
+    if (numBuffered_ == 0) { return; }
+    final int num = numBuffered_ + numCentroids_;
+    ensureScratchCapacity(num);
+    // the centroids are already sorted, see TDigestDouble.compress()
+    Sort.sort(bufferValues_, numBuffered_);
+    final float[] values = scratchValues_;
+    final int[] weights = scratchWeights_;
+    int b = 0;
+    int c = 0;
+    for (int i = 0; i < num; i++) {
+      if (c == numCentroids_ || (b < numBuffered_ && bufferValues_[b] <= centroidMeans_[c])) {
+        values[i] = bufferValues_[b++];
+        weights[i] = 1;
+      } else {
+        values[i] = centroidMeans_[c];
+        weights[i] = centroidWeights_[c++];
+      }
+    }
+    centroidsWeight_ += numBuffered_;
+    merge(values, weights, num);
+  }
+
+  /**
+   * @return true if TDigest has not seen any data
+   */
+  public boolean isEmpty() {
+    return numCentroids_ == 0 && numBuffered_ == 0;
+  }
+
+  /**
+   * @return minimum value seen by TDigest
+   */
+  public float getMinValue() {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    return minValue_;
+  }
+
+  /**
+   * @return maximum value seen by TDigest
+   */
+  public float getMaxValue() {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    return maxValue_;
+  }
+
+  /**
+   * @return total weight
+   */
+  public long getTotalWeight() {
+    return centroidsWeight_ + numBuffered_;
+  }
+
+  /**
+   * Compute approximate normalized rank of the given value.
+   * @param value to be ranked
+   * @return normalized rank (from 0 to 1 inclusive)
+   */
+  public double getRank(final float value) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    if (Float.isNaN(value)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
+    if (value < minValue_) { return 0; }
+    if (value > maxValue_) { return 1; }
+    if (numCentroids_ + numBuffered_ == 1) { return 0.5; }
+
+    compress(); // side effect
+
+    int lower = 0;
+    long weightBelowLower = 0;
+    while (lower != numCentroids_ && centroidMeans_[lower] < value) { weightBelowLower += centroidWeights_[lower++]; }
+    int upper = lower;
+    long weightBelowUpper = weightBelowLower;
+    while (upper != numCentroids_ && !(value < centroidMeans_[upper])) { weightBelowUpper += centroidWeights_[upper++]; }
+    return getRank(value, lower, weightBelowLower, upper, weightBelowUpper);
+  }
+
+  /**
+   * Compute approximate normalized ranks of the given values in a single pass over the centroids.
+   * The values do not have to be sorted, but sorted values avoid sorting a copy.
+   * @param values to be ranked
+   * @return array of normalized ranks (from 0 to 1 inclusive) in the order of the given values
+   */
+  public double[] getRanks(final float[] values) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    for (final float value: values) {
+      if (Float.isNaN(value)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
+    }
+
+    compress(); // side effect
+
+    final double[] ranks = new double[values.length];
+    final long[] order = getSortedOrder(values);
+    int lower = 0; // lower bound of the current value
+    long weightBelowLower = 0;
+    int upper = 0; // upper bound of the current value
+    long weightBelowUpper = 0;
+    for (int j = 0; j < values.length; j++) {
+      final int index = order == null ? j : (int) order[j];
+      final float value = values[index];
+      while (lower != numCentroids_ && centroidMeans_[lower] < value) { weightBelowLower += centroidWeights_[lower++]; }
+      while (upper != numCentroids_ && !(value < centroidMeans_[upper])) { weightBelowUpper += centroidWeights_[upper++]; }
+      ranks[index] = getRank(value, lower, weightBelowLower, upper, weightBelowUpper);
+    }
+    return ranks;
+  }
+
+  /**
+   * Compute approximate quantile value corresponding to the given normalized rank
+   * @param rank normalized rank (from 0 to 1 inclusive)
+   * @return quantile value corresponding to the given rank
+   */
+  public float getQuantile(final double rank) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    checkRank(rank);
+
+    compress(); // side effect
+
+    if (numCentroids_ == 1) { return centroidMeans_[0]; }
+
+    final double weight = rank * centroidsWeight_;
+    int i = 0;
+    double weightSoFar = centroidWeights_[0] / 2.0;
+    while (i != numCentroids_ - 1 && !(weightSoFar + ((double) centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0 > weight)) {
+      weightSoFar += ((double) centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+      i++;
+    }
+    return getQuantile(weight, i, weightSoFar);
+  }
+
+  /**
+   * Compute approximate quantile values corresponding to the given normalized ranks
+   * in a single pass over the centroids.
+   * The ranks do not have to be sorted, but sorted ranks avoid sorting a copy.
+   * @param ranks normalized ranks (from 0 to 1 inclusive)
+   * @return array of quantile values in the order of the given ranks
+   */
+  public float[] getQuantiles(final double[] ranks) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    for (final double rank: ranks) { checkRank(rank); }
+
+    compress(); // side effect
+
+    final float[] quantiles = new float[ranks.length];
+    final long[] order = TDigestDouble.getSortedOrder(ranks);
+    int i = 0;
+    double weightSoFar = centroidWeights_[0] / 2.0;
+    for (int j = 0; j < ranks.length; j++) {
+      final int index = order == null ? j : (int) order[j];
+      final double weight = ranks[index] * centroidsWeight_;
+      while (i < numCentroids_ - 1 && !(weightSoFar + ((double) centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0 > weight)) {
+        weightSoFar += ((double) centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+        i++;
+      }
+      quantiles[index] = numCentroids_ == 1 ? centroidMeans_[0] : getQuantile(weight, i, weightSoFar);
+    }
+    return quantiles;
+  }
+
+  /**
+   * Returns an approximation to the Cumulative Distribution Function (CDF) of the input stream
+   * given a set of split points. See {@link TDigestDouble#getCDF(double[])}.
+   * @param splitPoints an array of <i>m</i> unique, monotonically increasing values
+   * that divide the input domain into <i>m+1</i> consecutive disjoint intervals.
+   * @return an array of m+1 doubles: the ranks of the given split points and 1
+   */
+  public double[] getCDF(final float[] splitPoints) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    QuantilesUtil.checkFloatsSplitPointsOrder(splitPoints);
+    final double[] ranks = Arrays.copyOf(getRanks(splitPoints), splitPoints.length + 1);
+    ranks[splitPoints.length] = 1.0;
+    return ranks;
+  }
+
+  /**
+   * Returns an approximation to the Probability Mass Function (PMF) of the input stream
+   * given a set of split points. See {@link TDigestDouble#getPMF(double[])}.
+   * @param splitPoints an array of <i>m</i> unique, monotonically increasing values
+   * that divide the input domain into <i>m+1</i> consecutive disjoint intervals (bins).
+   * @return an array of m+1 doubles each of which is an approximation to the fraction of
+   * the input stream values (the mass) that fall into one of those intervals.
+   */
+  public double[] getPMF(final float[] splitPoints) {
+    final double[] buckets = getCDF(splitPoints);
+    for (int i = buckets.length; i-- > 1; ) {
+      buckets[i] -= buckets[i - 1];
+    }
+    return buckets;
+  }
+
+  /**
+   * Computes size needed to serialize the current state.
+   * @return size in bytes needed to serialize this tdigest
+   */
+  int getSerializedSizeBytes() {
+    compress(); // side effect
+    return getPreambleLongs() * Long.BYTES
+    + (isEmpty() ? 0 : (isSingleValue() ? Float.BYTES : 2 * Float.BYTES + (Float.BYTES + Integer.BYTES) * numCentroids_));
+  }
+
+  /**
+   * Serialize this TDigest to a byte array form.
+   * @return byte array
+   */
+  public byte[] toByteArray() {
+    compress(); // side effect
+    final byte[] bytes = new byte[getSerializedSizeBytes()];
+    final WritableBuffer wbuf = WritableMemory.writableWrap(bytes).asWritableBuffer();
+    wbuf.putByte((byte) getPreambleLongs());
+    wbuf.putByte(SERIAL_VERSION);
+    wbuf.putByte((byte) Family.TDIGEST.getID());
+    wbuf.putShort(k_);
+    wbuf.putByte((byte) (
+        (isEmpty() ? 1 << Flags.IS_EMPTY.ordinal() : 0)
+      | (isSingleValue() ? 1 << Flags.IS_SINGLE_VALUE.ordinal() : 0)
+      | (reverseMerge_ ? 1 << Flags.REVERSE_MERGE.ordinal() : 0)
+    ));
+    wbuf.putShort((short) 0); // unused
+    if (isEmpty()) { return bytes; }
+    if (isSingleValue()) {
+      wbuf.putFloat(minValue_);
+      return bytes;
+    }
+    wbuf.putInt(numCentroids_);
+    wbuf.putInt(0); // unused
+    wbuf.putFloat(minValue_);
+    wbuf.putFloat(maxValue_);
+    for (int i = 0; i < numCentroids_; i++) {
+      wbuf.putFloat(centroidMeans_[i]);
+      wbuf.putInt(centroidWeights_[i]);
+    }
+    return bytes;
+  }
+
+  /**
+   * Deserialize TDigest from a given memory with (float, int) centroids as produced by {@link #toByteArray()}.
+   * @param mem instance of Memory
+   * @return an instance of TDigest
+   */
+  public static TDigestFloat heapify(final Memory mem) {
+    final Buffer buff = mem.asBuffer();
+    final byte preambleLongs = buff.getByte();
+    final byte serialVersion = buff.getByte();
+    final byte sketchType = buff.getByte();
+    if (sketchType != (byte) Family.TDIGEST.getID()) {
+      throw new SketchesArgumentException("Sketch type mismatch: expected " + Family.TDIGEST.getID() + ", actual " + sketchType);
+    }
+    if (serialVersion != SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + SERIAL_VERSION + ", actual " + serialVersion);
+    }
+    final short k = buff.getShort();
+    final byte flagsByte = buff.getByte();
+    final boolean isEmpty = (flagsByte & (1 << Flags.IS_EMPTY.ordinal())) > 0;
+    final boolean isSingleValue = (flagsByte & (1 << Flags.IS_SINGLE_VALUE.ordinal())) > 0;
+    final byte expectedPreambleLongs = isEmpty || isSingleValue ? PREAMBLE_LONGS_EMPTY_OR_SINGLE : PREAMBLE_LONGS_MULTIPLE;
+    if (preambleLongs != expectedPreambleLongs) {
+      throw new SketchesArgumentException("Preamble longs mismatch: expected " + expectedPreambleLongs + ", actual " + preambleLongs);
+    }
+    buff.getShort(); // unused
+    if (isEmpty) { return new TDigestFloat(k); }
+    final boolean reverseMerge = (flagsByte & (1 << Flags.REVERSE_MERGE.ordinal())) > 0;
+    if (isSingleValue) {
+      final float value = buff.getFloat();
+      return new TDigestFloat(reverseMerge, k, value, value, new float[] {value}, new int[] {1}, 1);
+    }
+    final int numCentroids = buff.getInt();
+    buff.getInt(); // unused
+    final float min = buff.getFloat();
+    final float max = buff.getFloat();
+    final float[] means = new float[numCentroids];
+    final int[] weights = new int[numCentroids];
+    long totalWeight = 0;
+    for (int i = 0; i < numCentroids; i++) {
+      means[i] = buff.getFloat();
+      weights[i] = buff.getInt();
+      totalWeight += weights[i];
+    }
+    return new TDigestFloat(reverseMerge, k, min, max, means, weights, totalWeight);
+  }
+
+  /**
+   * Human-readable summary of this TDigest as a string
+   * @return summary of this TDigest
+   */
+  @Override
+  public String toString() {
+    return toString(false);
+  }
+
+  /**
+   * Human-readable summary of this TDigest as a string
+   * @param printCentroids if true append the list of centroids with weights
+   * @return summary of this TDigest
+   */
+  public String toString(final boolean printCentroids) {
+    final StringBuilder sb = new StringBuilder();
+
+    sb.append("MergingDigest (float)").append(LS)
+      .append(" Compression: ").append(k_).append(LS)
+      .append(" Centroids: ").append(numCentroids_).append(LS)
+      .append(" Buffered: ").append(numBuffered_).append(LS)
+      .append(" Centroids Capacity: ").append(centroidsCapacity_).append(LS)
+      .append(" Buffer Capacity: ").append(centroidsCapacity_ * BUFFER_MULTIPLIER).append(LS)
+      .append("Centroids Weight: ").append(centroidsWeight_).append(LS)
+      .append(" Total Weight: ").append(getTotalWeight()).append(LS)
+      .append(" Reverse Merge: ").append(reverseMerge_).append(LS);
+    if (!isEmpty()) {
+      sb.append(" Min: ").append(minValue_).append(LS)
+        .append(" Max: ").append(maxValue_).append(LS);
+    }
+    if (printCentroids) {
+      if (numCentroids_ > 0) {
+        sb.append("Centroids:").append(LS);
+        for (int i = 0; i < numCentroids_; i++) {
+          sb.append(i).append(": ").append(centroidMeans_[i]).append(", ").append(centroidWeights_[i]).append(LS);
+        }
+      }
+      if (numBuffered_ > 0) {
+        sb.append("Buffer:").append(LS);
+        for (int i = 0; i < numBuffered_; i++) {
+          sb.append(i).append(": ").append(bufferValues_[i]).append(LS);
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  private TDigestFloat(final boolean reverseMerge, final short k, final float min, final float max,
+      final float[] means, final int[] weights, final long weight) {
+    reverseMerge_ = reverseMerge;
+    k_ = k;
+    minValue_ = min;
+    maxValue_ = max;
+    centroidsCapacity_ = computeCentroidsCapacity(k);
+    centroidMeans_ = new float[centroidsCapacity_];
+    centroidWeights_ = new int[centroidsCapacity_];
+    bufferValues_ = new float[centroidsCapacity_ * BUFFER_MULTIPLIER];
+    numCentroids_ = 0;
+    numBuffered_ = 0;
+    centroidsWeight_ = weight;
+    if (means != null && weights != null) {
+      System.arraycopy(means, 0, centroidMeans_, 0, means.length);
+      System.arraycopy(weights, 0, centroidWeights_, 0, weights.length);
+      numCentroids_ = means.length;
+    }
+  }
+
+  // returns the order of the given values as an array of indices, or null if they are sorted already
+  // floats widen to doubles exactly, so the order is the same as for the values as doubles
+  private static long[] getSortedOrder(final float[] values) {
+    int i = 1;
+    while (i < values.length && values[i - 1] <= values[i]) { i++; }
+    if (i >= values.length) { return null; }
+    final double[] keys = new double[values.length];
+    for (i = 0; i < keys.length; i++) { keys[i] = values[i]; }
+    return TDigestDouble.getSortedOrderOf(keys);
+  }
+
+  // rank of the given value after compress(), see TDigestDouble.getRank()
+  private double getRank(final float value, final int lowerBound, final long weightBelowLowerBound,
+      final int upperBound, final long weightBelowUpperBound) {
+    if (value < minValue_) { return 0; }
+    if (value > maxValue_) { return 1; }
+    if (numCentroids_ == 1) { return 0.5; }
+
+    // left tail
+    final double firstMean = centroidMeans_[0];
+    if (value < firstMean) {
+      if (firstMean - minValue_ > 0) {
+        if (value == minValue_) { return 0.5 / centroidsWeight_; }
+        return (1.0 + (value - minValue_) / (firstMean - minValue_) * (centroidWeights_[0] / 2.0 - 1.0));
+      }
+      return 0; // should never happen
+    }
+
+    // right tail
+    final double lastMean = centroidMeans_[numCentroids_ - 1];
+    if (value > lastMean) {
+      if (maxValue_ - lastMean > 0) {
+        if (value == maxValue_) { return 1.0 - 0.5 / centroidsWeight_; }
+        return 1.0 - ((1.0 + (maxValue_ - value) / (maxValue_ - lastMean)
+            * (centroidWeights_[numCentroids_ - 1] / 2.0 - 1.0)) / centroidsWeight_);
+      }
+      return 1; // should never happen
+    }
+
+    if (lowerBound == numCentroids_) { throw new SketchesStateException("lower == end in getRank()"); }
+    if (upperBound == 0) { throw new SketchesStateException("upper == begin in getRank()"); }
+    int lower = lowerBound;
+    long weightBelowLower = weightBelowLowerBound;
+    if (value < centroidMeans_[lower]) { weightBelowLower -= centroidWeights_[--lower]; }
+    int upper = upperBound;
+    long weightBelowUpper = weightBelowUpperBound;
+    if (upper == numCentroids_ || !(centroidMeans_[upper - 1] < value)) { weightBelowUpper -= centroidWeights_[--upper]; }
+
+    final double weightBelow = weightBelowLower + centroidWeights_[lower] / 2.0;
+    double weightDelta = weightBelowUpper - weightBelowLower;
+    weightDelta -= centroidWeights_[lower] / 2.0;
+    weightDelta += centroidWeights_[upper] / 2.0;
+    if (centroidMeans_[upper] - centroidMeans_[lower] > 0) {
+      return (weightBelow + weightDelta * ((double) value - centroidMeans_[lower])
+          / ((double) centroidMeans_[upper] - centroidMeans_[lower])) / centroidsWeight_;
+    }
+    return (weightBelow + weightDelta / 2.0) / centroidsWeight_;
+  }
+
+  // quantile for the given weight after compress() with at least 2 centroids, see TDigestDouble.getQuantile()
+  private float getQuantile(final double weight, final int i, final double weightSoFar) {
+    if (weight < 1) { return minValue_; }
+    if (weight > centroidsWeight_ - 1.0) { return maxValue_; }
+    final double firstWeight = centroidWeights_[0];
+    if (firstWeight > 1 && weight < firstWeight / 2.0) {
+      return (float) (minValue_ + (weight - 1.0) / (firstWeight / 2.0 - 1.0) * ((double) centroidMeans_[0] - minValue_));
+    }
+    final double lastWeight = centroidWeights_[numCentroids_ - 1];
+    if (lastWeight > 1 && centroidsWeight_ - weight <= lastWeight / 2.0) {
+      return (float) (maxValue_ + (centroidsWeight_ - weight - 1.0) / (lastWeight / 2.0 - 1.0)
+          * ((double) maxValue_ - centroidMeans_[numCentroids_ - 1]));
+    }
+
+    // interpolate between extremes
+    if (i != numCentroids_ - 1) {
+      final double dw = ((double) centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+      double leftWeight = 0;
+      if (centroidWeights_[i] == 1) {
+        if (weight - weightSoFar < 0.5) { return centroidMeans_[i]; }
+        leftWeight = 0.5;
+      }
+      double rightWeight = 0;
+      if (centroidWeights_[i + 1] == 1) {
+        if (weightSoFar + dw - weight <= 0.5) { return centroidMeans_[i + 1]; }
+        rightWeight = 0.5;
+      }
+      final double w1 = weight - weightSoFar - leftWeight;
+      final double w2 = weightSoFar + dw - weight - rightWeight;
+      return (float) weightedAverage(centroidMeans_[i], w1, centroidMeans_[i + 1], w2);
+    }
+    final double w1 = weight - centroidsWeight_ - centroidWeights_[numCentroids_ - 1] / 2.0;
+    final double w2 = centroidWeights_[numCentroids_ - 1] / 2.0 - w1;
+    return (float) weightedAverage(centroidMeans_[numCentroids_ - 1], w1, maxValue_, w2);
+  }
+
+  // makes sure the scratch arrays can hold num centroids, allocating only if they cannot
+  private void ensureScratchCapacity(final int num) {
+    if (scratchValues_ == null || scratchValues_.length < num) {
+      final int size = Math.max(num, centroidsCapacity_ * (BUFFER_MULTIPLIER + 1));
+      scratchValues_ = new float[size];
+      scratchWeights_ = new int[size];
+    }
+  }
+
+  // compresses the given sorted values and weights into the centroids of this TDigest
+  // centroidsWeight_ must already include the total weight of the input
+  private void merge(final float[] values, final int[] weights, final int num) {
+    numCentroids_ = 0;
+    if (reverseMerge_) {
+      Sort.reverse(values, num);
+      Sort.reverse(weights, num);
+    }
+    centroidMeans_[0] = values[0];
+    centroidWeights_[0] = weights[0];
+    numCentroids_++;
+    int current = 1;
+    double weightSoFar = 0;
+    while (current != num) {
+      final double proposedWeight = (double) centroidWeights_[numCentroids_ - 1] + weights[current];
+      boolean addThis = false;
+      if (current != 1 && current != num - 1 && proposedWeight <= Integer.MAX_VALUE) {
+        final double q0 = weightSoFar / centroidsWeight_;
+        final double q2 = (weightSoFar + proposedWeight) / centroidsWeight_;
+        final double normalizer = ScaleFunction.normalizer(k_ * 2, centroidsWeight_);
+        addThis = proposedWeight <= centroidsWeight_ * Math.min(ScaleFunction.max(q0, normalizer), ScaleFunction.max(q2, normalizer));
+      }
+      if (addThis) { // merge into existing centroid, computing the new mean in double
+        final double mean = centroidMeans_[numCentroids_ - 1];
+        centroidWeights_[numCentroids_ - 1] += weights[current];
+        centroidMeans_[numCentroids_ - 1] = (float) (mean + (values[current] - mean)
+            * weights[current] / centroidWeights_[numCentroids_ - 1]);
+      } else { // copy to a new centroid
+        weightSoFar += centroidWeights_[numCentroids_ - 1];
+        centroidMeans_[numCentroids_] = values[current];
+        centroidWeights_[numCentroids_] = weights[current];
+        numCentroids_++;
+      }
+      current++;
+    }
+    if (reverseMerge_) {
+      Sort.reverse(centroidMeans_, numCentroids_);
+      Sort.reverse(centroidWeights_, numCentroids_);
+    }
+    numBuffered_ = 0;
+    reverseMerge_ = !reverseMerge_;
+    minValue_ = Math.min(minValue_, centroidMeans_[0]);
+    maxValue_ = Math.max(maxValue_, centroidMeans_[numCentroids_ - 1]);
+  }
+
+  private boolean isSingleValue() {
+    return getTotalWeight() == 1;
+  }
+
+  private int getPreambleLongs() {
+    return isEmpty() || isSingleValue() ? PREAMBLE_LONGS_EMPTY_OR_SINGLE : PREAMBLE_LONGS_MULTIPLE;
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+
+/**
+ * The executor that runs the background propagation tasks of concurrent shared theta sketches.
+ * An instance is given to {@link UpdateSketchBuilder#setPropagationExecutor(ConcurrentPropagationExecutor)}
+ * and may be shared by any number of shared sketches.
+ *
+ * <p>The propagation tasks of a single shared sketch are always run one at a time and in order,
+ * even if the underlying executor has many threads, so a multi-threaded executor spreads the
+ * propagation work of many shared sketches over its threads without any additional locking.</p>
+ *
+ * <p>The executor also keeps a few metrics: the number of propagation tasks that have been
+ * submitted but not yet started (the queue depth), the number of completed tasks, and the latency
+ * of each task from submission to completion.</p>
+ *
+ * <p>If the underlying executor rejects a task, for example because it has been shut down, the
+ * task is run by the submitting thread instead, so no propagation is ever lost.</p>
+ *
+ * <p>Shared sketches built without an executor of their own use the {@linkplain #getDefault() default
+ * executor}.</p>
+ */
+public final class ConcurrentPropagationExecutor {
+
+  /**
+   * The number of threads in the pool of the {@linkplain #getDefault() default executor}.
+   */
+  public static final int DEFAULT_NUM_THREADS = 3;
+
+  private static final String VIRTUAL_THREAD_FACTORY_METHOD = "newVirtualThreadPerTaskExecutor";
+  private static ConcurrentPropagationExecutor defaultExecutor = null; //guarded by the class
+
+  private final Executor executor;
+  private final boolean owned;
+  private final AtomicLong queueDepth = new AtomicLong();
+  private final AtomicLong numCompleted = new AtomicLong();
+  private final AtomicLong totalLatencyNanos = new AtomicLong();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+  private ConcurrentPropagationExecutor(final Executor executor, final boolean owned) {
+    this.executor = executor;
+    this.owned = owned;
+  }
+
+  /**
+   * Returns a propagation executor that runs tasks on the given caller-supplied executor.
+   * The caller retains ownership of the given executor: {@link #shutdown()} does not shut it down.
+   * @param executor the given executor
+   * @return a propagation executor that runs tasks on the given executor.
+   */
+  public static ConcurrentPropagationExecutor of(final Executor executor) {
+    Objects.requireNonNull(executor, "Executor must not be null");
+    return new ConcurrentPropagationExecutor(executor, false);
+  }
+
+  /**
+   * Returns a propagation executor backed by its own pool of daemon threads.
+   * {@link #shutdown()} shuts this pool down.
+   * @param numThreads the number of threads in the pool. This must be at least one.
+   * @return a propagation executor backed by its own pool of daemon threads.
+   */
+  public static ConcurrentPropagationExecutor newFixedThreadPool(final int numThreads) {
+    if (numThreads < 1) {
+      throw new SketchesArgumentException("numThreads must be at least one: " + numThreads);
+    }
+    final ThreadFactory factory = r -> {
+      final Thread thread = new Thread(r, "theta-propagation");
+      thread.setDaemon(true);
+      return thread;
+    };
+    return new ConcurrentPropagationExecutor(Executors.newFixedThreadPool(numThreads, factory), true);
+  }
+
+  /**
+   * Returns the default propagation executor, which runs the propagation tasks of every shared sketch
+   * built without an executor of its own. It is a pool of {@value #DEFAULT_NUM_THREADS} daemon
+   * threads, created on first use, so its metrics cover the propagation of all those sketches.
+   *
+   * <p>The default executor may be shut down like any other owned executor. The shared sketches
+   * that use it then run their propagation tasks in the submitting thread, and the next call of
+   * this method creates a new default executor for the shared sketches built after that.</p>
+   *
+   * @return the default propagation executor.
+   */
+  public static synchronized ConcurrentPropagationExecutor getDefault() {
+    if ((defaultExecutor == null) || defaultExecutor.isShutdown()) {
+      defaultExecutor = newFixedThreadPool(DEFAULT_NUM_THREADS);
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Returns a propagation executor that starts a new virtual thread for each task.
+   * Virtual threads are only available on JDK 21 and later; see
+   * {@link #isVirtualThreadPerTaskSupported()}. {@link #shutdown()} shuts this executor down.
+   * @return a propagation executor that starts a new virtual thread for each task.
+   * @throws SketchesStateException if the running JVM does not support virtual threads.
+   */
+  public static ConcurrentPropagationExecutor newVirtualThreadPerTask() {
+    final ExecutorService service;
+    try {
+      service = (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_FACTORY_METHOD).invoke(null);
+    } catch (final ReflectiveOperationException e) {
+      throw new SketchesStateException("Virtual threads require JDK 21 or later: " + e);
+    }
+    return new ConcurrentPropagationExecutor(service, true);
+  }
+
+  /**
+   * Returns true if the running JVM supports {@link #newVirtualThreadPerTask()}.
+   * @return true if the running JVM supports {@link #newVirtualThreadPerTask()}.
+   */
+  public static boolean isVirtualThreadPerTaskSupported() {
+    try {
+      Executors.class.getMethod(VIRTUAL_THREAD_FACTORY_METHOD);
+      return true;
+    } catch (final NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the number of propagation tasks that have been submitted but not yet started.
+   * @return the number of propagation tasks that have been submitted but not yet started.
+   */
+  public long getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * Returns the number of propagation tasks that have completed.
+   * @return the number of propagation tasks that have completed.
+   */
+  public long getNumCompletedPropagations() {
+    return numCompleted.get();
+  }
+
+  /**
+   * Returns the mean latency of the completed propagation tasks, from submission to completion.
+   * @return the mean latency in nanoseconds, or zero if no task has completed.
+   */
+  public double getMeanPropagationLatencyNanos() {
+    final long n = numCompleted.get();
+    return (n == 0) ? 0.0 : (double) totalLatencyNanos.get() / n;
+  }
+
+  /**
+   * Returns the maximum latency of the completed propagation tasks, from submission to completion.
+   * @return the maximum latency in nanoseconds, or zero if no task has completed.
+   */
+  public long getMaxPropagationLatencyNanos() {
+    return maxLatencyNanos.get();
+  }
+
+  /**
+   * Returns true if this executor owns its underlying executor, which is shut down by
+   * {@link #shutdown()}.
+   * @return true if this executor owns its underlying executor.
+   */
+  public boolean isOwned() {
+    return owned;
+  }
+
+  /**
+   * Initiates an orderly shutdown of the underlying executor if it is owned by this executor.
+   * Tasks already submitted are still run. This has no effect on a caller-supplied executor.
+   */
+  public void shutdown() {
+    if (owned) { ((ExecutorService) executor).shutdown(); }
+  }
+
+  /**
+   * Returns true if the underlying executor is owned by this executor and has been shut down.
+   * @return true if the underlying executor is owned by this executor and has been shut down.
+   */
+  public boolean isShutdown() {
+    return owned && ((ExecutorService) executor).isShutdown();
+  }
+
+  /**
+   * Blocks until all tasks have completed after a shutdown, or the timeout occurs.
+   * For a caller-supplied executor this returns true immediately.
+   * @param timeout the maximum time to wait
+   * @param unit the time unit of the timeout argument
+   * @return true if the underlying executor terminated or is caller-supplied, false if the
+   * timeout elapsed first.
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitTermination(final long timeout, final TimeUnit unit)
+      throws InterruptedException {
+    return owned ? ((ExecutorService) executor).awaitTermination(timeout, unit) : true;
+  }
+
+  //restricted
+
+  /**
+   * Returns a new lane, which runs the tasks submitted to it one at a time and in order on this
+   * executor. Each shared sketch propagates through its own lane.
+   * @return a new lane.
+   */
+  Lane newLane() {
+    return new Lane();
+  }
+
+  private void recordCompletion(final long latencyNanos) {
+    numCompleted.incrementAndGet();
+    totalLatencyNanos.addAndGet(latencyNanos);
+    long max = maxLatencyNanos.get();
+    while ((latencyNanos > max) && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+      max = maxLatencyNanos.get();
+    }
+  }
+
+  /**
+   * A serial executor on top of the enclosing executor.
+   * The monitor only guards the queue: the tasks themselves always run without it held.
+   */
+  final class Lane implements Executor {
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>(); //guarded by this
+    private boolean active = false; //guarded by this, true while a task of this lane is queued or running
+
+    @Override
+    public void execute(final Runnable task) {
+      final long submitNanos = System.nanoTime();
+      queueDepth.incrementAndGet();
+      synchronized (this) {
+        tasks.add(() -> {
+          queueDepth.decrementAndGet();
+          try {
+            task.run();
+          } finally {
+            recordCompletion(System.nanoTime() - submitNanos);
+          }
+        });
+        if (active) { return; }
+        active = true;
+      }
+      scheduleNext();
+    }
+
+    /**
+     * Blocks until every task submitted to this lane has completed.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized void awaitQuiescence() throws InterruptedException {
+      while (active) { wait(); }
+    }
+
+    /**
+     * Hands the next task to the executor, which schedules the one after it on completion.
+     * If the executor rejects it, the task is run by the calling thread instead, and so are
+     * the remaining tasks, one after the other.
+     */
+    private void scheduleNext() {
+      Runnable next;
+      while ((next = pollNext()) != null) {
+        final Runnable current = next;
+        try {
+          executor.execute(() -> {
+            try {
+              current.run();
+            } finally {
+              scheduleNext();
+            }
+          });
+          return;
+        } catch (final RejectedExecutionException e) {
+          boolean completed = false;
+          try {
+            current.run();
+            completed = true;
+          } finally {
+            if (!completed) { scheduleNext(); } //the lane carries on after a failed task
+          }
+        }
+      }
+    }
+
+    private synchronized Runnable pollNext() {
+      final Runnable next = tasks.poll();
+      if (next == null) {
+        active = false;
+        notifyAll();
+      }
+      return next;
+    }
+  }
+
+}
@@ -60,6 +60,7 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @author Lee Rhodes
  */
 public abstract class UpdateSketch extends Sketch {
+  private final long[] hashOut_ = new long[2]; //reused by the update methods to avoid allocation
 
   UpdateSketch() {}
 
@@ -219,8 +220,7 @@ public abstract class UpdateSketch extends Sketch {
    * <a href="{@docRoot}/resources/dictionary.html#updateReturnState">See Update Return State</a>
    */
   public UpdateReturnState update(final long datum) {
-    final long[] data = { datum };
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash(datum, getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -236,8 +236,8 @@ public abstract class UpdateSketch extends Sketch {
    */
   public UpdateReturnState update(final double datum) {
     final double d = (datum == 0.0) ? 0.0 : datum; // canonicalize -0.0, 0.0
-    final long[] data = { Double.doubleToLongBits(d) };// canonicalize all NaN & +/- infinity forms
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    // canonicalize all NaN & +/- infinity forms
+    return hashUpdate(hash(Double.doubleToLongBits(d), getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -258,7 +258,7 @@ public abstract class UpdateSketch extends Sketch {
       return RejectedNullOrEmpty;
     }
     final byte[] data = datum.getBytes(UTF_8);
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash(data, getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -273,7 +273,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash(data, getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -288,7 +288,7 @@ public abstract class UpdateSketch extends Sketch {
     if (buffer == null || buffer.hasRemaining() == false) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(buffer, getSeed())[0] >>> 1);
+    return hashUpdate(hash(buffer, getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -306,7 +306,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash(data, getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -321,7 +321,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash(data, getSeed(), hashOut_)[0] >>> 1);
   }
 
   /**
@@ -336,7 +336,78 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash(data, getSeed(), hashOut_)[0] >>> 1);
+  }
+
+  /**
+   * Present this sketch with each long in the given range of the array.
+   * The resulting state is the same as calling {@link #update(long)} for each item in order,
+   * but the items are hashed without allocating.
+   *
+   * @param items the given array of long items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final long[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    final long seed = getSeed();
+    for (int i = from; i < to; i++) {
+      hashUpdate(hash(items[i], seed, hashOut_)[0] >>> 1);
+    }
+  }
+
+  /**
+   * Present this sketch with each int in the given range of the array.
+   * Each int is widened to a long, so the resulting state is the same as calling
+   * {@link #update(long)} for each item in order.
+   *
+   * @param items the given array of int items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final int[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    final long seed = getSeed();
+    for (int i = from; i < to; i++) {
+      hashUpdate(hash(items[i], seed, hashOut_)[0] >>> 1);
+    }
+  }
+
+  /**
+   * Present this sketch with each double in the given range of the array.
+   * The resulting state is the same as calling {@link #update(double)} for each item in order.
+   *
+   * @param items the given array of double items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final double[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    final long seed = getSeed();
+    for (int i = from; i < to; i++) {
+      final double d = (items[i] == 0.0) ? 0.0 : items[i]; // canonicalize -0.0, 0.0
+      hashUpdate(hash(Double.doubleToLongBits(d), seed, hashOut_)[0] >>> 1);
+    }
+  }
+
+  /**
+   * Present this sketch with each String in the given range of the array.
+   * The resulting state is the same as calling {@link #update(String)} for each item in order.
+   * Null or empty strings are ignored.
+   *
+   * @param items the given array of String items.
+   * @param from the index of the first item to present, inclusive.
+   * @param to the index of the last item to present, exclusive.
+   */
+  public void updateAll(final String[] items, final int from, final int to) {
+    checkBounds(from, to - from, items.length);
+    final long seed = getSeed();
+    for (int i = from; i < to; i++) {
+      final String datum = items[i];
+      if ((datum == null) || datum.isEmpty()) { continue; }
+      final byte[] data = datum.getBytes(UTF_8);
+      hashUpdate(hash(data, 0, data.length, seed, hashOut_)[0] >>> 1);
+    }
   }
 
   //restricted methods
@@ -27,7 +27,6 @@ import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
-import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
@@ -52,6 +51,7 @@ public class UpdateSketchBuilder {
   private boolean bPropagateOrderedCompact;
   private double bMaxConcurrencyError;
   private int bMaxNumLocalThreads;
+  private ConcurrentPropagationExecutor bPropagationExecutor;
 
   /**
    * Constructor for building a new UpdateSketch. The default configuration is
@@ -69,7 +69,7 @@ public class UpdateSketchBuilder {
    * Parameters unique to the concurrent sketches only:
    * <ul>
    * <li>Number of local Nominal Entries: 4</li>
-   * <li>Concurrent NumPoolThreads: 3</li>
+   * <li>Concurrent PropagationExecutor: null, which uses the default executor</li>
    * <li>Concurrent PropagateOrderedCompact: true</li>
    * <li>Concurrent MaxConcurrencyError: 0</li>
    * </ul>
@@ -82,11 +82,12 @@ public class UpdateSketchBuilder {
     bFam = Family.QUICKSELECT;
     bMemReqSvr = new DefaultMemoryRequestServer();
     // Default values for concurrent sketch
-    bNumPoolThreads = ConcurrentPropagationService.NUM_POOL_THREADS;
+    bNumPoolThreads = ConcurrentPropagationExecutor.DEFAULT_NUM_THREADS;
     bLocalLgNomLongs = 4; //default is smallest legal QS sketch
     bPropagateOrderedCompact = true;
     bMaxConcurrencyError = 0;
     bMaxNumLocalThreads = 1;
+    bPropagationExecutor = null;
   }
 
   /**
@@ -270,7 +271,12 @@ public class UpdateSketchBuilder {
   /**
    * Sets the number of pool threads used for background propagation in the concurrent sketches.
    * @param numPoolThreads the given number of pool threads
+   * @deprecated This has no effect: the default executor always has
+   * {@value ConcurrentPropagationExecutor#DEFAULT_NUM_THREADS} threads. To use a pool of another size use
+   * {@link #setPropagationExecutor(ConcurrentPropagationExecutor)} with
+   * {@link ConcurrentPropagationExecutor#newFixedThreadPool(int)}.
    */
+  @Deprecated
   public void setNumPoolThreads(final int numPoolThreads) {
     bNumPoolThreads = numPoolThreads;
   }
@@ -278,11 +284,39 @@ public class UpdateSketchBuilder {
   /**
    * Gets the number of background pool threads used for propagation in the concurrent sketches.
    * @return the number of background pool threads
+   * @deprecated This value is no longer used, see {@link #setNumPoolThreads(int)}.
    */
+  @Deprecated
   public int getNumPoolThreads() {
     return bNumPoolThreads;
   }
 
+  /**
+   * Sets the executor that runs the background propagation tasks of the concurrent shared sketches
+   * built by this builder. If null, which is the default, the shared sketches use
+   * {@link ConcurrentPropagationExecutor#getDefault()}.
+   *
+   * <p>A caller-supplied executor lets many shared sketches share a pool of any size, and lets
+   * the caller monitor its queue depth and propagation latency and shut it down. See
+   * {@link ConcurrentPropagationExecutor}.</p>
+   *
+   * @param propagationExecutor the given propagation executor, or null for the default pool.
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setPropagationExecutor(
+      final ConcurrentPropagationExecutor propagationExecutor) {
+    bPropagationExecutor = propagationExecutor;
+    return this;
+  }
+
+  /**
+   * Gets the executor that runs the background propagation tasks of the concurrent shared sketches.
+   * @return the propagation executor, or null if the default executor is used.
+   */
+  public ConcurrentPropagationExecutor getPropagationExecutor() {
+    return bPropagationExecutor;
+  }
+
   /**
    * Sets the Propagate Ordered Compact flag to the given value. Used with concurrent sketches.
    *
@@ -388,7 +422,7 @@ public class UpdateSketchBuilder {
    *
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
-   * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which uses the default executor)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -410,7 +444,7 @@ public class UpdateSketchBuilder {
    *
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
-   * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which uses the default executor)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -424,14 +458,13 @@ public class UpdateSketchBuilder {
    * @return a concurrent UpdateSketch with the current configuration of the Builder
    * and the given destination WritableMemory.
    */
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-      justification = "Harmless in Builder, fix later")
   public UpdateSketch buildShared(final WritableMemory dstMem) {
-    ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
     if (dstMem == null) {
-      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError,
+          bPropagationExecutor);
     } else {
-      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, dstMem);
+      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError,
+          bPropagationExecutor, dstMem);
     }
   }
 
@@ -443,7 +476,7 @@ public class UpdateSketchBuilder {
    *
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
-   * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which uses the default executor)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -459,14 +492,13 @@ public class UpdateSketchBuilder {
    * @return a concurrent UpdateSketch with the current configuration of the Builder
    * and the given destination WritableMemory.
    */
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-      justification = "Harmless in Builder, fix later")
   public UpdateSketch buildSharedFromSketch(final UpdateSketch sketch, final WritableMemory dstMem) {
-    ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
     if (dstMem == null) {
-      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError,
+          bPropagationExecutor);
     } else {
-      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, dstMem);
+      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError,
+          bPropagationExecutor, dstMem);
     }
   }
 
@@ -508,6 +540,7 @@ public class UpdateSketchBuilder {
     sb.append("MemoryRequestServer:").append(TAB).append(mrsStr).append(LS);
     sb.append("Propagate Ordered Compact").append(TAB).append(bPropagateOrderedCompact).append(LS);
     sb.append("NumPoolThreads").append(TAB).append(bNumPoolThreads).append(LS);
+    sb.append("PropagationExecutor").append(TAB).append(bPropagationExecutor).append(LS);
     sb.append("MaxConcurrencyError").append(TAB).append(bMaxConcurrencyError).append(LS);
     sb.append("MaxNumLocalThreads").append(TAB).append(bMaxNumLocalThreads).append(LS);
     return sb.toString();
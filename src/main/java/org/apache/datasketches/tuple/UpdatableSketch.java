@@ -40,6 +40,7 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @param <S> Type of the UpdatableSummary&lt;U&gt;
  */
 public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSelectSketch<S> {
+  private final long[] hashOut_ = new long[2]; //reused by the update methods to avoid allocation
 
   /**
    * This is to create a new instance of an UpdatableQuickSelectSketch.
@@ -102,7 +103,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    * @param value The given U value
    */
   public void update(final long key, final U value) {
-    update(new long[] {key}, value);
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut_)[0] >>> 1, value);
   }
 
   /**
@@ -113,7 +114,10 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    * @param value The given U value
    */
   public void update(final double key, final U value) {
-    update(Util.doubleToLongArray(key), value);
+    final double d = (key == 0.0) ? 0.0 : key; // canonicalize -0.0, 0.0
+    // canonicalize all NaN & +/- infinity forms
+    final long hash = MurmurHash3.hash(Double.doubleToLongBits(d), ThetaUtil.DEFAULT_UPDATE_SEED, hashOut_)[0];
+    insertOrIgnore(hash >>> 1, value);
   }
 
   /**
@@ -136,7 +140,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final byte[] key, final U value) {
     if ((key == null) || (key.length == 0)) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut_)[0] >>> 1, value);
   }
 
   /**
@@ -148,7 +152,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final ByteBuffer buffer, final U value) {
     if (buffer == null || buffer.hasRemaining() == false) { return; }
-    insertOrIgnore(MurmurHash3.hash(buffer, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash(buffer, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut_)[0] >>> 1, value);
   }
 
   /**
@@ -160,7 +164,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final int[] key, final U value) {
     if ((key == null) || (key.length == 0)) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut_)[0] >>> 1, value);
   }
 
   /**
@@ -172,7 +176,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final long[] key, final U value) {
     if ((key == null) || (key.length == 0)) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut_)[0] >>> 1, value);
   }
 
   void insertOrIgnore(final long hash, final U value) {
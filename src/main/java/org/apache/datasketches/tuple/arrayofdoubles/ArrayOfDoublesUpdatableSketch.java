@@ -34,6 +34,7 @@ import org.apache.datasketches.tuple.Util;
 public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch {
 
   final long seed_;
+  private final long[] hashOut_ = new long[2]; //reused by the update methods to avoid allocation
 
   ArrayOfDoublesUpdatableSketch(final int numValues, final long seed) {
     super(numValues);
@@ -86,7 +87,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    * @param values The given values
    */
   public void update(final long key, final double[] values) {
-    update(new long[] {key}, values);
+    insertOrIgnore(MurmurHash3.hash(key, seed_, hashOut_)[0] >>> 1, values);
   }
 
   /**
@@ -97,7 +98,9 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    * @param values The given values
    */
   public void update(final double key, final double[] values) {
-    update(Util.doubleToLongArray(key), values);
+    final double d = (key == 0.0) ? 0.0 : key; // canonicalize -0.0, 0.0
+    // canonicalize all NaN & +/- infinity forms
+    insertOrIgnore(MurmurHash3.hash(Double.doubleToLongBits(d), seed_, hashOut_)[0] >>> 1, values);
   }
 
   /**
@@ -120,7 +123,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final byte[] key, final double[] values) {
     if (key == null || key.length == 0) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash(key, seed_, hashOut_)[0] >>> 1, values);
   }
 
   /**
@@ -132,7 +135,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final ByteBuffer key, final double[] values) {
     if (key == null || key.hasRemaining() == false) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash(key, seed_, hashOut_)[0] >>> 1, values);
   }
 
   /**
@@ -144,7 +147,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final int[] key, final double[] values) {
     if (key == null || key.length == 0) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash(key, seed_, hashOut_)[0] >>> 1, values);
   }
 
   /**
@@ -156,7 +159,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final long[] key, final double[] values) {
     if (key == null || key.length == 0) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash(key, seed_, hashOut_)[0] >>> 1, values);
   }
 
   /**
@@ -223,6 +223,41 @@ public class CpcSketchTest {
     assertEquals(size26, (int) ((0.6 * (1 << 26)) + 40));
   }
 
+  @Test
+  public void checkUpdateAll() {
+    final int lgK = 10;
+    final int n = 10000;
+    final long[] longs = new long[n];
+    final int[] ints = new int[n];
+    final double[] doubles = new double[n];
+    final String[] strings = new String[n];
+    for (int i = 0; i < n; i++) {
+      longs[i] = i;
+      ints[i] = -i;
+      doubles[i] = i / 3.0;
+      strings[i] = (i % 100 == 0) ? null : Integer.toString(i);
+    }
+    doubles[1] = -0.0;
+    doubles[2] = Double.NaN;
+    strings[1] = "";
+    final CpcSketch sk1 = new CpcSketch(lgK);
+    final CpcSketch sk2 = new CpcSketch(lgK);
+    for (int i = 1; i < n; i++) { sk1.update(longs[i]); }
+    for (int i = 1; i < n; i++) { sk1.update((long) ints[i]); }
+    for (int i = 1; i < n; i++) { sk1.update(doubles[i]); }
+    for (int i = 1; i < n; i++) { sk1.update(strings[i]); }
+    sk2.updateAll(longs, 1, n);
+    sk2.updateAll(ints, 1, n);
+    sk2.updateAll(doubles, 1, n);
+    sk2.updateAll(strings, 1, n);
+    assertTrue(specialEquals(sk2, sk1, false, false));
+    assertEquals(sk2.toByteArray(), sk1.toByteArray());
+    try {
+      sk2.updateAll(longs, -1, n);
+      fail();
+    } catch (SketchesArgumentException e) { }
+  }
+
   /**
    * @param s the string to print
    */
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.testng.annotations.Test;
+
+public class BlockedBloomFilterTest {
+
+  @Test
+  public void basicFilterOperationsTest() {
+    final long numBits = 8192;
+    final int numHashes = 3;
+
+    final BloomFilter bf = BloomFilterBuilder.createBlockedBySize(numBits, numHashes);
+    assertTrue(bf.isEmpty());
+    assertTrue(bf.isBlocked());
+    assertEquals(bf.getCapacity(), numBits); // multiple of 512 so should be exact
+    assertEquals(bf.getNumHashes(), numHashes);
+    assertEquals(bf.getBitsUsed(), 0);
+
+    final long n = 1000;
+    for (long i = 0; i < n; ++i) {
+      bf.queryAndUpdate(i);
+    }
+
+    assertFalse(bf.isEmpty());
+    assertTrue(bf.getBitsUsed() <= n * numHashes);
+
+    int numFound = 0;
+    for (long i = 0; i < 2 * n; ++i) {
+      if (bf.query(i)) { ++numFound; }
+    }
+    assertTrue(numFound >= n);
+    assertTrue(numFound < 1.15 * n);
+  }
+
+  @Test
+  public void sizeRoundedUpToBlocksTest() {
+    final BloomFilter bf = BloomFilterBuilder.createBlockedBySize(1000, 4);
+    assertEquals(bf.getCapacity(), 1024); // two blocks
+  }
+
+  @Test
+  public void allBitsInOneBlockTest() {
+    final int numHashes = 8;
+    final BloomFilter bf = BloomFilterBuilder.createBlockedBySize(1 << 16, numHashes, 123L);
+    for (long item = 0; item < 100; ++item) {
+      bf.reset();
+      bf.update(item);
+      assertTrue(bf.getBitsUsed() >= 1 && bf.getBitsUsed() <= numHashes);
+
+      // serialized bits start after 4 preamble longs
+      final long[] image = bf.toLongArray();
+      int firstBlock = -1;
+      for (int i = 4; i < image.length; ++i) {
+        if (image[i] == 0) { continue; }
+        final int block = (i - 4) / BloomFilter.LONGS_PER_BLOCK;
+        if (firstBlock < 0) { firstBlock = block; }
+        assertEquals(block, firstBlock);
+      }
+      assertTrue(firstBlock >= 0);
+    }
+  }
+
+  @Test
+  public void falsePositiveRateTest() {
+    final long n = 10000;
+    final double fpp = 0.01;
+    final BloomFilter bf = BloomFilterBuilder.createBlockedByAccuracy(n, fpp, 42L);
+    for (long i = 0; i < n; ++i) {
+      bf.update(i);
+    }
+    for (long i = 0; i < n; ++i) {
+      assertTrue(bf.query(i));
+    }
+    int count = 0;
+    final int numQueries = 100000;
+    for (long i = n; i < n + numQueries; ++i) {
+      count += bf.query(i) ? 1 : 0;
+    }
+    // blocking costs some accuracy, but should stay within a small factor of the target
+    assertTrue(count < 2 * fpp * numQueries);
+  }
+
+  @Test
+  public void incompatibleSetOperationsTest() {
+    final int numBits = 1024;
+    final int numHashes = 4;
+    final BloomFilter bf1 = BloomFilterBuilder.createBlockedBySize(numBits, numHashes);
+
+    // mismatched num bits
+    final BloomFilter bf2 = BloomFilterBuilder.createBlockedBySize(numBits * 2, numHashes, bf1.getSeed());
+    assertThrows(SketchesArgumentException.class, () -> bf1.union(bf2));
+
+    // mismatched num hashes
+    final BloomFilter bf3 = BloomFilterBuilder.createBlockedBySize(numBits, numHashes * 2, bf1.getSeed());
+    assertThrows(SketchesArgumentException.class, () -> bf1.intersect(bf3));
+
+    // mismatched seed
+    final BloomFilter bf4 = BloomFilterBuilder.createBlockedBySize(numBits, numHashes, bf1.getSeed() - 1);
+    assertThrows(SketchesArgumentException.class, () -> bf1.union(bf4));
+    assertFalse(bf1.isCompatible(null));
+  }
+
+  @Test
+  public void unionAndIntersectionTest() {
+    final long numBits = 16384;
+    final int numHashes = 5;
+
+    final BloomFilter bf1 = BloomFilterBuilder.createBlockedBySize(numBits, numHashes);
+    final BloomFilter bf2 = BloomFilterBuilder.createBlockedBySize(numBits, numHashes, bf1.getSeed());
+    final BloomFilter bf3 = BloomFilterBuilder.createBlockedBySize(numBits, numHashes, bf1.getSeed());
+
+    final int n = 1000;
+    for (int i = 0; i < n; ++i) {
+      bf1.update(i);
+      bf2.update(n / 2 + i);
+      bf3.update(i);
+    }
+
+    bf1.union(null); // no-op
+    bf1.union(bf2);
+    for (int i = 0; i < 3 * n / 2; ++i) {
+      assertTrue(bf1.query(i));
+    }
+
+    bf3.intersect(null); // no-op
+    bf3.intersect(bf2);
+    for (int i = n / 2; i < n; ++i) {
+      assertTrue(bf3.query(i));
+    }
+    int count = 0;
+    for (int i = 0; i < n / 2; ++i) {
+      count += bf3.query(i) ? 1 : 0;
+    }
+    assertTrue(count < n / 10);
+  }
+
+  @Test
+  public void serializationTest() {
+    final long numBits = 32768;
+    final int numHashes = 6;
+    final BloomFilter bf = BloomFilterBuilder.createBlockedBySize(numBits, numHashes);
+
+    BloomFilter copy = BloomFilter.heapify(Memory.wrap(bf.toByteArray()));
+    assertTrue(copy.isEmpty());
+    assertEquals(copy.getCapacity(), numBits);
+    assertEquals(copy.getNumHashes(), numHashes);
+    assertEquals(copy.getSeed(), bf.getSeed());
+
+    final int n = 2500;
+    for (int i = 0; i < n; ++i) {
+      bf.update(0.5 + i);
+    }
+
+    copy = BloomFilter.heapify(Memory.wrap(bf.toByteArray()));
+    assertEquals(copy.getBitsUsed(), bf.getBitsUsed());
+    copy = BloomFilter.heapify(Memory.wrap(bf.toLongArray()));
+    assertEquals(copy.getBitsUsed(), bf.getBitsUsed());
+    assertTrue(copy.isBlocked());
+    for (int i = 0; i < numBits; ++i) {
+      assertEquals(copy.query(0.5 + i), bf.query(0.5 + i));
+    }
+    assertTrue(copy.isCompatible(bf));
+  }
+
+  @Test
+  public void blockedAndStandardIncompatibleTest() {
+    final BloomFilter blocked = BloomFilterBuilder.createBlockedBySize(1024, 3);
+    final BloomFilter standard = BloomFilterBuilder.createBySize(1024, 3, blocked.getSeed());
+    assertFalse(standard.isBlocked());
+    assertFalse(blocked.isCompatible(standard));
+    assertThrows(SketchesArgumentException.class, () -> blocked.union(standard));
+    assertThrows(SketchesArgumentException.class, () -> standard.intersect(blocked));
+
+    // the flag survives serialization
+    assertTrue(BloomFilter.heapify(Memory.wrap(blocked.toByteArray())).isBlocked());
+    assertFalse(BloomFilter.heapify(Memory.wrap(standard.toByteArray())).isBlocked());
+
+    // an image whose length is not a whole number of blocks is rejected
+    final byte[] bytes = BloomFilterBuilder.createBySize(960, 3).toByteArray();
+    bytes[3] |= BloomFilter.BLOCKED_FLAG_MASK;
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.heapify(Memory.wrap(bytes)));
+  }
+
+  @Test
+  public void blockStartTest() {
+    // blocks past 2^31 and 2^32 bits are reachable and start on a block boundary
+    final int numBlocks = 1 << 24; // 2^33 bits
+    assertEquals(BloomFilter.blockStart(0L, numBlocks), 0L);
+    assertEquals(BloomFilter.blockStart(-1L, numBlocks), (long) (numBlocks - 1) * BloomFilter.BITS_PER_BLOCK);
+    assertEquals(BloomFilter.blockStart(1L << 63, numBlocks), 1L << 32);
+    assertEquals(BloomFilter.blockStart(3L << 62, numBlocks), 3L << 31);
+  }
+
+  @Test
+  public void filterAboveTwoToTheThirtyTwoBitsTest() {
+    // 2^20 bits past 2^32, so some items land in words whose index exceeds 2^26
+    final long numBits = (1L << 32) + (1L << 20);
+    final BloomFilter bf = BloomFilterBuilder.createBlockedBySize(numBits, 3, 4321L);
+    assertEquals(bf.getCapacity(), numBits);
+
+    final int n = 200000;
+    for (long i = 0; i < n; ++i) {
+      bf.update(i);
+    }
+
+    // the heap array and a wrapped image of it must place every bit in the same word
+    final BloomFilter wrapped = BloomFilter.wrap(Memory.wrap(bf.toLongArray()));
+    assertEquals(wrapped.getBitsUsed(), bf.getBitsUsed());
+    for (long i = 0; i < n; ++i) {
+      assertTrue(wrapped.query(i));
+    }
+  }
+
+  @Test
+  public void builderArgumentsTest() {
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createBlockedBySize(0, 3));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createBlockedBySize(1024, 0));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createBlockedBySize(1024, Short.MAX_VALUE + 1));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createBlockedBySize(BloomFilter.MAX_SIZE, 3));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createBlockedByAccuracy(0, 0.01));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createBlockedByAccuracy(100, 0.0));
+  }
+
+  @Test
+  public void updateMethodsTest() {
+    final double[] rawData = { 1.414, 2.71, 3.1415926538 };
+    final Memory mem = Memory.wrap(rawData);
+    final BloomFilter bfMem = BloomFilterBuilder.createBlockedByAccuracy(100, 1e-6);
+    bfMem.update(mem);
+    assertTrue(bfMem.queryAndUpdate(mem));
+    final long numBitsSet = bfMem.getBitsUsed();
+    final long seed = bfMem.getSeed();
+
+    final BloomFilter bf = BloomFilterBuilder.createBlockedByAccuracy(100, 1e-6, seed);
+    final byte[] bytes = new byte[24];
+    mem.getByteArray(0, bytes, 0, 24);
+    bf.update(bytes);
+    assertTrue(bf.query(bytes));
+    assertEquals(bf.getBitsUsed(), numBitsSet); // same hash as the Memory
+    final char[] chars = new char[12];
+    mem.getCharArray(0, chars, 0, 12);
+    assertTrue(bf.query(chars) == bf.queryAndUpdate(chars));
+    assertTrue(bf.query(chars));
+    final short[] shorts = new short[12];
+    mem.getShortArray(0, shorts, 0, 12);
+    bf.update(shorts);
+    assertTrue(bf.queryAndUpdate(shorts));
+    final int[] ints = new int[6];
+    mem.getIntArray(0, ints, 0, 6);
+    bf.update(ints);
+    assertTrue(bf.queryAndUpdate(ints));
+    final long[] longs = new long[3];
+    mem.getLongArray(0, longs, 0, 3);
+    bf.update(longs);
+    assertTrue(bf.queryAndUpdate(longs));
+
+    bf.update("abc");
+    assertTrue(bf.query("abc"));
+    bf.update(Double.NaN);
+    assertTrue(bf.query(Double.NaN));
+
+    // null/empty inputs are ignored
+    final long bitsUsed = bf.getBitsUsed();
+    bf.update("");
+    bf.update((String) null);
+    bf.update((long[]) null);
+    bf.update((Memory) null);
+    assertFalse(bf.query((String) null));
+    assertFalse(bf.queryAndUpdate((byte[]) null));
+    assertEquals(bf.getBitsUsed(), bitsUsed);
+
+    bf.reset();
+    assertTrue(bf.isEmpty());
+    assertTrue(bf.toString().contains("numBlocks"));
+  }
+}
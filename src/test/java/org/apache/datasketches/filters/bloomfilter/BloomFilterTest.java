@@ -24,8 +24,15 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
+import java.nio.ByteOrder;
+
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.memory.MapHandle;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMapHandle;
+import org.apache.datasketches.memory.WritableMemory;
 import org.testng.annotations.Test;
 
 public class BloomFilterTest {
@@ -334,4 +341,226 @@ public class BloomFilterTest {
     bf.intersect(bfLongs);
     assertEquals(bfLongs.getBitsUsed(), numBitsSet);
   }
+
+  @Test
+  public void batchQueryTest() {
+    final BloomFilter bf = BloomFilterBuilder.createByAccuracy(1000, 0.01);
+    final BloomFilter ref = BloomFilterBuilder.createByAccuracy(1000, 0.01, bf.getSeed());
+
+    // longer than one internal pass, not a multiple of the pass size
+    final long[] keys = new long[1000];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = i % 700; // repeats within the batch
+    }
+    final boolean[] results = new boolean[keys.length];
+    bf.queryAndUpdate(keys, results);
+    for (int i = 0; i < keys.length; ++i) {
+      assertEquals(results[i], ref.queryAndUpdate(keys[i]));
+    }
+    assertEquals(bf.getBitsUsed(), ref.getBitsUsed());
+
+    final long[] queries = new long[2000];
+    for (int i = 0; i < queries.length; ++i) {
+      queries[i] = i;
+    }
+    final boolean[] queryResults = new boolean[queries.length + 1];
+    bf.query(queries, queryResults);
+    for (int i = 0; i < queries.length; ++i) {
+      assertEquals(queryResults[i], ref.query(queries[i]));
+    }
+
+    bf.query(new long[0], new boolean[0]); // no-op
+    assertThrows(SketchesArgumentException.class, () -> bf.query(queries, new boolean[10]));
+    assertThrows(SketchesArgumentException.class, () -> bf.queryAndUpdate(null, results));
+    assertThrows(SketchesArgumentException.class, () -> bf.queryAndUpdate(keys, null));
+  }
+
+  @Test
+  public void concurrentBatchQueryTest() throws Exception {
+    final BloomFilter bf = BloomFilterBuilder.createByAccuracy(10000, 0.01);
+    final long[] keys = new long[5000];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = i;
+      bf.update(i);
+    }
+
+    // every thread queries only inserted keys, so any false result is a false negative
+    final int numThreads = 4;
+    final boolean[] failed = new boolean[numThreads];
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; ++t) {
+      final int id = t;
+      threads[t] = new Thread(() -> {
+        final boolean[] results = new boolean[keys.length];
+        for (int r = 0; r < 50; ++r) {
+          bf.query(keys, results);
+          for (final boolean result : results) {
+            if (!result) { failed[id] = true; }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (int t = 0; t < numThreads; ++t) {
+      threads[t].join();
+      assertFalse(failed[t]);
+    }
+  }
+
+  @Test
+  public void directFilterTest() {
+    final long numBits = 8192;
+    final int numHashes = 4;
+    final long seed = 5678L;
+    final WritableMemory wmem = WritableMemory.allocate((int) BloomFilter.getSerializedSize(numBits));
+    final BloomFilter direct = BloomFilterBuilder.initializeBySize(numBits, numHashes, seed, wmem);
+    final BloomFilter heap = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    assertTrue(direct.hasMemory());
+    assertFalse(direct.isDirect());
+    assertFalse(direct.isReadOnly());
+    assertFalse(heap.hasMemory());
+    assertTrue(direct.isEmpty());
+    assertEquals(direct.getCapacity(), numBits);
+
+    for (int i = 0; i < 1000; ++i) {
+      assertEquals(direct.queryAndUpdate(i % 700), heap.queryAndUpdate(i % 700));
+    }
+    assertEquals(direct.getBitsUsed(), heap.getBitsUsed());
+    assertEquals(direct.toByteArray(), heap.toByteArray());
+    assertEquals(direct.toLongArray(), heap.toLongArray());
+
+    // the backing memory is itself a serialized image
+    assertEquals(BloomFilter.heapify(wmem).getBitsUsed(), heap.getBitsUsed());
+
+    // a second writable view sees and makes changes in the same memory
+    final BloomFilter rewrapped = BloomFilter.writableWrap(wmem);
+    rewrapped.update("abc");
+    assertTrue(direct.query("abc"));
+    direct.union(heap);
+    direct.intersect(heap);
+    assertEquals(direct.getBitsUsed(), heap.getBitsUsed());
+
+    // read-only view
+    final BloomFilter readOnly = BloomFilter.wrap(wmem);
+    assertTrue(readOnly.isReadOnly());
+    for (int i = 0; i < 700; ++i) {
+      assertTrue(readOnly.query(i));
+    }
+    assertThrows(SketchesReadOnlyException.class, () -> readOnly.update(1L));
+    assertThrows(SketchesReadOnlyException.class, () -> readOnly.queryAndUpdate(1L));
+    assertThrows(SketchesReadOnlyException.class, () -> readOnly.union(heap));
+    assertThrows(SketchesReadOnlyException.class, () -> readOnly.reset());
+
+    direct.reset();
+    assertTrue(readOnly.isEmpty());
+  }
+
+  @Test
+  public void wrapSerializedImageTest() {
+    final BloomFilter bf = BloomFilterBuilder.createBySize(4096, 3);
+
+    // the compact image of an empty filter holds no bits
+    final byte[] emptyBytes = bf.toByteArray();
+    final BloomFilter emptyWrap = BloomFilter.wrap(Memory.wrap(emptyBytes));
+    assertTrue(emptyWrap.isEmpty());
+    assertEquals(emptyWrap.getCapacity(), 4096);
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.writableWrap(WritableMemory.writableWrap(emptyBytes)));
+
+    for (int i = 0; i < 100; ++i) {
+      bf.update(i); // leaves the bit count unknown in the image
+    }
+    final byte[] bytes = bf.toByteArray();
+    final BloomFilter wrapped = BloomFilter.wrap(Memory.wrap(bytes));
+    assertEquals(wrapped.getBitsUsed(), bf.getBitsUsed());
+    final BloomFilter writable = BloomFilter.writableWrap(WritableMemory.writableWrap(bytes));
+    assertFalse(writable.queryAndUpdate(100000));
+    assertEquals(writable.getBitsUsed(), wrapped.getBitsUsed());
+
+    // a blocked image is wrapped as blocked
+    final BloomFilter blocked = BloomFilterBuilder.createBlockedBySize(1024, 3);
+    blocked.update(1);
+    final BloomFilter wrappedBlocked = BloomFilter.wrap(Memory.wrap(blocked.toByteArray()));
+    assertTrue(wrappedBlocked.isBlocked());
+    assertTrue(wrappedBlocked.query(1));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.wrap(Memory.wrap(new byte[8])));
+    assertThrows(SketchesArgumentException.class,
+        () -> BloomFilterBuilder.initializeBySize(4096, 3, 1L, WritableMemory.allocate(64)));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.getSerializedSize(0));
+  }
+
+  @Test
+  public void memoryMappedFileTest() throws Exception {
+    final long maxDistinct = 10000;
+    final double fpp = 0.01;
+    final long seed = 1234L;
+    final long numBits = BloomFilterBuilder.suggestNumFilterBits(maxDistinct, fpp);
+    final long size = BloomFilter.getSerializedSize(numBits);
+    final File file = File.createTempFile("bloomfilter", ".bin");
+    file.deleteOnExit();
+
+    try (WritableMapHandle handle = WritableMemory.writableMap(file, 0, size, ByteOrder.nativeOrder())) {
+      final BloomFilter bf = BloomFilterBuilder.initializeByAccuracy(maxDistinct, fpp, seed, handle.getWritable());
+      assertTrue(bf.isDirect());
+      for (long i = 0; i < maxDistinct; ++i) {
+        bf.update(i);
+      }
+      handle.force();
+    }
+    assertEquals(file.length(), size);
+
+    try (MapHandle handle = Memory.map(file, 0, size, ByteOrder.nativeOrder())) {
+      final BloomFilter bf = BloomFilter.wrap(handle.get());
+      assertTrue(bf.isReadOnly());
+      assertEquals(bf.getSeed(), seed);
+      for (long i = 0; i < maxDistinct; ++i) {
+        assertTrue(bf.query(i));
+      }
+      final long[] keys = { 0, 1, maxDistinct - 1 };
+      final boolean[] results = new boolean[keys.length];
+      bf.query(keys, results);
+      assertTrue(results[0] && results[1] && results[2]);
+    }
+  }
+
+  @Test
+  public void wrappedWordIndexImageTest() {
+    // 2^20 bits past 2^32, so some items land in words whose index exceeds 2^26
+    final long numBits = (1L << 32) + (1L << 20);
+    final int n = 200000;
+    BloomFilter bf = BloomFilterBuilder.createBySize(numBits, 3, 8765L);
+    for (long i = 0; i < n; ++i) {
+      bf.update(i);
+    }
+    final long[] image = bf.toLongArray();
+    bf = null;
+
+    // the flags byte is the 4th byte of the first long, and the bits start at the 5th long
+    final long flagsShift = 24;
+    final int dataStart = 4;
+    assertTrue(((image[0] >>> flagsShift) & BloomFilter.LONG_WORD_INDEX_FLAG_MASK) != 0);
+    assertEquals(BloomFilterBuilder.createBySize(1L << 20, 3).toLongArray()[0] >>> flagsShift
+        & BloomFilter.LONG_WORD_INDEX_FLAG_MASK, 0);
+
+    // rewrite the image as the old heap filter did, folding every word past 2^26 into the first 2^26
+    image[0] &= ~((long) BloomFilter.LONG_WORD_INDEX_FLAG_MASK << flagsShift);
+    image[dataStart - 1] = -1L;
+    for (int i = BitArray.WRAPPED_WORDS; i < image.length - dataStart; ++i) {
+      image[dataStart + (i & (BitArray.WRAPPED_WORDS - 1))] |= image[dataStart + i];
+      image[dataStart + i] = 0;
+    }
+
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.wrap(Memory.wrap(image)));
+
+    BloomFilter heapified = BloomFilter.heapify(Memory.wrap(image));
+    for (long i = 0; i < n; ++i) {
+      assertTrue(heapified.query(i));
+    }
+    heapified = null;
+
+    final BloomFilter wrapped = BloomFilter.writableWrap(WritableMemory.writableWrap(image));
+    assertTrue(((image[0] >>> flagsShift) & BloomFilter.LONG_WORD_INDEX_FLAG_MASK) != 0);
+    for (long i = 0; i < n; ++i) {
+      assertTrue(wrapped.query(i));
+    }
+  }
 }
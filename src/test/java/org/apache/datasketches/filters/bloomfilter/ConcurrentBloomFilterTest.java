@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.testng.annotations.Test;
+
+public class ConcurrentBloomFilterTest {
+
+  @Test
+  public void matchesBloomFilterTest() {
+    final long numBits = 8192;
+    final int numHashes = 4;
+    final BloomFilter cbf = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes);
+    final BloomFilter bf = BloomFilterBuilder.createBySize(numBits, numHashes, cbf.getSeed());
+    assertTrue(cbf.isConcurrent());
+    assertFalse(bf.isConcurrent());
+    assertTrue(cbf.isEmpty());
+    assertEquals(cbf.getCapacity(), numBits);
+    assertEquals(cbf.getNumHashes(), numHashes);
+
+    final int n = 1000;
+    for (int i = 0; i < n; ++i) {
+      assertEquals(cbf.queryAndUpdate(i % 800), bf.queryAndUpdate(i % 800));
+      cbf.update("s" + i);
+      bf.update("s" + i);
+    }
+    assertFalse(cbf.isEmpty());
+    assertEquals(cbf.getBitsUsed(), bf.getBitsUsed());
+    assertEquals(cbf.getFillPercentage(), bf.getFillPercentage());
+    for (int i = 0; i < 2 * n; ++i) {
+      assertEquals(cbf.query(i), bf.query(i));
+    }
+
+    // identical serialized images
+    assertSameImage(cbf.toByteArray(), bf.toByteArray());
+    assertSameImage(cbf.toLongArray(), bf.toLongArray());
+    assertEquals(cbf.getSerializedSizeBytes(), bf.getSerializedSizeBytes());
+    assertSameImage(BloomFilter.heapify(Memory.wrap(cbf.toByteArray())).toByteArray(), bf.toByteArray());
+  }
+
+  @Test
+  public void concurrentUpdateTest() throws Exception {
+    final int numThreads = 4;
+    final int perThread = 20000;
+    final BloomFilter cbf = BloomFilterBuilder.createConcurrentByAccuracy(numThreads * perThread, 0.01);
+    final BloomFilter bf = BloomFilterBuilder.createByAccuracy(numThreads * perThread, 0.01, cbf.getSeed());
+    final ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < numThreads; ++t) {
+        final long base = (long) t * perThread;
+        futures.add(pool.submit(() -> {
+          for (long i = base; i < base + perThread; ++i) {
+            cbf.update(i);
+            assertTrue(cbf.query(i));
+          }
+        }));
+      }
+      for (final Future<?> f : futures) { f.get(); }
+    } finally {
+      pool.shutdown();
+    }
+
+    for (long i = 0; i < numThreads * perThread; ++i) {
+      bf.update(i);
+    }
+    // no update lost and the bit count is exact once quiescent
+    assertEquals(cbf.getBitsUsed(), bf.getBitsUsed());
+    assertSameImage(cbf.toByteArray(), bf.toByteArray());
+  }
+
+  @Test
+  public void serializationTest() {
+    final BloomFilter cbf = BloomFilterBuilder.createConcurrentBySize(32768, 5);
+
+    BloomFilter copy = BloomFilter.heapifyConcurrent(Memory.wrap(cbf.toByteArray()));
+    assertTrue(copy.isEmpty());
+    assertTrue(copy.isConcurrent());
+    assertEquals(copy.getCapacity(), cbf.getCapacity());
+    assertTrue(BloomFilter.heapify(Memory.wrap(cbf.toLongArray())).isEmpty());
+
+    for (int i = 0; i < 2500; ++i) {
+      cbf.update(0.5 + i);
+    }
+    copy = BloomFilter.heapifyConcurrent(Memory.wrap(cbf.toLongArray()));
+    assertEquals(copy.getBitsUsed(), cbf.getBitsUsed());
+    assertEquals(copy.getSeed(), cbf.getSeed());
+    assertTrue(copy.isCompatible(cbf));
+
+    final BloomFilter bf = BloomFilter.heapify(Memory.wrap(cbf.toByteArray()));
+    assertEquals(bf.getBitsUsed(), cbf.getBitsUsed());
+    copy = BloomFilter.heapifyConcurrent(Memory.wrap(bf.toByteArray()));
+    for (int i = 0; i < 2500; ++i) {
+      assertTrue(copy.query(0.5 + i));
+    }
+
+    final BloomFilter blocked = BloomFilterBuilder.createBlockedBySize(1024, 3);
+    blocked.update(7);
+    copy = BloomFilter.heapifyConcurrent(Memory.wrap(blocked.toByteArray()));
+    assertTrue(copy.isBlocked());
+    assertTrue(copy.isConcurrent());
+    assertTrue(copy.query(7));
+  }
+
+  @Test
+  public void unionTest() {
+    final long numBits = 12288;
+    final int numHashes = 4;
+    final BloomFilter cbf = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes);
+    final BloomFilter cbf2 = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes, cbf.getSeed());
+    final BloomFilter bf = BloomFilterBuilder.createBySize(numBits, numHashes, cbf.getSeed());
+
+    for (int i = 0; i < 500; ++i) {
+      cbf.update(i);
+      cbf2.update(500 + i);
+      bf.update(1000 + i);
+    }
+    cbf.union(null); // no-op
+    cbf.union(cbf2);
+    cbf.union(bf);
+    for (int i = 0; i < 1500; ++i) {
+      assertTrue(cbf.query(i));
+    }
+    assertEquals(cbf.getBitsUsed(), BloomFilter.heapify(Memory.wrap(cbf.toByteArray())).getBitsUsed());
+
+    // a heap filter may absorb a concurrent one as well
+    bf.union(cbf);
+    assertEquals(bf.getBitsUsed(), cbf.getBitsUsed());
+
+    assertThrows(SketchesArgumentException.class,
+        () -> cbf.union(BloomFilterBuilder.createBySize(numBits * 2, numHashes, cbf.getSeed())));
+    assertThrows(SketchesArgumentException.class,
+        () -> cbf.union(BloomFilterBuilder.createConcurrentBySize(numBits, numHashes + 1, cbf.getSeed())));
+    assertThrows(SketchesArgumentException.class,
+        () -> cbf.union(BloomFilterBuilder.createConcurrentBySize(numBits, numHashes, cbf.getSeed() + 1)));
+  }
+
+  @Test
+  public void updateMethodsAndResetTest() {
+    final BloomFilter cbf = BloomFilterBuilder.createConcurrentByAccuracy(100, 1e-6);
+    final BloomFilter bf = BloomFilterBuilder.createByAccuracy(100, 1e-6, cbf.getSeed());
+    final double[] rawData = { 1.414, 2.71, 3.1415926538 };
+    final Memory mem = Memory.wrap(rawData);
+
+    cbf.update(mem);
+    bf.update(mem);
+    cbf.update(new byte[] { 1, 2 });
+    bf.update(new byte[] { 1, 2 });
+    cbf.update(new char[] { 'a' });
+    bf.update(new char[] { 'a' });
+    cbf.update(new short[] { 3 });
+    bf.update(new short[] { 3 });
+    cbf.update(new int[] { 4 });
+    bf.update(new int[] { 4 });
+    cbf.update(new long[] { 5 });
+    bf.update(new long[] { 5 });
+    cbf.update(Double.NaN);
+    bf.update(Double.NaN);
+    assertSameImage(cbf.toByteArray(), bf.toByteArray());
+    assertTrue(cbf.query(mem));
+    assertTrue(cbf.queryAndUpdate(new int[] { 4 }));
+
+    final long bitsUsed = cbf.getBitsUsed();
+    cbf.update("");
+    cbf.update((long[]) null);
+    assertFalse(cbf.query((String) null));
+    assertFalse(cbf.queryAndUpdate((Memory) null));
+    assertEquals(cbf.getBitsUsed(), bitsUsed);
+
+    cbf.reset();
+    assertTrue(cbf.isEmpty());
+    assertFalse(cbf.query(mem));
+  }
+
+  @Test
+  public void setOperationsTest() {
+    final long numBits = 4096;
+    final int numHashes = 3;
+    final BloomFilter cbf = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes);
+    final BloomFilter bf = BloomFilterBuilder.createBySize(numBits, numHashes, cbf.getSeed());
+    final BloomFilter other = BloomFilterBuilder.createBySize(numBits, numHashes, cbf.getSeed());
+    for (int i = 0; i < 300; ++i) {
+      cbf.update(i);
+      bf.update(i);
+      other.update(i + 150);
+    }
+
+    cbf.intersect(other);
+    bf.intersect(other);
+    assertEquals(cbf.getBitsUsed(), bf.getBitsUsed());
+    assertSameImage(cbf.toByteArray(), bf.toByteArray());
+
+    cbf.invert();
+    bf.invert();
+    assertEquals(cbf.getBitsUsed(), bf.getBitsUsed());
+    assertSameImage(cbf.toByteArray(), bf.toByteArray());
+  }
+
+  @Test
+  public void builderArgumentsTest() {
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createConcurrentBySize(0, 3));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createConcurrentBySize(1024, 0));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createConcurrentBySize(1024, Short.MAX_VALUE + 1));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createConcurrentBySize(BloomFilter.MAX_SIZE + 1, 3));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilterBuilder.createConcurrentByAccuracy(100, 1.5));
+  }
+
+  // BloomFilter may write -1 (not yet counted) for the number of bits set, so compare
+  // everything except that field
+  private static void assertSameImage(final byte[] actual, final byte[] expected) {
+    assertEquals(actual.length, expected.length);
+    assertEquals(Arrays.copyOfRange(actual, 0, 24), Arrays.copyOfRange(expected, 0, 24));
+    assertEquals(Arrays.copyOfRange(actual, 32, actual.length), Arrays.copyOfRange(expected, 32, expected.length));
+  }
+
+  private static void assertSameImage(final long[] actual, final long[] expected) {
+    assertEquals(actual.length, expected.length);
+    assertEquals(Arrays.copyOfRange(actual, 0, 3), Arrays.copyOfRange(expected, 0, 3));
+    assertEquals(Arrays.copyOfRange(actual, 4, actual.length), Arrays.copyOfRange(expected, 4, expected.length));
+  }
+}
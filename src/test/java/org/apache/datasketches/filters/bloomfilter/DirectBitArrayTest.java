@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class DirectBitArrayTest {
+
+  @Test
+  public void createBitArrayTest() {
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArrayR.getRequiredBytes(2));
+    final DirectBitArray dba = DirectBitArray.initialize(119, wmem);
+    assertEquals(dba.getArrayLength(), 2);
+    assertEquals(dba.getCapacity(), 128);
+    assertEquals(dba.getNumBitsSet(), 0);
+    assertTrue(dba.isEmpty());
+    assertTrue(dba.hasMemory());
+    assertFalse(dba.isDirect());
+    assertFalse(dba.isReadOnly());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void createNegativeSizeBitArrayTest() {
+    DirectBitArray.initialize(-64, WritableMemory.allocate(64));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void memoryTooSmallTest() {
+    DirectBitArray.initialize(1024, WritableMemory.allocate(64));
+  }
+
+  @Test
+  public void basicOperationTest() {
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArrayR.getRequiredBytes(2));
+    final DirectBitArray dba = DirectBitArray.initialize(128, wmem);
+    assertEquals(dba.getAndSetBit(1), false);
+    assertEquals(dba.getAndSetBit(2), false);
+    for (int i = 4; i < 64; i <<= 1) {
+      assertEquals(dba.getAndSetBit(64 + i), false);
+    }
+    assertEquals(dba.getNumBitsSet(), 6);
+    assertEquals(dba.getBit(68), true);
+    assertFalse(dba.isEmpty());
+
+    // setBit leaves the count unknown until it is next needed
+    dba.setBit(100);
+    assertEquals(wmem.getLong(DirectBitArrayR.NUM_BITS_OFFSET), -1);
+    assertEquals(dba.getNumBitsSet(), 7);
+    assertEquals(wmem.getLong(DirectBitArrayR.NUM_BITS_OFFSET), 7);
+
+    // a second view of the same memory sees the same bits
+    final DirectBitArrayR view = new DirectBitArrayR(wmem);
+    assertTrue(view.getBit(100));
+    assertEquals(view.getNumBitsSet(), 7);
+    assertTrue(view.isReadOnly());
+
+    dba.invert();
+    assertEquals(dba.getNumBitsSet(), 121);
+    assertFalse(view.getBit(100));
+
+    dba.reset();
+    assertTrue(dba.isEmpty());
+    assertTrue(view.isEmpty());
+  }
+
+  @Test
+  public void setOperationsTest() {
+    final long bytes = DirectBitArrayR.getRequiredBytes(1);
+    final DirectBitArray dba1 = DirectBitArray.initialize(64, WritableMemory.allocate((int) bytes));
+    final DirectBitArray dba2 = DirectBitArray.initialize(64, WritableMemory.allocate((int) bytes));
+    final HeapBitArray hba = new HeapBitArray(64);
+
+    dba1.getAndSetBit(1);
+    dba1.getAndSetBit(2);
+    dba1.getAndSetBit(3);
+    dba1.getAndSetBit(4);
+
+    dba2.getAndSetBit(3);
+    dba2.getAndSetBit(4);
+    dba2.getAndSetBit(5);
+    dba2.getAndSetBit(6);
+
+    hba.getAndSetBit(4);
+    hba.getAndSetBit(7);
+
+    dba1.union(dba2);
+    assertEquals(dba1.getNumBitsSet(), 6);
+    dba1.union(hba);
+    assertEquals(dba1.getNumBitsSet(), 7);
+    dba1.intersect(dba2);
+    assertEquals(dba1.getNumBitsSet(), 4);
+    dba1.intersect(hba);
+    assertEquals(dba1.getNumBitsSet(), 1);
+    assertTrue(dba1.getBit(4));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void inconsistentUnionTest() {
+    final DirectBitArray dba = DirectBitArray.initialize(128, WritableMemory.allocate(64));
+    dba.union(new HeapBitArray(64));
+  }
+
+  @Test
+  public void readOnlyTest() {
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArrayR.getRequiredBytes(1));
+    DirectBitArray.initialize(64, wmem).getAndSetBit(7);
+    final DirectBitArrayR dba = new DirectBitArrayR(wmem);
+    assertTrue(dba.getBit(7));
+    try { dba.setBit(1); throw new AssertionError(); } catch (final SketchesReadOnlyException e) { }
+    try { dba.getAndSetBit(1); throw new AssertionError(); } catch (final SketchesReadOnlyException e) { }
+    try { dba.union(dba); throw new AssertionError(); } catch (final SketchesReadOnlyException e) { }
+    try { dba.intersect(dba); throw new AssertionError(); } catch (final SketchesReadOnlyException e) { }
+    try { dba.invert(); throw new AssertionError(); } catch (final SketchesReadOnlyException e) { }
+    try { dba.reset(); throw new AssertionError(); } catch (final SketchesReadOnlyException e) { }
+  }
+
+  @Test
+  public void serializeTest() {
+    final long n = 8192;
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArrayR.getRequiredBytes((int) (n >>> 6)));
+    final DirectBitArray dba = DirectBitArray.initialize(n, wmem);
+    final HeapBitArray hba = new HeapBitArray(n);
+    for (int i = 0; i < n; i += 3) {
+      dba.getAndSetBit(i);
+      hba.getAndSetBit(i);
+    }
+    assertEquals(dba.getSerializedSizeBytes(), hba.getSerializedSizeBytes());
+    final WritableBuffer wbuf = WritableMemory.allocate((int) dba.getSerializedSizeBytes()).asWritableBuffer();
+    dba.writeToBuffer(wbuf);
+    wbuf.resetPosition();
+    final HeapBitArray newBA = HeapBitArray.heapify(wbuf, false);
+    assertEquals(newBA.getArrayLength(), dba.getArrayLength());
+    assertEquals(newBA.getNumBitsSet(), dba.getNumBitsSet());
+    for (int i = 0; i < newBA.getArrayLength(); ++i) {
+      assertEquals(newBA.getLong(i), dba.getLong(i));
+    }
+    assertEquals(newBA.toString(), dba.toString());
+
+    // the serialized heap array can be wrapped directly
+    final DirectBitArrayR wrapped = new DirectBitArrayR(Memory.wrap(toBytes(hba)));
+    assertEquals(wrapped.getNumBitsSet(), hba.getNumBitsSet());
+  }
+
+  private static byte[] toBytes(final BitArray ba) {
+    final byte[] bytes = new byte[(int) ba.getSerializedSizeBytes()];
+    ba.writeToBuffer(WritableMemory.writableWrap(bytes).asWritableBuffer());
+    return bytes;
+  }
+}
@@ -28,11 +28,11 @@ import org.apache.datasketches.memory.WritableBuffer;
 import org.apache.datasketches.memory.WritableMemory;
 import org.testng.annotations.Test;
 
-public class BitArrayTest {
+public class HeapBitArrayTest {
 
   @Test
   public void createBitArrayTest() {
-    final BitArray ba = new BitArray(119);
+    final HeapBitArray ba = new HeapBitArray(119);
     assertEquals(ba.getCapacity(), 128); // nearest multiple of 64
     assertEquals(ba.getArrayLength(), 2);
     assertEquals(ba.getNumBitsSet(), 0);
@@ -41,17 +41,17 @@ public class BitArrayTest {
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void createNegativeSizeBitArrayTest() {
-    new BitArray(-64);
+    new HeapBitArray(-64);
   }
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void createTooLargeBitArrayTest() {
-    new BitArray(1L + (long) Integer.MAX_VALUE * Long.SIZE);
+    new HeapBitArray(1L + (long) Integer.MAX_VALUE * Long.SIZE);
   }
 
   @Test
   public void basicOperationTest() {
-    final BitArray ba = new BitArray(128);
+    final HeapBitArray ba = new HeapBitArray(128);
     assertEquals(ba.getAndSetBit(1), false);
     assertEquals(ba.getAndSetBit(2), false);
     for (int i = 4; i < 64; i <<= 1) {
@@ -74,7 +74,7 @@ public class BitArrayTest {
   @Test
   public void inversionTest() {
     final int numBits = 1024;
-    final BitArray ba = new BitArray(numBits);
+    final HeapBitArray ba = new HeapBitArray(numBits);
     for (int i = 0; i < numBits; i += numBits / 8) {
       ba.getAndSetBit(i);
     }
@@ -89,21 +89,21 @@ public class BitArrayTest {
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void invalidUnionTest() {
-    final BitArray ba = new BitArray(128);
-    ba.union(new BitArray(64));
+    final HeapBitArray ba = new HeapBitArray(128);
+    ba.union(new HeapBitArray(64));
   }
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void invalidIntersectionTest() {
-    final BitArray ba = new BitArray(128);
-    ba.intersect(new BitArray(64));
+    final HeapBitArray ba = new HeapBitArray(128);
+    ba.intersect(new HeapBitArray(64));
   }
 
   @Test
   public void validUnionAndIntersectionTest() {
-    final BitArray ba1 = new BitArray(64);
-    final BitArray ba2 = new BitArray(64);
-    final BitArray ba3 = new BitArray(64);
+    final HeapBitArray ba1 = new HeapBitArray(64);
+    final HeapBitArray ba2 = new HeapBitArray(64);
+    final HeapBitArray ba3 = new HeapBitArray(64);
     
     final int n = 10;
     for (int i = 0; i < n; ++i) {
@@ -124,11 +124,11 @@ public class BitArrayTest {
 
   @Test
   public void serializeEmptyTest() {
-    final BitArray ba = new BitArray(64);
+    final HeapBitArray ba = new HeapBitArray(64);
     final WritableBuffer wbuf = WritableMemory.allocate((int) ba.getSerializedSizeBytes()).asWritableBuffer();
     ba.writeToBuffer(wbuf);
     wbuf.resetPosition();
-    final BitArray newBA = BitArray.heapify(wbuf, true);
+    final HeapBitArray newBA = HeapBitArray.heapify(wbuf, true);
     assertEquals(newBA.getArrayLength(), ba.getArrayLength());
     assertEquals(newBA.getCapacity(), ba.getCapacity());
     assertEquals(newBA.getNumBitsSet(), ba.getNumBitsSet());
@@ -138,16 +138,49 @@ public class BitArrayTest {
   @Test
   public void serializeNonEmptyTest() {
     final long n = 8192;
-    final BitArray ba = new BitArray(n);
+    final HeapBitArray ba = new HeapBitArray(n);
     for (int i = 0; i < n; i += 3)
       ba.getAndSetBit(i);
     final WritableBuffer wbuf = WritableMemory.allocate((int) ba.getSerializedSizeBytes()).asWritableBuffer();
     ba.writeToBuffer(wbuf);
     wbuf.resetPosition();
-    final BitArray newBA = BitArray.heapify(wbuf, false);
+    final HeapBitArray newBA = HeapBitArray.heapify(wbuf, false);
     assertEquals(newBA.getArrayLength(), ba.getArrayLength());
     assertEquals(newBA.getCapacity(), ba.getCapacity());
     assertEquals(newBA.getNumBitsSet(), ba.getNumBitsSet());
     assertFalse(newBA.isEmpty());
   }
+
+  @Test
+  public void wordIndexTest() {
+    assertEquals(BitArray.wordIndex(63), 0);
+    assertEquals(BitArray.wordIndex(64), 1);
+    assertEquals(BitArray.wordIndex(1L << 31), 1 << 25);
+    assertEquals(BitArray.wordIndex((1L << 32) + 5), 1 << 26);
+    assertEquals(BitArray.wordIndex((1L << 36) + 64), (1 << 30) + 1);
+    assertEquals(BitArray.wordIndex(BitArray.MAX_BITS - 1), Integer.MAX_VALUE - 1);
+  }
+
+  @Test
+  public void heapAndDirectImagesMatchTest() {
+    final long n = 8192;
+    final HeapBitArray ba = new HeapBitArray(n);
+    for (long i = 0; i < n; i += 7) {
+      ba.getAndSetBit(i);
+    }
+    final WritableMemory wmem = WritableMemory.allocate((int) ba.getSerializedSizeBytes());
+    ba.writeToBuffer(wmem.asWritableBuffer());
+
+    final DirectBitArray dba = new DirectBitArray(wmem);
+    assertEquals(dba.getNumBitsSet(), ba.getNumBitsSet());
+    for (long i = 0; i < n; ++i) {
+      assertEquals(dba.getBit(i), ba.getBit(i));
+    }
+    for (long i = 3; i < n; i += 11) {
+      assertEquals(dba.getAndSetBit(i), ba.getAndSetBit(i));
+    }
+    for (int i = 0; i < ba.getArrayLength(); ++i) {
+      assertEquals(dba.getLong(i), ba.getLong(i));
+    }
+  }
 }
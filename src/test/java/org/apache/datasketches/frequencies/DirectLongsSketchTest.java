@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.frequencies.LongsSketch.Row;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+public class DirectLongsSketchTest {
+
+  @Test
+  public void empty() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(16));
+    LongsSketch sketch = LongsSketch.newDirectInstance(16, wmem);
+    assertTrue(sketch.hasMemory());
+    assertFalse(sketch.isReadOnly());
+    assertTrue(sketch.isEmpty());
+    assertEquals(sketch.getStreamLength(), 0);
+    assertEquals(sketch.getEstimate(1), 0);
+    assertEquals(sketch.getMaximumMapCapacity(), 12);
+    assertEquals(sketch.getCurrentMapCapacity(), 12);
+    assertEquals(sketch.toByteArray().length, 8);
+    assertTrue(LongsSketch.getInstance(wmem).isEmpty());
+    assertTrue(LongsSketch.wrap(wmem).isEmpty());
+  }
+
+  @Test
+  public void exactMode() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(64));
+    LongsSketch sketch = LongsSketch.newDirectInstance(64, wmem);
+    for (int i = 1; i <= 40; i++) { sketch.update(i, i); }
+    sketch.update(7);
+    assertEquals(sketch.getNumActiveItems(), 40);
+    assertEquals(sketch.getStreamLength(), 821);
+    assertEquals(sketch.getMaximumError(), 0);
+    assertEquals(sketch.getEstimate(7), 8);
+    assertEquals(sketch.getLowerBound(40), 40);
+    assertEquals(sketch.getUpperBound(41), 0);
+
+    Row[] rows = sketch.getFrequentItems(38, ErrorType.NO_FALSE_POSITIVES);
+    assertEquals(rows.length, 3);
+    assertEquals(rows[0].getItem(), 40);
+    assertEquals(rows[2].getItem(), 38);
+  }
+
+  @Test
+  public void matchesTrueCountsThroughPurges() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(128));
+    LongsSketch direct = LongsSketch.newDirectInstance(128, wmem);
+    HashMap<Long, Long> counts = new HashMap<>();
+    Random rand = new Random(1);
+    for (int i = 0; i < 100_000; i++) {
+      double u = rand.nextDouble();
+      long item = (long) (5000 * u * u * u);
+      direct.update(item);
+      counts.merge(item, 1L, Long::sum);
+    }
+    assertEquals(direct.getStreamLength(), 100_000);
+    assertTrue(direct.getMaximumError() > 0);
+    assertTrue(direct.getNumActiveItems() <= direct.getMaximumMapCapacity());
+    for (java.util.Map.Entry<Long, Long> e : counts.entrySet()) {
+      assertTrue(direct.getLowerBound(e.getKey()) <= e.getValue());
+      assertTrue(direct.getUpperBound(e.getKey()) >= e.getValue());
+    }
+    for (Row row : direct.getFrequentItems(ErrorType.NO_FALSE_POSITIVES)) {
+      assertTrue(counts.get(row.getItem()) >= row.getLowerBound());
+    }
+  }
+
+  @Test
+  public void wrapAndContinue() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(32));
+    LongsSketch sketch = LongsSketch.newDirectInstance(32, wmem);
+    for (int i = 0; i < 1000; i++) { sketch.update(i % 100); }
+
+    LongsSketch rewrapped = LongsSketch.writableWrap(wmem);
+    for (int i = 0; i < 1000; i++) { rewrapped.update(i % 10); }
+    assertEquals(sketch.getStreamLength(), 2000);
+    assertEquals(sketch.getMaximumError(), rewrapped.getMaximumError());
+    assertEquals(sketch.getEstimate(3), rewrapped.getEstimate(3));
+
+    LongsSketch readOnly = LongsSketch.wrap(wmem);
+    assertTrue(readOnly.isReadOnly());
+    assertEquals(readOnly.getEstimate(3), sketch.getEstimate(3));
+    try {
+      readOnly.update(1);
+      throw new AssertionError();
+    } catch (SketchesReadOnlyException e) {
+      //expected
+    }
+    try {
+      readOnly.reset();
+      throw new AssertionError();
+    } catch (SketchesReadOnlyException e) {
+      //expected
+    }
+  }
+
+  @Test(expectedExceptions = SketchesReadOnlyException.class)
+  public void writableWrapReadOnlyMemory() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(32));
+    LongsSketch.newDirectInstance(32, wmem);
+    byte[] bytes = new byte[(int) wmem.getCapacity()];
+    wmem.getByteArray(0, bytes, 0, bytes.length);
+    LongsSketch.writableWrap((WritableMemory) Memory.wrap(bytes));
+  }
+
+  @Test
+  public void serializeAndHeapify() {
+    LongsSketch direct = newSkewedDirectSketch(64, 2);
+    LongsSketch fromCompact = LongsSketch.getInstance(Memory.wrap(direct.toByteArray()));
+    LongsSketch fromString = LongsSketch.getInstance(direct.serializeToString());
+    for (LongsSketch sk : new LongsSketch[] {fromCompact, fromString}) {
+      assertFalse(sk.hasMemory());
+      assertEquals(sk.getNumActiveItems(), direct.getNumActiveItems());
+      assertEquals(sk.getStreamLength(), direct.getStreamLength());
+      assertEquals(sk.getMaximumError(), direct.getMaximumError());
+      for (Row row : direct.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES)) {
+        assertEquals(sk.getEstimate(row.getItem()), row.getEstimate());
+      }
+    }
+  }
+
+  @Test
+  public void heapifyUpdatableImage() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(64));
+    LongsSketch direct = LongsSketch.newDirectInstance(64, wmem);
+    for (int i = 0; i < 10_000; i++) { direct.update(i % 300, 1 + (i % 3)); }
+    LongsSketch heap = LongsSketch.getInstance(wmem);
+    assertFalse(heap.hasMemory());
+    assertEquals(heap.getStreamLength(), direct.getStreamLength());
+    assertEquals(heap.getMaximumError(), direct.getMaximumError());
+    assertEquals(heap.getNumActiveItems(), direct.getNumActiveItems());
+    for (Row row : direct.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES)) {
+      assertEquals(heap.getEstimate(row.getItem()), row.getEstimate());
+    }
+    println(LongsSketch.toString(wmem));
+  }
+
+  @Test
+  public void mergeHeapAndDirect() {
+    LongsSketch direct = newSkewedDirectSketch(64, 3);
+    LongsSketch other = newSkewedDirectSketch(128, 4);
+    LongsSketch heap = new LongsSketch(128);
+    for (int i = 0; i < 5000; i++) { heap.update(i % 500); }
+
+    long streamLength = direct.getStreamLength() + other.getStreamLength() + heap.getStreamLength();
+    long maxError = direct.getMaximumError() + other.getMaximumError();
+    direct.merge(other).merge(heap);
+    assertEquals(direct.getStreamLength(), streamLength);
+    assertTrue(direct.getMaximumError() >= maxError);
+
+    LongsSketch heapCopy = new LongsSketch(64).merge(direct);
+    assertEquals(heapCopy.getStreamLength(), streamLength);
+    assertTrue(heapCopy.getMaximumError() >= direct.getMaximumError());
+  }
+
+  @Test
+  public void reset() {
+    LongsSketch direct = newSkewedDirectSketch(32, 5);
+    direct.reset();
+    assertTrue(direct.isEmpty());
+    assertEquals(direct.getStreamLength(), 0);
+    assertEquals(direct.getMaximumError(), 0);
+    direct.update(3, 4);
+    assertEquals(direct.getEstimate(3), 4);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void wrapCompactImage() {
+    LongsSketch.wrap(Memory.wrap(newSkewedDirectSketch(32, 6).toByteArray()));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void memoryTooSmall() {
+    LongsSketch.newDirectInstance(32, WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(32) - 1));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void wrapTruncatedImage() {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(32));
+    LongsSketch.newDirectInstance(32, wmem);
+    LongsSketch.writableWrap(wmem.writableRegion(0, wmem.getCapacity() - 2));
+  }
+
+  private static LongsSketch newSkewedDirectSketch(final int maxMapSize, final long seed) {
+    WritableMemory wmem = WritableMemory.allocate(LongsSketch.getUpdatableStorageBytes(maxMapSize));
+    LongsSketch sketch = LongsSketch.newDirectInstance(maxMapSize, wmem);
+    Random rand = new Random(seed);
+    for (int i = 0; i < 20_000; i++) {
+      double u = rand.nextDouble();
+      sketch.update((long) (1000 * u * u * u));
+    }
+    return sketch;
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
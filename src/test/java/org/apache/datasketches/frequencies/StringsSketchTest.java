@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.frequencies;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.datasketches.frequencies.Util.LG_MIN_MAP_SIZE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import org.apache.datasketches.common.ArrayOfStringsSerDe;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.frequencies.ItemsSketch.Row;
+import org.apache.datasketches.memory.Memory;
+
+public class StringsSketchTest {
+
+  @Test
+  public void empty() {
+    StringsSketch sketch = new StringsSketch(1 << LG_MIN_MAP_SIZE);
+    assertTrue(sketch.isEmpty());
+    assertEquals(sketch.getNumActiveItems(), 0);
+    assertEquals(sketch.getStreamLength(), 0);
+    assertEquals(sketch.getLowerBound("a"), 0);
+    assertEquals(sketch.getUpperBound("a"), 0);
+    sketch.update((String) null);
+    assertEquals(sketch.getEstimate(null), 0);
+    assertTrue(sketch.isEmpty());
+  }
+
+  @Test
+  public void severalItems() {
+    StringsSketch sketch = new StringsSketch(1 << LG_MIN_MAP_SIZE);
+    sketch.update("a");
+    sketch.update("b");
+    sketch.update("c");
+    sketch.update("d");
+    sketch.update("b");
+    sketch.update("c");
+    sketch.update("b");
+    sketch.update("", 3);
+    assertFalse(sketch.isEmpty());
+    assertEquals(sketch.getNumActiveItems(), 5);
+    assertEquals(sketch.getStreamLength(), 10);
+    assertEquals(sketch.getEstimate("a"), 1);
+    assertEquals(sketch.getEstimate("b"), 3);
+    assertEquals(sketch.getEstimate("c"), 2);
+    assertEquals(sketch.getEstimate("d"), 1);
+    assertEquals(sketch.getEstimate(""), 3);
+    assertEquals(sketch.getEstimate("e"), 0);
+
+    Row<String>[] rows = sketch.getFrequentItems(2, ErrorType.NO_FALSE_POSITIVES);
+    assertEquals(rows.length, 3);
+    assertEquals(rows[0].getItem(), "b");
+    assertEquals(rows[2].getItem(), "c");
+  }
+
+  @Test
+  public void utf8BytesAndStringsAreTheSameItem() {
+    String[] items = {"abc", "été", "漢字", "😀 smile", "lone \ud800 high",
+        "lone \udc00 low", "end \ud800"};
+    StringsSketch sketch = new StringsSketch(1 << 5);
+    for (String item : items) {
+      sketch.update(item);
+      byte[] bytes = item.getBytes(UTF_8);
+      byte[] padded = new byte[bytes.length + 4];
+      System.arraycopy(bytes, 0, padded, 2, bytes.length);
+      sketch.update(padded, 2, bytes.length, 2);
+    }
+    assertEquals(sketch.getNumActiveItems(), items.length);
+    for (String item : items) {
+      assertEquals(sketch.getEstimate(item), 3);
+    }
+    Row<String>[] rows = sketch.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES);
+    assertEquals(rows.length, items.length);
+    for (Row<String> row : rows) {
+      assertEquals(sketch.getEstimate(new String(row.getItem().getBytes(UTF_8), UTF_8)), 3);
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void negativeCount() {
+    new StringsSketch(1 << LG_MIN_MAP_SIZE).update("a", -1);
+  }
+
+  @Test
+  public void boundsHoldThroughPurges() {
+    StringsSketch sketch = new StringsSketch(1 << 6);
+    HashMap<String, Long> counts = new HashMap<>();
+    Random rand = new Random(1);
+    for (int i = 0; i < 100_000; i++) {
+      double u = rand.nextDouble();
+      String item = "item-" + (long) (10_000 * u * u * u);
+      sketch.update(item);
+      counts.merge(item, 1L, Long::sum);
+    }
+    assertTrue(sketch.getMaximumError() > 0);
+    assertTrue(sketch.getNumActiveItems() <= sketch.getMaximumMapCapacity());
+    for (java.util.Map.Entry<String, Long> e : counts.entrySet()) {
+      assertTrue(sketch.getLowerBound(e.getKey()) <= e.getValue());
+      assertTrue(sketch.getUpperBound(e.getKey()) >= e.getValue());
+    }
+    for (Row<String> row : sketch.getFrequentItems(ErrorType.NO_FALSE_POSITIVES)) {
+      assertTrue(counts.get(row.getItem()) >= row.getLowerBound());
+    }
+  }
+
+  @Test
+  public void serializeToItemsSketch() {
+    StringsSketch sketch = newSkewedSketch(1 << 7, 1);
+    byte[] bytes = sketch.toByteArray();
+    ItemsSketch<String> items = ItemsSketch.getInstance(Memory.wrap(bytes), new ArrayOfStringsSerDe());
+    assertEquals(items.getNumActiveItems(), sketch.getNumActiveItems());
+    assertEquals(items.getStreamLength(), sketch.getStreamLength());
+    assertEquals(items.getMaximumError(), sketch.getMaximumError());
+    for (Row<String> row : sketch.getFrequentItems(0, ErrorType.NO_FALSE_NEGATIVES)) {
+      assertEquals(items.getEstimate(row.getItem()), row.getEstimate());
+    }
+    assertEquals(items.toByteArray(new ArrayOfStringsSerDe()).length, bytes.length);
+  }
+
+  @Test
+  public void deserializeFromItemsSketch() {
+    ItemsSketch<String> items = new ItemsSketch<>(1 << 7);
+    Random rand = new Random(2);
+    for (int i = 0; i < 20_000; i++) { items.update("élément " + rand.nextInt(500)); }
+    StringsSketch sketch =
+        StringsSketch.getInstance(Memory.wrap(items.toByteArray(new ArrayOfStringsSerDe())));
+    assertEquals(sketch.getNumActiveItems(), items.getNumActiveItems());
+    assertEquals(sketch.getStreamLength(), items.getStreamLength());
+    assertEquals(sketch.getMaximumError(), items.getMaximumError());
+    for (Row<String> row : items.getFrequentItems(0, ErrorType.NO_FALSE_NEGATIVES)) {
+      assertEquals(sketch.getEstimate(row.getItem()), row.getEstimate());
+    }
+  }
+
+  @Test
+  public void serializeEmpty() {
+    StringsSketch sketch = new StringsSketch(1 << 5);
+    byte[] bytes = sketch.toByteArray();
+    assertEquals(bytes.length, 8);
+    assertTrue(StringsSketch.getInstance(Memory.wrap(bytes)).isEmpty());
+    assertTrue(ItemsSketch.getInstance(Memory.wrap(bytes), new ArrayOfStringsSerDe()).isEmpty());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void deserializeTruncated() {
+    byte[] bytes = newSkewedSketch(1 << 5, 3).toByteArray();
+    Memory mem = Memory.wrap(bytes).region(0, bytes.length - 1);
+    StringsSketch.getInstance(mem);
+  }
+
+  @Test
+  public void merge() {
+    StringsSketch sketch1 = newSkewedSketch(1 << 6, 4);
+    StringsSketch sketch2 = newSkewedSketch(1 << 7, 5);
+    ItemsSketch<String> items = new ItemsSketch<>(1 << 7);
+    StringsSketch copy2 = StringsSketch.getInstance(Memory.wrap(sketch2.toByteArray()));
+    copy2.merge(sketch1);
+    items.merge(ItemsSketch.getInstance(Memory.wrap(sketch1.toByteArray()), new ArrayOfStringsSerDe()));
+
+    StringsSketch merged = new StringsSketch(1 << 7).merge(sketch2).merge(items);
+    assertEquals(merged.getStreamLength(), sketch1.getStreamLength() + sketch2.getStreamLength());
+    assertEquals(copy2.getStreamLength(), merged.getStreamLength());
+    assertTrue(merged.getMaximumError() >= Math.max(sketch1.getMaximumError(), sketch2.getMaximumError()));
+    for (Row<String> row : sketch2.getFrequentItems(ErrorType.NO_FALSE_POSITIVES)) {
+      assertTrue(merged.getUpperBound(row.getItem()) >= row.getLowerBound());
+    }
+  }
+
+  @Test
+  public void reset() {
+    StringsSketch sketch = newSkewedSketch(1 << 5, 6);
+    sketch.reset();
+    assertTrue(sketch.isEmpty());
+    assertEquals(sketch.getStreamLength(), 0);
+    assertEquals(sketch.getMaximumError(), 0);
+    sketch.update("a");
+    assertEquals(sketch.getEstimate("a"), 1);
+  }
+
+  @Test
+  public void printlnTest() {
+    println(newSkewedSketch(1 << 3, 7).toString());
+  }
+
+  private static StringsSketch newSkewedSketch(final int maxMapSize, final long seed) {
+    StringsSketch sketch = new StringsSketch(maxMapSize);
+    Random rand = new Random(seed);
+    for (int i = 0; i < 20_000; i++) {
+      double u = rand.nextDouble();
+      sketch.update("k" + (long) (1000 * u * u * u));
+    }
+    return sketch;
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
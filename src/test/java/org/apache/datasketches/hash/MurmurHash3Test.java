@@ -25,6 +25,7 @@ import static org.apache.datasketches.hash.MurmurHash3.hash;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import org.apache.datasketches.memory.Memory;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -365,6 +366,43 @@ public class MurmurHash3Test {
     Assert.assertEquals(result1[1], h2);
   }
 
+  @Test
+  public void checkHashOut() {
+    final long[] hashOut = new long[2];
+    for (long key = -100; key <= 100; key++) {
+      final long[] expected = hash(new long[] {key}, 9001L);
+      Assert.assertSame(hash(key, 9001L, hashOut), hashOut);
+      Assert.assertEquals(hashOut, expected);
+      Assert.assertEquals(hash(key, 9001L), expected);
+    }
+    final byte[] bytes = "The quick brown fox jumps over the lazy dog".getBytes(UTF_8);
+    for (int len = 1; len < bytes.length; len++) {
+      Assert.assertEquals(hash(bytes, 1, len, 0, hashOut), hash(bytes, 1, len, 0));
+    }
+  }
+
+  @Test
+  public void checkArrayHashOut() {
+    final long[] hashOut = new long[2];
+    final long seed = 9001L;
+    final long[] longs = { 1L, -2L, 3L, Long.MAX_VALUE, Long.MIN_VALUE };
+    final int[] ints = { 1, -2, 3, Integer.MAX_VALUE, Integer.MIN_VALUE };
+    final char[] chars = "abcdefghijklmnopq".toCharArray();
+    final byte[] bytes = "The quick brown fox jumps over the lazy dog".getBytes(UTF_8);
+    Assert.assertSame(hash(longs, seed, hashOut), hashOut);
+    Assert.assertEquals(hashOut, hash(longs, seed));
+    Assert.assertEquals(hash(ints, seed, hashOut), hash(ints, seed));
+    Assert.assertEquals(hash(chars, seed, hashOut), hash(chars, seed));
+    Assert.assertEquals(hash(bytes, seed, hashOut), hash(bytes, seed));
+    Assert.assertEquals(hash(ByteBuffer.wrap(bytes), seed, hashOut), hash(ByteBuffer.wrap(bytes), seed));
+    Assert.assertEquals(hash(Memory.wrap(bytes), seed, hashOut), hash(Memory.wrap(bytes), seed));
+    for (int len = 1; len < longs.length; len++) {
+      Assert.assertEquals(hash(longs, 1, len, seed, hashOut), hash(longs, 1, len, seed));
+      Assert.assertEquals(hash(ints, 1, len, seed, hashOut), hash(ints, 1, len, seed));
+      Assert.assertEquals(hash(chars, 1, len, seed, hashOut), hash(chars, 1, len, seed));
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.hll.TgtHllType.HLL_4;
+import static org.apache.datasketches.hll.TgtHllType.HLL_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.Test;
+
+public class ConcurrentHllSketchTest {
+
+  @Test
+  public void checkEmpty() {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(10);
+    final ConcurrentHllBuffer local = shared.newLocalBuffer();
+    assertTrue(shared.isEmpty());
+    assertTrue(local.isEmpty());
+    assertEquals(shared.getEstimate(), 0.0);
+    assertEquals(shared.toHllSketch().getEstimate(), 0.0);
+    assertTrue(HllSketch.heapify(shared.toCompactByteArray()).isEmpty());
+    local.flush();
+    assertTrue(shared.isEmpty());
+  }
+
+  @Test
+  public void checkBufferedUpdatesAreStale() {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(12);
+    final ConcurrentHllBuffer local = shared.newLocalBuffer(4);
+    local.update(1L);
+    local.update(2L);
+    assertEquals(local.getNumBufferedCoupons(), 2);
+    assertTrue(shared.isEmpty());
+    local.flush();
+    assertEquals(local.getNumBufferedCoupons(), 0);
+    assertFalse(shared.isEmpty());
+    assertEquals(shared.getEstimate(), 2.0, 0.01);
+    local.update(1L); //already propagated, so it is filtered out
+    assertEquals(local.getNumBufferedCoupons(), 0);
+    local.update(3L);
+    local.reset();
+    local.flush();
+    assertEquals(shared.getEstimate(), 2.0, 0.01);
+    assertTrue(local.getSharedSketch() == shared);
+  }
+
+  @Test
+  public void checkSingleThreadMatchesUnion() {
+    final int lgK = 11;
+    final int n = 100_000;
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(lgK);
+    final ConcurrentHllBuffer local = shared.newLocalBuffer();
+    final HllSketch sk = new HllSketch(lgK, HLL_8);
+    for (int i = 0; i < n; i++) {
+      local.update(i);
+      sk.update(i);
+    }
+    local.flush();
+    final Union union = new Union(lgK);
+    union.update(sk);
+    final HllSketch result = union.getResult(HLL_8).putOutOfOrderFlag(true);
+    assertEquals(shared.getEstimate(), result.getEstimate(), 1e-6);
+    assertEquals(shared.getLowerBound(2), result.getLowerBound(2), 1e-6);
+    assertEquals(shared.getUpperBound(2), result.getUpperBound(2), 1e-6);
+    assertEquals(local.getEstimate(), shared.getEstimate());
+    assertEquals(shared.toHllSketch().getEstimate(), shared.getEstimate());
+    assertEquals(shared.toHllSketch(HLL_4).getEstimate(), shared.getEstimate());
+    assertEquals(HllSketch.heapify(shared.toUpdatableByteArray()).getEstimate(), shared.getEstimate());
+    assertEquals(local.toCompactByteArray(), shared.toCompactByteArray());
+    assertEquals(local.getCompactSerializationBytes(), result.getCompactSerializationBytes());
+  }
+
+  @Test
+  public void checkMultipleWriters() throws InterruptedException {
+    final int lgK = 12;
+    final int numThreads = 4;
+    final int nPerThread = 50_000;
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(lgK);
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int start = t * nPerThread;
+      threads[t] = new Thread(() -> {
+        final ConcurrentHllBuffer local = shared.newLocalBuffer();
+        for (int i = start; i < (start + nPerThread); i++) { local.update(i); }
+        local.flush();
+      });
+      threads[t].start();
+    }
+    for (final Thread thread : threads) { thread.join(); }
+
+    final HllSketch sk = new HllSketch(lgK, HLL_8);
+    for (int i = 0; i < (numThreads * nPerThread); i++) { sk.update(i); }
+    final PairIterator itr = sk.iterator();
+    while (itr.nextAll()) {
+      assertEquals(shared.getSlotValue(itr.getSlot()), itr.getValue());
+    }
+    assertEquals(shared.getEstimate(), sk.getCompositeEstimate(), 1e-6);
+    println(shared.toString());
+  }
+
+  @Test
+  public void checkBadBufferSize() {
+    try {
+      new ConcurrentHllSketch(10).newLocalBuffer(0);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
@@ -437,6 +437,50 @@ public class HllSketchTest {
     sk2 = HllSketch.heapify(Memory.wrap(arr));
   }
 
+  @Test
+  public void checkUpdateAll() {
+    for (TgtHllType tgtHllType : TgtHllType.values()) {
+      checkUpdateAll(10, tgtHllType, null, null);
+      final int bytes = getMaxUpdatableSerializationBytes(10, tgtHllType);
+      checkUpdateAll(10, tgtHllType, WritableMemory.allocate(bytes), WritableMemory.allocate(bytes));
+    }
+  }
+
+  private static void checkUpdateAll(int lgK, TgtHllType tgtHllType, WritableMemory wmem1, WritableMemory wmem2) {
+    final int n = 10000;
+    final long[] longs = new long[n];
+    final int[] ints = new int[n];
+    final double[] doubles = new double[n];
+    final String[] strings = new String[n];
+    for (int i = 0; i < n; i++) {
+      longs[i] = i;
+      ints[i] = -i;
+      doubles[i] = i / 3.0;
+      strings[i] = (i % 100 == 0) ? null : Integer.toString(i);
+    }
+    doubles[1] = -0.0;
+    doubles[2] = Double.NaN;
+    strings[1] = "";
+    final HllSketch sk1 = (wmem1 == null) ? new HllSketch(lgK, tgtHllType) : new HllSketch(lgK, tgtHllType, wmem1);
+    final HllSketch sk2 = (wmem2 == null) ? new HllSketch(lgK, tgtHllType) : new HllSketch(lgK, tgtHllType, wmem2);
+    for (int i = 5; i < n; i++) { sk1.update(longs[i]); }
+    for (int i = 5; i < n; i++) { sk1.update((long) ints[i]); }
+    for (int i = 5; i < n; i++) { sk1.update(doubles[i]); }
+    for (int i = 5; i < n; i++) { sk1.update(strings[i]); }
+    sk2.updateAll(longs, 5, n);
+    sk2.updateAll(ints, 5, n);
+    sk2.updateAll(doubles, 5, n);
+    sk2.updateAll(strings, 5, n);
+    assertEquals(sk2.toCompactByteArray(), sk1.toCompactByteArray());
+
+    sk2.updateAll(longs, 3, 3); //empty range
+    assertEquals(sk2.toCompactByteArray(), sk1.toCompactByteArray());
+    try {
+      sk2.updateAll(longs, 5, n + 1);
+      fail();
+    } catch (SketchesArgumentException e) { }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
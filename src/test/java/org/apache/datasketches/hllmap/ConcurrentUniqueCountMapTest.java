@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hllmap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.Util;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConcurrentUniqueCountMapTest {
+
+  @Test
+  public void nullKey() {
+    ConcurrentUniqueCountMap map = new ConcurrentUniqueCountMap(4);
+    Assert.assertTrue(Double.isNaN(map.update(null, null)));
+    Assert.assertTrue(Double.isNaN(map.getEstimate(null)));
+    Assert.assertTrue(Double.isNaN(map.getUpperBound(null)));
+    Assert.assertTrue(Double.isNaN(map.getLowerBound(null)));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void wrongSizeKeyGetEstimate() {
+    ConcurrentUniqueCountMap map = new ConcurrentUniqueCountMap(1000, 4, 4);
+    map.getEstimate(new byte[] {0});
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void wrongSizeKey() {
+    new ConcurrentUniqueCountMap(1000, 2, 4);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void tooFewShards() {
+    new ConcurrentUniqueCountMap(1000, 4, 0);
+  }
+
+  @Test
+  public void numShardsRoundedUp() {
+    Assert.assertEquals(new ConcurrentUniqueCountMap(1000, 4, 1).getNumShards(), 1);
+    Assert.assertEquals(new ConcurrentUniqueCountMap(1000, 4, 5).getNumShards(), 8);
+  }
+
+  @Test
+  public void matchesUniqueCountMap() {
+    ConcurrentUniqueCountMap cmap = new ConcurrentUniqueCountMap(1000, 4, 8);
+    UniqueCountMap map = new UniqueCountMap(1000, 4);
+    byte[] id = new byte[4];
+    for (int i = 0; i < 20000; i++) {
+      byte[] key = Util.intToBytes(i % (1 + (i % 500)), new byte[4]);
+      id = Util.intToBytes(i, id);
+      Assert.assertEquals(cmap.update(key, id), map.update(key, id));
+    }
+    for (int k = 0; k < 500; k++) {
+      byte[] key = Util.intToBytes(k, new byte[4]);
+      Assert.assertEquals(cmap.getEstimate(key), map.getEstimate(key));
+      Assert.assertEquals(cmap.getUpperBound(key), map.getUpperBound(key));
+      Assert.assertEquals(cmap.getLowerBound(key), map.getLowerBound(key));
+    }
+    Assert.assertEquals(cmap.getActiveEntries(), map.getActiveEntries());
+    Assert.assertEquals(cmap.getKeyMemoryUsageBytes(), map.getKeyMemoryUsageBytes());
+    Assert.assertTrue(cmap.getMemoryUsageBytes() > 0);
+    Assert.assertTrue(cmap.getAverageSketchMemoryPerKey() > 0);
+    println(cmap.toString());
+  }
+
+  @Test
+  public void concurrentUpdatesAndReads() throws Exception {
+    final int numThreads = 4;
+    final int numKeys = 2000;
+    final int idsPerKey = 50;
+    final ConcurrentUniqueCountMap map = new ConcurrentUniqueCountMap(1000, 4, 8);
+    final ExecutorService pool = Executors.newFixedThreadPool(numThreads + 1);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final int thread = t;
+        futures.add(pool.submit(() -> {
+          // every thread presents the same identifiers, in a different order of keys
+          for (int id = 0; id < idsPerKey; id++) {
+            for (int k = 0; k < numKeys; k++) {
+              final int key = (k + thread * (numKeys / numThreads)) % numKeys;
+              map.update(Util.intToBytes(key, new byte[4]), Util.intToBytes(id, new byte[4]));
+            }
+          }
+        }));
+      }
+      futures.add(pool.submit(() -> {
+        for (int i = 0; i < 100000; i++) {
+          final double est = map.getEstimate(Util.intToBytes(i % numKeys, new byte[4]));
+          Assert.assertTrue(est >= 0 && est < 2 * idsPerKey);
+        }
+      }));
+      for (Future<?> f : futures) { f.get(); }
+    } finally {
+      pool.shutdown();
+    }
+
+    final UniqueCountMap expected = new UniqueCountMap(1000, 4);
+    for (int id = 0; id < idsPerKey; id++) {
+      for (int k = 0; k < numKeys; k++) {
+        expected.update(Util.intToBytes(k, new byte[4]), Util.intToBytes(id, new byte[4]));
+      }
+    }
+    Assert.assertEquals(map.getActiveEntries(), numKeys);
+    for (int k = 0; k < numKeys; k++) {
+      final byte[] key = Util.intToBytes(k, new byte[4]);
+      Assert.assertEquals(map.getEstimate(key), expected.getEstimate(key), idsPerKey * 0.1);
+    }
+  }
+
+  @Test
+  public void stringKeys() {
+    ConcurrentUniqueCountMap map = new ConcurrentUniqueCountMap(1000, 4, 2);
+    Assert.assertEquals(map.update("1234".getBytes(UTF_8), "a".getBytes(UTF_8)), 1.0);
+    Assert.assertEquals(map.update("1234".getBytes(UTF_8), null), 1.0);
+    Assert.assertEquals(map.getEstimate("4321".getBytes(UTF_8)), 0.0);
+    Assert.assertTrue(map.remove("1234".getBytes(UTF_8)));
+    Assert.assertFalse(map.remove("1234".getBytes(UTF_8)));
+    Assert.assertFalse(map.remove(null));
+    Assert.assertEquals(map.getEstimate("1234".getBytes(UTF_8)), 0.0);
+    Assert.assertEquals(map.getActiveEntries(), 0);
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
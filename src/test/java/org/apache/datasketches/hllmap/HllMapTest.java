@@ -115,6 +115,48 @@ public class HllMapTest {
     //println(map.toString());
   }
 
+  @Test
+  public void deleteAndReuse() {
+    int keySize = 4;
+    HllMap map = HllMap.getInstance(keySize, 1024);
+    byte[] key = new byte[4];
+    byte[] id = new byte[4];
+    for (int j = 1; j <= 1000; j++) {
+      key = Util.intToBytes(j, key);
+      for (int i = 0; i < 20; i++) {
+        id = Util.intToBytes(i, id);
+        map.update(key, (short) Map.coupon16(id));
+      }
+    }
+    final int tableEntries = map.getTableEntries();
+    final double est = map.getEstimate(Util.intToBytes(1, key));
+    for (int j = 1; j <= 1000; j += 2) {
+      map.deleteKey(map.findKey(Util.intToBytes(j, key)));
+    }
+    Assert.assertEquals(map.getCurrentCountEntries(), 500);
+    Assert.assertEquals(map.getDeletedEntries(), 500);
+    Assert.assertEquals(map.getTableEntries(), tableEntries);
+    Assert.assertEquals(map.getEstimate(Util.intToBytes(1, key)), 0.0);
+    Assert.assertEquals(map.getEstimate(Util.intToBytes(2, key)), est);
+
+    // the reused slot starts with an empty HLL array
+    key = Util.intToBytes(1, key);
+    for (int i = 0; i < 20; i++) {
+      id = Util.intToBytes(i, id);
+      map.update(key, (short) Map.coupon16(id));
+    }
+    Assert.assertEquals(map.getEstimate(key), est);
+    Assert.assertEquals(map.getDeletedEntries(), 499);
+
+    // deleting most keys shrinks the table
+    for (int j = 2; j <= 900; j += 2) {
+      map.deleteKey(map.findKey(Util.intToBytes(j, key)));
+    }
+    Assert.assertTrue(map.getTableEntries() < tableEntries);
+    Assert.assertEquals(map.getCurrentCountEntries(), 51);
+    Assert.assertEquals(map.getEstimate(Util.intToBytes(1000, key)), est);
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -96,6 +96,45 @@ public class SingleCouponMapTest {
     Assert.assertEquals(map.getCurrentCountEntries(), 1000);
   }
 
+  @Test
+  public void deleteAndReuse() {
+    SingleCouponMap map = SingleCouponMap.getInstance(1000, 4);
+    for (int i = 0; i < 900; i++) {
+      map.update(String.format("%4s", i).getBytes(UTF_8), (short) 1);
+    }
+    final int tableEntries = map.getTableEntries();
+    for (int i = 0; i < 900; i += 3) {
+      final byte[] key = String.format("%4s", i).getBytes(UTF_8);
+      final int index = map.findKey(key);
+      Assert.assertTrue(map.isActive(index));
+      map.deleteKey(index);
+      Assert.assertFalse(map.isActive(index));
+      Assert.assertEquals(map.getEstimate(key), 0.0);
+    }
+    Assert.assertEquals(map.getCurrentCountEntries(), 600);
+    Assert.assertEquals(map.getDeletedEntries(), 300);
+    Assert.assertEquals(map.getTableEntries(), tableEntries);
+    for (int i = 1; i < 900; i += 3) { // still found past the deleted slots
+      Assert.assertEquals(map.getEstimate(String.format("%4s", i).getBytes(UTF_8)), 1.0);
+    }
+    // a deleted slot is reused
+    final byte[] key = String.format("%4s", 0).getBytes(UTF_8);
+    map.update(key, (short) 2);
+    Assert.assertEquals(map.getEstimate(key), 1.0);
+    Assert.assertEquals(map.getDeletedEntries(), 299);
+    Assert.assertEquals(map.getCurrentCountEntries(), 601);
+    // deleting most keys shrinks the table and purges the deleted slots
+    for (int i = 1; i < 900; i += 3) {
+      map.deleteKey(map.findKey(String.format("%4s", i).getBytes(UTF_8)));
+    }
+    Assert.assertTrue(map.getTableEntries() < tableEntries);
+    Assert.assertTrue(map.getDeletedEntries() < 300);
+    Assert.assertEquals(map.getCurrentCountEntries(), 301);
+    for (int i = 2; i < 900; i += 3) {
+      Assert.assertEquals(map.getEstimate(String.format("%4s", i).getBytes(UTF_8)), 1.0);
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -22,10 +22,20 @@ package org.apache.datasketches.hllmap;
 import static org.apache.datasketches.hash.MurmurHash3.hash;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.memory.MapHandle;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMapHandle;
+import org.apache.datasketches.memory.WritableMemory;
 
 public class UniqueCountMapTest {
   private final static int INIT_ENTRIES = 211;
@@ -181,6 +191,209 @@ public class UniqueCountMapTest {
   }
 
 
+  @Test
+  public void serializeEmpty() {
+    UniqueCountMap map = new UniqueCountMap(INIT_ENTRIES, 4);
+    byte[] bytes = map.toByteArray();
+    Assert.assertEquals(bytes.length, map.getSerializedSizeBytes());
+    UniqueCountMap map2 = UniqueCountMap.heapify(Memory.wrap(bytes));
+    Assert.assertEquals(map2.getActiveEntries(), 0);
+    Assert.assertEquals(map2.getActiveMaps(), 1);
+    Assert.assertEquals(map2.getEstimate("1234".getBytes(UTF_8)), 0.0);
+    Assert.assertEquals(map2.toByteArray(), bytes);
+  }
+
+  @Test
+  public void serializeAllLevels() {
+    UniqueCountMap map = newSkewedMap();
+    Assert.assertEquals(map.getActiveMaps(), 10);
+    byte[] bytes = map.toByteArray();
+    Assert.assertEquals(bytes.length, map.getSerializedSizeBytes());
+    UniqueCountMap map2 = UniqueCountMap.heapify(Memory.wrap(bytes));
+    Assert.assertEquals(map2.getActiveEntries(), map.getActiveEntries());
+    Assert.assertEquals(map2.getActiveMaps(), map.getActiveMaps());
+    Assert.assertEquals(map2.getMemoryUsageBytes(), map.getMemoryUsageBytes());
+    Assert.assertEquals(map2.toByteArray(), bytes);
+    byte[] key = new byte[4];
+    for (int k = 0; k < 2000; k++) {
+      key = Util.intToBytes(k, key);
+      Assert.assertEquals(map2.getEstimate(key), map.getEstimate(key));
+      Assert.assertEquals(map2.getUpperBound(key), map.getUpperBound(key));
+      Assert.assertEquals(map2.getLowerBound(key), map.getLowerBound(key));
+    }
+    // both maps continue identically, including promotions and resizes
+    byte[] id = new byte[4];
+    for (int i = 0; i < 100000; i++) {
+      key = Util.intToBytes(i % 3000, key);
+      id = Util.intToBytes(-i, id);
+      Assert.assertEquals(map2.update(key, id), map.update(key, id));
+    }
+    Assert.assertEquals(map2.toByteArray(), map.toByteArray());
+  }
+
+  @Test
+  public void memoryMappedFile() throws Exception {
+    UniqueCountMap map = newSkewedMap();
+    final long size = map.getSerializedSizeBytes();
+    final File file = File.createTempFile("uniquecountmap", ".bin");
+    file.deleteOnExit();
+    try (WritableMapHandle handle = WritableMemory.writableMap(file, 0, size, ByteOrder.nativeOrder())) {
+      map.putMemory(handle.getWritable());
+      handle.force();
+    }
+    Assert.assertEquals(file.length(), size);
+    try (MapHandle handle = Memory.map(file, 0, size, ByteOrder.nativeOrder())) {
+      UniqueCountMap map2 = UniqueCountMap.heapify(handle.get());
+      Assert.assertEquals(map2.toByteArray(), map.toByteArray());
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void putMemoryTooSmall() {
+    UniqueCountMap map = new UniqueCountMap(INIT_ENTRIES, 4);
+    map.putMemory(WritableMemory.allocate((int) map.getSerializedSizeBytes() - 1));
+  }
+
+  @Test
+  public void heapifyCorrupt() {
+    UniqueCountMap map = newSkewedMap();
+    final byte[] bytes = map.toByteArray();
+    final int[] byteOffsets = {0, 1, 2, 4, 8};
+    for (int offset : byteOffsets) {
+      final byte[] corrupt = bytes.clone();
+      corrupt[offset] ^= 0x40;
+      try {
+        UniqueCountMap.heapify(Memory.wrap(corrupt));
+        Assert.fail("offset " + offset);
+      } catch (final SketchesArgumentException e) {
+        // expected
+      }
+    }
+    try {
+      UniqueCountMap.heapify(Memory.wrap(new byte[8]));
+      Assert.fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+    try {
+      UniqueCountMap.heapify(Memory.wrap(bytes).region(0, bytes.length - 1));
+      Assert.fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void iterator() {
+    UniqueCountMap map = newSkewedMap();
+    Set<Integer> seen = new HashSet<>();
+    UniqueCountMapIterator it = map.iterator();
+    while (it.next()) {
+      final byte[] key = it.getKey();
+      Assert.assertTrue(seen.add(Util.bytesToInt(key)));
+      Assert.assertEquals(it.getEstimate(), map.getEstimate(key));
+    }
+    Assert.assertEquals(seen.size(), 2000);
+    Assert.assertFalse(new UniqueCountMap(INIT_ENTRIES, 4).iterator().next());
+  }
+
+  @Test
+  public void remove() {
+    UniqueCountMap map = newSkewedMap();
+    Assert.assertFalse(map.remove(null));
+    Assert.assertFalse(map.remove(Util.intToBytes(-1, new byte[4])));
+    byte[] key = new byte[4];
+    for (int k = 0; k < 2000; k += 3) {
+      Assert.assertTrue(map.remove(Util.intToBytes(k, key)));
+      Assert.assertFalse(map.remove(key));
+      Assert.assertEquals(map.getEstimate(key), 0.0);
+    }
+    Assert.assertEquals(map.getActiveEntries(), 1333);
+    // only the first few keys have enough identifiers to reach the HllMap
+    Assert.assertNotNull(map.getHllMap());
+    for (int k = 1; k < 20; k++) {
+      if (k % 3 != 0) { Assert.assertTrue(map.remove(Util.intToBytes(k, key))); }
+    }
+    Assert.assertNull(map.getHllMap());
+    int count = 0;
+    UniqueCountMapIterator it = map.iterator();
+    while (it.next()) {
+      Assert.assertTrue(Util.bytesToInt(it.getKey()) % 3 != 0);
+      count++;
+    }
+    Assert.assertEquals(count, 1320);
+
+    // removed keys start over
+    byte[] id = new byte[4];
+    key = Util.intToBytes(0, key);
+    for (int i = 0; i < 5000; i++) {
+      id = Util.intToBytes(i, id);
+      map.update(key, id);
+    }
+    Assert.assertEquals(map.getEstimate(key), 5000, 5000 * 0.1);
+    Assert.assertNotNull(map.getHllMap());
+
+    // the deleted entries are serialized
+    UniqueCountMap map2 = UniqueCountMap.heapify(Memory.wrap(map.toByteArray()));
+    for (int k = 0; k < 2000; k++) {
+      key = Util.intToBytes(k, key);
+      Assert.assertEquals(map2.getEstimate(key), map.getEstimate(key));
+    }
+  }
+
+  @Test
+  public void removeAll() {
+    UniqueCountMap map = newSkewedMap();
+    byte[] key = new byte[4];
+    for (int k = 0; k < 2000; k++) {
+      Assert.assertTrue(map.remove(Util.intToBytes(k, key)));
+    }
+    Assert.assertEquals(map.getActiveEntries(), 0);
+    Assert.assertEquals(map.getActiveMaps(), 1);
+    Assert.assertFalse(map.iterator().next());
+  }
+
+  @Test
+  public void topKeys() {
+    UniqueCountMap map = newSkewedMap();
+    final double[] estimates = new double[2000];
+    byte[] key = new byte[4];
+    for (int k = 0; k < 2000; k++) {
+      estimates[k] = map.getEstimate(Util.intToBytes(k, key));
+    }
+    Arrays.sort(estimates);
+    for (int n : new int[] {0, 1, 10, 100, 2000, 5000}) {
+      UniqueCountMap.Row[] rows = map.getTopKeys(n);
+      Assert.assertEquals(rows.length, Math.min(n, 2000));
+      for (int i = 0; i < rows.length; i++) {
+        Assert.assertEquals(rows[i].getEstimate(), estimates[estimates.length - 1 - i]);
+        Assert.assertEquals(map.getEstimate(rows[i].getKey()), rows[i].getEstimate());
+      }
+    }
+    Assert.assertEquals(Util.bytesToInt(map.getTopKeys(1)[0].getKey()), 0);
+    Assert.assertEquals(new UniqueCountMap(INIT_ENTRIES, 4).getTopKeys(3).length, 0);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void topKeysNegative() {
+    new UniqueCountMap(INIT_ENTRIES, 4).getTopKeys(-1);
+  }
+
+  // a few keys reach the HllMap while most stay in the lower levels
+  private static UniqueCountMap newSkewedMap() {
+    UniqueCountMap map = new UniqueCountMap(INIT_ENTRIES, 4);
+    byte[] key = new byte[4];
+    byte[] id = new byte[4];
+    for (int k = 0; k < 2000; k++) {
+      key = Util.intToBytes(k, key);
+      final int numIds = 1 + (2000 / (k + 1));
+      for (int i = 0; i < numIds; i++) {
+        id = Util.intToBytes(i, id);
+        map.update(key, id);
+      }
+    }
+    return map;
+  }
 
   @Test
   public void printlnTest() {
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.EXCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.quantilescommon.DoublesSortedView;
+import org.testng.annotations.Test;
+
+public class KllConcurrentDoublesSketchTest {
+
+  @Test
+  public void checkEmpty() {
+    final KllConcurrentDoublesSketch shared = new KllConcurrentDoublesSketch();
+    assertTrue(shared.isEmpty());
+    assertEquals(shared.getN(), 0);
+    assertEquals(shared.getK(), KllSketch.DEFAULT_K);
+    try {
+      shared.getSortedView();
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    assertTrue(shared.toKllDoublesSketch().isEmpty());
+    shared.close();
+  }
+
+  @Test
+  public void checkExactModeSingleWriter() {
+    final KllConcurrentDoublesSketch shared = new KllConcurrentDoublesSketch(200, 2);
+    final KllConcurrentDoublesBuffer local = shared.newLocalBuffer(10);
+    for (int i = 1; i <= 100; i++) { local.update(i); }
+    local.update(Double.NaN);
+    local.update(101);
+    assertEquals(local.getNumBufferedItems(), 1);
+    local.flush();
+    assertEquals(local.getNumBufferedItems(), 0);
+    shared.close();
+
+    assertEquals(shared.getN(), 101);
+    assertFalse(shared.isEmpty());
+    assertEquals(shared.getQuantile(0.5), 51.0);
+    assertEquals(shared.getRank(50), 50.0 / 101);
+    assertEquals(shared.getRank(50, EXCLUSIVE), 49.0 / 101);
+    final DoublesSortedView view = shared.getSortedView();
+    assertTrue(view == shared.getSortedView()); //cached
+    assertEquals(view.getMinItem(), 1.0);
+    assertEquals(view.getMaxItem(), 101.0);
+    assertEquals(shared.toKllDoublesSketch().getQuantile(0.5), 51.0);
+    assertTrue(local.getSharedSketch() == shared);
+
+    local.update(102); //merged by the writer after close
+    local.flush();
+    assertEquals(shared.getN(), 102);
+    assertFalse(view == shared.getSortedView());
+  }
+
+  @Test
+  public void checkMultipleWriters() throws InterruptedException {
+    final int numThreads = 4;
+    final int nPerThread = 100_000;
+    final KllConcurrentDoublesSketch shared = new KllConcurrentDoublesSketch(200, 4);
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int start = t * nPerThread;
+      threads[t] = new Thread(() -> {
+        final KllConcurrentDoublesBuffer local = shared.newLocalBuffer(100);
+        for (int i = start; i < (start + nPerThread); i++) {
+          local.update(i);
+          if ((i % 10_000) == 0 && !shared.isEmpty()) { shared.getQuantile(0.5); }
+        }
+        local.flush();
+      });
+      threads[t].start();
+    }
+    for (final Thread thread : threads) { thread.join(); }
+    shared.close();
+
+    final long n = (long) numThreads * nPerThread;
+    assertEquals(shared.getN(), n);
+    final DoublesSortedView view = shared.getSortedView();
+    assertEquals(view.getMinItem(), 0.0);
+    assertEquals(view.getMaxItem(), n - 1.0);
+    final double eps = KllHelper.getNormalizedRankError(shared.getK(), false);
+    for (double rank = 0.1; rank < 1.0; rank += 0.1) {
+      assertEquals(shared.getQuantile(rank) / n, rank, 2 * eps);
+    }
+    println(shared.toString());
+  }
+
+  @Test
+  public void checkMergeThreadExitsWhenIdle() throws InterruptedException {
+    final KllConcurrentDoublesSketch shared = new KllConcurrentDoublesSketch();
+    final KllConcurrentDoublesBuffer local = shared.newLocalBuffer(10);
+    for (int i = 0; i < 1000; i++) { local.update(i); }
+    while (shared.getN() < 1000) { Thread.sleep(10); }
+
+    //never closed, so the thread must go away on its own
+    for (int i = 0; (i < 100) && (countMergeThreads() > 0); i++) { Thread.sleep(100); }
+    assertEquals(countMergeThreads(), 0);
+
+    //and comes back for the next merge
+    local.update(1000);
+    local.flush();
+    while (shared.getN() < 1001) { Thread.sleep(10); }
+    assertEquals(shared.getSortedView().getMaxItem(), 1000.0);
+  }
+
+  private static int countMergeThreads() {
+    int count = 0;
+    for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.isAlive() && thread.getName().equals("KllConcurrentDoublesSketch-merge")) { count++; }
+    }
+    return count;
+  }
+
+  @Test
+  public void checkBadArgs() {
+    try {
+      new KllConcurrentDoublesSketch(200, 0);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    final KllConcurrentDoublesSketch shared = new KllConcurrentDoublesSketch();
+    try {
+      shared.newLocalBuffer(0);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    shared.close();
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
@@ -28,6 +28,9 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.kll.KllDirectDoublesSketch.KllDirectCompactDoublesSketch;
 import org.apache.datasketches.kll.KllSketch.SketchType;
@@ -36,6 +39,7 @@ import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.quantilescommon.DoublesSortedView;
+import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
 import org.apache.datasketches.quantilescommon.DoublesSortedViewIterator;
 import org.testng.annotations.Test;
 
@@ -62,6 +66,120 @@ public class KllMiscDoublesTest {
     }
   }
 
+  @Test
+  public void checkSeededRandomIsReproducible() {
+    final int k = 20;
+    final int n = 10_000;
+    final KllDoublesSketch sk1 = KllDoublesSketch.newHeapInstance(k, new Random(7));
+    final KllDoublesSketch sk2 = KllDoublesSketch.newHeapInstance(k, new Random(7));
+    final KllDoublesSketch sk3 = KllDoublesSketch.newDirectInstance(k,
+        WritableMemory.allocate(KllSketch.getMaxSerializedSizeBytes(k, n, DOUBLES_SKETCH, true)),
+        memReqSvr, new Random(7));
+    final KllDoublesSketch other = KllDoublesSketch.newHeapInstance(k);
+    for (int i = 0; i < n; i++) {
+      sk1.update(i);
+      sk2.update(i);
+      sk3.update(i);
+      other.update(-i);
+    }
+    sk1.merge(other);
+    sk2.merge(other);
+    sk3.merge(other);
+    assertEquals(sk2.toByteArray(), sk1.toByteArray());
+    assertEquals(sk3.toByteArray(), sk1.toByteArray());
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void checkNullRandom() {
+    KllDoublesSketch.newHeapInstance(20, null);
+  }
+
+  @Test
+  public void checkIncrementalSortedView() {
+    final int k = 20;
+    final int bytes = KllSketch.getMaxSerializedSizeBytes(k, 1L << 20, DOUBLES_SKETCH, true);
+    final KllDoublesSketch[] sketches = {
+        KllDoublesSketch.newHeapInstance(k, new Random(3)),
+        KllDoublesSketch.newHeapInstance(k, new Random(3)),
+        KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(bytes), memReqSvr, new Random(3)),
+        KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(bytes), memReqSvr, new Random(3))
+    };
+    sketches[1].setIncrementalSortedView(true);
+    sketches[3].setIncrementalSortedView(true);
+    assertTrue(sketches[1].isIncrementalSortedView());
+    final KllDoublesSketch other = KllDoublesSketch.newHeapInstance(k);
+    for (int i = 0; i < 500; i++) { other.update(i % 50); }
+    final Random rand = new Random(5);
+    for (int i = 0; i < 3000; i++) {
+      final double item = rand.nextInt(100); // many duplicates
+      for (KllDoublesSketch sk : sketches) {
+        if (i % 1000 == 999) { sk.merge(other); }
+        else if (i % 97 == 0) { sk.update(item, 1 + (i % 40)); }
+        else { sk.update(item); }
+      }
+      checkSameQueries(sketches[0], sketches[1]);
+      checkSameQueries(sketches[2], sketches[3]);
+    }
+    final KllDoublesSketch incr = sketches[1];
+    final DoublesSortedView fullSV = sketches[0].getSortedView();
+    final DoublesSortedView incrSV = incr.getSortedView();
+    assertEquals(incrSV.getQuantiles(), fullSV.getQuantiles());
+    assertEquals(incrSV.getCumulativeWeights(), fullSV.getCumulativeWeights());
+    assertEquals(incr.getCDF(new double[] {10, 50, 90}), sketches[0].getCDF(new double[] {10, 50, 90}));
+    incr.reset();
+    assertTrue(incr.isEmpty());
+    incr.update(1.0);
+    assertEquals(incr.getQuantile(0.5), 1.0);
+    incr.setIncrementalSortedView(false);
+    assertFalse(incr.isIncrementalSortedView());
+    assertEquals(incr.getRank(1.0), 1.0);
+  }
+
+  private static void checkSameQueries(final KllDoublesSketch expected, final KllDoublesSketch actual) {
+    for (QuantileSearchCriteria crit : QuantileSearchCriteria.values()) {
+      for (int r = 0; r <= 20; r++) {
+        final double rank = r / 20.0;
+        assertEquals(actual.getQuantile(rank, crit), expected.getQuantile(rank, crit));
+      }
+      for (int q = -1; q <= 101; q += 3) {
+        assertEquals(actual.getRank(q, crit), expected.getRank(q, crit));
+      }
+    }
+  }
+
+  @Test
+  public void checkGetDoubleItemsRange() {
+    final int k = 20;
+    final KllDoublesSketch heap = KllDoublesSketch.newHeapInstance(k);
+    final KllDoublesSketch single = KllDoublesSketch.newHeapInstance(k);
+    single.update(7.0);
+    for (int i = 0; i < 1000; i++) { heap.update(i); }
+    final KllDoublesSketch[] sketches = {
+        heap,
+        KllDoublesSketch.writableWrap(WritableMemory.writableWrap(KllHelper.toByteArray(heap, true)), memReqSvr),
+        KllDoublesSketch.wrap(Memory.wrap(heap.toByteArray())),
+        KllDoublesSketch.wrap(Memory.wrap(single.toByteArray()))
+    };
+    for (KllDoublesSketch sk : sketches) {
+      final double[] items = sk.getDoubleItemsArray();
+      final int[] levels = sk.levelsArr;
+      final int numLevels = sk.getNumLevels();
+      for (int lvl = 0; lvl < numLevels; lvl++) {
+        final int len = levels[lvl + 1] - levels[lvl];
+        final double[] dst = new double[len];
+        sk.getDoubleItems(levels[lvl], dst, len);
+        assertEquals(dst, Arrays.copyOfRange(items, levels[lvl], levels[lvl + 1]));
+      }
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkIncrementalSortedViewOnCompactSketch() {
+    final KllDoublesSketch sk = KllDoublesSketch.newHeapInstance(20);
+    sk.update(1.0);
+    KllDoublesSketch.wrap(Memory.wrap(sk.toByteArray())).setIncrementalSortedView(true);
+  }
+
   @Test //set static enablePrinting = true for visual checking
   public void checkBounds() {
     final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance(); // default k = 200
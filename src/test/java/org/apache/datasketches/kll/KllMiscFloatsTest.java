@@ -28,6 +28,8 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.Random;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.kll.KllDirectFloatsSketch.KllDirectCompactFloatsSketch;
 import org.apache.datasketches.kll.KllSketch.SketchType;
@@ -62,6 +64,21 @@ public class KllMiscFloatsTest {
     }
   }
 
+  @Test
+  public void checkSeededRandomIsReproducible() {
+    final KllFloatsSketch sk1 = KllFloatsSketch.newHeapInstance(20, new Random(7));
+    final KllFloatsSketch sk2 = KllFloatsSketch.newHeapInstance(20, new Random(7));
+    final KllFloatsSketch other = KllFloatsSketch.newHeapInstance(20);
+    for (int i = 0; i < 10_000; i++) {
+      sk1.update(i);
+      sk2.update(i);
+      other.update(-i);
+    }
+    sk1.merge(other);
+    sk2.merge(other);
+    assertEquals(sk2.toByteArray(), sk1.toByteArray());
+  }
+
   @Test //set static enablePrinting = true for visual checking
   public void checkBounds() {
     final KllFloatsSketch kll = KllFloatsSketch.newHeapInstance(); //default k = 200
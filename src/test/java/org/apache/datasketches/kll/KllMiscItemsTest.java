@@ -29,6 +29,7 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.Comparator;
+import java.util.Random;
 
 import org.apache.datasketches.common.ArrayOfBooleansSerDe;
 import org.apache.datasketches.common.ArrayOfStringsSerDe;
@@ -71,6 +72,20 @@ public class KllMiscItemsTest {
     }
   }
 
+  @Test
+  public void checkSeededRandomIsReproducible() {
+    final KllItemsSketch<String> sk1 =
+        KllItemsSketch.newHeapInstance(20, Comparator.naturalOrder(), serDe, new Random(7));
+    final KllItemsSketch<String> sk2 =
+        KllItemsSketch.newHeapInstance(20, Comparator.naturalOrder(), serDe, new Random(7));
+    for (int i = 0; i < 10_000; i++) {
+      final String s = Util.longToFixedLengthString(i, 5);
+      sk1.update(s);
+      sk2.update(s);
+    }
+    assertEquals(sk2.toByteArray(), sk1.toByteArray());
+  }
+
   @Test //set static enablePrinting = true for visual checking
   public void checkBounds() {
     final KllItemsSketch<String> sk = KllItemsSketch.newHeapInstance(Comparator.naturalOrder(), serDe);
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.parallel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.cpc.CpcSketch;
+import org.apache.datasketches.cpc.CpcUnion;
+import org.apache.datasketches.frequencies.ErrorType;
+import org.apache.datasketches.frequencies.LongsSketch;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.req.ReqSketch;
+import org.apache.datasketches.theta.CompactSketch;
+import org.apache.datasketches.theta.SetOperation;
+import org.apache.datasketches.theta.Union;
+import org.apache.datasketches.theta.UpdateSketch;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+import org.apache.datasketches.tuple.aninteger.IntegerSketch;
+import org.apache.datasketches.tuple.aninteger.IntegerSummary;
+import org.apache.datasketches.tuple.aninteger.IntegerSummarySetOperations;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class ParallelMergerTest {
+  private static final int NUM_SKETCHES = 500;
+  private static final int ITEMS_PER_SKETCH = 1000;
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @AfterClass
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  // small tasks so that the tree is deep
+  private <T, U, R> ParallelMerger<T, U, R> newMerger(final SketchMerger<T, U, R> merger) {
+    return new ParallelMerger<>(merger, pool, 1);
+  }
+
+  @Test
+  public void hllMatchesSequential() {
+    final List<HllSketch> sketches = new ArrayList<>();
+    final org.apache.datasketches.hll.Union union = new org.apache.datasketches.hll.Union(12);
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final HllSketch sketch = new HllSketch(12, TgtHllType.HLL_4);
+      for (int i = 0; i < ITEMS_PER_SKETCH; i++) { sketch.update((long) s * ITEMS_PER_SKETCH / 2 + i); }
+      sketches.add(sketch);
+      union.update(sketch);
+    }
+    final HllSketch result = newMerger(SketchMergers.hll(12, TgtHllType.HLL_4)).merge(sketches);
+    assertEquals(result.getEstimate(), union.getResult(TgtHllType.HLL_4).getEstimate());
+
+    final List<Memory> images = new ArrayList<>();
+    for (final HllSketch sketch: sketches) { images.add(Memory.wrap(sketch.toCompactByteArray())); }
+    final HllSketch fromImages = newMerger(SketchMergers.hll(12, TgtHllType.HLL_4).mapInputs(HllSketch::wrap))
+        .merge(images);
+    assertEquals(fromImages.getEstimate(), result.getEstimate());
+  }
+
+  @Test
+  public void cpcMatchesSequential() {
+    final List<Memory> images = new ArrayList<>();
+    final CpcUnion union = new CpcUnion(11);
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final CpcSketch sketch = new CpcSketch(11);
+      for (int i = 0; i < ITEMS_PER_SKETCH; i++) { sketch.update((long) s * ITEMS_PER_SKETCH / 2 + i); }
+      images.add(Memory.wrap(sketch.toByteArray()));
+      union.update(sketch);
+    }
+    final CpcSketch result = newMerger(SketchMergers.cpc(11).<Memory>mapInputs(CpcSketch::heapify)).merge(images);
+    assertEquals(result.getEstimate(), union.getResult().getEstimate());
+  }
+
+  @Test
+  public void thetaMatchesSequential() {
+    final List<Memory> images = new ArrayList<>();
+    final Union union = SetOperation.builder().buildUnion();
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final UpdateSketch sketch = UpdateSketch.builder().build();
+      for (int i = 0; i < ITEMS_PER_SKETCH; i++) { sketch.update((long) s * ITEMS_PER_SKETCH / 2 + i); }
+      images.add(Memory.wrap(sketch.compact().toByteArray()));
+      union.union(sketch);
+    }
+    final CompactSketch expected = union.getResult();
+    final CompactSketch result = newMerger(SketchMergers.thetaImages(4096, ThetaUtil.DEFAULT_UPDATE_SEED))
+        .merge(images);
+    assertEquals(result.getEstimate(), expected.getEstimate(), expected.getEstimate() * 0.05);
+    assertTrue(expected.getEstimate() <= result.getUpperBound(3));
+    assertTrue(expected.getEstimate() >= result.getLowerBound(3));
+  }
+
+  @Test
+  public void tupleMergesAllSummaries() {
+    final List<IntegerSketch> sketches = new ArrayList<>();
+    for (int s = 0; s < 100; s++) {
+      final IntegerSketch sketch = new IntegerSketch(12, IntegerSummary.Mode.Sum);
+      for (int i = 0; i < 10; i++) { sketch.update(i, 1); }
+      sketches.add(sketch);
+    }
+    final IntegerSummarySetOperations ops =
+        new IntegerSummarySetOperations(IntegerSummary.Mode.Sum, IntegerSummary.Mode.Sum);
+    final org.apache.datasketches.tuple.CompactSketch<IntegerSummary> result =
+        newMerger(SketchMergers.tuple(4096, ops)).merge(sketches);
+    assertEquals(result.getRetainedEntries(), 10);
+    final org.apache.datasketches.tuple.TupleSketchIterator<IntegerSummary> it = result.iterator();
+    while (it.next()) { assertEquals(it.getSummary().getValue(), 100); }
+  }
+
+  @Test
+  public void kllAndReqCountEverything() {
+    final List<KllDoublesSketch> kllSketches = new ArrayList<>();
+    final List<ReqSketch> reqSketches = new ArrayList<>();
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance();
+      final ReqSketch req = ReqSketch.builder().build();
+      for (int i = 0; i < ITEMS_PER_SKETCH; i++) {
+        kll.update(s * ITEMS_PER_SKETCH + i);
+        req.update(s * ITEMS_PER_SKETCH + i);
+      }
+      kllSketches.add(kll);
+      reqSketches.add(req);
+    }
+    final long n = (long) NUM_SKETCHES * ITEMS_PER_SKETCH;
+    final KllDoublesSketch kll = newMerger(SketchMergers.kllDoubles(200)).merge(kllSketches);
+    assertEquals(kll.getN(), n);
+    assertEquals(kll.getMinItem(), 0.0);
+    assertEquals(kll.getMaxItem(), n - 1.0);
+    assertEquals(kll.getRank(n / 2), 0.5, kll.getNormalizedRankError(false));
+    final ReqSketch req = newMerger(SketchMergers.req(12, true)).merge(reqSketches);
+    assertEquals(req.getN(), n);
+    assertEquals(req.getRank(n / 2), 0.5, 0.01);
+  }
+
+  @Test
+  public void frequentLongsMatchesSequential() {
+    final List<LongsSketch> sketches = new ArrayList<>();
+    final LongsSketch sequential = new LongsSketch(64);
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final LongsSketch sketch = new LongsSketch(64);
+      sketch.update(7, 10); // heavy hitter in every sketch
+      sketch.update(s);
+      sketches.add(sketch);
+      sequential.merge(sketch);
+    }
+    final LongsSketch result = newMerger(SketchMergers.frequentLongs(64)).merge(sketches);
+    assertEquals(result.getStreamLength(), sequential.getStreamLength());
+    assertEquals(result.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES)[0].getItem(), 7);
+    assertTrue(result.getLowerBound(7) <= 10 * NUM_SKETCHES && result.getUpperBound(7) >= 10 * NUM_SKETCHES);
+  }
+
+  @Test
+  public void spliteratorOfUnknownSizeAndEmpty() {
+    final List<HllSketch> sketches = new ArrayList<>();
+    for (int s = 0; s < 3000; s++) {
+      final HllSketch sketch = new HllSketch(10);
+      sketch.update(s);
+      sketches.add(sketch);
+    }
+    final ParallelMerger<HllSketch, org.apache.datasketches.hll.Union, HllSketch> merger =
+        new ParallelMerger<>(SketchMergers.hll(10, TgtHllType.HLL_8), pool, 16);
+    final HllSketch result = merger.merge(Spliterators.spliteratorUnknownSize(sketches.iterator(), 0));
+    assertEquals(result.getEstimate(), merger.merge(sketches).getEstimate());
+    assertEquals(result.getEstimate(), 3000, 3000 * 0.1);
+    assertTrue(merger.merge(Collections.<HllSketch>emptyList()).isEmpty());
+    assertTrue(new ParallelMerger<>(SketchMergers.hll(10, TgtHllType.HLL_8)).merge(sketches).getEstimate() > 0);
+  }
+
+  @Test
+  public void invalidArguments() {
+    assertThrows(SketchesArgumentException.class,
+        () -> new ParallelMerger<>(SketchMergers.cpc(11), pool, 0));
+    assertThrows(NullPointerException.class,
+        () -> new ParallelMerger<>(SketchMergers.cpc(11), null, 1));
+  }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.EXCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.kll.KllFloatsSketch;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantiles.UpdateDoublesSketch;
+import org.apache.datasketches.req.ReqSketch;
+import org.testng.annotations.Test;
+
+public class DirectSortedViewTest {
+
+  @Test
+  public void checkDoublesSnapshots() {
+    final Random rand = new Random(1);
+    final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance(50);
+    final UpdateDoublesSketch classic = UpdateDoublesSketch.builder().setK(32).build();
+    for (int i = 0; i < 20_000; i++) {
+      final double item = rand.nextInt(1000); // duplicates
+      kll.update(item);
+      classic.update(item);
+    }
+    checkSameDoubles(kll.getSortedView());
+    checkSameDoubles(classic.getSortedView());
+  }
+
+  @Test
+  public void checkFloatsSnapshots() {
+    final Random rand = new Random(2);
+    final KllFloatsSketch kll = KllFloatsSketch.newHeapInstance(50);
+    final ReqSketch req = ReqSketch.builder().setK(12).build();
+    for (int i = 0; i < 20_000; i++) {
+      final float item = rand.nextInt(1000);
+      kll.update(item);
+      req.update(item);
+    }
+    checkSameFloats(kll.getSortedView());
+    checkSameFloats(req.getSortedView());
+  }
+
+  @Test
+  public void checkSingleItem() {
+    final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance();
+    kll.update(3.0);
+    checkSameDoubles(kll.getSortedView());
+  }
+
+  @Test
+  public void checkPutMemoryAtRegion() {
+    final KllFloatsSketch kll = KllFloatsSketch.newHeapInstance();
+    for (int i = 1; i <= 1000; i++) { kll.update(i); }
+    final FloatsSortedView sv = kll.getSortedView();
+    final long bytes = DirectFloatsSortedView.getSerializedSizeBytes(sv);
+    final WritableMemory wmem = WritableMemory.allocate((int) bytes + 16);
+    DirectFloatsSortedView.putMemory(sv, wmem.writableRegion(16, bytes));
+    final DirectFloatsSortedView dsv = DirectFloatsSortedView.wrap(wmem.region(16, bytes));
+    assertEquals(dsv.getQuantile(0.5, INCLUSIVE), sv.getQuantile(0.5, INCLUSIVE));
+    assertEquals(dsv.getMaxItem(), 1000f);
+    assertEquals(dsv.getMinItem(), 1f);
+  }
+
+  @Test
+  public void checkBadMemory() {
+    final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance();
+    for (int i = 0; i < 100; i++) { kll.update(i); }
+    final byte[] bytes = DirectDoublesSortedView.toByteArray(kll.getSortedView());
+    checkWrapFails(Memory.wrap(new byte[16]));
+    checkWrapFails(Memory.wrap(bytes).region(0, bytes.length - 1));
+    final WritableMemory wmem = WritableMemory.writableWrap(bytes.clone());
+    wmem.putByte(SortedViewPreambleUtil.SERIAL_VERSION_BYTE, (byte) 9);
+    checkWrapFails(wmem);
+    checkWrapFails(Memory.wrap(bytes).region(0, 8));
+    try {
+      DirectFloatsSortedView.wrap(Memory.wrap(bytes));
+      assertTrue(false);
+    } catch (final SketchesArgumentException e) { } //type mismatch
+    try {
+      DirectDoublesSortedView.putMemory(kll.getSortedView(), WritableMemory.allocate(64));
+      assertTrue(false);
+    } catch (final SketchesArgumentException e) { } //too small
+  }
+
+  private static void checkWrapFails(final Memory mem) {
+    try {
+      DirectDoublesSortedView.wrap(mem);
+      assertTrue(false);
+    } catch (final SketchesArgumentException e) { }
+  }
+
+  private static void checkSameDoubles(final DoublesSortedView sv) {
+    final DirectDoublesSortedView dsv = DirectDoublesSortedView.wrap(Memory.wrap(DirectDoublesSortedView.toByteArray(sv)));
+    assertFalse(dsv.isEmpty());
+    assertEquals(dsv.getN(), sv.getN());
+    assertEquals(dsv.getNumRetained(), sv.getNumRetained());
+    assertEquals(dsv.getMinItem(), sv.getMinItem());
+    assertEquals(dsv.getMaxItem(), sv.getMaxItem());
+    assertEquals(dsv.getQuantiles(), sv.getQuantiles());
+    assertEquals(dsv.getCumulativeWeights(), sv.getCumulativeWeights());
+    final double[] splitPoints = {-1, 10, 250.5, 500, 999, 2000};
+    for (QuantileSearchCriteria crit : new QuantileSearchCriteria[] {INCLUSIVE, EXCLUSIVE}) {
+      for (int i = 0; i <= 100; i++) {
+        final double rank = i / 100.0;
+        assertEquals(dsv.getQuantile(rank, crit), sv.getQuantile(rank, crit));
+      }
+      for (double q = -2; q <= 1001; q += 0.5) {
+        assertEquals(dsv.getRank(q, crit), sv.getRank(q, crit));
+      }
+      assertEquals(dsv.getCDF(splitPoints, crit), sv.getCDF(splitPoints, crit));
+      assertEquals(dsv.getPMF(splitPoints, crit), sv.getPMF(splitPoints, crit));
+    }
+    final DoublesSortedViewIterator it = dsv.iterator();
+    final DoublesSortedViewIterator expected = sv.iterator();
+    while (expected.next()) {
+      assertTrue(it.next());
+      assertEquals(it.getQuantile(), expected.getQuantile());
+      assertEquals(it.getWeight(), expected.getWeight());
+    }
+    assertFalse(it.next());
+  }
+
+  private static void checkSameFloats(final FloatsSortedView sv) {
+    final DirectFloatsSortedView dsv = DirectFloatsSortedView.wrap(Memory.wrap(DirectFloatsSortedView.toByteArray(sv)));
+    assertEquals(dsv.getN(), sv.getN());
+    assertEquals(dsv.getNumRetained(), sv.getNumRetained());
+    assertEquals(dsv.getMinItem(), sv.getMinItem());
+    assertEquals(dsv.getMaxItem(), sv.getMaxItem());
+    assertEquals(dsv.getQuantiles(), sv.getQuantiles());
+    assertEquals(dsv.getCumulativeWeights(), sv.getCumulativeWeights());
+    final float[] splitPoints = {-1, 10, 250.5f, 500, 999, 2000};
+    for (QuantileSearchCriteria crit : new QuantileSearchCriteria[] {INCLUSIVE, EXCLUSIVE}) {
+      for (int i = 0; i <= 100; i++) {
+        final double rank = i / 100.0;
+        assertEquals(dsv.getQuantile(rank, crit), sv.getQuantile(rank, crit));
+      }
+      for (float q = -2; q <= 1001; q += 0.5f) {
+        assertEquals(dsv.getRank(q, crit), sv.getRank(q, crit));
+      }
+      assertEquals(dsv.getCDF(splitPoints, crit), sv.getCDF(splitPoints, crit));
+      assertEquals(dsv.getPMF(splitPoints, crit), sv.getPMF(splitPoints, crit));
+    }
+  }
+
+}
@@ -22,6 +22,10 @@ package org.apache.datasketches.quantilescommon;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.testng.annotations.Test;
 
@@ -105,5 +109,71 @@ public class QuantilesUtilTest {
     if (enablePrinting) { System.out.println(o.toString()); }
   }
 
-}
+  @Test
+  public void checkBatchQueriesMatchSingleQueries() {
+    final Random rand = new Random(1);
+    final int n = 200;
+    final double[] svQuantiles = new double[n];
+    final float[] svFloats = new float[n];
+    final Integer[] svItems = new Integer[n];
+    final long[] cumWeights = new long[n];
+    long cumWeight = 0;
+    for (int i = 0; i < n; i++) {
+      svQuantiles[i] = i / 3; // duplicates
+      svFloats[i] = i / 3;
+      svItems[i] = i / 3;
+      cumWeight += 1 + rand.nextInt(4);
+      cumWeights[i] = cumWeight;
+    }
+    final long totalN = cumWeight;
+    final DoublesSketchSortedView dsv = new DoublesSketchSortedView(svQuantiles, cumWeights, totalN, 66, 0);
+    final ItemsSketchSortedView<Integer> isv = new ItemsSketchSortedView<>(svItems, cumWeights, totalN,
+        Comparator.naturalOrder(), 66, 0, 0.01);
+    for (int numQueries : new int[] {1, 10, 300}) {
+      final double[] ranks = new double[numQueries];
+      final double[] quantiles = new double[numQueries];
+      for (int i = 0; i < numQueries; i++) {
+        ranks[i] = rand.nextDouble();
+        quantiles[i] = rand.nextInt(80) - 5;
+      }
+      ranks[0] = 1.0;
+      for (boolean sorted : new boolean[] {false, true}) {
+        if (sorted) {
+          Arrays.sort(ranks);
+          Arrays.sort(quantiles);
+        }
+        final float[] floats = new float[numQueries];
+        final Integer[] items = new Integer[numQueries];
+        for (int i = 0; i < numQueries; i++) {
+          floats[i] = (float) quantiles[i];
+          items[i] = (int) quantiles[i];
+        }
+        for (QuantileSearchCriteria crit : QuantileSearchCriteria.values()) {
+          final int[] indexes = QuantilesUtil.getQuantileIndexes(cumWeights, totalN, ranks, crit);
+          final double[] batchQuantiles = dsv.getQuantiles(ranks, crit);
+          final Integer[] batchItems = isv.getQuantiles(ranks, crit);
+          final double[] dRanks = QuantilesUtil.getRanks(svQuantiles, cumWeights, totalN, quantiles, crit);
+          final double[] fRanks = QuantilesUtil.getRanks(svFloats, cumWeights, totalN, floats, crit);
+          final double[] iRanks = isv.getRanks(items, crit);
+          for (int i = 0; i < numQueries; i++) {
+            final double quantile = dsv.getQuantile(ranks[i], crit);
+            assertEquals(svQuantiles[indexes[i]], quantile);
+            assertEquals(batchQuantiles[i], quantile);
+            assertEquals(batchItems[i], isv.getQuantile(ranks[i], crit));
+            final double rank = dsv.getRank(quantiles[i], crit);
+            assertEquals(dRanks[i], rank);
+            assertEquals(fRanks[i], rank);
+            assertEquals(iRanks[i], rank);
+          }
+        }
+      }
+    }
+  }
 
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkBatchQuantilesRankOutOfBounds() {
+    final long[] cumWeights = {1, 2, 3};
+    QuantilesUtil.getQuantileIndexes(cumWeights, 3, new double[] {0.1, 0.5, 1.5}, QuantileSearchCriteria.INCLUSIVE);
+  }
+
+}
@@ -525,6 +525,36 @@ public class ReservoirItemsSketchTest {
     }
   }
 
+  @Test
+  public void checkSkipSamplingIsUniform() {
+    final int k = 8;
+    final int n = 64;
+    final int numTrials = 20000;
+
+    final int[] counts = new int[n];
+    final int[] restartCounts = new int[n];
+    for (int t = 0; t < numTrials; ++t) {
+      final ReservoirItemsSketch<Long> ris = ReservoirItemsSketch.newInstance(k);
+      for (long i = 0; i < n; ++i) { ris.update(i); }
+      for (final Long s : ris.getSamples()) { ++counts[s.intValue()]; }
+
+      // heapify drops the skip state, which must then be drawn given n
+      ReservoirItemsSketch<Long> restart = ReservoirItemsSketch.newInstance(k);
+      for (long i = 0; i < (n / 2); ++i) { restart.update(i); }
+      restart = ReservoirItemsSketch.heapify(
+          Memory.wrap(restart.toByteArray(new ArrayOfLongsSerDe())), new ArrayOfLongsSerDe());
+      for (long i = n / 2; i < n; ++i) { restart.update(i); }
+      for (final Long s : restart.getSamples()) { ++restartCounts[s.intValue()]; }
+    }
+
+    final double expected = (numTrials * (double) k) / n;
+    final double tolerance = 5 * Math.sqrt(expected * (1 - ((double) k / n)));
+    for (int i = 0; i < n; ++i) {
+      assertEquals(counts[i], expected, tolerance);
+      assertEquals(restartCounts[i], expected, tolerance);
+    }
+  }
+
   @Test
   public void checkEstimateSubsetSum() {
     final int k = 10;
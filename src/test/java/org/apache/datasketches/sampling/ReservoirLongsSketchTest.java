@@ -403,6 +403,76 @@ public class ReservoirLongsSketchTest {
     }
   }
 
+  @Test
+  public void checkSkipSamplingIsUniform() {
+    final int k = 8;
+    final int n = 64;
+    final int numTrials = 40000;
+    final long[] items = new long[n];
+    for (int i = 0; i < n; ++i) { items[i] = i; }
+
+    final int[] singleCounts = new int[n];
+    final int[] bulkCounts = new int[n];
+    final int[] restartCounts = new int[n];
+    for (int t = 0; t < numTrials; ++t) {
+      final ReservoirLongsSketch single = ReservoirLongsSketch.newInstance(k);
+      for (int i = 0; i < n; ++i) { single.update(items[i]); }
+      for (final long s : single.getSamples()) { ++singleCounts[(int) s]; }
+
+      final ReservoirLongsSketch bulk = ReservoirLongsSketch.newInstance(k);
+      bulk.update(items, 0, 5);
+      bulk.update(items, 5, n);
+      for (final long s : bulk.getSamples()) { ++bulkCounts[(int) s]; }
+
+      // heapify drops the skip state, which must then be drawn given n
+      ReservoirLongsSketch restart = ReservoirLongsSketch.newInstance(k);
+      restart.update(items, 0, n / 2);
+      restart = ReservoirLongsSketch.heapify(Memory.wrap(restart.toByteArray()));
+      restart.update(items, n / 2, n);
+      for (final long s : restart.getSamples()) { ++restartCounts[(int) s]; }
+    }
+
+    final double expected = (numTrials * (double) k) / n;
+    final double tolerance = 5 * Math.sqrt(expected * (1 - ((double) k / n)));
+    for (int i = 0; i < n; ++i) {
+      assertEquals(singleCounts[i], expected, tolerance);
+      assertEquals(bulkCounts[i], expected, tolerance);
+      assertEquals(restartCounts[i], expected, tolerance);
+    }
+  }
+
+  @Test
+  public void checkBulkUpdate() {
+    final long[] items = new long[1000];
+    for (int i = 0; i < items.length; ++i) { items[i] = i; }
+
+    final ReservoirLongsSketch rls = ReservoirLongsSketch.newInstance(16);
+    rls.update(items, 100, 110);
+    assertEquals(rls.getN(), 10);
+    assertEquals(rls.getSamples()[0], 100);
+    rls.update(items, 110, 110);
+    assertEquals(rls.getN(), 10);
+    rls.update(items, 500, 1000);
+    assertEquals(rls.getN(), 510);
+    assertEquals(rls.getNumSamples(), 16);
+    for (final long s : rls.getSamples()) {
+      assertTrue(((s >= 100) && (s < 110)) || (s >= 500));
+    }
+
+    try {
+      rls.update(items, 10, 5);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+    try {
+      rls.update(items, 0, 1001);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+  }
+
   @Test
   public void cluster_checkEstimateSubsetSum() {
     int cluster = 3;
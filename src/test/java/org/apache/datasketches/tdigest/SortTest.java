@@ -58,4 +58,48 @@ public class SortTest {
     }
   }
 
+  @Test
+  public void sortSingleArray() {
+    final int n = 1000;
+    final double[] shuffled = new double[n];
+    for (int i = 0; i < n; i++) shuffled[i] = i % 100; // many duplicates
+    Shuffle.shuffle(shuffled);
+    final double[] keys = new double[n + 1];
+    System.arraycopy(shuffled, 0, keys, 0, n);
+    keys[n] = -1; // beyond n, must not be touched
+    Sort.sort(keys, n);
+    for (int i = 0; i < n; i++) {
+      assertEquals(keys[i], i / 10);
+    }
+    assertEquals(keys[n], -1.0);
+
+    final double[] small = {3, 1, 2};
+    Sort.sort(small, small.length);
+    assertEquals(small, new double[] {1, 2, 3});
+    Sort.sort(small, 0); // no-op
+  }
+
+  @Test
+  public void floats() {
+    final int n = 1000;
+    final float[] keys = new float[n];
+    final int[] values = new int[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = i;
+      values[i] = i;
+    }
+    Sort.reverse(keys, n);
+    Sort.reverse(values, n);
+    assertEquals(keys[0], n - 1f);
+    assertEquals(values[0], n - 1);
+
+    final float[] shuffled = new float[n];
+    for (int i = 0; i < n; i++) shuffled[i] = i % 100; // many duplicates
+    Shuffle.shuffle(shuffled);
+    Sort.sort(shuffled, n);
+    for (int i = 0; i < n; i++) {
+      assertEquals(shuffled[i], (float) (i / 10));
+    }
+  }
+
 }
@@ -24,9 +24,14 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.TestUtil;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.testng.annotations.Test;
 
 public class TDigestDoubleTest {
@@ -98,6 +103,50 @@ public class TDigestDoubleTest {
     assertEquals(td1.getMaxValue(), 3);
   }
 
+  @Test
+  public void mergeWithTiesIsRepeatable() {
+    // many equal values in the buffers and the centroids of both TDigests
+    final byte[] bytes = mergeWithTies();
+    for (int i = 0; i < 10; i++) { assertEquals(mergeWithTies(), bytes); }
+  }
+
+  private static byte[] mergeWithTies() {
+    final TDigestDouble td1 = new TDigestDouble((short) 50);
+    final TDigestDouble td2 = new TDigestDouble((short) 50);
+    for (int i = 0; i < 3000; i++) {
+      td1.update(i % 20);
+      td2.update(i % 30);
+      if (i == 2000) { td2.compress(); }
+    }
+    td1.merge(td2);
+    assertEquals(td1.getTotalWeight(), 6000);
+    td1.merge(td2);
+    return td1.toByteArray();
+  }
+
+  @Test
+  public void mergeInterleavedBuffersAndCentroids() {
+    // both TDigests hold centroids and buffered values, all interleaved in value
+    final int n = 20000;
+    final TDigestDouble td1 = new TDigestDouble((short) 100);
+    final TDigestDouble td2 = new TDigestDouble((short) 100);
+    for (int i = 0; i < n; i += 2) {
+      td1.update(i);
+      td2.update(i + 1);
+      if (i == n / 2) {
+        td1.compress();
+        td2.compress();
+      }
+    }
+    td1.merge(td2);
+    assertEquals(td1.getTotalWeight(), n);
+    assertEquals(td1.getMinValue(), 0);
+    assertEquals(td1.getMaxValue(), n - 1);
+    for (int i = 1; i < 10; i++) {
+      assertEquals(td1.getRank(n * i / 10), i / 10.0, 0.01);
+    }
+  }
+
   @Test
   public void mergeLarge() {
     final int n = 10000;
@@ -114,6 +163,74 @@ public class TDigestDoubleTest {
 //    System.out.println(td1.toString(true));
   }
 
+  @Test
+  public void repeatedMergeReusesScratch() {
+    final TDigestDouble target = new TDigestDouble((short) 100);
+    final TDigestDouble reference = new TDigestDouble((short) 100);
+    for (int r = 0; r < 20; r++) {
+      final TDigestDouble other = new TDigestDouble((short) 200); // larger than target to grow scratch
+      for (int i = 0; i < 1000; i++) {
+        other.update(r * 1000 + i);
+        reference.update(r * 1000 + i);
+      }
+      target.merge(other);
+    }
+    assertEquals(target.getTotalWeight(), 20000);
+    assertEquals(target.getMinValue(), 0);
+    assertEquals(target.getMaxValue(), 19999);
+    assertEquals(target.getRank(10000), reference.getRank(10000), 0.01);
+    assertEquals(target.getQuantile(0.9), reference.getQuantile(0.9), 200);
+  }
+
+  @Test
+  public void batchQueries() {
+    final TDigestDouble td = new TDigestDouble((short) 100);
+    final Random rand = new Random(1);
+    for (int i = 0; i < 10000; i++) { td.update(rand.nextGaussian()); }
+    final double[] values = {0.5, -3, 0, 10, td.getMinValue(), -0.5, td.getMaxValue(), 0}; // not sorted
+    final double[] ranks = td.getRanks(values);
+    for (int i = 0; i < values.length; i++) { assertEquals(ranks[i], td.getRank(values[i])); }
+    final double[] normRanks = {0.9, 0, 0.1, 1, 0.5, 0.01, 0.99, 0.5};
+    final double[] quantiles = td.getQuantiles(normRanks);
+    for (int i = 0; i < normRanks.length; i++) { assertEquals(quantiles[i], td.getQuantile(normRanks[i])); }
+    assertEquals(td.getRanks(new double[0]).length, 0);
+    assertThrows(SketchesArgumentException.class, () -> td.getRanks(new double[] {0, Double.NaN}));
+    assertThrows(SketchesArgumentException.class, () -> td.getQuantiles(new double[] {0.5, 1.1}));
+    assertThrows(SketchesStateException.class, () -> new TDigestDouble().getQuantiles(new double[] {0.5}));
+  }
+
+  @Test
+  public void rightTailQuantiles() {
+    // the quantiles of the right tail are interpolated towards the max value, never past it
+    final Random rnd = new Random(1);
+    for (int n = 1; n <= 3000; n += 37) {
+      final TDigestDouble td = new TDigestDouble((short) 20);
+      for (int i = 0; i < n; i++) { td.update(rnd.nextGaussian()); }
+      for (int r = 900; r <= 1000; r++) {
+        final double q = td.getQuantile(r / 1000.0);
+        assertTrue(q >= td.getMinValue() && q <= td.getMaxValue());
+      }
+      assertEquals(td.getQuantile(1), td.getMaxValue());
+    }
+  }
+
+  @Test
+  public void cdfAndPmf() {
+    final TDigestDouble td = new TDigestDouble();
+    final int n = 10000;
+    for (int i = 0; i < n; i++) { td.update(i); }
+    final double[] splitPoints = {n / 4, n / 2, n * 3 / 4};
+    final double[] cdf = td.getCDF(splitPoints);
+    assertEquals(cdf.length, 4);
+    for (int i = 0; i < splitPoints.length; i++) { assertEquals(cdf[i], td.getRank(splitPoints[i])); }
+    assertEquals(cdf[3], 1.0);
+    final double[] pmf = td.getPMF(splitPoints);
+    assertEquals(pmf.length, 4);
+    for (int i = 0; i < pmf.length; i++) { assertEquals(pmf[i], 0.25, 0.001); }
+    assertThrows(SketchesArgumentException.class, () -> td.getCDF(new double[] {2, 1}));
+    assertThrows(SketchesStateException.class, () -> new TDigestDouble().getPMF(splitPoints));
+  }
+
   @Test
   public void serializeDeserializeEmpty() {
     final TDigestDouble td1 = new TDigestDouble();
@@ -170,4 +287,136 @@ public class TDigestDoubleTest {
     assertEquals(td.getRank(n * 3 / 4), 0.75, 0.0001);
     assertEquals(td.getRank(n), 1);
   }
+
+  @Test
+  public void directEmpty() {
+    final WritableMemory wmem = WritableMemory.allocate((int) TDigestDouble.getUpdatableStorageBytes((short) 100));
+    final TDigestDouble td = TDigestDouble.newDirectInstance((short) 100, wmem);
+    assertTrue(td.hasMemory());
+    assertFalse(td.isDirect());
+    assertFalse(td.isReadOnly());
+    assertTrue(td.isEmpty());
+    assertEquals(td.getK(), 100);
+    assertEquals(td.getTotalWeight(), 0);
+    assertThrows(SketchesStateException.class, () -> td.getRank(0));
+    assertTrue(TDigestDouble.heapify(wmem).isEmpty());
+    assertEquals(td.toByteArray(), new TDigestDouble((short) 100).toByteArray());
+  }
+
+  @Test
+  public void directUpdateMatchesHeap() {
+    final WritableMemory wmem = WritableMemory.allocate((int) TDigestDouble.getUpdatableStorageBytes((short) 100));
+    final TDigestDouble direct = TDigestDouble.newDirectInstance((short) 100, wmem);
+    final TDigestDouble heap = new TDigestDouble((short) 100);
+    final Random rand = new Random(1);
+    for (int i = 0; i < 100000; i++) {
+      final double value = rand.nextGaussian();
+      direct.update(value);
+      heap.update(value);
+      if (i == 50000) { // the state survives wrapping again
+        assertEquals(TDigestDouble.writableWrap(wmem).getTotalWeight(), i + 1);
+      }
+    }
+    assertEquals(direct.getTotalWeight(), heap.getTotalWeight());
+    assertEquals(direct.getMinValue(), heap.getMinValue());
+    assertEquals(direct.getMaxValue(), heap.getMaxValue());
+    for (double rank = 0; rank <= 1; rank += 0.1) {
+      assertEquals(direct.getQuantile(rank), heap.getQuantile(rank));
+    }
+    assertEquals(direct.getRank(0.5), heap.getRank(0.5));
+    assertEquals(direct.toByteArray(), heap.toByteArray());
+    assertEquals(TDigestDouble.heapify(wmem).toByteArray(), heap.toByteArray());
+  }
+
+  @Test
+  public void directMerge() {
+    final WritableMemory wmem = WritableMemory.allocate((int) TDigestDouble.getUpdatableStorageBytes((short) 100));
+    final TDigestDouble direct = TDigestDouble.newDirectInstance((short) 100, wmem);
+    final TDigestDouble heap = new TDigestDouble((short) 100);
+    for (int i = 0; i < 5000; i++) {
+      direct.update(i);
+      heap.update(5000 + i);
+    }
+    direct.merge(heap);
+    assertEquals(direct.getTotalWeight(), 10000);
+    assertEquals(direct.getMinValue(), 0);
+    assertEquals(direct.getMaxValue(), 9999);
+    assertEquals(direct.getRank(5000), 0.5, 0.01);
+
+    // merging a wrapped image into a heap TDigest does not change the image
+    final byte[] before = getBytes(wmem);
+    final TDigestDouble other = new TDigestDouble((short) 100);
+    other.update(-1);
+    other.merge(TDigestDouble.wrap(wmem));
+    assertEquals(other.getTotalWeight(), 10001);
+    assertEquals(other.getMinValue(), -1);
+    assertEquals(getBytes(wmem), before);
+  }
+
+  @Test
+  public void wrapCompact() {
+    final TDigestDouble heap = new TDigestDouble((short) 100);
+    for (int i = 0; i < 10000; i++) { heap.update(i); }
+    final byte[] bytes = heap.toByteArray();
+    final TDigestDouble td = TDigestDouble.wrap(Memory.wrap(bytes));
+    assertTrue(td.isReadOnly());
+    assertEquals(td.getK(), 100);
+    assertEquals(td.getTotalWeight(), 10000);
+    assertEquals(td.getMinValue(), 0);
+    assertEquals(td.getMaxValue(), 9999);
+    assertEquals(td.getRank(5000), heap.getRank(5000));
+    assertEquals(td.getQuantile(0.5), heap.getQuantile(0.5));
+    assertEquals(td.toByteArray(), bytes);
+    assertThrows(SketchesReadOnlyException.class, () -> td.update(1));
+    assertThrows(SketchesReadOnlyException.class, () -> td.merge(heap));
+    assertTrue(TDigestDouble.writableWrap(WritableMemory.writableWrap(bytes)).isReadOnly());
+
+    // empty and single value images are heapified
+    assertTrue(TDigestDouble.wrap(Memory.wrap(new TDigestDouble().toByteArray())).isEmpty());
+    final TDigestDouble single = new TDigestDouble();
+    single.update(1);
+    assertEquals(TDigestDouble.wrap(Memory.wrap(single.toByteArray())).getMaxValue(), 1);
+  }
+
+  @Test
+  public void wrapUpdatableWithBuffer() {
+    final WritableMemory wmem = WritableMemory.allocate((int) TDigestDouble.getUpdatableStorageBytes((short) 100));
+    final TDigestDouble direct = TDigestDouble.newDirectInstance((short) 100, wmem);
+    for (int i = 0; i < 1000; i++) { direct.update(i); } // buffered only
+    final byte[] before = getBytes(wmem);
+    final TDigestDouble td = TDigestDouble.wrap(wmem);
+    assertTrue(td.isReadOnly());
+    assertEquals(td.getRank(500), 0.5, 0.01);
+    assertEquals(td.getQuantile(0.5), 500, 10);
+    assertEquals(td.getRanks(new double[] {500, 250}), new double[] {td.getRank(500), td.getRank(250)});
+    assertEquals(td.getQuantiles(new double[] {0.5}), new double[] {td.getQuantile(0.5)});
+    assertEquals(getBytes(wmem), before); // queries did not compress the image
+    assertThrows(SketchesReadOnlyException.class, () -> td.compress());
+
+    // the read-only view follows the updates made through the writable one
+    final double quantile = td.getQuantile(0.5);
+    final TDigestDouble heap = new TDigestDouble((short) 100);
+    for (int i = 0; i < 2000; i++) {
+      if (i >= 1000) { direct.update(i); }
+      heap.update(i);
+    }
+    assertEquals(td.getTotalWeight(), 2000);
+    assertEquals(td.getQuantile(0.5), heap.getQuantile(0.5));
+    assertEquals(td.getQuantile(1), 1999);
+    assertEquals(td.toByteArray(), direct.toByteArray()); // compresses the image
+    assertEquals(td.getQuantile(0.5), direct.getQuantile(0.5));
+    assertTrue(td.getQuantile(0.5) != quantile);
+  }
+
+  @Test
+  public void directInsufficientMemory() {
+    final WritableMemory wmem = WritableMemory.allocate((int) TDigestDouble.getUpdatableStorageBytes((short) 100) - 1);
+    assertThrows(SketchesArgumentException.class, () -> TDigestDouble.newDirectInstance((short) 100, wmem));
+  }
+
+  private static byte[] getBytes(final Memory mem) {
+    final byte[] bytes = new byte[(int) mem.getCapacity()];
+    mem.getByteArray(0, bytes, 0, bytes.length);
+    return bytes;
+  }
 }
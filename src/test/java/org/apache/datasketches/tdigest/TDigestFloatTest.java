@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.tdigest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.testng.annotations.Test;
+
+public class TDigestFloatTest {
+
+  @Test
+  public void empty() {
+    final TDigestFloat td = new TDigestFloat((short) 100);
+    assertTrue(td.isEmpty());
+    assertEquals(td.getK(), 100);
+    assertEquals(td.getTotalWeight(), 0);
+    assertThrows(SketchesStateException.class, () -> td.getMinValue());
+    assertThrows(SketchesStateException.class, () -> td.getMaxValue());
+    assertThrows(SketchesStateException.class, () -> td.getRank(0));
+    assertThrows(SketchesStateException.class, () -> td.getQuantile(0.5));
+  }
+
+  @Test
+  public void oneValue() {
+    final TDigestFloat td = new TDigestFloat();
+    td.update(1);
+    assertFalse(td.isEmpty());
+    assertEquals(td.getK(), 200);
+    assertEquals(td.getTotalWeight(), 1);
+    assertEquals(td.getMinValue(), 1f);
+    assertEquals(td.getMaxValue(), 1f);
+    assertEquals(td.getRank(0.99f), 0);
+    assertEquals(td.getRank(1), 0.5);
+    assertEquals(td.getRank(1.01f), 1);
+    assertEquals(td.getQuantile(0), 1f);
+    assertEquals(td.getQuantile(0.5), 1f);
+    assertEquals(td.getQuantile(1), 1f);
+  }
+
+  @Test
+  public void manyValues() {
+    final TDigestFloat td = new TDigestFloat();
+    final int n = 10000;
+    for (int i = 0; i < n; i++) td.update(i);
+    assertFalse(td.isEmpty());
+    assertEquals(td.getTotalWeight(), n);
+    assertEquals(td.getMinValue(), 0f);
+    assertEquals(td.getMaxValue(), n - 1f);
+    assertEquals(td.getRank(0), 0, 0.0001);
+    assertEquals(td.getRank(n / 4), 0.25, 0.0001);
+    assertEquals(td.getRank(n / 2), 0.5, 0.0001);
+    assertEquals(td.getRank(n * 3 / 4), 0.75, 0.0001);
+    assertEquals(td.getRank(n), 1);
+    assertEquals(td.getQuantile(0), 0f);
+    assertEquals(td.getQuantile(0.5), n / 2, n / 2 * 0.03);
+    assertEquals(td.getQuantile(0.9), n * 0.9, n * 0.9 * 0.01);
+    assertEquals(td.getQuantile(1), n - 1f);
+  }
+
+  @Test
+  public void accuracyMatchesDouble() {
+    final int n = 100000;
+    final float[] values = new float[n];
+    final Random rand = new Random(1);
+    for (int i = 0; i < n; i++) { values[i] = (float) Math.exp(rand.nextGaussian()); } // skewed like latencies
+    final float[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (short k : new short[] {100, 200}) {
+      final TDigestFloat tdFloat = new TDigestFloat(k);
+      final TDigestDouble tdDouble = new TDigestDouble(k);
+      for (int i = 0; i < n; i++) {
+        tdFloat.update(values[i]);
+        tdDouble.update(values[i]);
+      }
+      double maxErrorFloat = 0;
+      double maxErrorDouble = 0;
+      for (int i = 1; i < 100; i++) {
+        final float value = sorted[n / 100 * i];
+        final double trueRank = (double) n / 100 * i / n;
+        assertEquals(tdFloat.getRank(value), trueRank, 0.005);
+        assertEquals(tdFloat.getRank(value), tdDouble.getRank(value), 0.0005);
+        maxErrorFloat = Math.max(maxErrorFloat, Math.abs(tdFloat.getRank(value) - trueRank));
+        maxErrorDouble = Math.max(maxErrorDouble, Math.abs(tdDouble.getRank(value) - trueRank));
+      }
+      assertEquals(maxErrorFloat, maxErrorDouble, 0.0005);
+      assertTrue(tdFloat.toByteArray().length < tdDouble.toByteArray().length * 0.6);
+    }
+  }
+
+  @Test
+  public void batchQueries() {
+    final TDigestFloat td = new TDigestFloat((short) 100);
+    final Random rand = new Random(1);
+    for (int i = 0; i < 10000; i++) { td.update((float) rand.nextGaussian()); }
+    final float[] values = {0.5f, -3, 0, 10, td.getMinValue(), -0.5f, td.getMaxValue(), 0}; // not sorted
+    final double[] ranks = td.getRanks(values);
+    for (int i = 0; i < values.length; i++) { assertEquals(ranks[i], td.getRank(values[i])); }
+    final double[] normRanks = {0.9, 0, 0.1, 1, 0.5, 0.01, 0.99, 0.5};
+    final float[] quantiles = td.getQuantiles(normRanks);
+    for (int i = 0; i < normRanks.length; i++) { assertEquals(quantiles[i], td.getQuantile(normRanks[i])); }
+    assertThrows(SketchesArgumentException.class, () -> td.getRanks(new float[] {0, Float.NaN}));
+    assertThrows(SketchesArgumentException.class, () -> td.getQuantiles(new double[] {0.5, -0.1}));
+
+    final double[] cdf = td.getCDF(new float[] {-1, 0, 1});
+    assertEquals(cdf.length, 4);
+    assertEquals(cdf[3], 1.0);
+    final double[] pmf = td.getPMF(new float[] {-1, 0, 1});
+    assertEquals(pmf[0] + pmf[1] + pmf[2] + pmf[3], 1.0, 1e-9);
+    assertEquals(pmf[1], 0.34, 0.01);
+    assertThrows(SketchesArgumentException.class, () -> td.getCDF(new float[] {1, 1}));
+  }
+
+  @Test
+  public void mergeWithTiesIsRepeatable() {
+    // many equal values in the buffers and the centroids of both TDigests
+    final byte[] bytes = mergeWithTies();
+    for (int i = 0; i < 10; i++) { assertEquals(mergeWithTies(), bytes); }
+  }
+
+  private static byte[] mergeWithTies() {
+    final TDigestFloat td1 = new TDigestFloat((short) 50);
+    final TDigestFloat td2 = new TDigestFloat((short) 50);
+    for (int i = 0; i < 3000; i++) {
+      td1.update(i % 20);
+      td2.update(i % 30);
+      if (i == 2000) { td2.compress(); }
+    }
+    td1.merge(td2);
+    assertEquals(td1.getTotalWeight(), 6000);
+    td1.merge(td2);
+    return td1.toByteArray();
+  }
+
+  @Test
+  public void mergeLarge() {
+    final int n = 10000;
+    final TDigestFloat td1 = new TDigestFloat();
+    final TDigestFloat td2 = new TDigestFloat();
+    for (int i = 0; i < n / 2; i++) {
+      td1.update(i);
+      td2.update(n / 2 + i);
+    }
+    td1.merge(td2);
+    assertEquals(td1.getTotalWeight(), n);
+    assertEquals(td1.getMinValue(), 0f);
+    assertEquals(td1.getMaxValue(), n - 1f);
+    assertEquals(td1.getRank(n / 2), 0.5, 0.001);
+    assertEquals(td2.getTotalWeight(), n / 2);
+  }
+
+  @Test
+  public void serializeDeserialize() {
+    final TDigestFloat empty = TDigestFloat.heapify(Memory.wrap(new TDigestFloat((short) 50).toByteArray()));
+    assertTrue(empty.isEmpty());
+    assertEquals(empty.getK(), 50);
+
+    final TDigestFloat single = new TDigestFloat();
+    single.update(2);
+    final byte[] singleBytes = single.toByteArray();
+    assertEquals(singleBytes.length, Long.BYTES + Float.BYTES);
+    assertEquals(TDigestFloat.heapify(Memory.wrap(singleBytes)).getMaxValue(), 2f);
+
+    final TDigestFloat td1 = new TDigestFloat();
+    for (int i = 0; i < 10000; i++) td1.update(i);
+    final byte[] bytes = td1.toByteArray();
+    final TDigestFloat td2 = TDigestFloat.heapify(Memory.wrap(bytes));
+    assertEquals(td2.getK(), td1.getK());
+    assertEquals(td2.getTotalWeight(), td1.getTotalWeight());
+    assertEquals(td2.getMinValue(), td1.getMinValue());
+    assertEquals(td2.getMaxValue(), td1.getMaxValue());
+    assertEquals(td2.getRank(5000), td1.getRank(5000));
+    assertEquals(td2.getQuantile(0.5), td1.getQuantile(0.5));
+    assertEquals(td2.toByteArray(), bytes);
+
+    // the same format can be read into a TDigestDouble
+    final TDigestDouble tdDouble = TDigestDouble.heapify(Memory.wrap(bytes), true);
+    assertEquals(tdDouble.getTotalWeight(), td1.getTotalWeight());
+    assertEquals(tdDouble.getRank(5000), td1.getRank(5000), 1e-6);
+
+    assertThrows(SketchesArgumentException.class, () -> TDigestFloat.heapify(Memory.wrap(new byte[8])));
+  }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class ConcurrentPropagationExecutorTest {
+
+  @Test
+  public void checkSharedPoolAcrossSketches() throws InterruptedException {
+    final int lgK = 9;
+    final int numSketches = 8;
+    final int u = 100 * (1 << lgK);
+    final ConcurrentPropagationExecutor executor = ConcurrentPropagationExecutor.newFixedThreadPool(3);
+    assertTrue(executor.isOwned());
+    final UpdateSketchBuilder bldr = new UpdateSketchBuilder()
+        .setLogNominalEntries(lgK)
+        .setPropagationExecutor(executor);
+    assertTrue(bldr.getPropagationExecutor() == executor);
+
+    final UpdateSketch[] shared = new UpdateSketch[numSketches];
+    final UpdateSketch[] local = new UpdateSketch[numSketches];
+    for (int s = 0; s < numSketches; s++) {
+      shared[s] = ((s & 1) == 0)
+          ? bldr.buildShared()
+          : bldr.buildShared(WritableMemory.allocate((2 << lgK) * 8 + 32));
+      local[s] = bldr.buildLocal(shared[s]);
+    }
+    for (int i = 0; i < u; i++) {
+      for (int s = 0; s < numSketches; s++) { local[s].update(i); }
+    }
+    for (int s = 0; s < numSketches; s++) {
+      ((ConcurrentSharedThetaSketch) shared[s]).awaitBgPropagationTermination();
+      assertEquals(shared[s].getEstimate(), u, u * 0.1);
+    }
+    assertEquals(executor.getQueueDepth(), 0);
+    assertTrue(executor.getNumCompletedPropagations() > 0);
+    assertTrue(executor.getMaxPropagationLatencyNanos() > 0);
+    assertTrue(executor.getMeanPropagationLatencyNanos() > 0);
+    assertTrue(executor.getMeanPropagationLatencyNanos() <= executor.getMaxPropagationLatencyNanos());
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    //After shutdown, propagation tasks are run by the submitting thread
+    final UpdateSketch shared2 = bldr.buildShared();
+    final UpdateSketch local2 = bldr.buildLocal(shared2);
+    for (int i = 0; i < u; i++) { local2.update(i); }
+    ((ConcurrentSharedThetaSketch) shared2).awaitBgPropagationTermination();
+    assertEquals(shared2.getEstimate(), u, u * 0.1);
+    shared2.reset();
+    assertTrue(shared2.isEmpty());
+  }
+
+  @Test
+  public void checkDefaultExecutor() throws InterruptedException {
+    final ConcurrentPropagationExecutor executor = ConcurrentPropagationExecutor.getDefault();
+    assertTrue(ConcurrentPropagationExecutor.getDefault() == executor);
+    assertTrue(executor.isOwned());
+    final long completedBefore = executor.getNumCompletedPropagations();
+    final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setLogNominalEntries(9);
+    assertTrue(bldr.getPropagationExecutor() == null);
+    final UpdateSketch shared = bldr.buildShared();
+    final UpdateSketch local = bldr.buildLocal(shared);
+    final int u = 100_000;
+    for (int i = 0; i < u; i++) { local.update(i); }
+    ((ConcurrentSharedThetaSketch) shared).awaitBgPropagationTermination();
+    assertEquals(shared.getEstimate(), u, u * 0.1);
+    assertTrue(executor.getNumCompletedPropagations() > completedBefore);
+
+    //the pool threads do not keep the JVM alive
+    final boolean[] daemon = new boolean[1];
+    final ConcurrentPropagationExecutor.Lane lane = executor.newLane();
+    lane.execute(() -> daemon[0] = Thread.currentThread().isDaemon());
+    lane.awaitQuiescence();
+    assertTrue(daemon[0]);
+
+    //after shutdown the existing sketches propagate in the submitting thread, and new ones get a new pool
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertTrue(executor.isShutdown());
+    for (int i = u; i < 2 * u; i++) { local.update(i); }
+    ((ConcurrentSharedThetaSketch) shared).awaitBgPropagationTermination();
+    assertEquals(shared.getEstimate(), 2 * u, 2 * u * 0.1);
+    final ConcurrentPropagationExecutor next = ConcurrentPropagationExecutor.getDefault();
+    assertTrue(next != executor);
+    assertFalse(next.isShutdown());
+  }
+
+  @Test
+  public void checkCallerSuppliedExecutor() throws InterruptedException {
+    final ConcurrentPropagationExecutor executor = ConcurrentPropagationExecutor.of(Runnable::run);
+    assertFalse(executor.isOwned());
+    assertEquals(executor.getMeanPropagationLatencyNanos(), 0.0);
+    final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setPropagationExecutor(executor);
+    final UpdateSketch shared = bldr.buildShared();
+    final UpdateSketch local = bldr.buildLocal(shared);
+    final int u = 100_000;
+    for (int i = 0; i < u; i++) { local.update(i); }
+    assertEquals(shared.getEstimate(), u, u * 0.1);
+    executor.shutdown(); //no effect on a caller-supplied executor
+    assertTrue(executor.awaitTermination(1, TimeUnit.MILLISECONDS));
+    assertTrue(bldr.toString().contains("PropagationExecutor"));
+  }
+
+  @Test
+  public void checkRejectedTasksRunInLoop() throws InterruptedException {
+    final ConcurrentPropagationExecutor executor = ConcurrentPropagationExecutor.of(r -> {
+      throw new RejectedExecutionException();
+    });
+    final ConcurrentPropagationExecutor.Lane lane = executor.newLane();
+    final int n = 100_000;
+    final int[] count = new int[1];
+    final Runnable task = () -> {
+      assertFalse(Thread.holdsLock(lane)); //other writers are not blocked while it runs
+      count[0]++;
+    };
+    //the tasks submitted by a running task queue up behind it, so a recursive drain would overflow the stack
+    lane.execute(() -> {
+      for (int i = 0; i < n; i++) { lane.execute(task); }
+    });
+    lane.awaitQuiescence();
+    assertEquals(count[0], n);
+    assertEquals(executor.getNumCompletedPropagations(), n + 1);
+    assertEquals(executor.getQueueDepth(), 0);
+
+    //a failed task does not stall the lane
+    try {
+      lane.execute(() -> {
+        lane.execute(task);
+        throw new IllegalStateException();
+      });
+      fail();
+    } catch (final IllegalStateException e) {
+      //expected, thrown by the task run in the caller
+    }
+    lane.awaitQuiescence();
+    assertEquals(count[0], n + 1);
+  }
+
+  @Test
+  public void checkVirtualThreads() {
+    if (ConcurrentPropagationExecutor.isVirtualThreadPerTaskSupported()) {
+      final ConcurrentPropagationExecutor executor = ConcurrentPropagationExecutor.newVirtualThreadPerTask();
+      final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setPropagationExecutor(executor);
+      final UpdateSketch shared = bldr.buildShared();
+      final UpdateSketch local = bldr.buildLocal(shared);
+      for (int i = 0; i < 100_000; i++) { local.update(i); }
+      ((ConcurrentSharedThetaSketch) shared).awaitBgPropagationTermination();
+      assertEquals(shared.getEstimate(), 100_000, 10_000);
+      executor.shutdown();
+    } else {
+      try {
+        ConcurrentPropagationExecutor.newVirtualThreadPerTask();
+        fail();
+      } catch (final SketchesStateException e) {
+        //expected
+      }
+    }
+  }
+
+  @Test
+  public void checkBadArgs() {
+    try {
+      ConcurrentPropagationExecutor.newFixedThreadPool(0);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      ConcurrentPropagationExecutor.of(null);
+      fail();
+    } catch (final NullPointerException e) {
+      //expected
+    }
+  }
+
+}
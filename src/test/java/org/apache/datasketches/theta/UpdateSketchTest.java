@@ -226,6 +226,44 @@ public class UpdateSketchTest {
     assertTrue(cskwmem1.equals(cskwmem3));
   }
 
+  @Test
+  public void checkUpdateAll() {
+    final int k = 512;
+    final int n = 10000;
+    final long[] longs = new long[n];
+    final int[] ints = new int[n];
+    final double[] doubles = new double[n];
+    final String[] strings = new String[n];
+    for (int i = 0; i < n; i++) {
+      longs[i] = i;
+      ints[i] = -i;
+      doubles[i] = i / 3.0;
+      strings[i] = (i % 100 == 0) ? null : Integer.toString(i);
+    }
+    doubles[1] = -0.0;
+    doubles[2] = Double.NaN;
+    strings[1] = "";
+    final UpdateSketch sk1 = UpdateSketch.builder().setNominalEntries(k).build();
+    final UpdateSketch sk2 = UpdateSketch.builder().setNominalEntries(k).build();
+    final UpdateSketch sk3 = UpdateSketch.builder().setNominalEntries(k)
+        .build(WritableMemory.allocate(Sketch.getMaxUpdateSketchBytes(k)));
+    for (int i = 1; i < n; i++) { sk1.update(longs[i]); }
+    for (int i = 1; i < n; i++) { sk1.update((long) ints[i]); }
+    for (int i = 1; i < n; i++) { sk1.update(doubles[i]); }
+    for (int i = 1; i < n; i++) { sk1.update(strings[i]); }
+    for (UpdateSketch sk : new UpdateSketch[] {sk2, sk3}) {
+      sk.updateAll(longs, 1, n);
+      sk.updateAll(ints, 1, n);
+      sk.updateAll(doubles, 1, n);
+      sk.updateAll(strings, 1, n);
+      assertEquals(sk.compact().toByteArray(), sk1.compact().toByteArray());
+    }
+    try {
+      sk2.updateAll(longs, 2, 1);
+      fail();
+    } catch (SketchesArgumentException e) { }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());